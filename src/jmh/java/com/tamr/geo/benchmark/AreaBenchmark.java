@@ -0,0 +1,78 @@
+package com.tamr.geo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.GeometryStore;
+import com.tamr.geo.SurfaceArea;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Compares {@link TamrGeoUtils#calculateArea} with {@link SurfaceArea} on the sphere and the WGS84 ellipsoid, from the
+ * Shape and from the packed coordinates of a {@link GeometryStore}.  <code>storeCalculateArea</code> is the cost of the
+ * area of coordinates with {@link TamrGeoUtils#calculateArea}, which first needs a Shape built from them.
+ * SurfaceArea is expected to be the slower of the two on a built Shape: it is the accurate one, not the fast one.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="AreaBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AreaBenchmark {
+
+	@Param({ "uShapedHumanGeneratedBuilding.json", "pentagon.json", "texas.json", "alaska.json" })
+	public String fixture;
+
+	private TamrGeoUtils gu;
+	private Shape shape;
+	private GeometryStore store;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		gu = new TamrGeoUtils();
+		shape = gu.fromGeoJson(BenchmarkShapes.readFixture(fixture));
+		store = new GeometryStore(gu);
+		store.add(shape);
+	}
+
+	@Benchmark
+	public double calculateArea() {
+		return gu.calculateArea(shape);
+	}
+
+	@Benchmark
+	public double sphere() {
+		return SurfaceArea.SPHERE.calculateArea(shape);
+	}
+
+	@Benchmark
+	public double wgs84() {
+		return SurfaceArea.WGS84.calculateArea(shape);
+	}
+
+	@Benchmark
+	public double storeCalculateArea() {
+		return gu.calculateArea(store.getShape(0));
+	}
+
+	@Benchmark
+	public double storeSphere() {
+		return store.calculateArea(0, SurfaceArea.SPHERE);
+	}
+}
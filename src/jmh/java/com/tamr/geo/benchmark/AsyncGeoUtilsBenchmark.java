@@ -0,0 +1,93 @@
+package com.tamr.geo.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.AsyncGeoUtils;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Latency of intersection areas in a stream of pairs where one pair in <code>HEAVY_EVERY</code> is a pair of huge
+ * footprints whose overlay takes hundreds of milliseconds.  <code>direct</code> calls
+ * {@link TamrGeoUtils#getIntersectionArea} on the calling threads, <code>async</code> calls
+ * {@link AsyncGeoUtils#getIntersectionArea} with a deadline of <code>DEADLINE_MILLIS</code> and waits for the
+ * result.  Compare the p0.99 and p0.999 of the two modes: direct waits for every huge pair, async returns the
+ * bounding box estimate at the deadline.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="AsyncGeoUtilsBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AsyncGeoUtilsBenchmark {
+
+	private static final int CORPUS_SIZE = 1024;
+	private static final int HEAVY_EVERY = 1024;
+	private static final int HEAVY_VERTICES = 1000;
+	private static final long DEADLINE_MILLIS = 10;
+
+	@Param({ "direct", "async" })
+	public String mode;
+
+	private TamrGeoUtils gu;
+	private AsyncGeoUtils async;
+	private List<Shape> human;
+	private List<Shape> ml;
+	private Shape heavyHuman;
+	private Shape heavyMl;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		gu = new TamrGeoUtils();
+		async = new AsyncGeoUtils(gu, Runtime.getRuntime().availableProcessors(), 256);
+		human = BenchmarkShapes.generateBuildings(gu, 42L, CORPUS_SIZE, 16);
+		ml = BenchmarkShapes.redrawBuildings(gu, 43L, human, 16);
+		Random random = new Random(44L);
+		heavyHuman = BenchmarkShapes.generateBuilding(gu, random, -77, 38.8, HEAVY_VERTICES);
+		heavyMl = BenchmarkShapes.redrawBuildings(gu, 45L, Collections.singletonList(heavyHuman),
+				HEAVY_VERTICES).get(0);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		async.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		int next;
+	}
+
+	@Benchmark
+	public double intersectionArea(Cursor cursor) throws Exception {
+		int i = cursor.next++;
+		Shape s1 = i % HEAVY_EVERY == HEAVY_EVERY - 1 ? heavyHuman : human.get(i & (CORPUS_SIZE - 1));
+		Shape s2 = i % HEAVY_EVERY == HEAVY_EVERY - 1 ? heavyMl : ml.get(i & (CORPUS_SIZE - 1));
+		if (mode.equals("direct")) {
+			return gu.getIntersectionArea(s1, s2);
+		}
+		return async.getIntersectionArea(s1, s2, DEADLINE_MILLIS, TimeUnit.MILLISECONDS).get();
+	}
+}
@@ -0,0 +1,78 @@
+package com.tamr.geo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.BatchSimilarity;
+import com.tamr.geo.SimilarityResults;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Compares computing the full set of similarity measures of a corpus of building footprint pairs one pair at a time
+ * with the {@link TamrGeoUtils} operations against computing them with {@link BatchSimilarity}, which converts each
+ * Shape once and uses every core.  Each invocation computes the whole corpus.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="BatchSimilarityBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchSimilarityBenchmark {
+
+	private static final int CORPUS_SIZE = 1024;
+
+	@Param({ "16", "64" })
+	public int vertices;
+
+	private TamrGeoUtils gu;
+	private BatchSimilarity batch;
+	private List<Shape> human;
+	private List<Shape> ml;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		gu = new TamrGeoUtils();
+		batch = new BatchSimilarity(gu);
+		human = BenchmarkShapes.generateBuildings(gu, 42L, CORPUS_SIZE, vertices);
+		ml = BenchmarkShapes.redrawBuildings(gu, 43L, human, vertices);
+	}
+
+	@Benchmark
+	public double onePairAtATime() {
+		double sum = 0;
+		for (int i = 0; i < CORPUS_SIZE; i++) {
+			Shape h = human.get(i);
+			Shape m = ml.get(i);
+			double intersectionArea = gu.getIntersectionArea(m, h);
+			double union = gu.calculateArea(m) + gu.calculateArea(h) - intersectionArea;
+			sum += intersectionArea;
+			sum += union > 0 ? intersectionArea / union : 0;
+			sum += gu.calculateDistance(gu.getCentroid(m), gu.getCentroid(h));
+			sum += gu.getHausdorffSimilarity(m, h);
+			sum += gu.getHausdorffSimilarity(gu.relocate(m, h), h);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public SimilarityResults batch() {
+		return batch.compute(ml, human);
+	}
+}
@@ -0,0 +1,145 @@
+package com.tamr.geo.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.ShapeFactory.PolygonBuilder;
+
+import com.google.common.io.Resources;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Shared inputs for the benchmarks: the geoJson fixtures from src/test/resources/testGeoJson and generated
+ * corpora of building footprints with a known number of vertices.
+ */
+public final class BenchmarkShapes {
+
+	private static final String GEOJSON_DIR = "testGeoJson";
+
+	// Roughly the location of the sample buildings used throughout the tests.
+	public static final double BASE_LON = -76.9404;
+	public static final double BASE_LAT = 38.8927;
+
+	// A typical footprint is 10 to 30 meters across, a little over 1.0E-4 degrees.
+	private static final double RADIUS_DEGREES = 0.0001;
+	// toGeoJson writes 6 decimal places, keep neighboring vertices well apart so a round trip stays valid.
+	private static final double MIN_VERTEX_SPACING_DEGREES = 0.00001;
+
+	private BenchmarkShapes() {
+	}
+
+	/**
+	 * Read a fixture from the testGeoJson resource directory into a String.
+	 *
+	 * @param fileName The name of the fixture, e.g. texas.json
+	 * @return The contents of the fixture
+	 * @throws IOException
+	 */
+	public static String readFixture(String fileName) throws IOException {
+		final String path = String.format("%s/%s", GEOJSON_DIR, fileName);
+		final URL url = BenchmarkShapes.class.getClassLoader().getResource(path);
+		if (url == null) {
+			throw new IOException("No such fixture: " + path);
+		}
+		return Resources.toString(url, UTF_8);
+	}
+
+	/**
+	 * Create a building-like polygon with exactly the given number of distinct vertices.  The polygon is star shaped
+	 * around its center (vertices are placed at increasing angles with a random radius) so it is always valid.
+	 * Footprints with many vertices are made larger so that they still survive a round trip through geoJson.
+	 *
+	 * @param gu The TamrGeoUtils whose SpatialContext builds the Shape
+	 * @param random Source of randomness, seed it for repeatable corpora
+	 * @param centerX Longitude of the center of the building
+	 * @param centerY Latitude of the center of the building
+	 * @param vertices Number of distinct vertices, at least 3
+	 * @return The generated polygon
+	 */
+	public static Shape generateBuilding(TamrGeoUtils gu, Random random, double centerX, double centerY, int vertices) {
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		PolygonBuilder builder = sf.polygon();
+		double baseRadius = Math.max(RADIUS_DEGREES, vertices * MIN_VERTEX_SPACING_DEGREES / Math.PI);
+		double firstX = 0;
+		double firstY = 0;
+		for (int i = 0; i < vertices; i++) {
+			double angle = 2 * Math.PI * (i + 0.5 * random.nextDouble()) / vertices;
+			double radius = baseRadius * (0.85 + 0.3 * random.nextDouble());
+			double x = centerX + radius * Math.cos(angle);
+			double y = centerY + radius * Math.sin(angle);
+			if (i == 0) {
+				firstX = x;
+				firstY = y;
+			}
+			builder.pointXY(x, y);
+		}
+		builder.pointXY(firstX, firstY);
+		return builder.build();
+	}
+
+	/**
+	 * Create a corpus of buildings scattered over a few square kilometers around the sample buildings.
+	 *
+	 * @param gu The TamrGeoUtils whose SpatialContext builds the Shapes
+	 * @param seed Random seed, the same seed always produces the same corpus
+	 * @param count Number of buildings
+	 * @param vertices Number of vertices per building
+	 * @return The generated buildings
+	 */
+	public static List<Shape> generateBuildings(TamrGeoUtils gu, long seed, int count, int vertices) {
+		Random random = new Random(seed);
+		List<Shape> buildings = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			double x = BASE_LON + (random.nextDouble() - 0.5) * 0.05;
+			double y = BASE_LAT + (random.nextDouble() - 0.5) * 0.05;
+			buildings.add(generateBuilding(gu, random, x, y, vertices));
+		}
+		return buildings;
+	}
+
+	/**
+	 * Create a second version of each building, shifted by up to a few meters and with re-drawn vertices, the way
+	 * an ML generated footprint differs from a human drawn one.
+	 *
+	 * @param gu The TamrGeoUtils whose SpatialContext builds the Shapes
+	 * @param seed Random seed, the same seed always produces the same corpus
+	 * @param buildings The buildings to redraw
+	 * @param vertices Number of vertices per redrawn building
+	 * @return The redrawn buildings, in the same order as buildings
+	 */
+	public static List<Shape> redrawBuildings(TamrGeoUtils gu, long seed, List<Shape> buildings, int vertices) {
+		Random random = new Random(seed);
+		List<Shape> redrawn = new ArrayList<>(buildings.size());
+		for (Shape building : buildings) {
+			Point center = gu.getCentroid(building);
+			double x = center.getX() + (random.nextDouble() - 0.5) * 0.00006;
+			double y = center.getY() + (random.nextDouble() - 0.5) * 0.00006;
+			redrawn.add(generateBuilding(gu, random, x, y, vertices));
+		}
+		return redrawn;
+	}
+
+	/**
+	 * Return a copy of the given Shape moved east by the given fraction of its own width, so that it partially
+	 * overlaps the original.
+	 *
+	 * @param gu The TamrGeoUtils used to relocate the Shape
+	 * @param shape The Shape to shift
+	 * @param fractionOfWidth How far to move it, as a fraction of the width of its bounding box
+	 * @return The shifted copy
+	 */
+	public static Shape shiftEast(TamrGeoUtils gu, Shape shape, double fractionOfWidth) {
+		Point center = gu.getCentroid(shape);
+		double offset = shape.getBoundingBox().getWidth() * fractionOfWidth;
+		Point dest = gu.getSpatialContext().getShapeFactory().pointXY(center.getX() + offset, center.getY());
+		return gu.relocate(shape, dest);
+	}
+}
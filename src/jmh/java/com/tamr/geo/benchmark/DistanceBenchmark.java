@@ -0,0 +1,103 @@
+package com.tamr.geo.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.DistanceKernels;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Compares {@link TamrGeoUtils#calculateDistance} over Points with the {@link DistanceKernels} over coordinate arrays,
+ * for the distances from each of {@value #ROWS} coordinates to each of {@value #COLUMNS} others.  Scores are per
+ * distance.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="DistanceBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DistanceBenchmark {
+
+	private static final int ROWS = 64;
+	private static final int COLUMNS = 1024;
+
+	private TamrGeoUtils gu;
+	private Point[] points1;
+	private Point[] points2;
+	private double[] lons1;
+	private double[] lats1;
+	private double[] lons2;
+	private double[] lats2;
+	private double[] out;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Random random = new Random(42L);
+		lons1 = new double[ROWS];
+		lats1 = new double[ROWS];
+		points1 = new Point[ROWS];
+		for (int i = 0; i < ROWS; i++) {
+			lons1[i] = random.nextDouble() * 360 - 180;
+			lats1[i] = random.nextDouble() * 180 - 90;
+			points1[i] = sf.pointXY(lons1[i], lats1[i]);
+		}
+		lons2 = new double[COLUMNS];
+		lats2 = new double[COLUMNS];
+		points2 = new Point[COLUMNS];
+		for (int j = 0; j < COLUMNS; j++) {
+			lons2[j] = random.nextDouble() * 360 - 180;
+			lats2[j] = random.nextDouble() * 180 - 90;
+			points2[j] = sf.pointXY(lons2[j], lats2[j]);
+		}
+		out = new double[ROWS * COLUMNS];
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS * COLUMNS)
+	public double[] calculateDistance() {
+		for (int i = 0; i < ROWS; i++) {
+			for (int j = 0; j < COLUMNS; j++) {
+				out[i * COLUMNS + j] = gu.calculateDistance(points1[i], points2[j]);
+			}
+		}
+		return out;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS * COLUMNS)
+	public double[] oneToMany() {
+		double[] row = new double[COLUMNS];
+		for (int i = 0; i < ROWS; i++) {
+			DistanceKernels.oneToMany(lons1[i], lats1[i], lons2, lats2, row);
+			System.arraycopy(row, 0, out, i * COLUMNS, COLUMNS);
+		}
+		return out;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS * COLUMNS)
+	public double[] manyToMany() {
+		DistanceKernels.manyToMany(lons1, lats1, lons2, lats2, out);
+		return out;
+	}
+}
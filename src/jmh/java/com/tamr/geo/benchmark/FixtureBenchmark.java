@@ -0,0 +1,150 @@
+package com.tamr.geo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Benchmarks every public operation of {@link TamrGeoUtils} against the geoJson fixtures used by the tests.  The
+ * fixtures cover a wide range of vertex counts:
+ * <pre>
+ *   oneStoryHouse.json                     5
+ *   uShapedMLGeneratedBuilding.json       10
+ *   highSchoolVeryHighLat.json            11
+ *   uShapedHumanGeneratedBuilding.json    13
+ *   identicalBuilding1.json               17
+ *   pentagon.json                        309
+ *   texas.json                           589
+ *   alaska.json                          762 (MultiPolygon crossing the dateline)
+ * </pre>
+ * texas.json and alaska.json are GeometryCollections, which are only supported by the single Shape operations, so the
+ * pairwise operations use the polygon fixtures only.  See {@link GeneratedBuildingBenchmark} for scaling by vertex
+ * count on generated footprints.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="FixtureBenchmark"</code>, add <code>-prof gc</code> to the arguments to
+ * report allocation rates.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixtureBenchmark {
+
+	@State(Scope.Thread)
+	public static class AllFixtures {
+		@Param({ "oneStoryHouse.json", "uShapedMLGeneratedBuilding.json", "highSchoolVeryHighLat.json",
+				"uShapedHumanGeneratedBuilding.json", "identicalBuilding1.json", "pentagon.json", "texas.json",
+				"alaska.json" })
+		public String fixture;
+
+		TamrGeoUtils gu;
+		String geoJson;
+		Shape shape;
+		Point centroid;
+
+		@Setup
+		public void setup() throws Exception {
+			gu = new TamrGeoUtils();
+			geoJson = BenchmarkShapes.readFixture(fixture);
+			shape = gu.fromGeoJson(geoJson);
+			centroid = gu.getCentroid(shape);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class PolygonFixtures {
+		@Param({ "oneStoryHouse.json", "uShapedMLGeneratedBuilding.json", "highSchoolVeryHighLat.json",
+				"uShapedHumanGeneratedBuilding.json", "identicalBuilding1.json", "pentagon.json" })
+		public String fixture;
+
+		TamrGeoUtils gu;
+		Shape shape;
+		Shape shifted;
+
+		@Setup
+		public void setup() throws Exception {
+			gu = new TamrGeoUtils();
+			shape = gu.fromGeoJson(BenchmarkShapes.readFixture(fixture));
+			shifted = BenchmarkShapes.shiftEast(gu, shape, 0.25);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Centroids {
+		TamrGeoUtils gu;
+		Point p1;
+		Point p2;
+
+		@Setup
+		public void setup() throws Exception {
+			gu = new TamrGeoUtils();
+			p1 = gu.getCentroid(gu.fromGeoJson(BenchmarkShapes.readFixture("identicalBuildingCentroid1.json")));
+			p2 = gu.getCentroid(gu.fromGeoJson(BenchmarkShapes.readFixture("identicalBuildingCentroid2.json")));
+		}
+	}
+
+	@Benchmark
+	public Shape fromGeoJson(AllFixtures state) throws Exception {
+		return state.gu.fromGeoJson(state.geoJson);
+	}
+
+	@Benchmark
+	public String toGeoJson(AllFixtures state) {
+		return state.gu.toGeoJson(state.shape);
+	}
+
+	@Benchmark
+	public double calculateArea(AllFixtures state) {
+		return state.gu.calculateArea(state.shape);
+	}
+
+	@Benchmark
+	public Point getCentroid(AllFixtures state) {
+		return state.gu.getCentroid(state.shape);
+	}
+
+	@Benchmark
+	public boolean polygonContainsPoint(AllFixtures state) {
+		return state.gu.polygonContainsPoint(state.shape, state.centroid);
+	}
+
+	@Benchmark
+	public Shape getIntersection(PolygonFixtures state) {
+		return state.gu.getIntersection(state.shape, state.shifted);
+	}
+
+	@Benchmark
+	public double getIntersectionArea(PolygonFixtures state) {
+		return state.gu.getIntersectionArea(state.shape, state.shifted);
+	}
+
+	@Benchmark
+	public Shape relocate(PolygonFixtures state) {
+		return state.gu.relocate(state.shape, state.shifted);
+	}
+
+	@Benchmark
+	public double getHausdorffSimilarity(PolygonFixtures state) {
+		return state.gu.getHausdorffSimilarity(state.shape, state.shifted);
+	}
+
+	@Benchmark
+	public double calculateDistance(Centroids state) {
+		return state.gu.calculateDistance(state.p1, state.p2);
+	}
+}
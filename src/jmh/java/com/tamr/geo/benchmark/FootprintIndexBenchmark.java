@@ -0,0 +1,91 @@
+package com.tamr.geo.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.FootprintIndex;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Throughput of a {@link FootprintIndex} under a mixed workload, a feed of generated building footprints where each
+ * operation is either an update (insert the next footprint and delete the oldest, so the index keeps its size) or a
+ * query (the 5 nearest footprints of the next footprint), in the proportion set by <code>queryFraction</code>.
+ * <code>nearDuplicates</code> measures the duplicate check run for each new footprint of the feed.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="FootprintIndexBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FootprintIndexBenchmark {
+
+	private static final int FEED_SIZE = 1 << 17;
+
+	@Param({ "10000", "100000" })
+	public int indexSize;
+
+	@Param({ "0.1", "0.5", "0.9" })
+	public double queryFraction;
+
+	private TamrGeoUtils gu;
+	private List<Shape> feed;
+	private FootprintIndex index;
+	private int[] ids;
+	private int oldest;
+	private int next;
+	private Random random;
+	private final double[] distances = new double[5];
+
+	@Setup(Level.Trial)
+	public void setup() {
+		gu = new TamrGeoUtils();
+		feed = BenchmarkShapes.generateBuildings(gu, 42L, FEED_SIZE, 8);
+		index = new FootprintIndex(gu);
+		ids = new int[FEED_SIZE];
+		for (next = 0; next < indexSize; next++) {
+			ids[next] = index.insert(feed.get(next));
+		}
+		random = new Random(7);
+	}
+
+	private Shape nextFootprint() {
+		return feed.get(next & (FEED_SIZE - 1));
+	}
+
+	@Benchmark
+	public int mixedWorkload() {
+		if (random.nextDouble() < queryFraction) {
+			return index.nearest(gu.getCentroid(nextFootprint()), 5, distances).length;
+		}
+		int slot = next & (FEED_SIZE - 1);
+		index.delete(ids[oldest & (FEED_SIZE - 1)]);
+		oldest++;
+		ids[slot] = index.insert(feed.get(slot));
+		next++;
+		return ids[slot];
+	}
+
+	@Benchmark
+	public int nearDuplicates() {
+		next++;
+		return index.nearDuplicates(nextFootprint(), 10, 0.5, 0.5).length;
+	}
+}
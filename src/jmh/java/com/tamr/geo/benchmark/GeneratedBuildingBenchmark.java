@@ -0,0 +1,139 @@
+package com.tamr.geo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.Alignment;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Benchmarks every public operation of {@link TamrGeoUtils} over a generated corpus of building footprint pairs,
+ * one human drawn and one redrawn (ML style) version of each building.  The <code>vertices</code> parameter sets the
+ * number of vertices of every footprint so the results show how each operation scales with vertex count.  Each
+ * invocation works on the next pair of the corpus so the results are not skewed by a single lucky shape.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="GeneratedBuildingBenchmark"</code>, add <code>-prof gc</code> to the
+ * arguments to report allocation rates.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeneratedBuildingBenchmark {
+
+	private static final int CORPUS_SIZE = 1024;
+
+	@Param({ "4", "8", "16", "64", "256", "1024" })
+	public int vertices;
+
+	private TamrGeoUtils gu;
+	private List<Shape> human;
+	private List<Shape> ml;
+	private List<String> humanGeoJson;
+	private List<Point> centroids;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		gu = new TamrGeoUtils();
+		human = BenchmarkShapes.generateBuildings(gu, 42L, CORPUS_SIZE, vertices);
+		ml = BenchmarkShapes.redrawBuildings(gu, 43L, human, vertices);
+		humanGeoJson = new ArrayList<>(CORPUS_SIZE);
+		centroids = new ArrayList<>(CORPUS_SIZE);
+		for (Shape s : human) {
+			humanGeoJson.add(gu.toGeoJson(s));
+			centroids.add(gu.getCentroid(s));
+		}
+	}
+
+	private int nextIndex() {
+		next = (next + 1) & (CORPUS_SIZE - 1);
+		return next;
+	}
+
+	@Benchmark
+	public Shape fromGeoJson() throws Exception {
+		return gu.fromGeoJson(humanGeoJson.get(nextIndex()));
+	}
+
+	@Benchmark
+	public String toGeoJson() {
+		return gu.toGeoJson(human.get(nextIndex()));
+	}
+
+	@Benchmark
+	public double calculateArea() {
+		return gu.calculateArea(human.get(nextIndex()));
+	}
+
+	@Benchmark
+	public Point getCentroid() {
+		return gu.getCentroid(human.get(nextIndex()));
+	}
+
+	@Benchmark
+	public boolean polygonContainsPoint() {
+		int i = nextIndex();
+		return gu.polygonContainsPoint(ml.get(i), centroids.get(i));
+	}
+
+	@Benchmark
+	public double calculateDistance() {
+		int i = nextIndex();
+		return gu.calculateDistance(centroids.get(i), centroids.get((i + 1) & (CORPUS_SIZE - 1)));
+	}
+
+	@Benchmark
+	public Shape getIntersection() {
+		int i = nextIndex();
+		return gu.getIntersection(human.get(i), ml.get(i));
+	}
+
+	@Benchmark
+	public double getIntersectionArea() {
+		int i = nextIndex();
+		return gu.getIntersectionArea(human.get(i), ml.get(i));
+	}
+
+	@Benchmark
+	public Shape relocate() {
+		int i = nextIndex();
+		return gu.relocate(human.get(i), ml.get(i));
+	}
+
+	@Benchmark
+	public Alignment align() {
+		int i = nextIndex();
+		return gu.align(human.get(i), ml.get(i));
+	}
+
+	@Benchmark
+	public Alignment alignWithRotation() {
+		int i = nextIndex();
+		return gu.align(human.get(i), ml.get(i), 5);
+	}
+
+	@Benchmark
+	public double getHausdorffSimilarity() {
+		int i = nextIndex();
+		return gu.getHausdorffSimilarity(human.get(i), ml.get(i));
+	}
+}
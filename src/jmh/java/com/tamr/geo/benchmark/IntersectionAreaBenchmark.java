@@ -0,0 +1,109 @@
+package com.tamr.geo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.ShapeFactory.PolygonBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Compares {@link TamrGeoUtils#getIntersectionArea(Shape, Shape)} with the area of
+ * {@link TamrGeoUtils#getIntersection(Shape, Shape)} for pairs of building footprints that overlap in each of the
+ * ways the area is found: not at all, identical copies, one inside the other, a footprint and a convex (regular)
+ * polygon, and two redrawn versions of the same footprint.  Each invocation works on the next pair of the corpus.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="IntersectionAreaBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntersectionAreaBenchmark {
+
+	private static final int CORPUS_SIZE = 1024;
+
+	@Param({ "disjoint", "identical", "contained", "convex", "partial" })
+	public String overlap;
+
+	@Param({ "16", "256" })
+	public int vertices;
+
+	private TamrGeoUtils gu;
+	private List<Shape> left;
+	private List<Shape> right;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		gu = new TamrGeoUtils();
+		left = BenchmarkShapes.generateBuildings(gu, 42L, CORPUS_SIZE, vertices);
+		if (overlap.equals("partial")) {
+			right = BenchmarkShapes.redrawBuildings(gu, 43L, left, vertices);
+			return;
+		}
+		right = new ArrayList<>(CORPUS_SIZE);
+		for (Shape building : left) {
+			Point center = gu.getCentroid(building);
+			double radius = building.getBoundingBox().getHeight() / 2;
+			switch (overlap) {
+			case "disjoint":
+				right.add(BenchmarkShapes.shiftEast(gu, building, 1.5));
+				break;
+			case "identical":
+				right.add(gu.relocate(building, building));
+				break;
+			case "contained":
+				right.add(regularPolygon(gu, center.getX(), center.getY(), radius / 3, vertices));
+				break;
+			default:
+				right.add(regularPolygon(gu, center.getX() + radius / 2, center.getY(), radius, vertices));
+			}
+		}
+	}
+
+	private int nextIndex() {
+		next = (next + 1) & (CORPUS_SIZE - 1);
+		return next;
+	}
+
+	@Benchmark
+	public double getIntersectionArea() {
+		int i = nextIndex();
+		return gu.getIntersectionArea(left.get(i), right.get(i));
+	}
+
+	@Benchmark
+	public double areaOfIntersection() {
+		int i = nextIndex();
+		return gu.calculateArea(gu.getIntersection(left.get(i), right.get(i)));
+	}
+
+	private static Shape regularPolygon(TamrGeoUtils gu, double x, double y, double radius, int vertices) {
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		PolygonBuilder builder = sf.polygon();
+		for (int i = 0; i <= vertices; i++) {
+			double angle = 2 * Math.PI * (i % vertices) / vertices;
+			builder.pointXY(x + radius * Math.cos(angle), y + radius * Math.sin(angle));
+		}
+		return builder.build();
+	}
+}
@@ -0,0 +1,117 @@
+package com.tamr.geo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.LocalProjection;
+import com.tamr.geo.TamrGeoUtils;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Area, intersection area and centroid distance of generated building footprint pairs, computed by
+ * {@link TamrGeoUtils} in degrees and by a {@link LocalProjection} on footprints projected once in the setup.
+ * <code>project</code> is the cost of projecting one footprint, paid once per footprint however many pairs it is in.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="LocalProjectionBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocalProjectionBenchmark {
+
+	private static final int CORPUS_SIZE = 1024;
+
+	@Param({ "8", "64" })
+	public int vertices;
+
+	private TamrGeoUtils gu;
+	private LocalProjection projection;
+	private List<Shape> human;
+	private List<Shape> ml;
+	private List<Point> humanCentroids = new ArrayList<>();
+	private List<Point> mlCentroids = new ArrayList<>();
+	private List<Geometry> projectedHuman = new ArrayList<>();
+	private List<Geometry> projectedMl = new ArrayList<>();
+	private List<Geometry> projectedHumanCentroids = new ArrayList<>();
+	private List<Geometry> projectedMlCentroids = new ArrayList<>();
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		gu = new TamrGeoUtils();
+		human = BenchmarkShapes.generateBuildings(gu, 42L, CORPUS_SIZE, vertices);
+		ml = BenchmarkShapes.redrawBuildings(gu, 43L, human, vertices);
+		projection = gu.getLocalProjection(gu.getCentroid(human.get(0)));
+		for (int i = 0; i < CORPUS_SIZE; i++) {
+			humanCentroids.add(gu.getCentroid(human.get(i)));
+			mlCentroids.add(gu.getCentroid(ml.get(i)));
+			projectedHuman.add(projection.project(human.get(i)));
+			projectedMl.add(projection.project(ml.get(i)));
+			projectedHumanCentroids.add(projection.project(humanCentroids.get(i)));
+			projectedMlCentroids.add(projection.project(mlCentroids.get(i)));
+		}
+	}
+
+	private int nextPair() {
+		next = (next + 1) & (CORPUS_SIZE - 1);
+		return next;
+	}
+
+	@Benchmark
+	public double geographicArea() {
+		return gu.calculateArea(human.get(nextPair()));
+	}
+
+	@Benchmark
+	public double projectedArea() {
+		return projection.calculateArea(projectedHuman.get(nextPair()));
+	}
+
+	@Benchmark
+	public double geographicIntersectionArea() {
+		int i = nextPair();
+		return gu.getIntersectionArea(human.get(i), ml.get(i));
+	}
+
+	@Benchmark
+	public double projectedIntersectionArea() {
+		int i = nextPair();
+		return projection.getIntersectionArea(projectedHuman.get(i), projectedMl.get(i));
+	}
+
+	@Benchmark
+	public double geographicDistance() {
+		int i = nextPair();
+		return gu.calculateDistance(humanCentroids.get(i), mlCentroids.get(i));
+	}
+
+	@Benchmark
+	public double projectedDistance() {
+		int i = nextPair();
+		return projectedHumanCentroids.get(i).distance(projectedMlCentroids.get(i));
+	}
+
+	@Benchmark
+	public Geometry project() {
+		return projection.project(human.get(nextPair()));
+	}
+}
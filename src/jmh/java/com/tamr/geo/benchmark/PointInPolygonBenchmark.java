@@ -0,0 +1,92 @@
+package com.tamr.geo.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.PreparedPolygon;
+import com.tamr.geo.QuadtreePolygon;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Compares {@link TamrGeoUtils#polygonContainsPoint} with {@link PreparedPolygon#containsPoint} and
+ * {@link QuadtreePolygon#containsPoint} for random points in the bounding box of polygons with a growing number of
+ * vertices.  The cost of preparing or decomposing the polygon is paid once in the setup, as it would be when testing
+ * millions of points against the same polygon.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="PointInPolygonBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PointInPolygonBenchmark {
+
+	private static final int NUM_POINTS = 4096;
+
+	@Param({ "uShapedHumanGeneratedBuilding.json", "pentagon.json", "texas.json", "alaska.json" })
+	public String fixture;
+
+	private TamrGeoUtils gu;
+	private Shape polygon;
+	private PreparedPolygon prepared;
+	private QuadtreePolygon decomposed;
+	private Point[] points;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		gu = new TamrGeoUtils();
+		polygon = gu.fromGeoJson(BenchmarkShapes.readFixture(fixture));
+		prepared = gu.preparePolygon(polygon);
+		decomposed = gu.decomposePolygon(polygon);
+
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Rectangle bbox = polygon.getBoundingBox();
+		double width = bbox.getCrossesDateLine() ? bbox.getMaxX() + 360 - bbox.getMinX() : bbox.getWidth();
+		Random random = new Random(42L);
+		points = new Point[NUM_POINTS];
+		for (int i = 0; i < NUM_POINTS; i++) {
+			double x = bbox.getMinX() + random.nextDouble() * width;
+			points[i] = sf.pointXY(x > 180 ? x - 360 : x, bbox.getMinY() + random.nextDouble() * bbox.getHeight());
+		}
+	}
+
+	private Point nextPoint() {
+		next = (next + 1) & (NUM_POINTS - 1);
+		return points[next];
+	}
+
+	@Benchmark
+	public boolean polygonContainsPoint() {
+		return gu.polygonContainsPoint(polygon, nextPoint());
+	}
+
+	@Benchmark
+	public boolean preparedContainsPoint() {
+		return prepared.containsPoint(nextPoint());
+	}
+
+	@Benchmark
+	public boolean decomposedContainsPoint() {
+		return decomposed.containsPoint(nextPoint());
+	}
+}
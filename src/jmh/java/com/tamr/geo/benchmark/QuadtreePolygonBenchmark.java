@@ -0,0 +1,108 @@
+package com.tamr.geo.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.ShapeFactory.PolygonBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.QuadtreePolygon;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Compares {@link TamrGeoUtils#getIntersectionArea} and {@link TamrGeoUtils#getIntersection} of texas.json and
+ * footprints scattered over its bounding box with those of {@link QuadtreePolygon}.  The <code>radius</code> parameter
+ * sets the size of the footprints in degrees, from a building (0.001) to a county (0.3).  Texas is decomposed once in
+ * the setup, as it would be when intersecting millions of footprints with it; {@link #decomposePolygon} measures that
+ * cost alone.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="QuadtreePolygonBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QuadtreePolygonBenchmark {
+
+	private static final int CORPUS_SIZE = 256;
+
+	@Param({ "0.001", "0.3" })
+	public double radius;
+
+	private TamrGeoUtils gu;
+	private Shape texas;
+	private QuadtreePolygon decomposed;
+	private Shape[] footprints;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		gu = new TamrGeoUtils();
+		// the fixture is a collection of one MultiPolygon, which getIntersection does not take
+		texas = ((ShapeCollection<?>) gu.fromGeoJson(BenchmarkShapes.readFixture("texas.json"))).get(0);
+		decomposed = gu.decomposePolygon(texas);
+
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Rectangle bbox = texas.getBoundingBox();
+		Random random = new Random(42L);
+		footprints = new Shape[CORPUS_SIZE];
+		for (int i = 0; i < CORPUS_SIZE; i++) {
+			double x = bbox.getMinX() + random.nextDouble() * bbox.getWidth();
+			double y = bbox.getMinY() + random.nextDouble() * bbox.getHeight();
+			PolygonBuilder builder = sf.polygon();
+			for (int v = 0; v <= 12; v++) {
+				double angle = 2 * Math.PI * (v % 12) / 12;
+				double r = radius * (v % 2 == 0 ? 1 : 0.6);
+				builder.pointXY(x + r * Math.cos(angle), y + r * Math.sin(angle));
+			}
+			footprints[i] = builder.build();
+		}
+	}
+
+	private Shape nextFootprint() {
+		next = (next + 1) & (CORPUS_SIZE - 1);
+		return footprints[next];
+	}
+
+	@Benchmark
+	public double getIntersectionArea() {
+		return gu.getIntersectionArea(texas, nextFootprint());
+	}
+
+	@Benchmark
+	public double decomposedIntersectionArea() {
+		return decomposed.getIntersectionArea(nextFootprint());
+	}
+
+	@Benchmark
+	public Shape getIntersection() {
+		return gu.getIntersection(texas, nextFootprint());
+	}
+
+	@Benchmark
+	public Shape decomposedIntersection() {
+		return decomposed.getIntersection(nextFootprint());
+	}
+
+	@Benchmark
+	public QuadtreePolygon decomposePolygon() {
+		return gu.decomposePolygon(texas);
+	}
+}
@@ -0,0 +1,123 @@
+package com.tamr.geo.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.GeometryFile;
+import com.tamr.geo.GeometryFileWriter;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Compares reading a building footprint from a geoJson String and from its UTF-8 bytes with decoding it from
+ * {@link TamrGeoUtils#toBytes} and from a memory mapped {@link GeometryFile}, and measures encoding it both ways and
+ * writing it as geoJson with a number of decimal places.  Each invocation handles one footprint, cycling through a corpus of footprints.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="SerializationBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+	private static final int CORPUS_SIZE = 1024;
+
+	@Param({ "16", "256" })
+	public int vertices;
+
+	private TamrGeoUtils gu;
+	private List<Shape> shapes;
+	private String[] geoJson;
+	private byte[][] geoJsonBytes;
+	private byte[][] bytes;
+	private Path file;
+	private GeometryFile geometryFile;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, ParseException {
+		gu = new TamrGeoUtils();
+		shapes = BenchmarkShapes.generateBuildings(gu, 42L, CORPUS_SIZE, vertices);
+		geoJson = new String[CORPUS_SIZE];
+		geoJsonBytes = new byte[CORPUS_SIZE][];
+		bytes = new byte[CORPUS_SIZE][];
+		file = Files.createTempFile("footprints", ".bin");
+		try (GeometryFileWriter out = gu.writeGeometryFile(file)) {
+			for (int i = 0; i < CORPUS_SIZE; i++) {
+				geoJson[i] = gu.toGeoJson(shapes.get(i));
+				geoJsonBytes[i] = geoJson[i].getBytes(StandardCharsets.UTF_8);
+				bytes[i] = gu.toBytes(shapes.get(i));
+				out.add(shapes.get(i));
+			}
+		}
+		geometryFile = gu.readGeometryFile(file);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		geometryFile.close();
+		Files.delete(file);
+	}
+
+	private int nextShape() {
+		next = (next + 1) % CORPUS_SIZE;
+		return next;
+	}
+
+	@Benchmark
+	public Shape fromGeoJson() throws IOException, ParseException {
+		return gu.fromGeoJson(geoJson[nextShape()]);
+	}
+
+	@Benchmark
+	public Shape fromGeoJsonBytes() throws IOException, ParseException {
+		return gu.fromGeoJson(geoJsonBytes[nextShape()]);
+	}
+
+	@Benchmark
+	public Shape fromBytes() throws ParseException {
+		return gu.fromBytes(bytes[nextShape()]);
+	}
+
+	@Benchmark
+	public Shape getShapeFromFile() throws ParseException {
+		return geometryFile.getShape(nextShape());
+	}
+
+	@Benchmark
+	public String toGeoJson() {
+		return gu.toGeoJson(shapes.get(nextShape()));
+	}
+
+	@Benchmark
+	public String toGeoJsonDecimalPlaces() {
+		return gu.toGeoJson(shapes.get(nextShape()), 6);
+	}
+
+	@Benchmark
+	public byte[] toBytes() {
+		return gu.toBytes(shapes.get(nextShape()));
+	}
+}
@@ -0,0 +1,72 @@
+package com.tamr.geo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.ShapeCache;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * A scoring loop over candidate pairs where every footprint takes part in several pairs: each generated building is
+ * paired with the redrawn versions of itself and its two neighbors, and each pair is scored with its intersection
+ * over union, Hausdorff similarity and centroid distance.  The <code>cache</code> parameter runs the loop without a
+ * {@link ShapeCache}, with a cache of Shapes only (centroids and areas), and with pair results cached as well, which
+ * makes pairs scored again (every pass over the corpus after the first) nearly free.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="ShapeCacheBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShapeCacheBenchmark {
+
+	private static final int CORPUS_SIZE = 1024;
+	private static final int PAIRS_PER_BUILDING = 3;
+
+	@Param({ "none", "shapes", "pairs" })
+	public String cache;
+
+	@Param({ "8", "16" })
+	public int vertices;
+
+	private TamrGeoUtils gu;
+	private List<Shape> human;
+	private List<Shape> ml;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		gu = cache.equals("none") ? new TamrGeoUtils()
+				: new TamrGeoUtils(new ShapeCache(4 * CORPUS_SIZE, cache.equals("pairs") ? 16 * CORPUS_SIZE : 0));
+		human = BenchmarkShapes.generateBuildings(gu, 42L, CORPUS_SIZE, vertices);
+		ml = BenchmarkShapes.redrawBuildings(gu, 43L, human, vertices);
+	}
+
+	@Benchmark
+	public double scorePair() {
+		next = (next + 1) % (CORPUS_SIZE * PAIRS_PER_BUILDING);
+		Shape h = human.get(next / PAIRS_PER_BUILDING);
+		Shape m = ml.get((next / PAIRS_PER_BUILDING + next % PAIRS_PER_BUILDING) & (CORPUS_SIZE - 1));
+		double intersection = gu.getIntersectionArea(h, m);
+		double iou = intersection / (gu.calculateArea(h) + gu.calculateArea(m) - intersection);
+		double distance = gu.calculateDistance(gu.getCentroid(h), gu.getCentroid(m));
+		return iou + gu.getHausdorffSimilarity(h, m) + distance;
+	}
+}
@@ -0,0 +1,148 @@
+package com.tamr.geo.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Contention benchmark: every benchmark thread shares one {@link TamrGeoUtils} instance and one corpus of
+ * footprints, each thread walks the corpus from its own starting point.  If the shared instance does not serialize
+ * its callers, throughput grows linearly with the number of threads (up to the number of physical cores).
+ * <p>
+ * Run a single thread count with <code>gradle jmh -PjmhArgs="SharedInstanceBenchmark -t 4"</code>, or run
+ * <code>gradle jmhScaling</code> to run 1, 2, 4 ... N threads (N = available processors) and print the scaling
+ * of each operation relative to one thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharedInstanceBenchmark {
+
+	private static final int CORPUS_SIZE = 1024;
+	private static final int VERTICES = 16;
+
+	@State(Scope.Benchmark)
+	public static class Shared {
+		TamrGeoUtils gu;
+		List<Shape> human;
+		List<Shape> ml;
+		List<String> humanGeoJson;
+
+		@Setup
+		public void setup() {
+			gu = new TamrGeoUtils();
+			human = BenchmarkShapes.generateBuildings(gu, 42L, CORPUS_SIZE, VERTICES);
+			ml = BenchmarkShapes.redrawBuildings(gu, 43L, human, VERTICES);
+			humanGeoJson = new ArrayList<>(CORPUS_SIZE);
+			for (Shape s : human) {
+				humanGeoJson.add(gu.toGeoJson(s));
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int next;
+
+		@Setup
+		public void setup() {
+			next = (int) (Thread.currentThread().getId() * 97) & (CORPUS_SIZE - 1);
+		}
+
+		int nextIndex() {
+			next = (next + 1) & (CORPUS_SIZE - 1);
+			return next;
+		}
+	}
+
+	@Benchmark
+	public Shape fromGeoJson(Shared shared, Cursor cursor) throws Exception {
+		return shared.gu.fromGeoJson(shared.humanGeoJson.get(cursor.nextIndex()));
+	}
+
+	@Benchmark
+	public String toGeoJson(Shared shared, Cursor cursor) {
+		return shared.gu.toGeoJson(shared.human.get(cursor.nextIndex()));
+	}
+
+	@Benchmark
+	public double getIntersectionArea(Shared shared, Cursor cursor) {
+		int i = cursor.nextIndex();
+		return shared.gu.getIntersectionArea(shared.human.get(i), shared.ml.get(i));
+	}
+
+	@Benchmark
+	public Shape relocate(Shared shared, Cursor cursor) {
+		int i = cursor.nextIndex();
+		return shared.gu.relocate(shared.human.get(i), shared.ml.get(i));
+	}
+
+	@Benchmark
+	public double getHausdorffSimilarity(Shared shared, Cursor cursor) {
+		int i = cursor.nextIndex();
+		return shared.gu.getHausdorffSimilarity(shared.human.get(i), shared.ml.get(i));
+	}
+
+	/**
+	 * Run the benchmarks with 1, 2, 4 ... N threads and print the throughput of each against the ideal of N times
+	 * the single threaded throughput.
+	 *
+	 * @param args An optional maximum thread count, defaults to the number of available processors
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		List<Integer> threadCounts = new ArrayList<>();
+		for (int t = 1; t < maxThreads; t *= 2) {
+			threadCounts.add(t);
+		}
+		threadCounts.add(maxThreads);
+
+		List<Collection<RunResult>> results = new ArrayList<>();
+		for (int threads : threadCounts) {
+			Options options = new OptionsBuilder()
+					.include(SharedInstanceBenchmark.class.getName())
+					.threads(threads)
+					.build();
+			results.add(new Runner(options).run());
+		}
+
+		System.out.println();
+		System.out.println(String.format("%-24s %8s %14s %10s", "Benchmark", "Threads", "ops/ms", "Scaling"));
+		for (RunResult single : results.get(0)) {
+			String label = single.getParams().getBenchmark();
+			double singleScore = single.getPrimaryResult().getScore();
+			for (int i = 0; i < threadCounts.size(); i++) {
+				for (RunResult result : results.get(i)) {
+					if (result.getParams().getBenchmark().equals(label)) {
+						double score = result.getPrimaryResult().getScore();
+						double scaling = score / (singleScore * threadCounts.get(i));
+						System.out.println(String.format("%-24s %8d %14.3f %9.0f%%",
+								label.substring(label.lastIndexOf('.') + 1), threadCounts.get(i), score, scaling * 100));
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.tamr.geo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.SimilaritySearch;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Compares finding the {@value #K} human drawn footprints most similar to an ML generated footprint by computing the
+ * Hausdorff similarity of every candidate with {@link TamrGeoUtils#getHausdorffSimilarity} against
+ * {@link SimilaritySearch}.  Each invocation searches for one query, cycling through the ML footprints.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="SimilaritySearchBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimilaritySearchBenchmark {
+
+	private static final int K = 5;
+
+	@Param({ "1024" })
+	public int candidates;
+
+	@Param({ "16" })
+	public int vertices;
+
+	private TamrGeoUtils gu;
+	private List<Shape> human;
+	private List<Shape> ml;
+	private SimilaritySearch search;
+	private double[] similarities;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		gu = new TamrGeoUtils();
+		human = BenchmarkShapes.generateBuildings(gu, 42L, candidates, vertices);
+		ml = BenchmarkShapes.redrawBuildings(gu, 43L, human, vertices);
+		search = new SimilaritySearch(gu, human);
+		similarities = new double[candidates];
+	}
+
+	private Shape nextQuery() {
+		next = (next + 1) % ml.size();
+		return ml.get(next);
+	}
+
+	@Benchmark
+	public double bruteForce() {
+		Shape query = nextQuery();
+		for (int i = 0; i < human.size(); i++) {
+			similarities[i] = gu.getHausdorffSimilarity(query, human.get(i));
+		}
+		// selecting the top K of the similarities is negligible next to computing them
+		return similarities[next];
+	}
+
+	@Benchmark
+	public int[] mostSimilar() {
+		return search.mostSimilar(nextQuery(), K, similarities);
+	}
+}
@@ -0,0 +1,99 @@
+package com.tamr.geo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tamr.geo.ShapeSketch;
+import com.tamr.geo.ShapeSketcher;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * Compares the exact intersection area and Hausdorff similarity of a pair of building footprints with the estimates
+ * from their {@link ShapeSketch}es, and measures the cost of sketching a footprint.  Each invocation handles one pair,
+ * cycling through a corpus of pairs.
+ * <p>
+ * Run with <code>gradle jmh -PjmhArgs="SketchBenchmark"</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SketchBenchmark {
+
+	private static final int CORPUS_SIZE = 256;
+
+	@Param({ "16" })
+	public int vertices;
+
+	private TamrGeoUtils gu;
+	private ShapeSketcher sketcher;
+	private List<Shape> human;
+	private List<Shape> ml;
+	private ShapeSketch[] humanSketches;
+	private ShapeSketch[] mlSketches;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		gu = new TamrGeoUtils();
+		sketcher = new ShapeSketcher(gu, 1);
+		human = BenchmarkShapes.generateBuildings(gu, 42L, CORPUS_SIZE, vertices);
+		ml = BenchmarkShapes.redrawBuildings(gu, 43L, human, vertices);
+		humanSketches = new ShapeSketch[CORPUS_SIZE];
+		mlSketches = new ShapeSketch[CORPUS_SIZE];
+		for (int i = 0; i < CORPUS_SIZE; i++) {
+			humanSketches[i] = sketcher.sketch(human.get(i));
+			mlSketches[i] = sketcher.sketch(ml.get(i));
+		}
+	}
+
+	private int nextPair() {
+		next = (next + 1) % CORPUS_SIZE;
+		return next;
+	}
+
+	@Benchmark
+	public double getIntersectionArea() {
+		int i = nextPair();
+		return gu.getIntersectionArea(ml.get(i), human.get(i));
+	}
+
+	@Benchmark
+	public double estimateIntersectionArea() {
+		int i = nextPair();
+		return mlSketches[i].estimateIntersectionArea(humanSketches[i]);
+	}
+
+	@Benchmark
+	public double getHausdorffSimilarity() {
+		int i = nextPair();
+		return gu.getHausdorffSimilarity(ml.get(i), human.get(i));
+	}
+
+	@Benchmark
+	public double shapeDistance() {
+		int i = nextPair();
+		return mlSketches[i].shapeDistance(humanSketches[i]);
+	}
+
+	@Benchmark
+	public ShapeSketch sketch() {
+		return sketcher.sketch(ml.get(nextPair()));
+	}
+}
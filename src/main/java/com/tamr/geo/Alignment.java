@@ -0,0 +1,54 @@
+package com.tamr.geo;
+
+import org.locationtech.spatial4j.shape.Shape;
+
+/**
+ * A Shape moved (and optionally rotated) to overlap another Shape as much as possible, found by
+ * {@link TamrGeoUtils#align(Shape, Shape, double)}, with the overlap it reaches.
+ * <p>
+ * An Alignment is immutable.
+ */
+public final class Alignment {
+
+	private final Shape shape;
+	private final double intersectionOverUnion;
+	private final double offsetMeters;
+	private final double rotationDegrees;
+
+	Alignment(Shape shape, double intersectionOverUnion, double offsetMeters, double rotationDegrees) {
+		this.shape = shape;
+		this.intersectionOverUnion = intersectionOverUnion;
+		this.offsetMeters = offsetMeters;
+		this.rotationDegrees = rotationDegrees;
+	}
+
+	/**
+	 * @return The aligned Shape
+	 */
+	public Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * @return The area of the intersection of the aligned Shape and the Shape it was aligned with divided by the area
+	 *         of their union, in [0, 1], 0 for Shapes without area
+	 */
+	public double getIntersectionOverUnion() {
+		return intersectionOverUnion;
+	}
+
+	/**
+	 * @return How far the aligned Shape's centroid is from the other Shape's centroid, where
+	 *         {@link TamrGeoUtils#relocate} would have put it, in meters
+	 */
+	public double getOffsetMeters() {
+		return offsetMeters;
+	}
+
+	/**
+	 * @return How far the Shape was rotated about its centroid, in degrees counterclockwise
+	 */
+	public double getRotationDegrees() {
+		return rotationDegrees;
+	}
+}
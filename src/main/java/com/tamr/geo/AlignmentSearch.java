@@ -0,0 +1,345 @@
+package com.tamr.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.util.AffineTransformation;
+
+/**
+ * Finds the offset, and optionally the rotation, of one Shape that maximizes its intersection over union with another.
+ * <p>
+ * Both Shapes are rasterized into rows of bits in a flat frame in meters around the fixed Shape's centroid, so the
+ * overlap at any whole number of cells of offset is the population count of the AND of the shifted rows: hundreds of
+ * offsets cost less than one polygon overlay.  The search starts where {@link TamrGeoUtils#relocate} puts the Shape
+ * (centroid on centroid) and tries every offset within half the size of the Shapes on a grid of
+ * {@value #COARSE_CELLS} cells across, then halves the cells {@value #REFINEMENTS} times, each time trying the offsets
+ * within a coarser cell of the best so far and rotations half as far apart.  Only the final offset is checked with
+ * an exact overlay, against the centroid alignment, so the result never overlaps less than relocate's.
+ * <p>
+ * An AlignmentSearch keeps no state between calls and is thread safe.
+ */
+final class AlignmentSearch {
+
+	// cells across the larger Shape on the coarsest grid, and the number of times the cells are halved after it
+	private static final int COARSE_CELLS = 16;
+	private static final int REFINEMENTS = 3;
+	// offsets tried each way, in cells, on the coarsest grid and on the finer ones
+	private static final int COARSE_REACH = COARSE_CELLS / 2;
+	private static final int FINE_REACH = 2;
+
+	private final TamrGeoUtils gu;
+	private final IntersectionArea intersectionArea;
+
+	AlignmentSearch(TamrGeoUtils gu, IntersectionArea intersectionArea) {
+		this.gu = gu;
+		this.intersectionArea = intersectionArea;
+	}
+
+	Alignment align(Shape src, Shape dest, double maxRotationDegrees) {
+		if (!(maxRotationDegrees >= 0 && maxRotationDegrees <= 180)) {
+			throw new IllegalArgumentException("maxRotationDegrees must be from 0 to 180: " + maxRotationDegrees);
+		}
+		Geometry srcGeo = gu.getGeometryFrom(src);
+		Geometry destGeo = gu.getGeometryFrom(dest);
+		Point srcCentroid = gu.centroid(src);
+		Point destCentroid = gu.centroid(dest);
+		Geometry relocated = gu.relocate(srcGeo, srcCentroid, destCentroid);
+		double relocatedOverlap = intersectionOverUnion(relocated, destGeo);
+
+		// meters per degree around the destination, the scale of the frame both Shapes are rasterized in
+		double mx = TamrGeoUtils.METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(destCentroid.getY())), 1e-6);
+		double my = TamrGeoUtils.METERS_PER_DEGREE;
+		List<double[]> srcRings = rings(srcGeo, srcCentroid, mx, my);
+		List<double[]> destRings = rings(destGeo, destCentroid, mx, my);
+		double srcRadius = radius(srcRings);
+		Envelope destEnv = envelope(destRings);
+		if (srcRadius == 0 || destEnv.getArea() == 0) {
+			return new Alignment(gu.getJtsShapeFactory().makeShape(relocated), relocatedOverlap, 0, 0);
+		}
+
+		double cell = Math.max(2 * srcRadius, Math.max(destEnv.getWidth(), destEnv.getHeight())) / COARSE_CELLS;
+		int reach = COARSE_REACH;
+		double maxRotation = Math.toRadians(maxRotationDegrees);
+		// on the coarsest grid, try rotations that move the farthest vertex of src about one cell
+		int rotations = maxRotation == 0 ? 0 : (int) Math.ceil(maxRotation / Math.min(maxRotation, cell / srcRadius));
+		double rotationStep = rotations == 0 ? 0 : maxRotation / rotations;
+		double x = 0;
+		double y = 0;
+		double rotation = 0;
+		for (int level = 0; level <= REFINEMENTS; level++) {
+			Raster fixed = new Raster(destEnv, cell, reach + 1);
+			fixed.fill(destRings, 0, 0, 0);
+			long bestOverlap = -1;
+			int bestI = 0;
+			int bestJ = 0;
+			double bestRotation = rotation;
+			int steps = level == 0 ? rotations : rotationStep == 0 ? 0 : 1;
+			for (int r = -steps; r <= steps; r++) {
+				double angle = rotation + r * rotationStep;
+				if (Math.abs(angle) > maxRotation + 1e-12) {
+					continue;
+				}
+				Raster moving = new Raster(fixed);
+				moving.fill(srcRings, angle, x, y);
+				for (int j = -reach; j <= reach; j++) {
+					for (int i = -reach; i <= reach; i++) {
+						long overlap = fixed.overlap(moving, i, j);
+						// of equal overlaps keep the smallest move
+						if (overlap > bestOverlap || overlap == bestOverlap && (i * i + j * j < bestI * bestI + bestJ
+								* bestJ || i * i + j * j == bestI * bestI + bestJ * bestJ && Math.abs(angle
+										- rotation) < Math.abs(bestRotation - rotation))) {
+							bestOverlap = overlap;
+							bestI = i;
+							bestJ = j;
+							bestRotation = angle;
+						}
+					}
+				}
+			}
+			x += bestI * cell;
+			y += bestJ * cell;
+			rotation = bestRotation;
+			cell /= 2;
+			reach = FINE_REACH;
+			rotationStep /= 2;
+		}
+
+		AffineTransformation transformation = AffineTransformation.translationInstance(-srcCentroid.getX(),
+				-srcCentroid.getY());
+		transformation.scale(mx, my);
+		transformation.rotate(rotation);
+		transformation.translate(x, y);
+		transformation.scale(1 / mx, 1 / my);
+		transformation.translate(destCentroid.getX(), destCentroid.getY());
+		Geometry aligned = transformation.transform(srcGeo);
+		double overlap = intersectionOverUnion(aligned, destGeo);
+		if (!(overlap > relocatedOverlap)) {
+			return new Alignment(gu.getJtsShapeFactory().makeShape(relocated), relocatedOverlap, 0, 0);
+		}
+		return new Alignment(gu.getJtsShapeFactory().makeShape(aligned), overlap, Math.hypot(x, y),
+				Math.toDegrees(rotation));
+	}
+
+	private double intersectionOverUnion(Geometry g1, Geometry g2) {
+		double intersection = intersectionArea.squareMeters(g1, g2);
+		double union = intersectionArea.squareMeters(g1) + intersectionArea.squareMeters(g2) - intersection;
+		return union > 0 ? intersection / union : 0;
+	}
+
+	/*
+	 * The rings of the polygons of a geometry in meters around the given center, as x, y pairs.
+	 */
+	private static List<double[]> rings(Geometry geometry, Point center, double mx, double my) {
+		List<double[]> rings = new ArrayList<>();
+		addRings(geometry, center, mx, my, rings);
+		return rings;
+	}
+
+	private static void addRings(Geometry geometry, Point center, double mx, double my, List<double[]> rings) {
+		if (geometry instanceof Polygon) {
+			Polygon polygon = (Polygon) geometry;
+			addRing(polygon.getExteriorRing(), center, mx, my, rings);
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+				addRing(polygon.getInteriorRingN(i), center, mx, my, rings);
+			}
+		} else if (geometry instanceof GeometryCollection) {
+			// including collections of one polygon; points and lines have no rings
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				addRings(geometry.getGeometryN(i), center, mx, my, rings);
+			}
+		}
+	}
+
+	private static void addRing(LineString ring, Point center, double mx, double my, List<double[]> rings) {
+		CoordinateSequence seq = ring.getCoordinateSequence();
+		if (seq.size() < 4) {
+			return;
+		}
+		double[] xy = new double[2 * seq.size()];
+		for (int i = 0; i < seq.size(); i++) {
+			xy[2 * i] = (seq.getX(i) - center.getX()) * mx;
+			xy[2 * i + 1] = (seq.getY(i) - center.getY()) * my;
+		}
+		rings.add(xy);
+	}
+
+	private static double radius(List<double[]> rings) {
+		double radius = 0;
+		for (double[] xy : rings) {
+			for (int i = 0; i < xy.length; i += 2) {
+				radius = Math.max(radius, Math.hypot(xy[i], xy[i + 1]));
+			}
+		}
+		return radius;
+	}
+
+	private static Envelope envelope(List<double[]> rings) {
+		Envelope env = new Envelope();
+		for (double[] xy : rings) {
+			for (int i = 0; i < xy.length; i += 2) {
+				env.expandToInclude(xy[i], xy[i + 1]);
+			}
+		}
+		return env;
+	}
+
+	/**
+	 * A grid of cells, a bit per cell, each row a whole number of longs.  A cell is set when its center is inside the
+	 * polygons filled into it (even-odd, so holes are left clear).
+	 */
+	private static final class Raster {
+
+		private final double x0;
+		private final double y0;
+		private final double cell;
+		private final int columns;
+		private final int rows;
+		private final int words;
+		private final long[] bits;
+
+		// the grid around an envelope, with margin cells on every side
+		Raster(Envelope env, double cell, int margin) {
+			this.cell = cell;
+			x0 = env.getMinX() - margin * cell;
+			y0 = env.getMinY() - margin * cell;
+			columns = (int) Math.ceil(env.getWidth() / cell) + 2 * margin;
+			rows = (int) Math.ceil(env.getHeight() / cell) + 2 * margin;
+			words = (columns + 63) >>> 6;
+			bits = new long[rows * words];
+		}
+
+		// an empty raster on the same grid
+		Raster(Raster grid) {
+			cell = grid.cell;
+			x0 = grid.x0;
+			y0 = grid.y0;
+			columns = grid.columns;
+			rows = grid.rows;
+			words = grid.words;
+			bits = new long[grid.bits.length];
+		}
+
+		/*
+		 * Fill the rings, rotated about the origin and then moved by dx, dy.  Each edge adds where it crosses the
+		 * center line of each row it spans, then each row's crossings are sorted and the cells between pairs set.
+		 */
+		void fill(List<double[]> rings, double rotation, double dx, double dy) {
+			double cos = Math.cos(rotation);
+			double sin = Math.sin(rotation);
+			List<double[]> moved = new ArrayList<>(rings.size());
+			int[] rowStarts = new int[rows + 1];
+			for (double[] xy : rings) {
+				double[] ring = new double[xy.length];
+				for (int i = 0; i < xy.length; i += 2) {
+					ring[i] = xy[i] * cos - xy[i + 1] * sin + dx;
+					ring[i + 1] = xy[i] * sin + xy[i + 1] * cos + dy;
+				}
+				moved.add(ring);
+				for (int i = 2; i < ring.length; i += 2) {
+					int from = row(Math.min(ring[i - 1], ring[i + 1]));
+					int to = row(Math.max(ring[i - 1], ring[i + 1]));
+					for (int r = from; r < to; r++) {
+						rowStarts[r + 1]++;
+					}
+				}
+			}
+			for (int r = 0; r < rows; r++) {
+				rowStarts[r + 1] += rowStarts[r];
+			}
+			double[] crossings = new double[rowStarts[rows]];
+			int[] next = Arrays.copyOf(rowStarts, rows);
+			for (double[] ring : moved) {
+				for (int i = 2; i < ring.length; i += 2) {
+					double xa = ring[i - 2];
+					double ya = ring[i - 1];
+					double xb = ring[i];
+					double yb = ring[i + 1];
+					int from = row(Math.min(ya, yb));
+					int to = row(Math.max(ya, yb));
+					for (int r = from; r < to; r++) {
+						double yc = y0 + (r + 0.5) * cell;
+						crossings[next[r]++] = xa + (yc - ya) * (xb - xa) / (yb - ya);
+					}
+				}
+			}
+			for (int r = 0; r < rows; r++) {
+				Arrays.sort(crossings, rowStarts[r], rowStarts[r + 1]);
+				for (int c = rowStarts[r]; c + 1 < rowStarts[r + 1]; c += 2) {
+					setRange(r * words, column(crossings[c]), column(crossings[c + 1]));
+				}
+			}
+		}
+
+		// the first row whose center line is at or above y, within the grid
+		private int row(double y) {
+			return Math.max(0, Math.min(rows, (int) Math.ceil((y - y0) / cell - 0.5)));
+		}
+
+		// the first column whose center is at or right of x, not clamped
+		private int column(double x) {
+			return (int) Math.ceil((x - x0) / cell - 0.5);
+		}
+
+		private void setRange(int offset, int from, int to) {
+			from = Math.max(from, 0);
+			to = Math.min(to, columns);
+			if (from >= to) {
+				return;
+			}
+			int first = from >>> 6;
+			int last = (to - 1) >>> 6;
+			long firstMask = -1L << from;
+			long lastMask = -1L >>> (63 - ((to - 1) & 63));
+			if (first == last) {
+				bits[offset + first] |= firstMask & lastMask;
+			} else {
+				bits[offset + first] |= firstMask;
+				for (int w = first + 1; w < last; w++) {
+					bits[offset + w] = -1L;
+				}
+				bits[offset + last] |= lastMask;
+			}
+		}
+
+		/*
+		 * The number of cells set in both this and the other raster moved by i columns and j rows.
+		 */
+		long overlap(Raster other, int i, int j) {
+			long count = 0;
+			for (int r = Math.max(0, j); r < Math.min(rows, rows + j); r++) {
+				int offset = r * words;
+				int otherOffset = (r - j) * words;
+				for (int w = 0; w < words; w++) {
+					long mine = bits[offset + w];
+					if (mine != 0) {
+						count += Long.bitCount(mine & other.shifted(otherOffset, w, i));
+					}
+				}
+			}
+			return count;
+		}
+
+		// word w of the row at offset moved by i columns, |i| < 64
+		private long shifted(int offset, int w, int i) {
+			if (i == 0) {
+				return bits[offset + w];
+			} else if (i > 0) {
+				long word = bits[offset + w] << i;
+				return w > 0 ? word | bits[offset + w - 1] >>> (64 - i) : word;
+			} else {
+				long word = bits[offset + w] >>> -i;
+				return w + 1 < words ? word | bits[offset + w + 1] << (64 + i) : word;
+			}
+		}
+	}
+}
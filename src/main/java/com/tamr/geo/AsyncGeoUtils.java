@@ -0,0 +1,296 @@
+package com.tamr.geo;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.locationtech.spatial4j.shape.Shape;
+
+/**
+ * Runs {@link TamrGeoUtils} operations on a pool of threads, each with a deadline, so that a few huge or badly formed
+ * Shapes, whose JTS overlay can take seconds, do not hold up a whole batch:
+ * <pre>{@code
+ *   AsyncGeoUtils async = new AsyncGeoUtils(gu, 8, 1000);
+ *   CompletableFuture<Double> area = async.getIntersectionArea(s1, s2, 50, TimeUnit.MILLISECONDS);
+ * }</pre>
+ * If an operation has not completed by its deadline its future completes with a fallback instead, for the operations
+ * below an estimate made from the bounding boxes of the Shapes, which takes microseconds.  An operation that fails
+ * before its deadline completes its future exceptionally, with the exception the {@link TamrGeoUtils} call threw.
+ * <p>
+ * At most <code>maxPending</code> operations are queued or running at once.  A call made when that many are pending
+ * waits for one to finish, which slows down a producer that submits faster than the pool can keep up, but waits no
+ * longer than the deadline of the call: if no operation finishes by then it returns the fallback.
+ * <p>
+ * Cancellation is cooperative.  An operation whose deadline has passed, or whose future was cancelled, before a
+ * thread picks it up is not run at all.  JTS can not be interrupted, so an operation that has started runs to the
+ * end on its thread, and its result is dropped; it keeps counting against <code>maxPending</code> until then, so
+ * slow operations can not pile up without bound.
+ * <p>
+ * An AsyncGeoUtils is thread safe.  Close it to stop the threads it created.
+ */
+public class AsyncGeoUtils implements AutoCloseable {
+
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+	private final TamrGeoUtils gu;
+	private final Executor executor;
+	private final ExecutorService ownedExecutor;
+	private final ScheduledThreadPoolExecutor timer;
+	private final int maxPending;
+	private final Semaphore pending;
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong skipped = new AtomicLong();
+
+	/**
+	 * Create an AsyncGeoUtils that runs on its own pool of daemon threads.
+	 *
+	 * @param gu The TamrGeoUtils whose operations to run
+	 * @param threads The number of threads
+	 * @param maxPending The number of operations that can be queued or running at once
+	 */
+	public AsyncGeoUtils(TamrGeoUtils gu, int threads, int maxPending) {
+		this(gu, newPool(threads), maxPending, true);
+	}
+
+	/**
+	 * Create an AsyncGeoUtils that runs on the given Executor, for example one that starts a virtual thread per
+	 * operation on JDKs that have them.  The Executor is not shut down by {@link #close()}.
+	 *
+	 * @param gu The TamrGeoUtils whose operations to run
+	 * @param executor The Executor to run operations on
+	 * @param maxPending The number of operations that can be queued or running at once
+	 */
+	public AsyncGeoUtils(TamrGeoUtils gu, Executor executor, int maxPending) {
+		this(gu, executor, maxPending, false);
+	}
+
+	private AsyncGeoUtils(TamrGeoUtils gu, Executor executor, int maxPending, boolean owned) {
+		if (maxPending < 1) {
+			throw new IllegalArgumentException("maxPending must be at least 1");
+		}
+		this.gu = gu;
+		this.executor = executor;
+		this.ownedExecutor = owned ? (ExecutorService) executor : null;
+		this.maxPending = maxPending;
+		this.pending = new Semaphore(maxPending);
+		this.timer = new ScheduledThreadPoolExecutor(1, daemonThreads("tamr-geo-deadlines-"));
+		timer.setRemoveOnCancelPolicy(true);
+	}
+
+	private static ExecutorService newPool(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1");
+		}
+		// the queue is bounded by the permits of pending, not by its capacity
+		return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+				daemonThreads("tamr-geo-async-" + POOL_NUMBER.incrementAndGet() + "-"));
+	}
+
+	private static ThreadFactory daemonThreads(String prefix) {
+		AtomicInteger number = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + number.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * {@link TamrGeoUtils#getIntersection(Shape, Shape)} with a deadline.  The fallback is the intersection of the
+	 * bounding boxes of the Shapes, which contains the intersection.
+	 *
+	 * @param s1 Shape 1
+	 * @param s2 Shape 2
+	 * @param timeout How long to wait for the intersection
+	 * @param unit The unit of timeout
+	 * @return The intersection, or the intersection of the bounding boxes if it takes longer than timeout
+	 */
+	public CompletableFuture<Shape> getIntersection(Shape s1, Shape s2, long timeout, TimeUnit unit) {
+		return submit(g -> g.getIntersection(s1, s2), timeout, unit,
+				() -> gu.getIntersection(s1.getBoundingBox(), s2.getBoundingBox()));
+	}
+
+	/**
+	 * {@link TamrGeoUtils#getIntersectionArea(Shape, Shape)} with a deadline.  The fallback is the area of the
+	 * intersection of the bounding boxes of the Shapes, an upper bound of the area.
+	 *
+	 * @param s1 Shape 1
+	 * @param s2 Shape 2
+	 * @param timeout How long to wait for the area
+	 * @param unit The unit of timeout
+	 * @return The area of the intersection in square meters, or the upper bound if it takes longer than timeout
+	 */
+	public CompletableFuture<Double> getIntersectionArea(Shape s1, Shape s2, long timeout, TimeUnit unit) {
+		return submit(g -> g.getIntersectionArea(s1, s2), timeout, unit,
+				() -> gu.getIntersectionArea(s1.getBoundingBox(), s2.getBoundingBox()));
+	}
+
+	/**
+	 * {@link TamrGeoUtils#getHausdorffSimilarity(Shape, Shape)} with a deadline.  The fallback is the Hausdorff
+	 * similarity of the bounding boxes of the Shapes.
+	 *
+	 * @param s1 Shape 1
+	 * @param s2 Shape 2
+	 * @param timeout How long to wait for the similarity
+	 * @param unit The unit of timeout
+	 * @return The Hausdorff similarity, or that of the bounding boxes if it takes longer than timeout
+	 */
+	public CompletableFuture<Double> getHausdorffSimilarity(Shape s1, Shape s2, long timeout, TimeUnit unit) {
+		return submit(g -> g.getHausdorffSimilarity(s1, s2), timeout, unit,
+				() -> gu.getHausdorffSimilarity(s1.getBoundingBox(), s2.getBoundingBox()));
+	}
+
+	/**
+	 * {@link TamrGeoUtils#calculateArea(Shape)} with a deadline.  The fallback is the area of the bounding box of
+	 * the Shape, an upper bound of the area.
+	 *
+	 * @param shape The Shape
+	 * @param timeout How long to wait for the area
+	 * @param unit The unit of timeout
+	 * @return The area in square meters, or the upper bound if it takes longer than timeout
+	 */
+	public CompletableFuture<Double> calculateArea(Shape shape, long timeout, TimeUnit unit) {
+		return submit(g -> g.calculateArea(shape), timeout, unit, () -> gu.calculateArea(shape.getBoundingBox()));
+	}
+
+	/**
+	 * Run any operation with a deadline.  fallback is called, on an internal thread, if operation has not
+	 * completed by the deadline, so it should be quick; if it throws, the future completes exceptionally.
+	 *
+	 * @param operation The operation, passed the TamrGeoUtils of this AsyncGeoUtils
+	 * @param timeout How long to wait for operation
+	 * @param unit The unit of timeout
+	 * @param fallback The result to use instead if operation takes longer than timeout
+	 * @return The result of operation, or of fallback if it takes longer than timeout
+	 */
+	public <T> CompletableFuture<T> submit(Function<TamrGeoUtils, ? extends T> operation, long timeout, TimeUnit unit,
+			Supplier<? extends T> fallback) {
+		long start = System.nanoTime();
+		long timeoutNanos = unit.toNanos(timeout);
+		CompletableFuture<T> future = new CompletableFuture<>();
+		boolean acquired;
+		try {
+			acquired = pending.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.completeExceptionally(e);
+			return future;
+		}
+		if (!acquired) {
+			timedOut(future, fallback);
+			return future;
+		}
+
+		long deadline = start + timeoutNanos;
+		AtomicBoolean released = new AtomicBoolean();
+		Runnable release = () -> {
+			if (released.compareAndSet(false, true)) {
+				pending.release();
+			}
+		};
+		ScheduledFuture<?> timeoutTask = null;
+		try {
+			timeoutTask = timer.schedule(() -> timedOut(future, fallback), deadline - System.nanoTime(),
+					TimeUnit.NANOSECONDS);
+			ScheduledFuture<?> scheduled = timeoutTask;
+			executor.execute(() -> {
+				if (future.isDone() || System.nanoTime() - deadline >= 0) {
+					// timed out or cancelled while queued
+					skipped.incrementAndGet();
+					release.run();
+					timedOut(future, fallback);
+					return;
+				}
+				T result = null;
+				Throwable failure = null;
+				try {
+					result = operation.apply(gu);
+				} catch (Throwable t) {
+					failure = t;
+				}
+				// free the slot before completing, so that a caller sees it free once it has the result
+				scheduled.cancel(false);
+				release.run();
+				if (failure == null) {
+					future.complete(result);
+				} else {
+					future.completeExceptionally(failure);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			if (timeoutTask != null) {
+				timeoutTask.cancel(false);
+			}
+			release.run();
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	private <T> void timedOut(CompletableFuture<T> future, Supplier<? extends T> fallback) {
+		if (future.isDone()) {
+			return;
+		}
+		T value = null;
+		Throwable failure = null;
+		try {
+			value = fallback.get();
+		} catch (Throwable t) {
+			failure = t;
+		}
+		// counted before completing, so that a caller sees the count once it has the fallback; uncounted again if the
+		// operation finished first
+		timeouts.incrementAndGet();
+		boolean completed = failure == null ? future.complete(value) : future.completeExceptionally(failure);
+		if (!completed) {
+			timeouts.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return The number of operations that completed with their fallback because they missed their deadline
+	 */
+	public long getTimeoutCount() {
+		return timeouts.get();
+	}
+
+	/**
+	 * @return The number of operations that were not run at all because they had timed out or been cancelled
+	 * before a thread picked them up
+	 */
+	public long getSkippedCount() {
+		return skipped.get();
+	}
+
+	/**
+	 * @return The number of operations queued or running, including those that timed out but are still running
+	 */
+	public int getPendingCount() {
+		return maxPending - pending.availablePermits();
+	}
+
+	/**
+	 * Stop the threads this AsyncGeoUtils created.  Operations already submitted still complete, with their result or
+	 * their fallback; new operations are rejected.
+	 */
+	@Override
+	public void close() {
+		if (ownedExecutor != null) {
+			ownedExecutor.shutdown();
+		}
+		timer.shutdown();
+	}
+}
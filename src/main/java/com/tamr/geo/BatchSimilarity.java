@@ -0,0 +1,186 @@
+package com.tamr.geo;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.locationtech.spatial4j.exception.InvalidShapeException;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Computes the similarity measures of many pairs of Shapes in parallel, for example every candidate pair found by a
+ * {@link SpatialIndex}:
+ * <pre>{@code
+ *   CandidatePairs pairs = new SpatialIndex(humanBuildings).candidatePairs(mlBuildings, 5.0);
+ *   SimilarityResults results = new BatchSimilarity(gu).compute(mlBuildings, humanBuildings, pairs);
+ *   double[] iou = results.getIntersectionOverUnions();
+ * }</pre>
+ * For each pair it computes the intersection area, the intersection over union, the distance between centroids, the
+ * Hausdorff similarity and the Hausdorff similarity after relocating the left Shape onto the right one; the same
+ * values as the corresponding {@link TamrGeoUtils} operations.  Unlike calling those operations one pair at a time,
+ * each Shape is converted to a JTS Geometry, and its centroid and area computed, only once however many pairs it is
+ * part of, and the pairs are spread over all the threads of a {@link ForkJoinPool}.
+ * <p>
+ * Shapes that have no JTS Geometry (ShapeCollections such as <code>texas.json</code>), or pairs whose Geometries
+ * JTS fails to intersect, get NaN for the measures that need a Geometry rather than failing the whole batch.
+ * <p>
+ * A BatchSimilarity is thread safe.
+ */
+public class BatchSimilarity {
+
+	private static final int SHAPE_GRAIN = 256;
+	private static final int PAIR_GRAIN = 32;
+
+	private final TamrGeoUtils gu;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Create a BatchSimilarity that runs on the common fork-join pool.
+	 *
+	 * @param gu The TamrGeoUtils whose operations to compute
+	 */
+	public BatchSimilarity(TamrGeoUtils gu) {
+		this(gu, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Create a BatchSimilarity that runs on the given pool.
+	 *
+	 * @param gu The TamrGeoUtils whose operations to compute
+	 * @param pool The pool to run on
+	 */
+	public BatchSimilarity(TamrGeoUtils gu, ForkJoinPool pool) {
+		this.gu = gu;
+		this.pool = pool;
+	}
+
+	/**
+	 * Compute the similarity of each pair (left.get(i), right.get(i)).
+	 *
+	 * @param left The left Shape of each pair
+	 * @param right The right Shape of each pair, must be the same size as left
+	 * @return The similarity measures of each pair
+	 */
+	public SimilarityResults compute(List<? extends Shape> left, List<? extends Shape> right) {
+		if (left.size() != right.size()) {
+			throw new IllegalArgumentException("left and right must have the same size");
+		}
+		int[] indexes = new int[left.size()];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = i;
+		}
+		return compute(left, right, new CandidatePairs(indexes, indexes));
+	}
+
+	/**
+	 * Compute the similarity of each pair (left.get(pairs.getLeft(i)), right.get(pairs.getRight(i))).  left and right
+	 * may be the same list.
+	 *
+	 * @param left The left Shapes
+	 * @param right The right Shapes
+	 * @param pairs The pairs to compute, as indexes into left and right
+	 * @return The similarity measures of each pair
+	 */
+	public SimilarityResults compute(List<? extends Shape> left, List<? extends Shape> right, CandidatePairs pairs) {
+		int[] leftIndexes = pairs.toLeftArray();
+		int[] rightIndexes = pairs.toRightArray();
+		Prepared leftShapes = prepare(left, leftIndexes);
+		Prepared rightShapes = left == right ? leftShapes.include(rightIndexes) : prepare(right, rightIndexes);
+
+		SimilarityResults results = new SimilarityResults(pairs);
+		ParallelRange.forEach(pool, pairs.size(), PAIR_GRAIN, i -> {
+			int l = leftIndexes[i];
+			int r = rightIndexes[i];
+			Point leftCentroid = leftShapes.centroids[l];
+			Point rightCentroid = rightShapes.centroids[r];
+			results.centroidDistances[i] = gu.distance(leftCentroid, rightCentroid);
+
+			Geometry leftGeo = leftShapes.geometries[l];
+			Geometry rightGeo = rightShapes.geometries[r];
+			double intersectionArea = Double.NaN;
+			double intersectionOverUnion = Double.NaN;
+			double hausdorff = Double.NaN;
+			double relocatedHausdorff = Double.NaN;
+			if (leftGeo != null && rightGeo != null) {
+				try {
+					intersectionArea = gu.intersectionArea(leftGeo, rightGeo);
+					double union = leftShapes.areas[l] + rightShapes.areas[r] - intersectionArea;
+					intersectionOverUnion = union > 0 ? intersectionArea / union : 0;
+				} catch (RuntimeException e) {
+					// JTS could not intersect these geometries, leave NaN
+				}
+				hausdorff = HausdorffDistance.similarity(leftGeo, rightGeo);
+				Geometry relocated = gu.relocate(leftGeo, leftCentroid, rightCentroid);
+				relocatedHausdorff = HausdorffDistance.similarity(relocated, rightGeo);
+			}
+			results.intersectionAreas[i] = intersectionArea;
+			results.intersectionOverUnions[i] = intersectionOverUnion;
+			results.hausdorffSimilarities[i] = hausdorff;
+			results.relocatedHausdorffSimilarities[i] = relocatedHausdorff;
+		});
+		return results;
+	}
+
+	/*
+	 * Convert the Shapes used by the pairs, in parallel.
+	 */
+	private Prepared prepare(List<? extends Shape> shapes, int[] indexes) {
+		return new Prepared(shapes).include(indexes);
+	}
+
+	/*
+	 * The Geometry, centroid and area of the Shapes of one side of the pairs, computed only for the Shapes that are
+	 * used.  Each pair task only reads them.
+	 */
+	private class Prepared {
+		final List<? extends Shape> shapes;
+		final Geometry[] geometries;
+		final Point[] centroids;
+		final double[] areas;
+		final boolean[] prepared;
+
+		Prepared(List<? extends Shape> shapes) {
+			this.shapes = shapes;
+			geometries = new Geometry[shapes.size()];
+			centroids = new Point[shapes.size()];
+			areas = new double[shapes.size()];
+			prepared = new boolean[shapes.size()];
+		}
+
+		Prepared include(int[] indexes) {
+			boolean[] used = new boolean[shapes.size()];
+			int count = 0;
+			for (int index : indexes) {
+				if (!used[index] && !prepared[index]) {
+					used[index] = true;
+					count++;
+				}
+			}
+			int[] todo = new int[count];
+			count = 0;
+			for (int index = 0; index < used.length; index++) {
+				if (used[index]) {
+					todo[count++] = index;
+				}
+			}
+			ParallelRange.forEach(pool, todo.length, SHAPE_GRAIN, t -> {
+				int index = todo[t];
+				Shape shape = shapes.get(index);
+				centroids[index] = gu.centroid(shape);
+				areas[index] = gu.area(shape);
+				try {
+					Geometry geometry = gu.getGeometryFrom(shape);
+					// computed lazily by JTS, compute it now rather than concurrently in the pair tasks
+					geometry.getEnvelopeInternal();
+					geometries[index] = geometry;
+				} catch (InvalidShapeException e) {
+					// no Geometry for this Shape, its pairs get NaN
+				}
+				prepared[index] = true;
+			});
+			return this;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.tamr.geo;
+
+import java.util.Arrays;
+
+/**
+ * A list of pairs of indexes, typically the candidate pairs produced by {@link SpatialIndex}: pair i relates the
+ * Shape at index {@link #getLeft(int)} of one collection to the Shape at index {@link #getRight(int)} of another (or
+ * of the same) collection.  Pairs are held in two primitive arrays, so millions of them take 8 bytes each.
+ */
+public class CandidatePairs {
+
+	private int[] left;
+	private int[] right;
+	private int size;
+
+	/**
+	 * Create an empty list of pairs.
+	 */
+	public CandidatePairs() {
+		this(16);
+	}
+
+	/**
+	 * Create an empty list of pairs with room for the given number of pairs.
+	 *
+	 * @param initialCapacity Number of pairs to make room for
+	 */
+	public CandidatePairs(int initialCapacity) {
+		left = new int[Math.max(1, initialCapacity)];
+		right = new int[left.length];
+	}
+
+	/**
+	 * Create a list of pairs from two arrays of the same length, pair i is (left[i], right[i]).  The arrays are copied.
+	 *
+	 * @param left The left index of each pair
+	 * @param right The right index of each pair
+	 */
+	public CandidatePairs(int[] left, int[] right) {
+		if (left.length != right.length) {
+			throw new IllegalArgumentException("left and right must have the same length");
+		}
+		this.left = Arrays.copyOf(left, Math.max(1, left.length));
+		this.right = Arrays.copyOf(right, Math.max(1, right.length));
+		this.size = left.length;
+	}
+
+	/**
+	 * Append a pair.
+	 *
+	 * @param leftIndex The index of the Shape in the left collection
+	 * @param rightIndex The index of the Shape in the right collection
+	 */
+	public void add(int leftIndex, int rightIndex) {
+		if (size == left.length) {
+			int capacity = left.length + (left.length >> 1) + 1;
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+		}
+		left[size] = leftIndex;
+		right[size] = rightIndex;
+		size++;
+	}
+
+	/**
+	 * Append all the pairs of another list.
+	 *
+	 * @param other The pairs to append
+	 */
+	public void addAll(CandidatePairs other) {
+		for (int i = 0; i < other.size; i++) {
+			add(other.left[i], other.right[i]);
+		}
+	}
+
+	/**
+	 * @return The number of pairs
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i The index of the pair
+	 * @return The index of the left Shape of pair i
+	 */
+	public int getLeft(int i) {
+		checkIndex(i);
+		return left[i];
+	}
+
+	/**
+	 * @param i The index of the pair
+	 * @return The index of the right Shape of pair i
+	 */
+	public int getRight(int i) {
+		checkIndex(i);
+		return right[i];
+	}
+
+	/**
+	 * @return A copy of the left index of every pair
+	 */
+	public int[] toLeftArray() {
+		return Arrays.copyOf(left, size);
+	}
+
+	/**
+	 * @return A copy of the right index of every pair
+	 */
+	public int[] toRightArray() {
+		return Arrays.copyOf(right, size);
+	}
+
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("CandidatePairs[");
+		for (int i = 0; i < size && i < 10; i++) {
+			sb.append(i == 0 ? "" : ", ").append('(').append(left[i]).append(',').append(right[i]).append(')');
+		}
+		return sb.append(size > 10 ? ", ... " + size + " pairs]" : "]").toString();
+	}
+}
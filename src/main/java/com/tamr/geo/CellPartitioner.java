@@ -0,0 +1,392 @@
+package com.tamr.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+
+/**
+ * Splits the candidate pairs of a {@link SpatialIndex} between several workers (JVMs, processes or machines) using
+ * geohash cells as blocking keys, so each worker only reads and compares the Shapes of its own cells, no pair is
+ * missed and no pair is reported by two workers:
+ * <pre>{@code
+ *   CellPartitioner partitioner = new CellPartitioner(6, numWorkers);
+ *   // on worker w, with the same footprints and distance on every worker
+ *   CandidatePairs pairs = partitioner.candidatePairs(footprints, 5.0, w);
+ * }</pre>
+ * The union of the pairs of all the partitions is exactly {@link SpatialIndex#candidatePairs(double)}, and likewise
+ * {@link #candidatePairs(List, List, double, int)} for {@link SpatialIndex#candidatePairs(List, double)}.
+ * <p>
+ * A geohash of level n splits the earth into 32<sup>n</sup> latitude/longitude cells, a level 5 cell is about 5km and a
+ * level 6 cell about 1.2km across at the equator.  Each cell goes to a partition chosen from a hash of its geohash,
+ * which only depends on the cell and the number of partitions, so every worker (and every run) agrees on the partition
+ * of every cell, and the Shapes of a cell all go to the same worker.  A Shape is sent to the partitions of all the
+ * cells its bounding box (expanded by the distance, split at the dateline as in SpatialIndex) covers, so Shapes near a
+ * cell edge go to the workers on both sides of it.  A pair is then only reported by the partition of the one cell
+ * holding the lower left corner of the overlap of the two bounding boxes, which both Shapes cover.
+ * <p>
+ * Choose a level whose cells are larger than most Shapes: Shapes larger than a cell go to several partitions, and
+ * Shapes covering more than {@value #MAX_PARTITION_CELLS} cells go to all of them.  A CellPartitioner is immutable and
+ * thread safe.
+ */
+public class CellPartitioner {
+
+	/**
+	 * The finest geohash level, a level 12 cell is a few centimeters across.
+	 */
+	public static final int MAX_LEVEL = 12;
+
+	/**
+	 * A Shape covering more cells than this is sent to every partition rather than enumerating its cells.
+	 */
+	public static final int MAX_PARTITION_CELLS = 1 << 16;
+
+	private static final int MAX_COVER_CELLS = 1 << 20;
+	private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+	private final int level;
+	private final int partitions;
+	private final int lonBits;
+	private final int latBits;
+
+	/**
+	 * @param level The geohash level of the cells, 1 to {@value #MAX_LEVEL}
+	 * @param partitions The number of partitions (workers)
+	 */
+	public CellPartitioner(int level, int partitions) {
+		if (level < 1 || level > MAX_LEVEL) {
+			throw new IllegalArgumentException("level must be between 1 and " + MAX_LEVEL + ": " + level);
+		}
+		if (partitions < 1) {
+			throw new IllegalArgumentException("partitions must be positive: " + partitions);
+		}
+		this.level = level;
+		this.partitions = partitions;
+		// geohash bits alternate between longitude and latitude, starting with longitude
+		this.lonBits = (level * 5 + 1) / 2;
+		this.latBits = level * 5 / 2;
+	}
+
+	/**
+	 * @return The geohash level of the cells
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * @return The number of partitions
+	 */
+	public int getPartitions() {
+		return partitions;
+	}
+
+	/**
+	 * The geohash of the cell holding a location.  Locations on the edge between two cells are in the cell to their
+	 * east or north.
+	 *
+	 * @param x The longitude
+	 * @param y The latitude
+	 * @param level The number of characters of the geohash, 1 to {@value #MAX_LEVEL}
+	 * @return The geohash
+	 */
+	public static String geohash(double x, double y, int level) {
+		return new CellPartitioner(level, 1).cell(x, y);
+	}
+
+	/**
+	 * @param point A Point
+	 * @return The geohash of the cell of this partitioner's level holding the Point
+	 */
+	public String cell(Point point) {
+		return cell(point.getX(), point.getY());
+	}
+
+	/**
+	 * The geohashes of all the cells of this partitioner's level that the bounding box of a Shape, expanded by a
+	 * distance, intersects.
+	 *
+	 * @param shape The Shape
+	 * @param distanceMeters The distance in meters, 0 for the cells of the bounding box itself
+	 * @return The geohashes in ascending order, none for an empty Shape
+	 * @throws IllegalArgumentException If the Shape covers more than a million cells, use a coarser level
+	 */
+	public List<String> cover(Shape shape, double distanceMeters) {
+		int[] ranges = cellRanges(shape, distanceMeters);
+		if (cellCount(ranges) > MAX_COVER_CELLS) {
+			throw new IllegalArgumentException("The Shape covers more than " + MAX_COVER_CELLS
+					+ " cells of level " + level + ", use a coarser level");
+		}
+		TreeSet<String> cells = new TreeSet<>();
+		for (int r = 0; r < ranges.length; r += 4) {
+			for (int ix = ranges[r]; ix <= ranges[r + 2]; ix++) {
+				for (int iy = ranges[r + 1]; iy <= ranges[r + 3]; iy++) {
+					cells.add(geohash(ix, iy));
+				}
+			}
+		}
+		return new ArrayList<>(cells);
+	}
+
+	/**
+	 * @param cell A geohash of this partitioner's level
+	 * @return The partition of the cell, from 0 to {@link #getPartitions()} - 1
+	 */
+	public int partition(String cell) {
+		// String.hashCode is part of the language specification, so this is the same in every JVM
+		int h = cell.hashCode() * 0x9e3779b9;
+		return Math.floorMod(h ^ (h >>> 16), partitions);
+	}
+
+	/**
+	 * The partitions a Shape must be sent to, the partitions of the cells of {@link #cover(Shape, double)}, or all
+	 * partitions if the Shape covers more than {@value #MAX_PARTITION_CELLS} cells.
+	 *
+	 * @param shape The Shape
+	 * @param distanceMeters The distance in meters pairs will be searched for
+	 * @return The partitions in ascending order, none for an empty Shape
+	 */
+	public int[] partitions(Shape shape, double distanceMeters) {
+		boolean[] assigned = assign(cellRanges(shape, distanceMeters));
+		int count = 0;
+		int[] result = new int[partitions];
+		for (int p = 0; p < partitions; p++) {
+			if (assigned[p]) {
+				result[count++] = p;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * The partition that reports a candidate pair.  With the left Shape playing the part of a Shape passed to
+	 * {@link SpatialIndex#candidatePairs(List, double)} (or of the lower index of a pair of
+	 * {@link SpatialIndex#candidatePairs(double)}) and the right Shape that of a Shape of the index.
+	 *
+	 * @param left The left Shape of the pair
+	 * @param right The right Shape of the pair
+	 * @param distanceMeters The distance in meters
+	 * @return The partition, or -1 if the Shapes are not a candidate pair
+	 */
+	public int pairPartition(Shape left, Shape right, double distanceMeters) {
+		Rectangle l = left.getBoundingBox();
+		Rectangle r = right.getBoundingBox();
+		if (l.isEmpty() || r.isEmpty()) {
+			return -1;
+		}
+		double[] leftBoxes = new double[8];
+		double[] rightBoxes = new double[8];
+		int numLeft = SpatialIndex.expand(l.getMinX(), l.getMinY(), l.getMaxX(), l.getMaxY(), distanceMeters,
+				leftBoxes);
+		int numRight = SpatialIndex.expand(r.getMinX(), r.getMinY(), r.getMaxX(), r.getMaxY(), 0, rightBoxes);
+
+		// the lower left corner of the overlap of the boxes, the westernmost if the boxes overlap twice
+		double x = Double.NaN;
+		double y = Double.NaN;
+		for (int a = 0; a < numLeft * 4; a += 4) {
+			for (int b = 0; b < numRight * 4; b += 4) {
+				double minX = Math.max(leftBoxes[a], rightBoxes[b]);
+				double minY = Math.max(leftBoxes[a + 1], rightBoxes[b + 1]);
+				if (minX > Math.min(leftBoxes[a + 2], rightBoxes[b + 2])
+						|| minY > Math.min(leftBoxes[a + 3], rightBoxes[b + 3])) {
+					continue;
+				}
+				if (Double.isNaN(x) || minX < x || (minX == x && minY < y)) {
+					x = minX;
+					y = minY;
+				}
+			}
+		}
+		return Double.isNaN(x) ? -1 : partition(cell(x, y));
+	}
+
+	/**
+	 * The candidate pairs of a partition within a single collection: the pairs of
+	 * {@link SpatialIndex#candidatePairs(double)} this partition reports.  Only the Shapes sent to this partition are
+	 * indexed.
+	 *
+	 * @param shapes All the Shapes, the same on every partition
+	 * @param distanceMeters The distance in meters, 0 to only find intersecting bounding boxes
+	 * @param partition The partition
+	 * @return The pairs, as indexes in the list of all the Shapes, with getLeft(i) &lt; getRight(i), sorted by left
+	 *         index, then right index
+	 */
+	public CandidatePairs candidatePairs(List<? extends Shape> shapes, double distanceMeters, int partition) {
+		checkPartition(partition);
+		// a Shape is the left Shape of some pairs and the right Shape of others, its expanded box covers both
+		int[] ids = assigned(shapes, distanceMeters, partition);
+		CandidatePairs local = new SpatialIndex(select(shapes, ids)).candidatePairs(distanceMeters);
+		CandidatePairs pairs = new CandidatePairs();
+		for (int i = 0; i < local.size(); i++) {
+			int left = ids[local.getLeft(i)];
+			int right = ids[local.getRight(i)];
+			if (pairPartition(shapes.get(left), shapes.get(right), distanceMeters) == partition) {
+				pairs.add(left, right);
+			}
+		}
+		return pairs;
+	}
+
+	/**
+	 * The candidate pairs of a partition between two collections: the pairs of
+	 * {@code new SpatialIndex(right).candidatePairs(left, distanceMeters)} this partition reports.  Only the Shapes
+	 * sent to this partition are indexed.
+	 *
+	 * @param left All the Shapes to find candidates for, the same on every partition
+	 * @param right All the Shapes to find candidates among, the same on every partition
+	 * @param distanceMeters The distance in meters, 0 to only find intersecting bounding boxes
+	 * @param partition The partition
+	 * @return The pairs, as indexes in the left and right lists, sorted by left index, then right index
+	 */
+	public CandidatePairs candidatePairs(List<? extends Shape> left, List<? extends Shape> right,
+			double distanceMeters, int partition) {
+		checkPartition(partition);
+		int[] leftIds = assigned(left, distanceMeters, partition);
+		int[] rightIds = assigned(right, 0, partition);
+		CandidatePairs local = new SpatialIndex(select(right, rightIds)).candidatePairs(select(left, leftIds),
+				distanceMeters);
+		CandidatePairs pairs = new CandidatePairs();
+		for (int i = 0; i < local.size(); i++) {
+			int l = leftIds[local.getLeft(i)];
+			int r = rightIds[local.getRight(i)];
+			if (pairPartition(left.get(l), right.get(r), distanceMeters) == partition) {
+				pairs.add(l, r);
+			}
+		}
+		return pairs;
+	}
+
+	private void checkPartition(int partition) {
+		if (partition < 0 || partition >= partitions) {
+			throw new IllegalArgumentException("partition must be between 0 and " + (partitions - 1) + ": "
+					+ partition);
+		}
+	}
+
+	/*
+	 * The indexes of the Shapes sent to a partition, in ascending order so the local pairs keep the order of the
+	 * global ones.
+	 */
+	private int[] assigned(List<? extends Shape> shapes, double distanceMeters, int partition) {
+		int[] ids = new int[shapes.size()];
+		int count = 0;
+		for (int i = 0; i < shapes.size(); i++) {
+			if (assign(cellRanges(shapes.get(i), distanceMeters))[partition]) {
+				ids[count++] = i;
+			}
+		}
+		return Arrays.copyOf(ids, count);
+	}
+
+	private static List<Shape> select(List<? extends Shape> shapes, int[] ids) {
+		List<Shape> selected = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			selected.add(shapes.get(id));
+		}
+		return selected;
+	}
+
+	private boolean[] assign(int[] ranges) {
+		boolean[] assigned = new boolean[partitions];
+		if (cellCount(ranges) > MAX_PARTITION_CELLS) {
+			Arrays.fill(assigned, true);
+			return assigned;
+		}
+		for (int r = 0; r < ranges.length; r += 4) {
+			for (int ix = ranges[r]; ix <= ranges[r + 2]; ix++) {
+				for (int iy = ranges[r + 1]; iy <= ranges[r + 3]; iy++) {
+					assigned[partition(geohash(ix, iy))] = true;
+				}
+			}
+		}
+		return assigned;
+	}
+
+	/*
+	 * The column and row ranges (min column, min row, max column, max row) of the cells the expanded bounding box of a
+	 * Shape intersects, one range per box of SpatialIndex.expand.
+	 */
+	private int[] cellRanges(Shape shape, double distanceMeters) {
+		Rectangle r = shape.getBoundingBox();
+		if (r.isEmpty()) {
+			return new int[0];
+		}
+		double[] boxes = new double[8];
+		int numBoxes = SpatialIndex.expand(r.getMinX(), r.getMinY(), r.getMaxX(), r.getMaxY(), distanceMeters, boxes);
+		int[] ranges = new int[numBoxes * 4];
+		for (int b = 0; b < numBoxes * 4; b += 4) {
+			ranges[b] = column(boxes[b]);
+			ranges[b + 1] = row(boxes[b + 1]);
+			ranges[b + 2] = column(boxes[b + 2]);
+			ranges[b + 3] = row(boxes[b + 3]);
+		}
+		return ranges;
+	}
+
+	private static long cellCount(int[] ranges) {
+		long count = 0;
+		for (int r = 0; r < ranges.length; r += 4) {
+			count += (long) (ranges[r + 2] - ranges[r] + 1) * (ranges[r + 3] - ranges[r + 1] + 1);
+		}
+		return count;
+	}
+
+	private String cell(double x, double y) {
+		return geohash(column(x), row(y));
+	}
+
+	private int column(double x) {
+		return bisect(x, -180, 180, lonBits);
+	}
+
+	private int row(double y) {
+		return bisect(y, -90, 90, latBits);
+	}
+
+	/*
+	 * The index of the interval holding a value after splitting [lo, hi] in halves the given number of times, exactly
+	 * as a geohash is computed.  This is monotonic in the value, so the cells of a box are the range of cells between
+	 * those of its corners.
+	 */
+	private static int bisect(double value, double lo, double hi, int bits) {
+		int index = 0;
+		for (int i = 0; i < bits; i++) {
+			double mid = (lo + hi) / 2;
+			if (value >= mid) {
+				index = (index << 1) | 1;
+				lo = mid;
+			} else {
+				index <<= 1;
+				hi = mid;
+			}
+		}
+		return index;
+	}
+
+	/*
+	 * Interleave the bits of the column and row, longitude first, and write them 5 bits to a character.
+	 */
+	private String geohash(int column, int row) {
+		char[] chars = new char[level];
+		int lon = lonBits;
+		int lat = latBits;
+		for (int c = 0; c < level; c++) {
+			int value = 0;
+			for (int i = 0; i < 5; i++) {
+				int bit = c * 5 + i;
+				value <<= 1;
+				if ((bit & 1) == 0) {
+					value |= (column >>> --lon) & 1;
+				} else {
+					value |= (row >>> --lat) & 1;
+				}
+			}
+			chars[c] = BASE32[value];
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,149 @@
+package com.tamr.geo;
+
+import org.locationtech.spatial4j.distance.DistanceUtils;
+
+/**
+ * Haversine distances in meters between longitude/latitude coordinates held in primitive arrays, for computing many
+ * distances without creating a {@link org.locationtech.spatial4j.shape.Point} for each coordinate:
+ * <pre>{@code
+ *   double[] meters = new double[lons.length];
+ *   DistanceKernels.oneToMany(-76.94, 38.89, lons, lats, meters);
+ * }</pre>
+ * Every distance is exactly, to the bit, the distance {@link TamrGeoUtils#calculateDistance} returns for Points at
+ * the same coordinates: the same Haversine formula as the spatial context's distance calculator, on a sphere with a
+ * radius of 6371000 meters.
+ * <p>
+ * The kernels write into a caller supplied array and do not allocate per distance.  The cosine of each latitude is
+ * computed once per coordinate rather than once per distance, and the loops are simple counted loops over arrays so
+ * the JIT can unroll them.
+ */
+public final class DistanceKernels {
+
+	private DistanceKernels() {
+	}
+
+	/**
+	 * The distance between two coordinates.
+	 *
+	 * @param lon1 The longitude of the first coordinate, in degrees
+	 * @param lat1 The latitude of the first coordinate, in degrees
+	 * @param lon2 The longitude of the second coordinate, in degrees
+	 * @param lat2 The latitude of the second coordinate, in degrees
+	 * @return The distance in meters
+	 */
+	public static double distance(double lon1, double lat1, double lon2, double lat2) {
+		double latRad1 = DistanceUtils.toRadians(lat1);
+		double latRad2 = DistanceUtils.toRadians(lat2);
+		return haversine(DistanceUtils.toRadians(lon1), latRad1, Math.cos(latRad1), DistanceUtils.toRadians(lon2),
+				latRad2, Math.cos(latRad2));
+	}
+
+	/**
+	 * The distances from one coordinate to each of many coordinates.
+	 *
+	 * @param lon The longitude of the coordinate, in degrees
+	 * @param lat The latitude of the coordinate, in degrees
+	 * @param lons The longitudes of the other coordinates, in degrees
+	 * @param lats The latitudes of the other coordinates, in degrees
+	 * @param out Receives the distance in meters to each of the other coordinates, <code>out[i]</code> being the
+	 *            distance to <code>(lons[i], lats[i])</code>
+	 */
+	public static void oneToMany(double lon, double lat, double[] lons, double[] lats, double[] out) {
+		int n = checkLengths(lons, lats);
+		checkOutput(out, n);
+		double lonRad = DistanceUtils.toRadians(lon);
+		double latRad = DistanceUtils.toRadians(lat);
+		double cosLat = Math.cos(latRad);
+		for (int i = 0; i < n; i++) {
+			double latRadI = DistanceUtils.toRadians(lats[i]);
+			out[i] = haversine(lonRad, latRad, cosLat, DistanceUtils.toRadians(lons[i]), latRadI, Math.cos(latRadI));
+		}
+	}
+
+	/**
+	 * The distances between coordinates at the same position of two arrays.
+	 *
+	 * @param lons1 The longitudes of the first coordinates, in degrees
+	 * @param lats1 The latitudes of the first coordinates, in degrees
+	 * @param lons2 The longitudes of the second coordinates, in degrees
+	 * @param lats2 The latitudes of the second coordinates, in degrees
+	 * @param out Receives the distances in meters, <code>out[i]</code> being the distance between
+	 *            <code>(lons1[i], lats1[i])</code> and <code>(lons2[i], lats2[i])</code>
+	 */
+	public static void pairwise(double[] lons1, double[] lats1, double[] lons2, double[] lats2, double[] out) {
+		int n = checkLengths(lons1, lats1);
+		if (checkLengths(lons2, lats2) != n) {
+			throw new IllegalArgumentException("Expected " + n + " second coordinates but got " + lons2.length);
+		}
+		checkOutput(out, n);
+		for (int i = 0; i < n; i++) {
+			double latRad1 = DistanceUtils.toRadians(lats1[i]);
+			double latRad2 = DistanceUtils.toRadians(lats2[i]);
+			out[i] = haversine(DistanceUtils.toRadians(lons1[i]), latRad1, Math.cos(latRad1),
+					DistanceUtils.toRadians(lons2[i]), latRad2, Math.cos(latRad2));
+		}
+	}
+
+	/**
+	 * The distances from each of one set of coordinates to each of another.  The radians and latitude cosines of the
+	 * second set are computed once into three arrays of its size, so the cost per distance is two sines, two square
+	 * roots and an arc tangent.
+	 *
+	 * @param lons1 The longitudes of the first coordinates, in degrees
+	 * @param lats1 The latitudes of the first coordinates, in degrees
+	 * @param lons2 The longitudes of the second coordinates, in degrees
+	 * @param lats2 The latitudes of the second coordinates, in degrees
+	 * @param out Receives the distances in meters in row major order, <code>out[i * lons2.length + j]</code> being
+	 *            the distance between <code>(lons1[i], lats1[i])</code> and <code>(lons2[j], lats2[j])</code>
+	 */
+	public static void manyToMany(double[] lons1, double[] lats1, double[] lons2, double[] lats2, double[] out) {
+		int n1 = checkLengths(lons1, lats1);
+		int n2 = checkLengths(lons2, lats2);
+		checkOutput(out, (long) n1 * n2);
+		double[] lonRad2 = new double[n2];
+		double[] latRad2 = new double[n2];
+		double[] cosLat2 = new double[n2];
+		for (int j = 0; j < n2; j++) {
+			lonRad2[j] = DistanceUtils.toRadians(lons2[j]);
+			latRad2[j] = DistanceUtils.toRadians(lats2[j]);
+			cosLat2[j] = Math.cos(latRad2[j]);
+		}
+		for (int i = 0; i < n1; i++) {
+			double lonRad1 = DistanceUtils.toRadians(lons1[i]);
+			double latRad1 = DistanceUtils.toRadians(lats1[i]);
+			double cosLat1 = Math.cos(latRad1);
+			int row = i * n2;
+			for (int j = 0; j < n2; j++) {
+				out[row + j] = haversine(lonRad1, latRad1, cosLat1, lonRad2[j], latRad2[j], cosLat2[j]);
+			}
+		}
+	}
+
+	/*
+	 * DistanceUtils.distHaversineRAD with the cosines passed in, followed by the conversions calculateDistance makes.
+	 * The check for identical coordinates is left out as the formula is exactly 0 for them anyway.  Also used by
+	 * FootprintIndex, which keeps the radians and cosines of its centroids.
+	 */
+	static double haversine(double lon1, double lat1, double cosLat1, double lon2, double lat2,
+			double cosLat2) {
+		double hsinX = Math.sin((lon1 - lon2) * 0.5);
+		double hsinY = Math.sin((lat1 - lat2) * 0.5);
+		double h = Math.min(hsinY * hsinY + (cosLat1 * cosLat2 * hsinX * hsinX), 1);
+		double radians = 2 * Math.atan2(Math.sqrt(h), Math.sqrt(1 - h));
+		return Math.toRadians(DistanceUtils.toDegrees(radians)) * TamrGeoUtils.EARTH_RADIUS_METERS;
+	}
+
+	private static int checkLengths(double[] lons, double[] lats) {
+		if (lons.length != lats.length) {
+			throw new IllegalArgumentException(
+					"Got " + lons.length + " longitudes but " + lats.length + " latitudes");
+		}
+		return lons.length;
+	}
+
+	private static void checkOutput(double[] out, long n) {
+		if (out.length < n) {
+			throw new IllegalArgumentException("Output needs room for " + n + " distances but has " + out.length);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.tamr.geo;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.locationtech.spatial4j.shape.Shape;
+
+/**
+ * A geoJson Feature: a {@link Shape} together with the id and properties that were stored alongside it.
+ */
+public class Feature {
+
+	private final Object id;
+	private final Shape shape;
+	private final Map<String, Object> properties;
+
+	/**
+	 * Create a Feature.
+	 *
+	 * @param id The Feature's id, may be null
+	 * @param shape The Feature's geometry, may be null for a Feature with a null geometry
+	 * @param properties The Feature's properties, may be null
+	 */
+	public Feature(Object id, Shape shape, Map<String, Object> properties) {
+		this.id = id;
+		this.shape = shape;
+		this.properties = properties == null ? Collections.<String, Object>emptyMap()
+				: Collections.unmodifiableMap(properties);
+	}
+
+	/**
+	 * The id member of the Feature.  Per the geoJson spec this is either a String or a Number.
+	 *
+	 * @return The id of this Feature, or null if it didn't have one
+	 */
+	public Object getId() {
+		return id;
+	}
+
+	/**
+	 * @return The Shape described by the geometry of this Feature, or null if the geometry was null
+	 */
+	public Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * The properties of the Feature.  Values are Strings, Longs, Doubles, Booleans, nulls, Lists and Maps as read
+	 * from the geoJson.
+	 *
+	 * @return The properties of this Feature, never null
+	 */
+	public Map<String, Object> getProperties() {
+		return properties;
+	}
+
+	@Override
+	public String toString() {
+		return "Feature(id=" + id + ", properties=" + properties + ", shape=" + shape + ")";
+	}
+}
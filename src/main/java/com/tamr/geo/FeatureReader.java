@@ -0,0 +1,295 @@
+package com.tamr.geo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.locationtech.spatial4j.exception.InvalidShapeException;
+import org.locationtech.spatial4j.shape.Shape;
+import org.noggit.JSONParser;
+import org.noggit.ObjectBuilder;
+
+/**
+ * Reads the {@link Feature}s of a geoJson document one at a time.  Only the Feature currently being read is held in
+ * memory, so arbitrarily large FeatureCollections can be read with a small heap.  A document holding a single Feature
+ * or a single geometry is read as one Feature.
+ * <p>
+ * Use {@link #read()} to pull Features one at a time, or iterate or {@link #stream()} them.  The Iterator and Stream
+ * can not throw checked exceptions, so they wrap IOExceptions in {@link UncheckedIOException} and ParseExceptions in
+ * {@link InvalidShapeException}.  A Feature with an invalid geometry throws {@link InvalidShapeException}; the reader
+ * can not be used after any exception.
+ * <p>
+ * Obtain one from {@link TamrGeoUtils#readFeatures(Reader)}.  Close the reader when done to close the underlying
+ * Reader.  This class is not thread safe.
+ */
+public class FeatureReader implements Iterator<Feature>, Closeable {
+
+	private static final String FEATURE_COLLECTION = "FeatureCollection";
+	private static final String FEATURE = "Feature";
+
+	private final Reader in;
+	private final JSONParser parser;
+	private final GeoJsonGeometryReader geometryReader;
+	private final OperationMetrics metrics = OperationMetrics.getInstance();
+
+	private boolean inFeatures = false;
+	private boolean done = false;
+	private Feature next = null;
+
+	FeatureReader(GeoJsonGeometryReader geometryReader, Reader in) throws IOException, ParseException {
+		this.in = in;
+		this.parser = new JSONParser(in);
+		this.geometryReader = geometryReader;
+
+		int evt = parser.nextEvent();
+		if (evt != JSONParser.OBJECT_START) {
+			throw new ParseException("Expected a geoJson object but found " + JSONParser.getEventString(evt),
+					(int) parser.getPosition());
+		}
+		Feature single = readObject(true);
+		if (!inFeatures) {
+			// not a FeatureCollection, the whole document was one Feature or geometry
+			next = single;
+			done = true;
+		}
+	}
+
+	/**
+	 * Read the next Feature.
+	 *
+	 * @return The next Feature, or null if there are no more Features
+	 * @throws IOException
+	 * @throws ParseException If the document is not valid geoJson
+	 * @throws InvalidShapeException If the geometry of the Feature is not valid
+	 */
+	public Feature read() throws IOException, ParseException, InvalidShapeException {
+		if (next != null) {
+			Feature result = next;
+			next = null;
+			return result;
+		}
+		if (done) {
+			return null;
+		}
+		OperationMetrics.Sample sample = metrics.start("readFeature");
+		Feature feature;
+		try {
+			int evt = parser.nextEvent();
+			switch (evt) {
+			case JSONParser.OBJECT_START:
+				feature = readObject(false);
+				break;
+			case JSONParser.ARRAY_END:
+				// the rest of the document is never read, there are no more Features in it
+				done = true;
+				return null;
+			default:
+				throw new ParseException("Unexpected " + JSONParser.getEventString(evt) + " in features",
+						(int) parser.getPosition());
+			}
+		} catch (IOException | ParseException | RuntimeException e) {
+			metrics.completed(sample, 0, e);
+			throw e;
+		}
+		metrics.completed(sample, OperationMetrics.vertices(feature.getShape()), null);
+		return feature;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !done) {
+			try {
+				next = read();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} catch (ParseException e) {
+				throw new InvalidShapeException(e.getMessage(), e);
+			}
+		}
+		return next != null;
+	}
+
+	@Override
+	public Feature next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Feature result = next;
+		next = null;
+		return result;
+	}
+
+	/**
+	 * Return the remaining Features as a sequential Stream.  Closing the Stream closes this reader.
+	 *
+	 * @return A Stream of the remaining Features
+	 */
+	public Stream<Feature> stream() {
+		Spliterator<Feature> spliterator = Spliterators.spliteratorUnknownSize(this,
+				Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(() -> {
+			try {
+				close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	@Override
+	public void close() throws IOException {
+		done = true;
+		next = null;
+		in.close();
+	}
+
+	/*
+	 * Read the members of an object whose OBJECT_START has just been read.  Returns the Feature described by the
+	 * object.  At the top level, finding a features array stops the read with the parser positioned at the start
+	 * of the array.
+	 */
+	private Feature readObject(boolean topLevel) throws IOException, ParseException {
+		String type = null;
+		Object id = null;
+		Shape shape = null;
+		Map<String, Object> properties = null;
+
+		while (true) {
+			int evt = parser.nextEvent();
+			if (evt == JSONParser.OBJECT_END) {
+				break;
+			}
+			if (evt != JSONParser.STRING || !parser.wasKey()) {
+				throw new ParseException("Unexpected " + JSONParser.getEventString(evt),
+						(int) parser.getPosition());
+			}
+			String key = parser.getString();
+			evt = parser.nextEvent();
+			switch (key) {
+			case "type":
+				type = readType(evt);
+				break;
+			case "features":
+				if (!topLevel || evt != JSONParser.ARRAY_START) {
+					throw new ParseException("Unexpected features", (int) parser.getPosition());
+				}
+				inFeatures = true;
+				return null;
+			case "id":
+				id = ObjectBuilder.getVal(parser);
+				break;
+			case "geometry":
+				shape = readGeometry(evt);
+				break;
+			case "properties":
+				properties = readProperties(evt);
+				break;
+			case "coordinates":
+				// a bare geometry rather than a Feature
+				if (type == null || evt != JSONParser.ARRAY_START) {
+					throw new ParseException("Expected a type before coordinates", (int) parser.getPosition());
+				}
+				shape = geometryReader.readCoordinates(type, parser);
+				if (parser.lastEvent() == JSONParser.OBJECT_END) {
+					// some geometry types read through to the end of the object
+					return new Feature(id, shape, properties);
+				}
+				break;
+			case "geometries":
+				shape = readGeometries(evt);
+				break;
+			default:
+				skipValue(evt);
+			}
+		}
+		if (FEATURE_COLLECTION.equals(type)) {
+			throw new ParseException("FeatureCollection has no features", (int) parser.getPosition());
+		}
+		return new Feature(id, shape, properties);
+	}
+
+	private String readType(int evt) throws IOException, ParseException {
+		if (evt != JSONParser.STRING) {
+			throw new ParseException("Expected a String type", (int) parser.getPosition());
+		}
+		String type = parser.getString();
+		if (inFeatures && !FEATURE.equals(type)) {
+			throw new ParseException("Expected a Feature but found type: " + type, (int) parser.getPosition());
+		}
+		return type;
+	}
+
+	private Shape readGeometry(int evt) throws IOException, ParseException {
+		switch (evt) {
+		case JSONParser.NULL:
+			return null;
+		case JSONParser.OBJECT_START:
+			return geometryReader.readGeometry(parser);
+		default:
+			throw new ParseException("Unexpected geometry " + JSONParser.getEventString(evt),
+					(int) parser.getPosition());
+		}
+	}
+
+	private Shape readGeometries(int evt) throws IOException, ParseException {
+		if (evt != JSONParser.ARRAY_START) {
+			throw new ParseException("Unexpected geometries " + JSONParser.getEventString(evt),
+					(int) parser.getPosition());
+		}
+		List<Shape> shapes = new ArrayList<>();
+		for (evt = parser.nextEvent(); evt != JSONParser.ARRAY_END; evt = parser.nextEvent()) {
+			shapes.add(readGeometry(evt));
+		}
+		if (shapes.isEmpty()) {
+			throw new ParseException("Shape Collection with no geometries!", (int) parser.getPosition());
+		}
+		return geometryReader.makeCollection(shapes);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> readProperties(int evt) throws IOException, ParseException {
+		switch (evt) {
+		case JSONParser.NULL:
+			return null;
+		case JSONParser.OBJECT_START:
+			return (Map<String, Object>) ObjectBuilder.getVal(parser);
+		default:
+			throw new ParseException("Unexpected properties " + JSONParser.getEventString(evt),
+					(int) parser.getPosition());
+		}
+	}
+
+	private void skipValue(int evt) throws IOException, ParseException {
+		if (evt != JSONParser.OBJECT_START && evt != JSONParser.ARRAY_START) {
+			return;
+		}
+		int depth = 1;
+		while (depth > 0) {
+			switch (parser.nextEvent()) {
+			case JSONParser.OBJECT_START:
+			case JSONParser.ARRAY_START:
+				depth++;
+				break;
+			case JSONParser.OBJECT_END:
+			case JSONParser.ARRAY_END:
+				depth--;
+				break;
+			case JSONParser.EOF:
+				throw new ParseException("Unexpected EOF", (int) parser.getPosition());
+			default:
+				break;
+			}
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.tamr.geo;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes {@link Feature}s as a geoJson FeatureCollection one at a time, so arbitrarily large FeatureCollections can be
+ * written with a small heap.  Features are formatted into a small buffer which is passed on to the output when it
+ * fills, even part way through the coordinates of a large geometry, so no String is built for a Feature or for the
+ * whole collection.
+ * <pre>{@code
+ *   try (FeatureWriter out = gu.writeFeatures(Paths.get("simplified.json"), 6)) {
+ *       for (Feature feature : features) {
+ *           out.write(simplifier.simplify(feature));
+ *       }
+ *   }
+ * }</pre>
+ * Coordinates are written with at most the number of decimal places the writer was created with (6 decimal places of
+ * a degree is about 10cm), property values are written with all their digits.  Property values may be Strings,
+ * Numbers, Booleans, nulls, Maps and Collections, the values {@link FeatureReader} reads.
+ * <p>
+ * Obtain one from {@link TamrGeoUtils#writeFeatures(Appendable, int)}.  The FeatureCollection is finished when the
+ * writer is closed, which also closes the output if it is {@link Closeable}.  This class is not thread safe.
+ */
+public class FeatureWriter implements Closeable, Flushable {
+
+	// the buffer is passed on to the output once it holds this many characters
+	private static final int FLUSH_CHARS = GeoJsonGeometryWriter.DRAIN_CHARS;
+
+	private final GeoJsonGeometryWriter geometryWriter;
+	private final Appendable out;
+	private final OperationMetrics metrics = OperationMetrics.getInstance();
+	private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS * 2);
+	// the properties of the Feature being written, formatted before its geometry
+	private final StringBuilder properties = new StringBuilder();
+	private int size;
+	private boolean closed;
+	// part of the Feature being written has been passed on to the output
+	private boolean partial;
+	private boolean failed;
+	private final GeoJsonGeometryWriter.Drain drain = formatted -> {
+		drain();
+		partial = true;
+	};
+
+	FeatureWriter(GeoJsonGeometryWriter geometryWriter, Appendable out) {
+		this.geometryWriter = geometryWriter;
+		this.out = out;
+		buffer.append("{\"type\":\"FeatureCollection\",\"features\":[");
+	}
+
+	/**
+	 * Write a Feature.
+	 *
+	 * @param feature The Feature
+	 * @throws IOException
+	 * @throws org.locationtech.spatial4j.exception.InvalidShapeException If the Feature's Shape can not be written as
+	 *             geoJson.  Nothing of the Feature is written unless the geometry was large enough for part of it to
+	 *             have been passed on to the output already, in which case the writer can not be used any more.
+	 * @throws IllegalArgumentException If a property value is not of a kind that can be written as geoJson, nothing
+	 *             of the Feature is written
+	 */
+	public void write(Feature feature) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("The writer is closed");
+		}
+		if (failed) {
+			throw new IllegalStateException("The writer failed part way through a Feature");
+		}
+		OperationMetrics.Sample sample = metrics.start("writeFeature");
+		int start = buffer.length();
+		partial = false;
+		try {
+			properties.setLength(0);
+			geometryWriter.writeValue(feature.getProperties(), properties);
+			if (size > 0) {
+				buffer.append(',');
+			}
+			buffer.append("{\"type\":\"Feature\"");
+			if (feature.getId() != null) {
+				buffer.append(",\"id\":");
+				geometryWriter.writeValue(feature.getId(), buffer);
+			}
+			buffer.append(",\"geometry\":");
+			if (feature.getShape() == null) {
+				buffer.append("null");
+			} else {
+				geometryWriter.write(feature.getShape(), buffer, drain);
+			}
+			buffer.append(",\"properties\":").append(properties).append('}');
+		} catch (IOException | RuntimeException e) {
+			if (partial || e instanceof IOException) {
+				failed = true;
+			} else {
+				buffer.setLength(start);
+			}
+			metrics.completed(sample, 0, e);
+			throw e;
+		}
+		size++;
+		try {
+			if (buffer.length() >= FLUSH_CHARS) {
+				drain();
+			}
+		} catch (IOException | RuntimeException e) {
+			metrics.completed(sample, OperationMetrics.vertices(feature.getShape()), e);
+			throw e;
+		}
+		metrics.completed(sample, OperationMetrics.vertices(feature.getShape()), null);
+	}
+
+	/**
+	 * @return The number of Features written so far
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Pass everything written so far on to the output, and flush the output if it is {@link Flushable}.
+	 */
+	@Override
+	public void flush() throws IOException {
+		drain();
+		if (out instanceof Flushable) {
+			((Flushable) out).flush();
+		}
+	}
+
+	/**
+	 * Finish the FeatureCollection, and close the output if it is {@link Closeable}.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (!failed) {
+				buffer.append("]}");
+			}
+			flush();
+		} finally {
+			if (out instanceof Closeable) {
+				((Closeable) out).close();
+			}
+		}
+	}
+
+	private void drain() throws IOException {
+		out.append(buffer);
+		buffer.setLength(0);
+	}
+}
@@ -0,0 +1,634 @@
+package com.tamr.geo;
+
+import java.util.Arrays;
+
+import org.locationtech.spatial4j.distance.DistanceUtils;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.SpatialRelation;
+
+/**
+ * An index of footprints that can be added to and removed from one at a time, for a feed of footprints where each new
+ * footprint is compared with the ones already seen:
+ * <pre>{@code
+ *   FootprintIndex index = new FootprintIndex(gu);
+ *   for (Shape footprint : feed) {
+ *       int[] duplicates = index.nearDuplicates(footprint, 10, 0.8, 0.9);
+ *       if (duplicates.length == 0) {
+ *           int id = index.insert(footprint);
+ *       }
+ *   }
+ *   int[] nearest = index.nearest(point, 5, distances);
+ * }</pre>
+ * Footprints are indexed by their centroid in a k-d tree over the points of the unit sphere: the straight line distance
+ * between two points of the sphere grows with their great circle distance, so the tree finds the nearest centroids
+ * without any special case at the dateline or the poles.  Distances are then those of
+ * {@link TamrGeoUtils#calculateDistance}, computed with {@link DistanceKernels}.  New footprints go to the leaf of
+ * the tree holding their centroid, which is split in two when it is full, and the tree is rebuilt from scratch when
+ * inserts in one place have made it too deep or deletes have emptied most of it, so both cost O(log n) on average.
+ * A {@link SpatialIndex} is faster to build and to query but must be rebuilt to add a footprint.
+ * <p>
+ * Near duplicates are the footprints whose centroid is within a distance of the query's, whose bounding box
+ * intersects the query's and whose intersection over union and Hausdorff similarity with the query reach given
+ * minimums.  The area and bounding box of each footprint are kept when it is inserted.
+ * <p>
+ * Footprints are identified by the id returned when they are inserted, ids are never reused.  Shapes whose centroid
+ * is not a finite location (empty Shapes) can not be inserted.  A FootprintIndex is not thread safe.
+ */
+public class FootprintIndex {
+
+	private static final int LEAF_SIZE = 16;
+	// Bounds are loosened by this fraction, and by this squared distance (a fraction of a millimeter on the earth),
+	// so that rounding never discards a footprint at the search distance.
+	private static final double BOUND_SLACK = 1e-9;
+	private static final double SQUARED_SLACK = 1e-20;
+
+	private final TamrGeoUtils gu;
+
+	// by id: the footprint (null once deleted), its centroid on the unit sphere (x, y, z) and as longitude, latitude
+	// (in radians) and cosine of the latitude for DistanceKernels, and its area
+	private Shape[] shapes = new Shape[64];
+	private double[] xyz = new double[64 * 3];
+	private double[] lonLatCos = new double[64 * 3];
+	private double[] areas = new double[64];
+	private int nextId;
+	private int size;
+
+	// by node: the children (-1 for a leaf), split dimension and value, and the bounds of its points (min x, y, z then
+	// max x, y, z), which only grow as points are inserted
+	private int[] left;
+	private int[] right;
+	private int[] splitDim;
+	private double[] splitValue;
+	private double[] bounds;
+	// by leaf: the ids of its points
+	private int[][] leafIds;
+	private int[] leafSize;
+	private int numNodes;
+	// the depth allowed before the tree is rebuilt, and the deletes since it was last rebuilt
+	private int maxDepth;
+	private int deletesSinceBuild;
+
+	/**
+	 * Create an empty index.
+	 *
+	 * @param gu The TamrGeoUtils to compute centroids, distances, areas and similarities with
+	 */
+	public FootprintIndex(TamrGeoUtils gu) {
+		this.gu = gu;
+		rebuild();
+	}
+
+	/**
+	 * @return The number of footprints in the index
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param id The id of a footprint
+	 * @return The footprint, or null if it was deleted or was never inserted
+	 */
+	public Shape getShape(int id) {
+		return id >= 0 && id < nextId ? shapes[id] : null;
+	}
+
+	/**
+	 * Add a footprint to the index.
+	 *
+	 * @param shape The footprint
+	 * @return The id of the footprint
+	 * @throws IllegalArgumentException If the footprint has no centroid
+	 */
+	public int insert(Shape shape) {
+		Point centroid = gu.centroid(shape);
+		if (centroid.isEmpty() || !Double.isFinite(centroid.getX()) || !Double.isFinite(centroid.getY())) {
+			throw new IllegalArgumentException("The Shape has no centroid: " + shape);
+		}
+		int id = nextId++;
+		if (id == shapes.length) {
+			int capacity = shapes.length * 2;
+			shapes = Arrays.copyOf(shapes, capacity);
+			xyz = Arrays.copyOf(xyz, capacity * 3);
+			lonLatCos = Arrays.copyOf(lonLatCos, capacity * 3);
+			areas = Arrays.copyOf(areas, capacity);
+		}
+		shapes[id] = shape;
+		toUnitVector(centroid, xyz, id * 3);
+		toLonLatCos(centroid, lonLatCos, id * 3);
+		areas[id] = gu.calculateArea(shape);
+		size++;
+
+		int node = 0;
+		int depth = 0;
+		while (true) {
+			expandBounds(node, id);
+			if (left[node] < 0) {
+				break;
+			}
+			node = xyz[id * 3 + splitDim[node]] < splitValue[node] ? left[node] : right[node];
+			depth++;
+		}
+		int count = leafSize[node];
+		if (count == leafIds[node].length) {
+			leafIds[node] = Arrays.copyOf(leafIds[node], count * 2);
+		}
+		leafIds[node][count] = id;
+		leafSize[node] = count + 1;
+		// a leaf of footprints with one centroid can not be split, leave it to grow
+		if (count + 1 > LEAF_SIZE && widest(node) > 0) {
+			int[] ids = Arrays.copyOf(leafIds[node], count + 1);
+			build(node, ids, 0, ids.length);
+		}
+		if (depth > maxDepth) {
+			rebuild();
+		}
+		return id;
+	}
+
+	/**
+	 * Remove a footprint from the index.
+	 *
+	 * @param id The id of the footprint
+	 * @return True if the footprint was removed, false if it was not in the index
+	 */
+	public boolean delete(int id) {
+		if (getShape(id) == null) {
+			return false;
+		}
+		int node = 0;
+		while (left[node] >= 0) {
+			node = xyz[id * 3 + splitDim[node]] < splitValue[node] ? left[node] : right[node];
+		}
+		int[] ids = leafIds[node];
+		int count = leafSize[node];
+		for (int i = 0; i < count; i++) {
+			if (ids[i] == id) {
+				ids[i] = ids[count - 1];
+				leafSize[node] = count - 1;
+				break;
+			}
+		}
+		shapes[id] = null;
+		size--;
+		if (++deletesSinceBuild > size + LEAF_SIZE) {
+			rebuild();
+		}
+		return true;
+	}
+
+	/**
+	 * Find the k footprints whose centroids are nearest a point.
+	 *
+	 * @param point The point
+	 * @param k The number of footprints to find
+	 * @param distances Receives the distance in meters from the point to the centroid of each footprint found, in the
+	 *            same order
+	 * @return The ids of up to k footprints, nearest first, equally distant footprints by id
+	 * @throws IllegalArgumentException If k is negative or distances has room for fewer than k distances
+	 */
+	public int[] nearest(Point point, int k, double[] distances) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative: " + k);
+		}
+		if (distances.length < k) {
+			throw new IllegalArgumentException("distances needs room for " + k + " distances but has "
+					+ distances.length);
+		}
+		if (k == 0 || size == 0) {
+			return new int[0];
+		}
+		double[] q = new double[3];
+		toUnitVector(point, q, 0);
+		Nearest search = new Nearest(q, Math.min(k, size));
+		search.run(0);
+
+		// every footprint as near as the k-th nearest found, up to rounding, ranked by their exact distances so that
+		// ties and footprints whose straight line distances are a rounding error apart are ranked as documented
+		int[] ids = collect(q, search.bound());
+		return sortByDistance(point, ids, ids.length, k, distances);
+	}
+
+	/**
+	 * Find the footprints whose centroids are within a distance of a point.
+	 *
+	 * @param point The point
+	 * @param distanceMeters The distance in meters
+	 * @return The ids of the footprints found, nearest first, equally distant footprints by id
+	 */
+	public int[] withinDistance(Point point, double distanceMeters) {
+		if (size == 0 || !(distanceMeters >= 0)) {
+			return new int[0];
+		}
+		double[] q = new double[3];
+		toUnitVector(point, q, 0);
+		double angle = distanceMeters / TamrGeoUtils.EARTH_RADIUS_METERS;
+		double chord = angle >= Math.PI ? 2 : 2 * Math.sin(angle / 2);
+		int[] found = collect(q, chord * chord * (1 + BOUND_SLACK) + SQUARED_SLACK);
+		double[] distances = new double[found.length];
+		int[] sorted = sortByDistance(point, found, found.length, found.length, distances);
+		int within = 0;
+		while (within < sorted.length && distances[within] <= distanceMeters) {
+			within++;
+		}
+		return Arrays.copyOf(sorted, within);
+	}
+
+	/*
+	 * The ids of the points within a squared straight line distance of q.
+	 */
+	private int[] collect(double[] q, double maxSquared) {
+		int[] found = new int[16];
+		int count = 0;
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			if (minSquaredDistance(node, q) > maxSquared) {
+				continue;
+			}
+			if (left[node] >= 0) {
+				if (top + 2 > stack.length) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				stack[top++] = left[node];
+				stack[top++] = right[node];
+				continue;
+			}
+			for (int i = 0; i < leafSize[node]; i++) {
+				int id = leafIds[node][i];
+				if (squaredDistance(q, id) <= maxSquared) {
+					if (count == found.length) {
+						found = Arrays.copyOf(found, count * 2);
+					}
+					found[count++] = id;
+				}
+			}
+		}
+		return Arrays.copyOf(found, count);
+	}
+
+	/**
+	 * Find the near duplicates of a footprint: the footprints whose centroid is within a distance of its centroid,
+	 * and whose intersection over union and Hausdorff similarity with it are at least the given minimums.
+	 *
+	 * @param shape The footprint
+	 * @param maxCentroidMeters The largest distance between centroids
+	 * @param minIntersectionOverUnion The smallest intersection over union, from 0 to 1
+	 * @param minHausdorffSimilarity The smallest Hausdorff similarity, from 0 to 1
+	 * @return The ids of the near duplicates, nearest centroid first
+	 */
+	public int[] nearDuplicates(Shape shape, double maxCentroidMeters, double minIntersectionOverUnion,
+			double minHausdorffSimilarity) {
+		Point centroid = gu.centroid(shape);
+		if (centroid.isEmpty()) {
+			return new int[0];
+		}
+		int[] candidates = withinDistance(centroid, maxCentroidMeters);
+		Rectangle bbox = shape.getBoundingBox();
+		double area = Double.NaN;
+		int count = 0;
+		for (int id : candidates) {
+			Shape candidate = shapes[id];
+			if (minIntersectionOverUnion > 0) {
+				// footprints that overlap have bounding boxes that intersect
+				if (bbox.relate(candidate.getBoundingBox()) == SpatialRelation.DISJOINT) {
+					continue;
+				}
+				if (Double.isNaN(area)) {
+					area = gu.calculateArea(shape);
+				}
+				double intersection = gu.getIntersectionArea(shape, candidate);
+				double union = area + areas[id] - intersection;
+				if (!(union > 0 && intersection / union >= minIntersectionOverUnion)) {
+					continue;
+				}
+			}
+			if (minHausdorffSimilarity > 0 && !(gu.getHausdorffSimilarity(shape, candidate) >= minHausdorffSimilarity)) {
+				continue;
+			}
+			candidates[count++] = id;
+		}
+		return Arrays.copyOf(candidates, count);
+	}
+
+	/*
+	 * Sort ids by the distance from the point to their centroid, then by id, and keep the first k.
+	 */
+	private int[] sortByDistance(Point point, int[] ids, int count, int k, double[] distances) {
+		double[] p = new double[3];
+		toLonLatCos(point, p, 0);
+		double[] d = new double[count];
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			int c = ids[i] * 3;
+			d[i] = DistanceKernels.haversine(p[0], p[1], p[2], lonLatCos[c], lonLatCos[c + 1], lonLatCos[c + 2]);
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> d[a] != d[b] ? Double.compare(d[a], d[b]) : Integer.compare(ids[a], ids[b]));
+		int[] sorted = new int[Math.min(k, count)];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = ids[order[i]];
+			distances[i] = d[order[i]];
+		}
+		return sorted;
+	}
+
+	private static void toLonLatCos(Point p, double[] out, int offset) {
+		out[offset] = DistanceUtils.toRadians(p.getX());
+		out[offset + 1] = DistanceUtils.toRadians(p.getY());
+		out[offset + 2] = Math.cos(out[offset + 1]);
+	}
+
+	private static void toUnitVector(Point p, double[] out, int offset) {
+		double lat = Math.toRadians(p.getY());
+		double lon = Math.toRadians(p.getX());
+		double cosLat = Math.cos(lat);
+		out[offset] = cosLat * Math.cos(lon);
+		out[offset + 1] = cosLat * Math.sin(lon);
+		out[offset + 2] = Math.sin(lat);
+	}
+
+	private double squaredDistance(double[] q, int id) {
+		double dx = q[0] - xyz[id * 3];
+		double dy = q[1] - xyz[id * 3 + 1];
+		double dz = q[2] - xyz[id * 3 + 2];
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	private double minSquaredDistance(int node, double[] q) {
+		double sum = 0;
+		for (int d = 0; d < 3; d++) {
+			double min = bounds[node * 6 + d];
+			double max = bounds[node * 6 + 3 + d];
+			double delta = q[d] < min ? min - q[d] : q[d] > max ? q[d] - max : 0;
+			sum += delta * delta;
+		}
+		return sum;
+	}
+
+	private void expandBounds(int node, int id) {
+		for (int d = 0; d < 3; d++) {
+			double v = xyz[id * 3 + d];
+			bounds[node * 6 + d] = Math.min(bounds[node * 6 + d], v);
+			bounds[node * 6 + 3 + d] = Math.max(bounds[node * 6 + 3 + d], v);
+		}
+	}
+
+	/*
+	 * Throw the tree away and build a balanced one over the footprints in the index.
+	 */
+	private void rebuild() {
+		left = new int[16];
+		right = new int[16];
+		splitDim = new int[16];
+		splitValue = new double[16];
+		bounds = new double[16 * 6];
+		leafIds = new int[16][];
+		leafSize = new int[16];
+		numNodes = 0;
+		int[] ids = new int[size];
+		int count = 0;
+		for (int id = 0; id < nextId; id++) {
+			if (shapes[id] != null) {
+				ids[count++] = id;
+			}
+		}
+		build(newNode(), ids, 0, count);
+		// a balanced tree of n points has a depth of about log2(n / LEAF_SIZE)
+		maxDepth = 2 * (32 - Integer.numberOfLeadingZeros(size / LEAF_SIZE + 1)) + 8;
+		deletesSinceBuild = 0;
+	}
+
+	private int newNode() {
+		if (numNodes == left.length) {
+			int capacity = numNodes * 2;
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			splitDim = Arrays.copyOf(splitDim, capacity);
+			splitValue = Arrays.copyOf(splitValue, capacity);
+			bounds = Arrays.copyOf(bounds, capacity * 6);
+			leafIds = Arrays.copyOf(leafIds, capacity);
+			leafSize = Arrays.copyOf(leafSize, capacity);
+		}
+		return numNodes++;
+	}
+
+	/*
+	 * Make node the root of a subtree of the points ids[from, to), split at the median of their widest dimension
+	 * until each leaf holds at most LEAF_SIZE points.  Points below the split value go left, the others right.
+	 */
+	private void build(int node, int[] ids, int from, int to) {
+		for (int d = 0; d < 3; d++) {
+			bounds[node * 6 + d] = Double.POSITIVE_INFINITY;
+			bounds[node * 6 + 3 + d] = Double.NEGATIVE_INFINITY;
+		}
+		for (int i = from; i < to; i++) {
+			expandBounds(node, ids[i]);
+		}
+		int dim = widestDim(node);
+		// many points at the same location stay in one leaf, there is no way to split them
+		if (to - from <= LEAF_SIZE || !(widest(node) > 0)) {
+			left[node] = -1;
+			right[node] = -1;
+			leafIds[node] = Arrays.copyOf(Arrays.copyOfRange(ids, from, to), Math.max(LEAF_SIZE + 1, to - from));
+			leafSize[node] = to - from;
+			return;
+		}
+
+		double split = select(ids, from, to, (from + to) / 2, dim);
+		int mid = partition(ids, from, to, dim, split);
+		if (mid == from) {
+			// the median is the smallest value, split above it instead
+			split = Double.POSITIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				double v = xyz[ids[i] * 3 + dim];
+				if (v > xyz[ids[from] * 3 + dim] && v < split) {
+					split = v;
+				}
+			}
+			mid = partition(ids, from, to, dim, split);
+		}
+		leafIds[node] = null;
+		leafSize[node] = 0;
+		splitDim[node] = dim;
+		splitValue[node] = split;
+		int l = newNode();
+		int r = newNode();
+		left[node] = l;
+		right[node] = r;
+		build(l, ids, from, mid);
+		build(r, ids, mid, to);
+	}
+
+	/*
+	 * The dimension in which the bounds of a node are widest, and their width in it.
+	 */
+	private int widestDim(int node) {
+		int dim = 0;
+		for (int d = 1; d < 3; d++) {
+			if (width(node, d) > width(node, dim)) {
+				dim = d;
+			}
+		}
+		return dim;
+	}
+
+	private double widest(int node) {
+		return width(node, widestDim(node));
+	}
+
+	private double width(int node, int d) {
+		return bounds[node * 6 + 3 + d] - bounds[node * 6 + d];
+	}
+
+	/*
+	 * Move the ids whose coordinate is below the value to the front, and return where the others start.
+	 */
+	private int partition(int[] ids, int from, int to, int dim, double value) {
+		int mid = from;
+		for (int i = from; i < to; i++) {
+			if (xyz[ids[i] * 3 + dim] < value) {
+				int t = ids[i];
+				ids[i] = ids[mid];
+				ids[mid++] = t;
+			}
+		}
+		return mid;
+	}
+
+	/*
+	 * The value of the n-th smallest coordinate of ids[from, to), by quickselect.
+	 */
+	private double select(int[] ids, int from, int to, int n, int dim) {
+		int lo = from;
+		int hi = to - 1;
+		while (lo < hi) {
+			double pivot = xyz[ids[(lo + hi) >>> 1] * 3 + dim];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (xyz[ids[i] * 3 + dim] < pivot) {
+					i++;
+				}
+				while (xyz[ids[j] * 3 + dim] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int t = ids[i];
+					ids[i++] = ids[j];
+					ids[j--] = t;
+				}
+			}
+			if (n <= j) {
+				hi = j;
+			} else if (n >= i) {
+				lo = i;
+			} else {
+				break;
+			}
+		}
+		return xyz[ids[n] * 3 + dim];
+	}
+
+	/*
+	 * A depth first search for the k nearest points, visiting the nearer child first and skipping nodes further than
+	 * the k-th nearest point found so far.  The points found are kept in a max heap on their squared distance.
+	 */
+	private class Nearest {
+		final double[] q;
+		final int k;
+		final int[] ids;
+		final double[] squared;
+		int count;
+
+		Nearest(double[] q, int k) {
+			this.q = q;
+			this.k = k;
+			this.ids = new int[k];
+			this.squared = new double[k];
+		}
+
+		double bound() {
+			// loosened so a point tied with the k-th nearest, up to rounding, is still found
+			return count < k ? Double.POSITIVE_INFINITY : squared[0] * (1 + BOUND_SLACK) + SQUARED_SLACK;
+		}
+
+		void run(int node) {
+			if (minSquaredDistance(node, q) > bound()) {
+				return;
+			}
+			if (left[node] >= 0) {
+				int near = q[splitDim[node]] < splitValue[node] ? left[node] : right[node];
+				int far = near == left[node] ? right[node] : left[node];
+				run(near);
+				run(far);
+				return;
+			}
+			for (int i = 0; i < leafSize[node]; i++) {
+				int id = leafIds[node][i];
+				double d = squaredDistance(q, id);
+				if (d <= bound()) {
+					add(id, d);
+				}
+			}
+		}
+
+		/*
+		 * Add a point to the heap, replacing the furthest point when the heap is full.
+		 */
+		private void add(int id, double d) {
+			if (count < k) {
+				ids[count] = id;
+				squared[count] = d;
+				siftUp(count++);
+			} else if (d < squared[0]) {
+				ids[0] = id;
+				squared[0] = d;
+				siftDown(0);
+			}
+		}
+
+		private void siftUp(int i) {
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (squared[parent] >= squared[i]) {
+					break;
+				}
+				swap(i, parent);
+				i = parent;
+			}
+		}
+
+		private void siftDown(int i) {
+			while (true) {
+				int largest = i;
+				int l = 2 * i + 1;
+				int r = l + 1;
+				if (l < count && squared[l] > squared[largest]) {
+					largest = l;
+				}
+				if (r < count && squared[r] > squared[largest]) {
+					largest = r;
+				}
+				if (largest == i) {
+					return;
+				}
+				swap(i, largest);
+				i = largest;
+			}
+		}
+
+		private void swap(int a, int b) {
+			int id = ids[a];
+			ids[a] = ids[b];
+			ids[b] = id;
+			double d = squared[a];
+			squared[a] = squared[b];
+			squared[b] = d;
+		}
+	}
+}
@@ -0,0 +1,617 @@
+package com.tamr.geo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
+import org.noggit.JSONParser;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * Reads a geometry from UTF-8 geoJson bytes, for {@link TamrGeoUtils#fromGeoJson(ByteBuffer)}.  The bytes are
+ * tokenized directly, without decoding them to a String or going through a Reader, and coordinates are parsed straight
+ * into the arrays of the JTS geometry rather than through the spatial4j shape builders.
+ * <p>
+ * The result is exactly what {@link GeoJsonGeometryReader} returns for the same geoJson: the geoJson is walked the
+ * same way, and the Shapes are built with the same shape factory calls.  Only strict JSON describing a Point,
+ * LineString, Polygon, MultiPoint, MultiLineString, MultiPolygon or GeometryCollection is read here.  Anything else,
+ * including every document {@link GeoJsonGeometryReader} rejects, is handed to {@link GeoJsonGeometryReader}, so other
+ * documents are read and errors are reported exactly as {@link TamrGeoUtils#fromGeoJson(String)} reads and reports
+ * them.
+ * <p>
+ * The reader keeps no state between calls, so one instance can be shared by any number of threads.
+ */
+class GeoJsonByteReader {
+
+	// the keys and geometry types the reader looks for
+	private static final int OTHER = 0;
+	private static final int TYPE = 1;
+	private static final int COORDINATES = 2;
+	private static final int GEOMETRIES = 3;
+	private static final int BUFFER = 4;
+	private static final byte[][] KEYS = { null, bytes("type"), bytes("coordinates"), bytes("geometries"),
+			bytes("buffer") };
+
+	private static final int POINT = 1;
+	private static final int LINE_STRING = 2;
+	private static final int POLYGON = 3;
+	private static final int MULTI_POINT = 4;
+	private static final int MULTI_LINE_STRING = 5;
+	private static final int MULTI_POLYGON = 6;
+	private static final byte[][] TYPES = { null, bytes("Point"), bytes("LineString"), bytes("Polygon"),
+			bytes("MultiPoint"), bytes("MultiLineString"), bytes("MultiPolygon") };
+
+	// doubles with at most this many significant digits and a small exponent are parsed exactly with one multiply
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private static final LinearRing[] NO_HOLES = new LinearRing[0];
+
+	private final GeoJsonGeometryReader geometryReader;
+	private final JtsShapeFactory shapeFactory;
+	private final GeometryFactory geometryFactory;
+	// the shapes are built as the spatial4j builders build them only for the usual JTS shape factory settings
+	private final boolean supported;
+
+	GeoJsonByteReader(GeoJsonGeometryReader geometryReader, JtsShapeFactory shapeFactory) {
+		this.geometryReader = geometryReader;
+		this.shapeFactory = shapeFactory;
+		this.geometryFactory = shapeFactory.getGeometryFactory();
+		this.supported = shapeFactory.useJtsLineString() && shapeFactory.useJtsMulti();
+	}
+
+	/**
+	 * Read the geometry in the bytes from the position to the limit of the buffer.  The position of the buffer is not
+	 * changed.
+	 */
+	Shape read(ByteBuffer utf8) throws IOException, ParseException {
+		if (supported) {
+			try {
+				return new Parse(utf8).readShape();
+			} catch (NotHandled | RuntimeException e) {
+				// read it again the usual way, which either reads it or throws the usual error
+			}
+		}
+		return geometryReader.read(StandardCharsets.UTF_8.decode(utf8.duplicate()).toString());
+	}
+
+	private static byte[] bytes(String ascii) {
+		return ascii.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/*
+	 * Thrown when the bytes are not something this reader reads, they are read by the GeoJsonGeometryReader instead.
+	 * It is thrown often for some documents, so it has no stack trace.
+	 */
+	private static final class NotHandled extends Exception {
+		private static final long serialVersionUID = 1L;
+		static final NotHandled INSTANCE = new NotHandled();
+
+		private NotHandled() {
+			super(null, null, false, false);
+		}
+	}
+
+	/*
+	 * The state of one read: a strict JSON tokenizer producing the same events as the JSONParser the spatial4j
+	 * reader walks, and the walk itself, a copy of GeoJSONReader.readShape and the methods it calls.
+	 */
+	private final class Parse {
+
+		// what the tokenizer expects next
+		private static final int VALUE = 0;
+		private static final int VALUE_OR_END = 1;
+		private static final int KEY = 2;
+		private static final int KEY_OR_END = 3;
+		private static final int COMMA_OR_END = 4;
+		private static final int DONE = 5;
+
+		private final ByteBuffer in;
+		private final int limit;
+		private int pos;
+		private int expect = VALUE;
+		// whether each open container is an object
+		private boolean[] objects = new boolean[16];
+		private int depth;
+
+		private int lastEvent;
+		private boolean wasKey;
+		private int stringStart;
+		private int stringEnd;
+		private double number;
+		// the parts of the number being read
+		private long mantissa;
+		private int significantDigits;
+		private int exponent;
+		private boolean exact;
+
+		// the coordinates of the ring or line being read
+		private double[] xyz = new double[3 * 64];
+		private int coordinates;
+
+		Parse(ByteBuffer in) {
+			this.in = in;
+			this.pos = in.position();
+			this.limit = in.limit();
+		}
+
+		/*
+		 * GeoJSONReader.readShape
+		 */
+		Shape readShape() throws NotHandled, IOException, ParseException {
+			int type = OTHER;
+			int key = -1;
+			int evt = nextEvent();
+			while (evt != JSONParser.EOF) {
+				switch (evt) {
+				case JSONParser.STRING:
+					if (wasKey) {
+						key = match(KEYS);
+					} else if (key == TYPE) {
+						type = match(TYPES);
+					} else {
+						throw NotHandled.INSTANCE;
+					}
+					break;
+				case JSONParser.ARRAY_START:
+					if (key == COORDINATES) {
+						if (type == OTHER) {
+							throw NotHandled.INSTANCE;
+						}
+						Shape shape = readShapeFromCoordinates(type);
+						readUntilObjectEnd();
+						return shape;
+					} else if (key == GEOMETRIES) {
+						List<Shape> shapes = new ArrayList<>();
+						int sub = nextEvent();
+						while (sub != JSONParser.EOF) {
+							if (sub == JSONParser.OBJECT_START) {
+								shapes.add(readShape());
+							} else if (sub == JSONParser.OBJECT_END) {
+								break;
+							}
+							sub = nextEvent();
+						}
+						if (shapes.isEmpty()) {
+							throw NotHandled.INSTANCE;
+						}
+						return geometryReader.makeCollection(shapes);
+					} else {
+						throw NotHandled.INSTANCE;
+					}
+				default:
+					// numbers, booleans, nulls and the starts and ends of objects and other arrays are passed over
+					break;
+				}
+				evt = nextEvent();
+			}
+			throw NotHandled.INSTANCE;
+		}
+
+		private Shape readShapeFromCoordinates(int type) throws NotHandled, IOException, ParseException {
+			switch (type) {
+			case POINT:
+				coordinates = 0;
+				readCoordinate();
+				Shape point = makePoint();
+				readUntilObjectEnd();
+				return point;
+			case LINE_STRING:
+				LineString line = geometryFactory.createLineString(readCoordinateList());
+				// a buffered line is built differently
+				int evt = lastEvent;
+				while (evt != JSONParser.OBJECT_END && evt != JSONParser.EOF) {
+					evt = nextEvent();
+					if (evt == JSONParser.STRING && wasKey && match(KEYS) == BUFFER) {
+						throw NotHandled.INSTANCE;
+					}
+				}
+				return shapeFactory.makeShape(line);
+			case POLYGON:
+				Polygon polygon = readPolygon();
+				if (polygon.isRectangle()) {
+					return shapeFactory.makeRectFromRectangularPoly(polygon);
+				}
+				return shapeFactory.makeShapeFromGeometry(polygon);
+			case MULTI_POINT:
+				return shapeFactory.makeShape(geometryFactory.createMultiPoint(readCoordinateList()));
+			case MULTI_LINE_STRING:
+				List<LineString> lines = new ArrayList<>();
+				for (int e = nextEvent(); e != JSONParser.ARRAY_END; e = nextEvent()) {
+					if (e != JSONParser.ARRAY_START) {
+						throw NotHandled.INSTANCE;
+					}
+					lines.add(geometryFactory.createLineString(readCoordinateList()));
+				}
+				return shapeFactory.makeShape(
+						geometryFactory.createMultiLineString(lines.toArray(new LineString[lines.size()])));
+			case MULTI_POLYGON:
+				List<Polygon> polygons = new ArrayList<>();
+				for (int e = nextEvent(); e != JSONParser.ARRAY_END; e = nextEvent()) {
+					if (e != JSONParser.ARRAY_START) {
+						throw NotHandled.INSTANCE;
+					}
+					polygons.add(readPolygon());
+				}
+				return shapeFactory.makeShape(
+						geometryFactory.createMultiPolygon(polygons.toArray(new Polygon[polygons.size()])));
+			default:
+				throw NotHandled.INSTANCE;
+			}
+		}
+
+		private Shape makePoint() {
+			double x = shapeFactory.normX(xyz[0]);
+			double y = shapeFactory.normY(xyz[1]);
+			if (Double.isNaN(xyz[2])) {
+				return shapeFactory.pointXY(x, y);
+			}
+			return shapeFactory.pointXYZ(x, y, shapeFactory.normZ(xyz[2]));
+		}
+
+		/*
+		 * GeoJSONReader.readPolygon, the ARRAY_START of the rings was the last event
+		 */
+		private Polygon readPolygon() throws NotHandled, IOException {
+			LinearRing shell = null;
+			List<LinearRing> holes = null;
+			for (int evt = nextEvent(); evt != JSONParser.ARRAY_END; evt = nextEvent()) {
+				if (evt != JSONParser.ARRAY_START) {
+					throw NotHandled.INSTANCE;
+				}
+				LinearRing ring = geometryFactory.createLinearRing(readCoordinateList());
+				if (shell == null) {
+					shell = ring;
+				} else {
+					if (holes == null) {
+						holes = new ArrayList<>(4);
+					}
+					holes.add(ring);
+				}
+			}
+			if (shell == null) {
+				throw NotHandled.INSTANCE;
+			}
+			return geometryFactory.createPolygon(shell,
+					holes == null ? NO_HOLES : holes.toArray(new LinearRing[holes.size()]));
+		}
+
+		/*
+		 * GeoJSONReader.readCoordListXYZ, the ARRAY_START of the list was the last event
+		 */
+		private Coordinate[] readCoordinateList() throws NotHandled, IOException {
+			coordinates = 0;
+			for (int evt = nextEvent(); evt != JSONParser.ARRAY_END; evt = nextEvent()) {
+				if (evt != JSONParser.ARRAY_START) {
+					throw NotHandled.INSTANCE;
+				}
+				readCoordinate();
+			}
+			Coordinate[] result = new Coordinate[coordinates];
+			for (int i = 0; i < coordinates; i++) {
+				double x = shapeFactory.normX(xyz[3 * i]);
+				double y = shapeFactory.normY(xyz[3 * i + 1]);
+				double z = xyz[3 * i + 2];
+				shapeFactory.verifyX(x);
+				shapeFactory.verifyY(y);
+				result[i] = new Coordinate(x, y, Double.isNaN(z) ? z : shapeFactory.normZ(z));
+			}
+			return result;
+		}
+
+		/*
+		 * GeoJSONReader.readCoordXYZ, the ARRAY_START of the coordinate was the last event.  Adds the coordinate to
+		 * xyz, z is NaN for 2 dimensional coordinates.
+		 */
+		private void readCoordinate() throws NotHandled, IOException {
+			if (3 * coordinates + 3 > xyz.length) {
+				xyz = Arrays.copyOf(xyz, xyz.length * 2);
+			}
+			int offset = 3 * coordinates;
+			int dimensions = 0;
+			for (int evt = nextEvent(); evt != JSONParser.ARRAY_END; evt = nextEvent()) {
+				if (evt != JSONParser.NUMBER) {
+					throw NotHandled.INSTANCE;
+				}
+				if (dimensions < 3) {
+					xyz[offset + dimensions] = number;
+				}
+				dimensions++;
+			}
+			if (dimensions < 2) {
+				throw NotHandled.INSTANCE;
+			}
+			if (dimensions == 2) {
+				xyz[offset + 2] = Double.NaN;
+			}
+			coordinates++;
+		}
+
+		private void readUntilObjectEnd() throws NotHandled, IOException {
+			int evt = lastEvent;
+			while (evt != JSONParser.OBJECT_END && evt != JSONParser.EOF) {
+				evt = nextEvent();
+			}
+		}
+
+		/*
+		 * The index of the last String in the candidates, or OTHER.
+		 */
+		private int match(byte[][] candidates) {
+			int length = stringEnd - stringStart;
+			for (int i = 1; i < candidates.length; i++) {
+				byte[] candidate = candidates[i];
+				if (candidate.length == length) {
+					int j = 0;
+					while (j < length && in.get(stringStart + j) == candidate[j]) {
+						j++;
+					}
+					if (j == length) {
+						return i;
+					}
+				}
+			}
+			return OTHER;
+		}
+
+		/*
+		 * The next JSONParser event.  Strict JSON only, anything else is not handled.
+		 */
+		private int nextEvent() throws NotHandled {
+			wasKey = false;
+			int c = skipWhitespace();
+			switch (expect) {
+			case DONE:
+				if (c >= 0) {
+					throw NotHandled.INSTANCE;
+				}
+				return lastEvent = JSONParser.EOF;
+			case COMMA_OR_END:
+				if (c == ',') {
+					pos++;
+					c = skipWhitespace();
+					expect = objects[depth - 1] ? KEY : VALUE;
+					break;
+				}
+				return lastEvent = end(c);
+			case KEY_OR_END:
+				if (c == '}') {
+					return lastEvent = end(c);
+				}
+				break;
+			case VALUE_OR_END:
+				if (c == ']') {
+					return lastEvent = end(c);
+				}
+				break;
+			default:
+				break;
+			}
+
+			if (expect == KEY || expect == KEY_OR_END) {
+				if (c != '"') {
+					throw NotHandled.INSTANCE;
+				}
+				readString();
+				if (skipWhitespace() != ':') {
+					throw NotHandled.INSTANCE;
+				}
+				pos++;
+				expect = VALUE;
+				wasKey = true;
+				return lastEvent = JSONParser.STRING;
+			}
+
+			switch (c) {
+			case '{':
+				pos++;
+				push(true);
+				expect = KEY_OR_END;
+				return lastEvent = JSONParser.OBJECT_START;
+			case '[':
+				pos++;
+				push(false);
+				expect = VALUE_OR_END;
+				return lastEvent = JSONParser.ARRAY_START;
+			case '"':
+				readString();
+				afterValue();
+				return lastEvent = JSONParser.STRING;
+			case 't':
+				readLiteral("true");
+				afterValue();
+				return lastEvent = JSONParser.BOOLEAN;
+			case 'f':
+				readLiteral("false");
+				afterValue();
+				return lastEvent = JSONParser.BOOLEAN;
+			case 'n':
+				readLiteral("null");
+				afterValue();
+				return lastEvent = JSONParser.NULL;
+			default:
+				readNumber();
+				afterValue();
+				return lastEvent = JSONParser.NUMBER;
+			}
+		}
+
+		private int end(int c) throws NotHandled {
+			if (depth == 0 || c != (objects[depth - 1] ? '}' : ']')) {
+				throw NotHandled.INSTANCE;
+			}
+			pos++;
+			depth--;
+			afterValue();
+			return c == '}' ? JSONParser.OBJECT_END : JSONParser.ARRAY_END;
+		}
+
+		private void push(boolean object) {
+			if (depth == objects.length) {
+				objects = Arrays.copyOf(objects, depth * 2);
+			}
+			objects[depth++] = object;
+		}
+
+		private void afterValue() {
+			expect = depth == 0 ? DONE : COMMA_OR_END;
+		}
+
+		private int skipWhitespace() {
+			while (pos < limit) {
+				byte c = in.get(pos);
+				if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+					return c;
+				}
+				pos++;
+			}
+			return -1;
+		}
+
+		/*
+		 * A String without escapes, which is all a geometry has.
+		 */
+		private void readString() throws NotHandled {
+			int start = ++pos;
+			while (pos < limit) {
+				byte c = in.get(pos);
+				if (c == '"') {
+					stringStart = start;
+					stringEnd = pos++;
+					return;
+				}
+				if (c == '\\' || (c >= 0 && c < 0x20)) {
+					throw NotHandled.INSTANCE;
+				}
+				pos++;
+			}
+			throw NotHandled.INSTANCE;
+		}
+
+		private void readLiteral(String literal) throws NotHandled {
+			if (limit - pos < literal.length()) {
+				throw NotHandled.INSTANCE;
+			}
+			for (int i = 0; i < literal.length(); i++) {
+				if (in.get(pos + i) != literal.charAt(i)) {
+					throw NotHandled.INSTANCE;
+				}
+			}
+			pos += literal.length();
+			checkDelimiter();
+		}
+
+		/*
+		 * A JSON number, parsed to the same double as Double.parseDouble would.
+		 */
+		private void readNumber() throws NotHandled {
+			int start = pos;
+			boolean negative = pos < limit && in.get(pos) == '-';
+			if (negative) {
+				pos++;
+			}
+			mantissa = 0;
+			significantDigits = 0;
+			exponent = 0;
+			exact = true;
+			int integerStart = pos;
+			int integerDigits = digits(false);
+			if (integerDigits == 0 || (integerDigits > 1 && in.get(integerStart) == '0')) {
+				throw NotHandled.INSTANCE;
+			}
+			if (pos < limit && in.get(pos) == '.') {
+				pos++;
+				if (digits(true) == 0) {
+					throw NotHandled.INSTANCE;
+				}
+			}
+			if (pos < limit && (in.get(pos) == 'e' || in.get(pos) == 'E')) {
+				pos++;
+				boolean negativeExponent = false;
+				if (pos < limit && (in.get(pos) == '+' || in.get(pos) == '-')) {
+					negativeExponent = in.get(pos) == '-';
+					pos++;
+				}
+				int e = 0;
+				int exponentStart = pos;
+				while (pos < limit && in.get(pos) >= '0' && in.get(pos) <= '9') {
+					e = Math.min(e * 10 + in.get(pos++) - '0', 10000);
+				}
+				if (pos == exponentStart) {
+					throw NotHandled.INSTANCE;
+				}
+				exponent += negativeExponent ? -e : e;
+			}
+			checkDelimiter();
+
+			if (exact && mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+				// both operands are exact, so the one rounding of the product or quotient is correct
+				double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent]
+						: mantissa / POWERS_OF_TEN[-exponent];
+				number = negative ? -value : value;
+			} else {
+				byte[] chars = new byte[pos - start];
+				for (int i = 0; i < chars.length; i++) {
+					chars[i] = in.get(start + i);
+				}
+				number = Double.parseDouble(new String(chars, StandardCharsets.US_ASCII));
+			}
+		}
+
+		/*
+		 * Read a run of digits into the mantissa, returning how many there were.  Digits after the 18th significant
+		 * digit make the number inexact, or scale it if they are before the decimal point.
+		 */
+		private int digits(boolean fraction) {
+			int start = pos;
+			while (pos < limit) {
+				int digit = in.get(pos) - '0';
+				if (digit < 0 || digit > 9) {
+					break;
+				}
+				pos++;
+				if (mantissa != 0 || digit != 0) {
+					significantDigits++;
+				}
+				if (significantDigits <= 18) {
+					mantissa = mantissa * 10 + digit;
+					if (fraction) {
+						exponent--;
+					}
+				} else {
+					exact &= digit == 0;
+					if (!fraction) {
+						exponent++;
+					}
+				}
+			}
+			return pos - start;
+		}
+
+		private void checkDelimiter() throws NotHandled {
+			if (pos < limit) {
+				byte c = in.get(pos);
+				if (c != ',' && c != ']' && c != '}' && c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+					throw NotHandled.INSTANCE;
+				}
+			}
+		}
+	}
+}
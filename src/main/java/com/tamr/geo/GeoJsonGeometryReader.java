@@ -0,0 +1,51 @@
+package com.tamr.geo;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.List;
+
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.io.GeoJSONReader;
+import org.locationtech.spatial4j.shape.Shape;
+import org.noggit.JSONParser;
+
+/**
+ * Exposes the geometry parsing of the spatial4j GeoJSON reader so that every geoJson read in this package follows 
+ * exactly the same rules (and throws the same errors) as {@link TamrGeoUtils#fromGeoJson(String)}.  The reader keeps 
+ * no state between calls, all parse state lives in the {@link JSONParser}, so one instance can be shared by any 
+ * number of threads.
+ */
+class GeoJsonGeometryReader extends GeoJSONReader {
+
+	GeoJsonGeometryReader(SpatialContext ctx) {
+		super(ctx, null);
+	}
+
+	/**
+	 * Parse a geoJson String.  Unlike {@link #read(Object)} this parses the characters of the String directly rather 
+	 * than through a Reader with its own 8k buffer, which matters when reading millions of small footprints.
+	 */
+	Shape read(String geoJson) throws IOException, ParseException {
+		return readShape(new JSONParser(geoJson));
+	}
+
+	/**
+	 * Read the geometry object whose OBJECT_START was the last event of the parser.
+	 */
+	Shape readGeometry(JSONParser parser) throws IOException, ParseException {
+		return readShape(parser);
+	}
+
+	/**
+	 * Read the coordinates array of a geometry of the given type, the ARRAY_START was the last event of the parser.
+	 */
+	Shape readCoordinates(String type, JSONParser parser) throws IOException, ParseException {
+		return readShapeFromCoordinates(type, parser);
+	}
+
+	// the same (deprecated) call GeoJSONReader uses, so collections come out as a ShapeCollection as well
+	@SuppressWarnings("deprecation")
+	Shape makeCollection(List<Shape> shapes) {
+		return ctx.makeCollection(shapes);
+	}
+}
@@ -0,0 +1,387 @@
+package com.tamr.geo;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Map;
+
+import org.locationtech.spatial4j.distance.DistanceUtils;
+import org.locationtech.spatial4j.exception.InvalidShapeException;
+import org.locationtech.spatial4j.io.ShapeWriter;
+import org.locationtech.spatial4j.shape.Circle;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.impl.GeoCircle;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * Writes geoJson into a StringBuilder, for {@link TamrGeoUtils#toGeoJson(Shape, int)} and {@link FeatureWriter}.
+ * Geometries are written as the spatial4j GeoJSON writer behind {@link TamrGeoUtils#toGeoJson(Shape)} writes them
+ * (without its occasional space), but with a chosen number of decimal places, and numbers are formatted directly into
+ * the output rather than through a {@link java.text.NumberFormat}.  Shapes other than Points, Rectangles, Circles,
+ * ShapeCollections and JTS geometries are written by the spatial4j writer.
+ * <p>
+ * Given a {@link Drain}, the writer passes the StringBuilder on whenever it holds {@link #DRAIN_CHARS} characters
+ * while writing coordinates, so a geometry of millions of vertices is written to a Writer without ever being held
+ * as a whole.
+ * <p>
+ * The writer keeps no state between calls, so one instance can be shared by any number of threads.
+ */
+class GeoJsonGeometryWriter {
+
+	/** The most decimal places coordinates can be written with. */
+	static final int MAX_DECIMAL_PLACES = 15;
+
+	/** The StringBuilder is drained once it holds this many characters. */
+	static final int DRAIN_CHARS = 1 << 14;
+
+	/**
+	 * Takes what has been written into the StringBuilder so far, and empties it.
+	 */
+	interface Drain {
+		void drain(StringBuilder out) throws IOException;
+	}
+
+	private static final long[] POWERS_OF_TEN = new long[MAX_DECIMAL_PLACES + 1];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+	// scaled values below this are exact enough in a double to be rounded without BigDecimal
+	private static final double MAX_FAST_SCALED = 1e15;
+
+	private final ShapeWriter fallback;
+	private final int decimalPlaces;
+
+	GeoJsonGeometryWriter(ShapeWriter fallback, int decimalPlaces) {
+		if (decimalPlaces < 0 || decimalPlaces > MAX_DECIMAL_PLACES) {
+			throw new IllegalArgumentException(
+					"decimalPlaces must be between 0 and " + MAX_DECIMAL_PLACES + " but was " + decimalPlaces);
+		}
+		this.fallback = fallback;
+		this.decimalPlaces = decimalPlaces;
+	}
+
+	void write(Shape shape, StringBuilder out) {
+		try {
+			write(shape, out, null);
+		} catch (IOException e) {
+			// only a Drain throws IOExceptions
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Write a Shape, draining out while writing its coordinates.
+	 *
+	 * @param drain Where to pass out on to, or null to keep everything in it
+	 */
+	void write(Shape shape, StringBuilder out, Drain drain) throws IOException {
+		if (shape == null) {
+			throw new NullPointerException("Shape can not be null");
+		}
+		if (shape instanceof JtsGeometry) {
+			write(((JtsGeometry) shape).getGeom(), out, drain);
+		} else if (shape instanceof Point) {
+			Point p = (Point) shape;
+			out.append("{\"type\":\"Point\",\"coordinates\":");
+			writeCoordinate(p.getX(), p.getY(), out);
+			out.append('}');
+		} else if (shape instanceof Rectangle) {
+			Rectangle r = (Rectangle) shape;
+			out.append("{\"type\":\"Polygon\",\"coordinates\":[[");
+			writeCoordinate(r.getMinX(), r.getMinY(), out);
+			out.append(',');
+			writeCoordinate(r.getMinX(), r.getMaxY(), out);
+			out.append(',');
+			writeCoordinate(r.getMaxX(), r.getMaxY(), out);
+			out.append(',');
+			writeCoordinate(r.getMaxX(), r.getMinY(), out);
+			out.append(',');
+			writeCoordinate(r.getMinX(), r.getMinY(), out);
+			out.append("]]}");
+		} else if (shape instanceof Circle) {
+			Circle c = (Circle) shape;
+			out.append("{\"type\":\"Circle\",\"coordinates\":");
+			writeCoordinate(c.getCenter().getX(), c.getCenter().getY(), out);
+			out.append(",\"radius\":");
+			if (c instanceof GeoCircle) {
+				writeNumber(DistanceUtils.degrees2Dist(c.getRadius(), DistanceUtils.EARTH_MEAN_RADIUS_KM), out);
+				out.append(",\"properties\":{\"radius_units\":\"km\"}");
+			} else {
+				writeNumber(c.getRadius(), out);
+			}
+			out.append('}');
+		} else if (shape instanceof ShapeCollection) {
+			ShapeCollection<?> collection = (ShapeCollection<?>) shape;
+			out.append("{\"type\":\"GeometryCollection\",\"geometries\":[");
+			for (int i = 0; i < collection.size(); i++) {
+				if (i > 0) {
+					out.append(',');
+				}
+				write(collection.get(i), out, drain);
+			}
+			out.append("]}");
+		} else {
+			out.append(fallback.toString(shape));
+		}
+	}
+
+	private void write(Geometry geom, StringBuilder out, Drain drain) throws IOException {
+		if (geom instanceof com.vividsolutions.jts.geom.Point) {
+			out.append("{\"type\":\"Point\",\"coordinates\":");
+			Coordinate c = geom.getCoordinate();
+			if (c == null) {
+				throw new InvalidShapeException("An empty Point can not be written as geoJson");
+			}
+			writeCoordinate(c.x, c.y, out);
+			out.append('}');
+		} else if (geom instanceof Polygon) {
+			out.append("{\"type\":\"Polygon\",\"coordinates\":");
+			write((Polygon) geom, out, drain);
+			out.append('}');
+		} else if (geom instanceof LineString) {
+			out.append("{\"type\":\"LineString\",\"coordinates\":");
+			write(((LineString) geom).getCoordinateSequence(), out, drain);
+			out.append('}');
+		} else if (geom instanceof MultiPoint) {
+			out.append("{\"type\":\"MultiPoint\",\"coordinates\":[");
+			Coordinate[] coordinates = geom.getCoordinates();
+			for (int i = 0; i < coordinates.length; i++) {
+				if (i > 0) {
+					out.append(',');
+				}
+				writeCoordinate(coordinates[i].x, coordinates[i].y, out);
+				drainIfFull(out, drain);
+			}
+			out.append("]}");
+		} else if (geom instanceof MultiLineString) {
+			out.append("{\"type\":\"MultiLineString\",\"coordinates\":[");
+			for (int i = 0; i < geom.getNumGeometries(); i++) {
+				if (i > 0) {
+					out.append(',');
+				}
+				out.append('[');
+				Coordinate[] coordinates = geom.getGeometryN(i).getCoordinates();
+				for (int j = 0; j < coordinates.length; j++) {
+					if (j > 0) {
+						out.append(',');
+					}
+					writeCoordinate(coordinates[j].x, coordinates[j].y, out);
+					drainIfFull(out, drain);
+				}
+				out.append(']');
+			}
+			out.append("]}");
+		} else if (geom instanceof MultiPolygon) {
+			out.append("{\"type\":\"MultiPolygon\",\"coordinates\":[");
+			for (int i = 0; i < geom.getNumGeometries(); i++) {
+				if (i > 0) {
+					out.append(',');
+				}
+				write((Polygon) geom.getGeometryN(i), out, drain);
+			}
+			out.append("]}");
+		} else if (geom instanceof GeometryCollection) {
+			out.append("{\"type\":\"GeometryCollection\",\"geometries\":[");
+			for (int i = 0; i < geom.getNumGeometries(); i++) {
+				if (i > 0) {
+					out.append(',');
+				}
+				write(geom.getGeometryN(i), out, drain);
+			}
+			out.append("]}");
+		} else {
+			throw new InvalidShapeException("Unsupported geometry: " + geom.getGeometryType());
+		}
+	}
+
+	private void write(Polygon polygon, StringBuilder out, Drain drain) throws IOException {
+		out.append('[');
+		write(polygon.getExteriorRing().getCoordinateSequence(), out, drain);
+		for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+			out.append(',');
+			write(polygon.getInteriorRingN(i).getCoordinateSequence(), out, drain);
+		}
+		out.append(']');
+	}
+
+	private void write(CoordinateSequence coordinates, StringBuilder out, Drain drain) throws IOException {
+		out.append('[');
+		int dimension = coordinates.getDimension();
+		for (int i = 0; i < coordinates.size(); i++) {
+			if (i > 0) {
+				out.append(',');
+			}
+			out.append('[');
+			writeNumber(coordinates.getOrdinate(i, 0), out);
+			out.append(',');
+			writeNumber(coordinates.getOrdinate(i, 1), out);
+			if (dimension > 2) {
+				double z = coordinates.getOrdinate(i, 2);
+				if (!Double.isNaN(z)) {
+					out.append(',');
+					writeNumber(z, out);
+				}
+			}
+			out.append(']');
+			drainIfFull(out, drain);
+		}
+		out.append(']');
+	}
+
+	private static void drainIfFull(StringBuilder out, Drain drain) throws IOException {
+		if (drain != null && out.length() >= DRAIN_CHARS) {
+			drain.drain(out);
+		}
+	}
+
+	private void writeCoordinate(double x, double y, StringBuilder out) {
+		out.append('[');
+		writeNumber(x, out);
+		out.append(',');
+		writeNumber(y, out);
+		out.append(']');
+	}
+
+	/**
+	 * Write a number rounded half even to the decimal places, without trailing zeros, as
+	 * {@link org.locationtech.spatial4j.io.LegacyShapeWriter#makeNumberFormat(int)} formats it.
+	 */
+	void writeNumber(double value, StringBuilder out) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new InvalidShapeException("Can not write " + value + " as geoJson");
+		}
+		// like DecimalFormat, negative numbers that round to zero keep their sign
+		if (value < 0 || (value == 0 && 1 / value < 0)) {
+			out.append('-');
+			value = -value;
+		}
+		long power = POWERS_OF_TEN[decimalPlaces];
+		double scaled = value * power;
+		double floor = Math.floor(scaled);
+		double fraction = scaled - floor;
+		// the product is within half an ulp of the exact scaled value, near a tie only the exact value can tell
+		if (scaled >= MAX_FAST_SCALED || Math.abs(fraction - 0.5) <= scaled * 1e-15) {
+			out.append(new BigDecimal(value).setScale(decimalPlaces, RoundingMode.HALF_EVEN).stripTrailingZeros()
+					.toPlainString());
+			return;
+		}
+		long rounded = (long) floor;
+		if (fraction > 0.5 || (fraction == 0.5 && (rounded & 1) == 1)) {
+			rounded++;
+		}
+		out.append(rounded / power);
+		long decimals = rounded % power;
+		if (decimals != 0) {
+			int digits = decimalPlaces;
+			while (decimals % 10 == 0) {
+				decimals /= 10;
+				digits--;
+			}
+			out.append('.');
+			for (long leading = POWERS_OF_TEN[digits - 1]; decimals < leading; leading /= 10) {
+				out.append('0');
+			}
+			out.append(decimals);
+		}
+	}
+
+	/**
+	 * Write a property value: Strings, Numbers, Booleans, nulls, Maps with String keys and Collections of them, the
+	 * values {@link FeatureReader} reads.  Numbers are written with all their digits.
+	 */
+	void writeValue(Object value, StringBuilder out) {
+		if (value == null) {
+			out.append("null");
+		} else if (value instanceof String) {
+			writeString((String) value, out);
+		} else if (value instanceof Boolean) {
+			out.append(((Boolean) value).booleanValue());
+		} else if (value instanceof Long || value instanceof Integer || value instanceof Short
+				|| value instanceof Byte) {
+			out.append(((Number) value).longValue());
+		} else if (value instanceof Double || value instanceof Float) {
+			double d = ((Number) value).doubleValue();
+			if (Double.isNaN(d) || Double.isInfinite(d)) {
+				throw new IllegalArgumentException("Can not write " + d + " as geoJson");
+			}
+			out.append(d);
+		} else if (value instanceof Number) {
+			// BigDecimal and BigInteger
+			out.append(value.toString());
+		} else if (value instanceof Map) {
+			out.append('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (!first) {
+					out.append(',');
+				}
+				first = false;
+				writeString(String.valueOf(entry.getKey()), out);
+				out.append(':');
+				writeValue(entry.getValue(), out);
+			}
+			out.append('}');
+		} else if (value instanceof Collection) {
+			out.append('[');
+			boolean first = true;
+			for (Object element : (Collection<?>) value) {
+				if (!first) {
+					out.append(',');
+				}
+				first = false;
+				writeValue(element, out);
+			}
+			out.append(']');
+		} else {
+			throw new IllegalArgumentException("Can not write a " + value.getClass().getName() + " as geoJson");
+		}
+	}
+
+	void writeString(String value, StringBuilder out) {
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					out.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xf, 16));
+				} else {
+					out.append(c);
+				}
+			}
+		}
+		out.append('"');
+	}
+}
@@ -0,0 +1,179 @@
+package com.tamr.geo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.locationtech.spatial4j.exception.InvalidShapeException;
+import org.locationtech.spatial4j.shape.Shape;
+
+/**
+ * A file of Shapes in a compact binary encoding, written by a {@link GeometryFileWriter}, for passing millions of Shapes
+ * between the stages of a pipeline without formatting and parsing geoJson:
+ * <pre>{@code
+ *   try (GeometryFile footprints = gu.readGeometryFile(Paths.get("footprints.bin"))) {
+ *       Shape first = footprints.getShape(0);
+ *       double total = footprints.stream().mapToDouble(gu::calculateArea).sum();
+ *   }
+ * }</pre>
+ * The file is memory mapped rather than read: opening it only reads its index, and each Shape is decoded straight from
+ * the mapped pages when it is asked for, in any order, so the operating system caches the file between runs and a
+ * process only pays for the Shapes it reads.  Shapes are encoded as in {@link TamrGeoUtils#toBytes(Shape)}: JTS
+ * geometries as standard WKB, Points, Rectangles, Circles and ShapeCollections as themselves, and read back exactly as
+ * they were written.
+ * <p>
+ * The file is a header (magic number and version), the encoded Shapes one after the other, then the index: the offset
+ * in the file of each Shape and of the end of the last one, followed by the number of Shapes and the magic number
+ * again.  All numbers are big endian.
+ * <p>
+ * Obtain one from {@link TamrGeoUtils#readGeometryFile(Path)}.  A GeometryFile is thread safe.  Close it when done;
+ * as with any memory mapped file, the mapping itself is released when it is garbage collected.
+ */
+public class GeometryFile implements Closeable {
+
+	static final int MAGIC = 0x5447454f; // "TGEO"
+	static final int VERSION = 1;
+	// the most Shapes a file can hold: the index, one offset more than there are Shapes, is mapped in one buffer
+	static final int MAX_SHAPES = Integer.MAX_VALUE / 8 - 1;
+
+	private static final int HEADER_BYTES = 8;
+	private static final int TRAILER_BYTES = 12;
+	// the file is mapped in segments of at most this many bytes, each holding whole Shapes
+	private static final long MAX_SEGMENT = 1L << 30;
+
+	private final ShapeBytes shapeBytes;
+	private final FileChannel channel;
+	private final int size;
+	// the offset of each Shape and of the end of the last one
+	private final LongBuffer offsets;
+	private final MappedByteBuffer[] segments;
+	// the index of the first Shape in each segment, and the offset in the file where the segment starts
+	private final int[] segmentFirstShapes;
+	private final long[] segmentStarts;
+
+	GeometryFile(ShapeBytes shapeBytes, Path file) throws IOException, ParseException {
+		this.shapeBytes = shapeBytes;
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long length = channel.size();
+			if (length < HEADER_BYTES + 8 + TRAILER_BYTES) {
+				throw new ParseException("Not a GeometryFile: " + length + " bytes", 0);
+			}
+			ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_BYTES);
+			ByteBuffer trailer = channel.map(MapMode.READ_ONLY, length - TRAILER_BYTES, TRAILER_BYTES);
+			long count = trailer.getLong();
+			if (header.getInt() != MAGIC || trailer.getInt() != MAGIC) {
+				throw new ParseException("Not a GeometryFile", 0);
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new ParseException("Unsupported GeometryFile version " + version, 4);
+			}
+			long indexBytes = (count + 1) * 8;
+			long indexStart = length - TRAILER_BYTES - indexBytes;
+			if (count < 0 || count > MAX_SHAPES || indexStart < HEADER_BYTES) {
+				throw new ParseException("Invalid number of Shapes " + count, (int) Math.min(length, Integer.MAX_VALUE));
+			}
+			size = (int) count;
+			offsets = channel.map(MapMode.READ_ONLY, indexStart, indexBytes).asLongBuffer();
+			if (offsets.get(0) != HEADER_BYTES || offsets.get(size) != indexStart) {
+				throw new ParseException("Corrupt GeometryFile index", (int) Math.min(indexStart, Integer.MAX_VALUE));
+			}
+
+			List<MappedByteBuffer> mapped = new ArrayList<>();
+			int[] firstShapes = new int[16];
+			List<Long> starts = new ArrayList<>();
+			int first = 0;
+			while (first < size) {
+				long start = offsets.get(first);
+				int end = first + 1;
+				while (end < size && offsets.get(end + 1) - start <= MAX_SEGMENT) {
+					end++;
+				}
+				long segmentBytes = offsets.get(end) - start;
+				if (segmentBytes < 0 || segmentBytes > Integer.MAX_VALUE) {
+					throw new ParseException("Corrupt GeometryFile index at Shape " + first, 0);
+				}
+				if (mapped.size() == firstShapes.length) {
+					firstShapes = Arrays.copyOf(firstShapes, firstShapes.length * 2);
+				}
+				firstShapes[mapped.size()] = first;
+				starts.add(start);
+				mapped.add(channel.map(MapMode.READ_ONLY, start, segmentBytes));
+				first = end;
+			}
+			segments = mapped.toArray(new MappedByteBuffer[mapped.size()]);
+			segmentFirstShapes = Arrays.copyOf(firstShapes, segments.length);
+			segmentStarts = starts.stream().mapToLong(Long::longValue).toArray();
+		} catch (IOException | ParseException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The number of Shapes in the file
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Read a Shape.
+	 *
+	 * @param index The index of the Shape, in the order it was written
+	 * @return The Shape
+	 * @throws ParseException If the Shape's bytes are not a Shape
+	 */
+	public Shape getShape(int index) throws ParseException {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("No Shape " + index + " in a file of " + size);
+		}
+		int segment = Arrays.binarySearch(segmentFirstShapes, index);
+		if (segment < 0) {
+			segment = -segment - 2;
+		}
+		ByteBuffer buffer = segments[segment].duplicate();
+		long start = segmentStarts[segment];
+		buffer.limit((int) (offsets.get(index + 1) - start));
+		buffer.position((int) (offsets.get(index) - start));
+		Shape shape = shapeBytes.read(buffer);
+		if (buffer.hasRemaining()) {
+			throw new ParseException("Unexpected bytes after Shape " + index, buffer.position());
+		}
+		return shape;
+	}
+
+	/**
+	 * Stream the Shapes of the file in order.  The Stream can not throw checked exceptions, a Shape that can not be
+	 * read throws {@link InvalidShapeException}.
+	 *
+	 * @return The Shapes
+	 */
+	public Stream<Shape> stream() {
+		return IntStream.range(0, size).mapToObj(index -> {
+			try {
+				return getShape(index);
+			} catch (ParseException e) {
+				throw new InvalidShapeException(e.getMessage(), e);
+			}
+		});
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,127 @@
+package com.tamr.geo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.locationtech.spatial4j.shape.Shape;
+
+/**
+ * Writes Shapes to a {@link GeometryFile}, one at a time, so millions of Shapes can be written with a small heap:
+ * <pre>{@code
+ *   try (GeometryFileWriter out = gu.writeGeometryFile(Paths.get("footprints.bin"))) {
+ *       for (Shape footprint : footprints) {
+ *           out.add(footprint);
+ *       }
+ *   }
+ * }</pre>
+ * Shapes are numbered from 0 in the order they are added, and a file holds at most 268,435,454 of them, the most
+ * whose index {@link GeometryFile} can map.  The index of the file is written when the writer is closed, a file whose
+ * writer was not closed can not be read.  Obtain one from {@link TamrGeoUtils#writeGeometryFile}.  This class is not
+ * thread safe.
+ */
+public class GeometryFileWriter implements Closeable {
+
+	private final ShapeBytes shapeBytes;
+	private final CountingOutputStream counter;
+	private final DataOutputStream out;
+	private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+	private final DataOutputStream recordOut = new DataOutputStream(record);
+	// where each Shape starts in the file
+	private long[] offsets = new long[1024];
+	private int size;
+	private boolean closed;
+
+	GeometryFileWriter(ShapeBytes shapeBytes, OutputStream out) throws IOException {
+		this.shapeBytes = shapeBytes;
+		this.counter = new CountingOutputStream(new BufferedOutputStream(out, 1 << 16));
+		this.out = new DataOutputStream(counter);
+		this.out.writeInt(GeometryFile.MAGIC);
+		this.out.writeInt(GeometryFile.VERSION);
+	}
+
+	/**
+	 * Write a Shape.
+	 *
+	 * @param shape The Shape to write
+	 * @return The index of the Shape in the file
+	 * @throws IOException
+	 * @throws IllegalStateException If the writer is closed or the file already holds as many Shapes as it can
+	 * @throws org.locationtech.spatial4j.exception.InvalidShapeException If the Shape is of a kind that can not be
+	 *             written
+	 */
+	public int add(Shape shape) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("The writer is closed");
+		}
+		if (size == GeometryFile.MAX_SHAPES) {
+			throw new IllegalStateException("A GeometryFile holds at most " + GeometryFile.MAX_SHAPES + " Shapes");
+		}
+		if (size == offsets.length) {
+			offsets = Arrays.copyOf(offsets, Math.min(size * 2, GeometryFile.MAX_SHAPES));
+		}
+		// encoded on its own first, so a Shape that can not be written leaves nothing of itself in the file
+		record.reset();
+		shapeBytes.write(shape, recordOut);
+		offsets[size] = counter.count;
+		record.writeTo(out);
+		return size++;
+	}
+
+	/**
+	 * @return The number of Shapes written so far
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Write the index of the file and close it.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			long end = counter.count;
+			for (int i = 0; i < size; i++) {
+				out.writeLong(offsets[i]);
+			}
+			out.writeLong(end);
+			out.writeLong(size);
+			out.writeInt(GeometryFile.MAGIC);
+		} finally {
+			out.close();
+		}
+	}
+
+	/*
+	 * Counts the bytes written, DataOutputStream's count is an int.
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+		long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+}
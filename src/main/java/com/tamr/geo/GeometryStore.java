@@ -0,0 +1,696 @@
+package com.tamr.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.locationtech.spatial4j.distance.DistanceUtils;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * A compact store for millions of Shapes, such as building footprints.  A Shape held as a spatial4j Shape wrapping a
+ * JTS Geometry costs several hundred bytes of heap per vertex (a Coordinate object per vertex plus the envelopes,
+ * indexes and wrappers around them).  The store instead packs the coordinates of every Shape into one primitive array,
+ * 16 bytes per vertex, or 8 bytes per vertex when quantized to a fixed number of decimal places, with a few int offsets
+ * and a bounding box per Shape.
+ * <pre>{@code
+ *   GeometryStore footprints = new GeometryStore(gu, 7);
+ *   try (Stream<Feature> features = gu.readFeatures(path).stream()) {
+ *       features.forEach(feature -> footprints.add(feature.getShape()));
+ *   }
+ *   double area = footprints.calculateArea(17);
+ *   Shape shape = footprints.getShape(17);
+ * }</pre>
+ * Shapes are identified by the order in which they were added.  The area, centroid, distance and bounding box of a
+ * stored Shape are computed directly from the packed coordinates, with the same formulas (and, unless quantized, the
+ * same results) as the corresponding {@link TamrGeoUtils} operations on the original Shape.  {@link #getShape(int)}
+ * materializes a Shape only when one is needed, for the operations that need JTS.
+ * <p>
+ * Points, Rectangles, JTS geometries (polygons, lines and their multi versions) and ShapeCollections of those can be
+ * stored.  Adding is not thread safe; once all Shapes are added the store can be read from many threads.
+ */
+public class GeometryStore {
+
+	/** The largest number of decimal places coordinates can be quantized to, about 1cm. */
+	public static final int MAX_DECIMALS = 7;
+
+	// the types of the members of a Shape, a single Shape has one member and a ShapeCollection one per Shape in it
+	private static final byte POINT = 0;
+	private static final byte RECTANGLE = 1;
+	private static final byte LINESTRING = 2;
+	private static final byte POLYGON = 3;
+	private static final byte MULTIPOINT = 4;
+	private static final byte MULTILINESTRING = 5;
+	private static final byte MULTIPOLYGON = 6;
+
+	private final TamrGeoUtils gu;
+	private final double scale;
+
+	// Shape i has members shapeMembers[i] to shapeMembers[i + 1], member m has parts memberParts[m] to
+	// memberParts[m + 1] (the polygons of a multipolygon, ...), part p has rings partRings[p] to partRings[p + 1]
+	// (shell then holes) and ring r has coordinates ringCoords[r] to ringCoords[r + 1].
+	private int numShapes;
+	private boolean[] collections = new boolean[16];
+	private int[] shapeMembers = new int[17];
+	private double[] shapeBoxes = new double[16 * 4];
+
+	private int numMembers;
+	private byte[] memberTypes = new byte[16];
+	private int[] memberParts = new int[17];
+	private double[] memberBoxes = new double[16 * 4];
+
+	private int numParts;
+	private int[] partRings = new int[17];
+
+	private int numRings;
+	private int[] ringCoords = new int[17];
+
+	// x, y of each coordinate, in coords or quantized in fixed point in quantizedCoords
+	private int numCoords;
+	private double[] coords;
+	private int[] quantizedCoords;
+
+	/**
+	 * Create a store that keeps coordinates exactly, as doubles.
+	 *
+	 * @param gu The TamrGeoUtils used to materialize Shapes
+	 */
+	public GeometryStore(TamrGeoUtils gu) {
+		this.gu = gu;
+		this.scale = 0;
+		this.coords = new double[64];
+	}
+
+	/**
+	 * Create a store that quantizes coordinates to the given number of decimal places and keeps them as fixed point
+	 * ints, halving the memory used by coordinates.  7 decimal places is about 1cm at the equator, 6 about 10cm.
+	 *
+	 * @param gu The TamrGeoUtils used to materialize Shapes
+	 * @param decimals The number of decimal places to keep, 0 to {@link #MAX_DECIMALS}
+	 */
+	public GeometryStore(TamrGeoUtils gu, int decimals) {
+		if (decimals < 0 || decimals > MAX_DECIMALS) {
+			throw new IllegalArgumentException("decimals must be between 0 and " + MAX_DECIMALS + ": " + decimals);
+		}
+		this.gu = gu;
+		this.scale = Math.pow(10, decimals);
+		this.quantizedCoords = new int[64];
+	}
+
+	/**
+	 * @return The number of Shapes in the store
+	 */
+	public int size() {
+		return numShapes;
+	}
+
+	/**
+	 * @return The number of coordinates in the store
+	 */
+	public int getNumVertices() {
+		return numCoords;
+	}
+
+	/**
+	 * @param id The id of a stored Shape
+	 * @return The number of coordinates of the Shape
+	 */
+	public int getNumVertices(int id) {
+		checkId(id);
+		return ringCoords[partRings[memberParts[shapeMembers[id + 1]]]]
+				- ringCoords[partRings[memberParts[shapeMembers[id]]]];
+	}
+
+	/**
+	 * Add a Shape to the store.
+	 *
+	 * @param shape The Shape to add
+	 * @return The id of the Shape in the store
+	 * @throws IllegalArgumentException If the Shape can not be stored, for example a Circle
+	 */
+	public int add(Shape shape) {
+		boolean collection = shape instanceof ShapeCollection;
+		List<Shape> members = new ArrayList<>();
+		if (collection) {
+			members.addAll(((ShapeCollection<?>) shape).getShapes());
+		} else {
+			members.add(shape);
+		}
+		byte[] types = new byte[members.size()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = memberType(members.get(i));
+		}
+
+		int id = numShapes;
+		if (id == collections.length) {
+			int capacity = grow(collections.length);
+			collections = Arrays.copyOf(collections, capacity);
+			shapeMembers = Arrays.copyOf(shapeMembers, capacity + 1);
+			shapeBoxes = Arrays.copyOf(shapeBoxes, capacity * 4);
+		}
+		collections[id] = collection;
+		setBox(shapeBoxes, id, shape.getBoundingBox());
+		for (int i = 0; i < types.length; i++) {
+			addMember(members.get(i), types[i]);
+		}
+		shapeMembers[id + 1] = numMembers;
+		numShapes++;
+		return id;
+	}
+
+	/**
+	 * Materialize a stored Shape.  The Shape is built by the same factories as the Shapes returned by
+	 * {@link TamrGeoUtils}, so it can be used with all of its operations.
+	 *
+	 * @param id The id of a stored Shape
+	 * @return The Shape
+	 */
+	public Shape getShape(int id) {
+		checkId(id);
+		if (!collections[id]) {
+			return memberShape(shapeMembers[id]);
+		}
+		List<Shape> shapes = new ArrayList<>();
+		for (int m = shapeMembers[id]; m < shapeMembers[id + 1]; m++) {
+			shapes.add(memberShape(m));
+		}
+		return gu.makeCollection(shapes);
+	}
+
+	/**
+	 * @param id The id of a stored Shape
+	 * @return The bounding box of the Shape, the same as that of the original Shape
+	 */
+	public Rectangle getBoundingBox(int id) {
+		checkId(id);
+		return gu.getSpatialContext().getShapeFactory().rect(shapeBoxes[id * 4], shapeBoxes[id * 4 + 2],
+				shapeBoxes[id * 4 + 1], shapeBoxes[id * 4 + 3]);
+	}
+
+	/**
+	 * Calculate the area of a stored Shape in square meters, as {@link TamrGeoUtils#calculateArea(Shape)} does.
+	 *
+	 * @param id The id of a stored Shape
+	 * @return The area of the Shape in square meters
+	 */
+	public double calculateArea(int id) {
+		checkId(id);
+		double squareDegrees;
+		if (collections[id]) {
+			// as ShapeCollection.getArea, the sum of the members' areas up to the area of the bounding box
+			double maxArea = boxArea(shapeBoxes, id);
+			squareDegrees = 0;
+			for (int m = shapeMembers[id]; m < shapeMembers[id + 1] && squareDegrees < maxArea; m++) {
+				squareDegrees += memberArea(m);
+			}
+			squareDegrees = Math.min(squareDegrees, maxArea);
+		} else {
+			squareDegrees = memberArea(shapeMembers[id]);
+		}
+		return TamrGeoUtils.toSquareMeters(squareDegrees);
+	}
+
+	/**
+	 * Calculate the area of a stored Shape in square meters, as {@link SurfaceArea#calculateArea(Shape)} does for the
+	 * original Shape.
+	 *
+	 * @param id The id of a stored Shape
+	 * @param surface The model of the earth's surface to compute the area on
+	 * @return The area of the Shape in square meters
+	 */
+	public double calculateArea(int id, SurfaceArea surface) {
+		checkId(id);
+		return calculateArea(id, surface.new RingSum());
+	}
+
+	double calculateArea(int id, SurfaceArea.RingSum sum) {
+		double area = 0;
+		for (int m = shapeMembers[id]; m < shapeMembers[id + 1]; m++) {
+			byte type = memberTypes[m];
+			if (type == RECTANGLE) {
+				area += sum.boxArea(memberBoxes[m * 4], memberBoxes[m * 4 + 1], memberBoxes[m * 4 + 2],
+						memberBoxes[m * 4 + 3]);
+			} else if (type == POLYGON || type == MULTIPOLYGON) {
+				for (int p = memberParts[m]; p < memberParts[m + 1]; p++) {
+					double partArea = surfaceArea(sum, partRings[p]);
+					for (int r = partRings[p] + 1; r < partRings[p + 1]; r++) {
+						partArea -= surfaceArea(sum, r);
+					}
+					area += Math.max(partArea, 0);
+				}
+			}
+		}
+		return area;
+	}
+
+	/**
+	 * Return the centroid of a stored Shape, as {@link TamrGeoUtils#getCentroid(Shape)} does.
+	 *
+	 * @param id The id of a stored Shape
+	 * @return The centroid of the Shape
+	 */
+	public Point getCentroid(int id) {
+		double[] xy = new double[2];
+		centroid(id, xy);
+		return gu.getSpatialContext().getShapeFactory().pointXY(xy[0], xy[1]);
+	}
+
+	/**
+	 * Calculate the distance in meters between the centroids of two stored Shapes, as
+	 * {@link TamrGeoUtils#calculateDistance(Point, Point)} does for their centroids.
+	 *
+	 * @param id1 The id of a stored Shape
+	 * @param id2 The id of a stored Shape
+	 * @return The distance between the centroids in meters
+	 */
+	public double calculateDistance(int id1, int id2) {
+		double[] xy = new double[2];
+		centroid(id1, xy);
+		double x1 = xy[0];
+		double y1 = xy[1];
+		centroid(id2, xy);
+		return DistanceKernels.distance(x1, y1, xy[0], xy[1]);
+	}
+
+	/**
+	 * Calculate the distance in meters between the centroid of a stored Shape and a Point, as
+	 * {@link TamrGeoUtils#calculateDistance(Point, Point)} does.
+	 *
+	 * @param id The id of a stored Shape
+	 * @param p The Point
+	 * @return The distance between the centroid and the Point in meters
+	 */
+	public double calculateDistance(int id, Point p) {
+		double[] xy = new double[2];
+		centroid(id, xy);
+		return DistanceKernels.distance(xy[0], xy[1], p.getX(), p.getY());
+	}
+
+	private void checkId(int id) {
+		if (id < 0 || id >= numShapes) {
+			throw new IndexOutOfBoundsException("Id: " + id + ", Size: " + numShapes);
+		}
+	}
+
+	private static int grow(int capacity) {
+		return capacity + (capacity >> 1) + 1;
+	}
+
+	private static byte memberType(Shape shape) {
+		if (shape instanceof Point) {
+			return POINT;
+		}
+		if (shape instanceof Rectangle) {
+			return RECTANGLE;
+		}
+		if (shape instanceof JtsGeometry) {
+			Geometry geometry = ((JtsGeometry) shape).getGeom();
+			if (geometry instanceof Polygon) {
+				return POLYGON;
+			}
+			if (geometry instanceof LineString) {
+				return LINESTRING;
+			}
+			if (geometry instanceof MultiPolygon) {
+				return MULTIPOLYGON;
+			}
+			if (geometry instanceof MultiLineString) {
+				return MULTILINESTRING;
+			}
+			if (geometry instanceof MultiPoint) {
+				return MULTIPOINT;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported Shape: " + shape.getClass().getSimpleName());
+	}
+
+	/*
+	 * Adding
+	 */
+
+	private void addMember(Shape shape, byte type) {
+		if (numMembers == memberTypes.length) {
+			int capacity = grow(memberTypes.length);
+			memberTypes = Arrays.copyOf(memberTypes, capacity);
+			memberParts = Arrays.copyOf(memberParts, capacity + 1);
+			memberBoxes = Arrays.copyOf(memberBoxes, capacity * 4);
+		}
+		memberTypes[numMembers] = type;
+		setBox(memberBoxes, numMembers, shape.getBoundingBox());
+
+		switch (type) {
+		case POINT:
+			Point p = (Point) shape;
+			addCoord(p.getX(), p.getY());
+			endRing();
+			endPart();
+			break;
+		case RECTANGLE:
+			Rectangle r = (Rectangle) shape;
+			addCoord(r.getMinX(), r.getMinY());
+			addCoord(r.getMaxX(), r.getMaxY());
+			endRing();
+			endPart();
+			break;
+		default:
+			Geometry geometry = ((JtsGeometry) shape).getGeom();
+			for (int n = 0; n < geometry.getNumGeometries(); n++) {
+				Geometry part = geometry.getGeometryN(n);
+				if (part instanceof Polygon) {
+					Polygon polygon = (Polygon) part;
+					addRing(polygon.getExteriorRing().getCoordinateSequence());
+					for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+						addRing(polygon.getInteriorRingN(i).getCoordinateSequence());
+					}
+				} else if (part instanceof LineString) {
+					addRing(((LineString) part).getCoordinateSequence());
+				} else {
+					Coordinate c = part.getCoordinate();
+					addCoord(c.x, c.y);
+					endRing();
+				}
+				endPart();
+			}
+		}
+		memberParts[++numMembers] = numParts;
+	}
+
+	private void addRing(CoordinateSequence seq) {
+		for (int i = 0; i < seq.size(); i++) {
+			addCoord(seq.getX(i), seq.getY(i));
+		}
+		endRing();
+	}
+
+	private void addCoord(double x, double y) {
+		if (quantizedCoords != null) {
+			if (numCoords * 2 == quantizedCoords.length) {
+				quantizedCoords = Arrays.copyOf(quantizedCoords, grow(numCoords) * 2);
+			}
+			quantizedCoords[numCoords * 2] = (int) Math.round(x * scale);
+			quantizedCoords[numCoords * 2 + 1] = (int) Math.round(y * scale);
+		} else {
+			if (numCoords * 2 == coords.length) {
+				coords = Arrays.copyOf(coords, grow(numCoords) * 2);
+			}
+			coords[numCoords * 2] = x;
+			coords[numCoords * 2 + 1] = y;
+		}
+		numCoords++;
+	}
+
+	private void endRing() {
+		if (numRings + 1 == ringCoords.length) {
+			ringCoords = Arrays.copyOf(ringCoords, grow(ringCoords.length));
+		}
+		ringCoords[++numRings] = numCoords;
+	}
+
+	private void endPart() {
+		if (numParts + 1 == partRings.length) {
+			partRings = Arrays.copyOf(partRings, grow(partRings.length));
+		}
+		partRings[++numParts] = numRings;
+	}
+
+	private static void setBox(double[] boxes, int i, Rectangle r) {
+		boxes[i * 4] = r.getMinX();
+		boxes[i * 4 + 1] = r.getMinY();
+		boxes[i * 4 + 2] = r.getMaxX();
+		boxes[i * 4 + 3] = r.getMaxY();
+	}
+
+	/*
+	 * Reading
+	 */
+
+	private double x(int c) {
+		return quantizedCoords != null ? quantizedCoords[c * 2] / scale : coords[c * 2];
+	}
+
+	private double y(int c) {
+		return quantizedCoords != null ? quantizedCoords[c * 2 + 1] / scale : coords[c * 2 + 1];
+	}
+
+	private static double boxWidth(double[] boxes, int i) {
+		double width = boxes[i * 4 + 2] - boxes[i * 4];
+		// a box crossing the dateline
+		return width < 0 ? width + 360 : width;
+	}
+
+	/*
+	 * The area in square degrees of a bounding box on the sphere, as the spatial context's distance calculator
+	 * computes it.
+	 */
+	private static double boxArea(double[] boxes, int i) {
+		double radiusDegrees = DistanceUtils.toDegrees(1);
+		double lat1 = DistanceUtils.toRadians(boxes[i * 4 + 1]);
+		double lat2 = DistanceUtils.toRadians(boxes[i * 4 + 3]);
+		return Math.PI / 180 * radiusDegrees * radiusDegrees * Math.abs(Math.sin(lat1) - Math.sin(lat2))
+				* boxWidth(boxes, i);
+	}
+
+	/*
+	 * The area in square degrees of a member, as spatial4j computes it: the area of its bounding box on the sphere
+	 * times the fraction of the (planar) bounding box the shape fills.
+	 */
+	private double memberArea(int m) {
+		byte type = memberTypes[m];
+		if (type == RECTANGLE) {
+			return boxArea(memberBoxes, m);
+		}
+		if (type != POLYGON && type != MULTIPOLYGON) {
+			return 0;
+		}
+		double planarArea = 0;
+		for (int p = memberParts[m]; p < memberParts[m + 1]; p++) {
+			planarArea += Math.abs(signedArea(partRings[p]));
+			for (int r = partRings[p] + 1; r < partRings[p + 1]; r++) {
+				planarArea -= Math.abs(signedArea(r));
+			}
+		}
+		if (planarArea == 0) {
+			return 0;
+		}
+		double boxPlanarArea = boxWidth(memberBoxes, m) * (memberBoxes[m * 4 + 3] - memberBoxes[m * 4 + 1]);
+		return boxArea(memberBoxes, m) * (planarArea / boxPlanarArea);
+	}
+
+	private double surfaceArea(SurfaceArea.RingSum sum, int r) {
+		return sum.ringArea(coords, quantizedCoords, scale, ringCoords[r], ringCoords[r + 1]);
+	}
+
+	/*
+	 * The shoelace formula as JTS computes it, positive for a clockwise ring.
+	 */
+	private double signedArea(int r) {
+		int start = ringCoords[r];
+		int n = ringCoords[r + 1] - start;
+		if (n < 3) {
+			return 0.0;
+		}
+		double x0 = x(start);
+		double sum = 0.0;
+		for (int i = 1; i < n - 1; i++) {
+			double x = x(start + i) - x0;
+			sum += x * (y(start + i - 1) - y(start + i + 1));
+		}
+		return sum / 2.0;
+	}
+
+	/*
+	 * The centroid of a Shape as spatial4j computes it: the center of the bounding box for collections and rectangles,
+	 * the JTS centroid of the geometry otherwise.
+	 */
+	private void centroid(int id, double[] xy) {
+		checkId(id);
+		int m = shapeMembers[id];
+		if (collections[id]) {
+			boxCenter(shapeBoxes, id, xy);
+			return;
+		}
+		switch (memberTypes[m]) {
+		case RECTANGLE:
+			boxCenter(memberBoxes, m, xy);
+			return;
+		case POLYGON:
+		case MULTIPOLYGON:
+			areaCentroid(m, xy);
+			return;
+		case LINESTRING:
+		case MULTILINESTRING:
+			lineCentroid(m, xy);
+			return;
+		default:
+			pointCentroid(m, xy);
+		}
+	}
+
+	private static void boxCenter(double[] boxes, int i, double[] xy) {
+		double x = boxWidth(boxes, i) / 2 + boxes[i * 4];
+		if (boxes[i * 4] > boxes[i * 4 + 2]) {
+			x = DistanceUtils.normLonDEG(x);
+		}
+		xy[0] = x;
+		xy[1] = (boxes[i * 4 + 3] - boxes[i * 4 + 1]) / 2 + boxes[i * 4 + 1];
+	}
+
+	private void pointCentroid(int m, double[] xy) {
+		int start = ringCoords[partRings[memberParts[m]]];
+		int end = ringCoords[partRings[memberParts[m + 1]]];
+		double sumX = 0;
+		double sumY = 0;
+		for (int c = start; c < end; c++) {
+			sumX += x(c);
+			sumY += y(c);
+		}
+		xy[0] = sumX / (end - start);
+		xy[1] = sumY / (end - start);
+	}
+
+	private void lineCentroid(int m, double[] xy) {
+		double[] sums = new double[3];
+		for (int r = partRings[memberParts[m]]; r < partRings[memberParts[m + 1]]; r++) {
+			addLinearSegments(r, sums);
+		}
+		xy[0] = sums[0] / sums[2];
+		xy[1] = sums[1] / sums[2];
+	}
+
+	/*
+	 * JTS's CentroidArea: the area weighted centroid of the triangles formed by each edge and a base point, or the
+	 * length weighted centroid of the edges if the polygons are degenerate.
+	 */
+	private void areaCentroid(int m, double[] xy) {
+		int base = ringCoords[partRings[memberParts[m]]];
+		double baseX = x(base);
+		double baseY = y(base);
+		double areaSum2 = 0;
+		double cg3x = 0;
+		double cg3y = 0;
+		double[] linear = new double[3];
+		for (int p = memberParts[m]; p < memberParts[m + 1]; p++) {
+			for (int r = partRings[p]; r < partRings[p + 1]; r++) {
+				boolean shell = r == partRings[p];
+				// JTS's signed area is positive for clockwise rings
+				boolean ccw = signedArea(r) < 0;
+				double sign = shell != ccw ? 1.0 : -1.0;
+				for (int c = ringCoords[r]; c < ringCoords[r + 1] - 1; c++) {
+					double x1 = x(c);
+					double y1 = y(c);
+					double x2 = x(c + 1);
+					double y2 = y(c + 1);
+					double area2 = (x1 - baseX) * (y2 - baseY) - (x2 - baseX) * (y1 - baseY);
+					cg3x += sign * area2 * (baseX + x1 + x2);
+					cg3y += sign * area2 * (baseY + y1 + y2);
+					areaSum2 += sign * area2;
+				}
+				addLinearSegments(r, linear);
+			}
+		}
+		if (Math.abs(areaSum2) > 0.0) {
+			xy[0] = cg3x / 3 / areaSum2;
+			xy[1] = cg3y / 3 / areaSum2;
+		} else {
+			xy[0] = linear[0] / linear[2];
+			xy[1] = linear[1] / linear[2];
+		}
+	}
+
+	/*
+	 * Add the length weighted midpoints of the segments of a ring to sums (x, y, total length).
+	 */
+	private void addLinearSegments(int r, double[] sums) {
+		for (int c = ringCoords[r]; c < ringCoords[r + 1] - 1; c++) {
+			double x1 = x(c);
+			double y1 = y(c);
+			double x2 = x(c + 1);
+			double y2 = y(c + 1);
+			double dx = x1 - x2;
+			double dy = y1 - y2;
+			double length = Math.sqrt(dx * dx + dy * dy);
+			sums[2] += length;
+			sums[0] += length * ((x1 + x2) / 2);
+			sums[1] += length * ((y1 + y2) / 2);
+		}
+	}
+
+	/*
+	 * Materializing
+	 */
+
+	private Shape memberShape(int m) {
+		JtsShapeFactory shapeFactory = gu.getJtsShapeFactory();
+		int part = memberParts[m];
+		int c = ringCoords[partRings[part]];
+		switch (memberTypes[m]) {
+		case POINT:
+			return shapeFactory.pointXY(x(c), y(c));
+		case RECTANGLE:
+			return shapeFactory.rect(x(c), x(c + 1), y(c), y(c + 1));
+		default:
+			return shapeFactory.makeShape(memberGeometry(m, shapeFactory.getGeometryFactory()));
+		}
+	}
+
+	private Geometry memberGeometry(int m, GeometryFactory factory) {
+		int numMemberParts = memberParts[m + 1] - memberParts[m];
+		switch (memberTypes[m]) {
+		case LINESTRING:
+			return factory.createLineString(ringCoordinates(partRings[memberParts[m]]));
+		case POLYGON:
+			return polygon(memberParts[m], factory);
+		case MULTIPOINT:
+			Coordinate[] points = new Coordinate[numMemberParts];
+			for (int i = 0; i < numMemberParts; i++) {
+				points[i] = ringCoordinates(partRings[memberParts[m] + i])[0];
+			}
+			return factory.createMultiPoint(points);
+		case MULTILINESTRING:
+			LineString[] lines = new LineString[numMemberParts];
+			for (int i = 0; i < numMemberParts; i++) {
+				lines[i] = factory.createLineString(ringCoordinates(partRings[memberParts[m] + i]));
+			}
+			return factory.createMultiLineString(lines);
+		default:
+			Polygon[] polygons = new Polygon[numMemberParts];
+			for (int i = 0; i < numMemberParts; i++) {
+				polygons[i] = polygon(memberParts[m] + i, factory);
+			}
+			return factory.createMultiPolygon(polygons);
+		}
+	}
+
+	private Polygon polygon(int p, GeometryFactory factory) {
+		LinearRing shell = factory.createLinearRing(ringCoordinates(partRings[p]));
+		LinearRing[] holes = new LinearRing[partRings[p + 1] - partRings[p] - 1];
+		for (int i = 0; i < holes.length; i++) {
+			holes[i] = factory.createLinearRing(ringCoordinates(partRings[p] + 1 + i));
+		}
+		return factory.createPolygon(shell, holes);
+	}
+
+	private Coordinate[] ringCoordinates(int r) {
+		Coordinate[] ring = new Coordinate[ringCoords[r + 1] - ringCoords[r]];
+		for (int i = 0; i < ring.length; i++) {
+			ring[i] = new Coordinate(x(ringCoords[r] + i), y(ringCoords[r] + i));
+		}
+		return ring;
+	}
+}
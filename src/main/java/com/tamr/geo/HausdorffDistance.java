@@ -0,0 +1,153 @@
+package com.tamr.geo;
+
+import com.vividsolutions.jts.algorithm.match.HausdorffSimilarityMeasure;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.LineSegment;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * The discrete Hausdorff distance and similarity of {@link HausdorffSimilarityMeasure}, computed exactly the way
+ * JTS computes them (same densification, same arithmetic, so the same results) but safe to use from many threads.
+ * JTS 1.13 computes point to line distances with a static scratch {@link LineSegment} shared by every caller, so
+ * concurrent calls to {@link HausdorffSimilarityMeasure} corrupt each other's results.
+ * <p>
+ * Instances hold scratch state and must not be shared between threads, the static methods create one per call.
+ */
+final class HausdorffDistance {
+
+	/** The densify fraction used by {@link HausdorffSimilarityMeasure}. */
+	static final double DENSIFY_FRACTION = 0.25;
+
+	private static final int NUM_SUB_SEGMENTS = (int) Math.rint(1.0 / DENSIFY_FRACTION);
+
+	private final LineSegment segment = new LineSegment();
+	private final Coordinate densified = new Coordinate();
+
+	/**
+	 * Same as {@link HausdorffSimilarityMeasure#measure(Geometry, Geometry)}.
+	 */
+	static double similarity(Geometry g1, Geometry g2) {
+		double distance = new HausdorffDistance().distance(g1, g2);
+		return 1 - distance / combinedDiagonal(g1, g2);
+	}
+
+	/**
+	 * The length of the diagonal of the envelope of both geometries, the normalizer of the similarity measure.
+	 */
+	static double combinedDiagonal(Geometry g1, Geometry g2) {
+		Envelope env = new Envelope(g1.getEnvelopeInternal());
+		env.expandToInclude(g2.getEnvelopeInternal());
+		return HausdorffSimilarityMeasure.diagonalSize(env);
+	}
+
+	/**
+	 * The discrete Hausdorff distance between the two geometries, densified by {@link #DENSIFY_FRACTION}.
+	 */
+	double distance(Geometry g0, Geometry g1) {
+		return Math.max(orientedDistance(g0, g1), orientedDistance(g1, g0));
+	}
+
+	/**
+	 * The largest distance from any (densified) point of discreteGeom to geom.
+	 */
+	double orientedDistance(Geometry discreteGeom, Geometry geom) {
+		return orientedDistance(discreteGeom, geom, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * The largest distance from any (densified) point of discreteGeom to geom, abandoning the computation as soon as
+	 * it is known to be larger than the given limit.
+	 *
+	 * @return The oriented distance, or some value greater than limit if the oriented distance is greater than limit
+	 */
+	double orientedDistance(Geometry discreteGeom, Geometry geom, double limit) {
+		double max = 0;
+		int numGeometries = discreteGeom.getNumGeometries();
+		for (int n = 0; n < numGeometries; n++) {
+			Geometry part = discreteGeom.getGeometryN(n);
+			if (part instanceof Polygon) {
+				Polygon polygon = (Polygon) part;
+				max = Math.max(max, orientedDistance(polygon.getExteriorRing().getCoordinateSequence(), geom, limit));
+				for (int i = 0; i < polygon.getNumInteriorRing() && max <= limit; i++) {
+					max = Math.max(max, orientedDistance(polygon.getInteriorRingN(i).getCoordinateSequence(), geom, limit));
+				}
+			} else if (part instanceof LineString) {
+				max = Math.max(max, orientedDistance(((LineString) part).getCoordinateSequence(), geom, limit));
+			} else if (part instanceof GeometryCollection) {
+				max = Math.max(max, orientedDistance(part, geom, limit));
+			} else if (!part.isEmpty()) {
+				// an empty Point has no coordinate and, as in JTS's DiscreteHausdorffDistance, adds no distance
+				max = Math.max(max, distance(geom, part.getCoordinate()));
+			}
+			if (max > limit) {
+				break;
+			}
+		}
+		return max;
+	}
+
+	private double orientedDistance(CoordinateSequence seq, Geometry geom, double limit) {
+		double max = 0;
+		int size = seq.size();
+		for (int index = 0; index < size; index++) {
+			Coordinate p1 = seq.getCoordinate(index);
+			max = Math.max(max, distance(geom, p1));
+			if (index > 0) {
+				// the points JTS adds when densifying the segment, the first of which is the previous vertex
+				Coordinate p0 = seq.getCoordinate(index - 1);
+				double delx = (p1.x - p0.x) / NUM_SUB_SEGMENTS;
+				double dely = (p1.y - p0.y) / NUM_SUB_SEGMENTS;
+				for (int i = 1; i < NUM_SUB_SEGMENTS; i++) {
+					densified.x = p0.x + i * delx;
+					densified.y = p0.y + i * dely;
+					max = Math.max(max, distance(geom, densified));
+				}
+			}
+			if (max > limit) {
+				break;
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Distance from pt to the nearest point of geom, as computed by JTS's DistanceToPoint.
+	 */
+	private double distance(Geometry geom, Coordinate pt) {
+		if (geom instanceof LineString) {
+			return distance((LineString) geom, pt);
+		}
+		if (geom instanceof Polygon) {
+			Polygon poly = (Polygon) geom;
+			double min = distance(poly.getExteriorRing(), pt);
+			for (int i = 0; i < poly.getNumInteriorRing(); i++) {
+				min = Math.min(min, distance(poly.getInteriorRingN(i), pt));
+			}
+			return min;
+		}
+		if (geom instanceof GeometryCollection) {
+			double min = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < geom.getNumGeometries(); i++) {
+				min = Math.min(min, distance(geom.getGeometryN(i), pt));
+			}
+			return min;
+		}
+		// assume geom is a Point, which is nowhere if it is empty
+		return geom.isEmpty() ? Double.POSITIVE_INFINITY : geom.getCoordinate().distance(pt);
+	}
+
+	private double distance(LineString line, Coordinate pt) {
+		Coordinate[] coords = line.getCoordinates();
+		double min = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < coords.length - 1; i++) {
+			segment.setCoordinates(coords[i], coords[i + 1]);
+			min = Math.min(min, segment.closestPoint(pt).distance(pt));
+		}
+		return min;
+	}
+}
@@ -0,0 +1,294 @@
+package com.tamr.geo;
+
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.impl.RectangleImpl;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+
+import com.vividsolutions.jts.algorithm.RayCrossingCounter;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Location;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * The area of the intersection of two geometries in square meters, without building the intersection Shape that
+ * {@link TamrGeoUtils#getIntersection(Shape, Shape)} returns.  The area is the one {@link JtsGeometry#getArea} gives
+ * the intersection Shape (its planar area scaled by the spherical area of its bounding box), found the cheapest way
+ * the pair allows:
+ * <ul>
+ * <li>0 when either geometry has no area or their envelopes do not overlap</li>
+ * <li>the area of one geometry when the other covers it, including identical geometries</li>
+ * <li>clipping one polygon against the other when the other is convex and neither has holes (rectangles and most
+ * simple footprints)</li>
+ * <li>otherwise the area of the JTS overlay, without wrapping it in a Shape</li>
+ * </ul>
+ * Pairs whose envelopes are not within a single hemisphere of longitude may cross the dateline, which only the
+ * Shape built from the intersection accounts for, so they still go through it.
+ * <p>
+ * An IntersectionArea keeps no state between calls and is thread safe.
+ */
+final class IntersectionArea {
+
+	private final TamrGeoUtils gu;
+	private final SpatialContext ctx;
+
+	IntersectionArea(TamrGeoUtils gu) {
+		this.gu = gu;
+		this.ctx = gu.getSpatialContext();
+	}
+
+	double squareMeters(Geometry g1, Geometry g2) {
+		if (g1.getDimension() < 2 || g2.getDimension() < 2 || g1.isEmpty() || g2.isEmpty()) {
+			return 0;
+		}
+		Envelope env1 = g1.getEnvelopeInternal();
+		Envelope env2 = g2.getEnvelopeInternal();
+		if (!env1.intersects(env2)) {
+			return 0;
+		}
+		if (!withinHemisphere(env1) || !withinHemisphere(env2)) {
+			return gu.area(gu.intersection(g1, g2));
+		}
+		Envelope env = new Envelope();
+		return squareMeters(planarArea(g1, g2, env), env);
+	}
+
+	/**
+	 * The planar area of the intersection of two polygonal geometries within a hemisphere, expanding env to include
+	 * the intersection.
+	 */
+	double planarArea(Geometry g1, Geometry g2, Envelope env) {
+		Envelope env1 = g1.getEnvelopeInternal();
+		Envelope env2 = g2.getEnvelopeInternal();
+		if (!env1.intersects(env2)) {
+			return 0;
+		}
+		if (env1.equals(env2) && g1.equalsExact(g2)) {
+			env.expandToInclude(env1);
+			return g1.getArea();
+		}
+		if (g1 instanceof Polygon && g2 instanceof Polygon) {
+			Polygon p1 = (Polygon) g1;
+			Polygon p2 = (Polygon) g2;
+			if (p1.getNumInteriorRing() == 0 && p2.getNumInteriorRing() == 0) {
+				if (isConvex(p2.getExteriorRing())) {
+					return clip(p1.getExteriorRing(), p2.getExteriorRing(), env);
+				} else if (isConvex(p1.getExteriorRing())) {
+					return clip(p2.getExteriorRing(), p1.getExteriorRing(), env);
+				}
+			}
+		}
+		// covers() checks envelopes first, only nested envelopes pay for the full test
+		if (g2.covers(g1)) {
+			env.expandToInclude(env1);
+			return g1.getArea();
+		} else if (g1.covers(g2)) {
+			env.expandToInclude(env2);
+			return g2.getArea();
+		}
+		Geometry intersection = g1.intersection(g2);
+		double area = intersection.getArea();
+		if (area > 0) {
+			env.expandToInclude(intersection.getEnvelopeInternal());
+		}
+		return area;
+	}
+
+	/**
+	 * The area of a geometry in square meters, the same as that of the Shape made from it.
+	 */
+	double squareMeters(Geometry geometry) {
+		if (geometry.getDimension() < 2 || geometry.isEmpty()) {
+			return 0;
+		}
+		Envelope env = geometry.getEnvelopeInternal();
+		if (!withinHemisphere(env)) {
+			return gu.area(gu.getJtsShapeFactory().makeShape(geometry));
+		}
+		return squareMeters(geometry.getArea(), env);
+	}
+
+	// The Shape of a geometry within these bounds has the geometry's envelope as its bounding box
+	static boolean withinHemisphere(Envelope env) {
+		return env.getMinX() >= -180 && env.getMaxX() <= 180 && env.getWidth() <= 180;
+	}
+
+	/**
+	 * The area {@link JtsGeometry#getArea} gives a geometry with this planar area and envelope, in square meters.
+	 */
+	double squareMeters(double planarArea, Envelope env) {
+		if (planarArea == 0) {
+			return 0;
+		}
+		Rectangle bbox = new RectangleImpl(env.getMinX(), env.getMaxX(), env.getMinY(), env.getMaxY(), ctx);
+		double filledRatio = planarArea / bbox.getArea(null);
+		return TamrGeoUtils.toSquareMeters(bbox.getArea(ctx) * filledRatio);
+	}
+
+	/**
+	 * True if the closed ring turns the same way at every vertex and winds around only once.
+	 */
+	static boolean isConvex(LineString ring) {
+		CoordinateSequence seq = ring.getCoordinateSequence();
+		int n = seq.size() - 1;
+		if (n < 3) {
+			return false;
+		}
+		int turn = 0;
+		int xDirection = 0;
+		int xDirectionChanges = 0;
+		for (int i = 0; i < n; i++) {
+			double dx1 = seq.getX((i + 1) % n) - seq.getX(i);
+			double dy1 = seq.getY((i + 1) % n) - seq.getY(i);
+			double dx2 = seq.getX((i + 2) % n) - seq.getX((i + 1) % n);
+			double dy2 = seq.getY((i + 2) % n) - seq.getY((i + 1) % n);
+			double cross = dx1 * dy2 - dy1 * dx2;
+			if (cross != 0) {
+				int sign = cross > 0 ? 1 : -1;
+				if (turn != 0 && sign != turn) {
+					return false;
+				}
+				turn = sign;
+			}
+			if (dx1 != 0) {
+				int direction = dx1 > 0 ? 1 : -1;
+				if (xDirection != 0 && direction != xDirection) {
+					xDirectionChanges++;
+				}
+				xDirection = direction;
+			}
+		}
+		// a ring that winds more than once (a pentagram) reverses its x direction more than twice
+		return turn != 0 && xDirectionChanges <= 2;
+	}
+
+	/**
+	 * Clip a ring against a convex ring (Sutherland-Hodgman) and return the planar area of what is left, expanding env
+	 * to include it.  A concave subject can leave zero width slivers along the clip ring's edges, which add nothing to
+	 * the area but can run out to corners of the clip ring outside the subject.  Every other vertex of the result is a
+	 * point of the subject's ring, so only the corners are tested before they are added to env.
+	 */
+	private double clip(LineString subject, LineString convex, Envelope env) {
+		CoordinateSequence seq = subject.getCoordinateSequence();
+		int n = seq.size() - 1;
+		double[] xs = new double[2 * n + 8];
+		double[] ys = new double[2 * n + 8];
+		// the clip edge each vertex was cut on, and the earlier clip edge it also lies on if it is a corner, or -1
+		int[] edges = new int[xs.length];
+		int[] corners = new int[xs.length];
+		for (int i = 0; i < n; i++) {
+			xs[i] = seq.getX(i);
+			ys[i] = seq.getY(i);
+			edges[i] = -1;
+			corners[i] = -1;
+		}
+		double[] outXs = new double[xs.length];
+		double[] outYs = new double[ys.length];
+		int[] outEdges = new int[xs.length];
+		int[] outCorners = new int[xs.length];
+
+		CoordinateSequence clip = convex.getCoordinateSequence();
+		int m = clip.size() - 1;
+		// inside is to the left of a counter clockwise clip ring's edges, to the right of a clockwise one's
+		double inside = signedArea(clip) > 0 ? 1 : -1;
+		for (int j = 0; j < m && n > 0; j++) {
+			double ax = clip.getX(j);
+			double ay = clip.getY(j);
+			double ex = clip.getX(j + 1) - ax;
+			double ey = clip.getY(j + 1) - ay;
+			if (outXs.length < 2 * n) {
+				outXs = new double[2 * n];
+				outYs = new double[2 * n];
+				outEdges = new int[2 * n];
+				outCorners = new int[2 * n];
+			}
+			int count = 0;
+			double prevX = xs[n - 1];
+			double prevY = ys[n - 1];
+			int prevEdge = edges[n - 1];
+			int prevCorner = corners[n - 1];
+			double prevSide = inside * (ex * (prevY - ay) - ey * (prevX - ax));
+			for (int i = 0; i < n; i++) {
+				double x = xs[i];
+				double y = ys[i];
+				double side = inside * (ex * (y - ay) - ey * (x - ax));
+				if ((side >= 0) != (prevSide >= 0)) {
+					double t = prevSide / (prevSide - side);
+					outXs[count] = prevX + t * (x - prevX);
+					outYs[count] = prevY + t * (y - prevY);
+					outEdges[count] = j;
+					// an edge between two vertices on the same clip edge runs along it and is cut at a corner
+					outCorners[count] = sharedEdge(prevEdge, prevCorner, edges[i], corners[i]);
+					count++;
+				}
+				if (side >= 0) {
+					outXs[count] = x;
+					outYs[count] = y;
+					outEdges[count] = edges[i];
+					outCorners[count] = corners[i];
+					count++;
+				}
+				prevX = x;
+				prevY = y;
+				prevEdge = edges[i];
+				prevCorner = corners[i];
+				prevSide = side;
+			}
+			double[] swap = xs;
+			xs = outXs;
+			outXs = swap;
+			swap = ys;
+			ys = outYs;
+			outYs = swap;
+			int[] swapEdges = edges;
+			edges = outEdges;
+			outEdges = swapEdges;
+			swapEdges = corners;
+			corners = outCorners;
+			outCorners = swapEdges;
+			n = count;
+		}
+		if (n < 3) {
+			return 0;
+		}
+
+		// relative to the first vertex, as JTS does, so large coordinates do not cancel away the digits of a small area
+		double twiceArea = 0;
+		Envelope clipped = new Envelope();
+		for (int i = 0, prev = n - 1; i < n; prev = i++) {
+			twiceArea += (xs[prev] - xs[0]) * (ys[i] - ys[0]) - (xs[i] - xs[0]) * (ys[prev] - ys[0]);
+			if (corners[i] < 0 || RayCrossingCounter.locatePointInRing(new Coordinate(xs[i], ys[i]), seq)
+					!= Location.EXTERIOR) {
+				clipped.expandToInclude(xs[i], ys[i]);
+			}
+		}
+		if (twiceArea != 0) {
+			env.expandToInclude(clipped);
+		}
+		return Math.abs(twiceArea) / 2;
+	}
+
+	// the clip edge two vertices both lie on, or -1
+	private static int sharedEdge(int edge1, int corner1, int edge2, int corner2) {
+		if (edge1 >= 0 && (edge1 == edge2 || edge1 == corner2)) {
+			return edge1;
+		} else if (corner1 >= 0 && (corner1 == edge2 || corner1 == corner2)) {
+			return corner1;
+		}
+		return -1;
+	}
+
+	private static double signedArea(CoordinateSequence ring) {
+		double twiceArea = 0;
+		for (int i = 1; i < ring.size(); i++) {
+			twiceArea += (ring.getX(i - 1) - ring.getX(0)) * (ring.getY(i) - ring.getY(0))
+					- (ring.getX(i) - ring.getX(0)) * (ring.getY(i - 1) - ring.getY(0));
+		}
+		return twiceArea / 2;
+	}
+}
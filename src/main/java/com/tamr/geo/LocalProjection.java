@@ -0,0 +1,253 @@
+package com.tamr.geo;
+
+import org.locationtech.spatial4j.distance.DistanceUtils;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.CoordinateSequenceFilter;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * A Lambert azimuthal equal-area projection of the sphere {@link TamrGeoUtils} works on, centered on one region, that
+ * turns Shapes into JTS geometries in meters.  Project the footprints of a neighborhood once and their areas,
+ * intersections, intersection areas, Hausdorff similarities and centroid distances are then plain planar geometry,
+ * with no trigonometry and no conversion from degrees:
+ * <pre>{@code
+ *   LocalProjection projection = gu.getLocalProjection(gu.getCentroid(human));
+ *   Geometry h = projection.project(human);
+ *   Geometry m = projection.project(ml);
+ *   double iou = projection.getIntersectionArea(h, m)
+ *       / (projection.calculateArea(h) + projection.calculateArea(m) - projection.getIntersectionArea(h, m));
+ * }</pre>
+ * The projection preserves areas exactly, so the area of a projected polygon is that of the polygon on the sphere
+ * (as {@link SurfaceArea#SPHERE} computes it) at any latitude, to about a billionth for footprints, where
+ * {@link TamrGeoUtils#calculateArea(Shape)}, which scales the area of the bounding box, is off by a few millionths.
+ * Shapes keep their proportions in the plane, while in degrees they are stretched east to west by 1 / cos(latitude),
+ * which skews Hausdorff similarities more the further a footprint is from the equator.  Distances are exact from the
+ * center and stretched by about <code>(d / 6371km)^2 / 8</code> at a distance d from it, less than a millionth within
+ * 10 kilometers, so project Shapes with the projection of their own region or of a nearby one.  Only Shapes on the
+ * far side of the earth from the center can not be projected.
+ * <p>
+ * A LocalProjection is immutable and thread safe.  {@link TamrGeoUtils#getLocalProjection(Point)} keeps one per region
+ * of the globe.
+ */
+public final class LocalProjection {
+
+	private final TamrGeoUtils gu;
+	private final IntersectionArea intersectionAreas;
+	private final double centerLon;
+	private final double centerLat;
+	private final double sinLat0;
+	private final double cosLat0;
+
+	LocalProjection(TamrGeoUtils gu, double centerLon, double centerLat) {
+		this.gu = gu;
+		this.intersectionAreas = new IntersectionArea(gu);
+		this.centerLon = centerLon;
+		this.centerLat = centerLat;
+		double lat0 = DistanceUtils.toRadians(centerLat);
+		this.sinLat0 = Math.sin(lat0);
+		this.cosLat0 = Math.cos(lat0);
+	}
+
+	/**
+	 * @return The longitude of the center of the projection, where distances are exact
+	 */
+	public double getCenterLon() {
+		return centerLon;
+	}
+
+	/**
+	 * @return The latitude of the center of the projection
+	 */
+	public double getCenterLat() {
+		return centerLat;
+	}
+
+	/**
+	 * Project a Shape onto the plane.  Points and lines are projected as well as polygons.
+	 *
+	 * @param shape The Shape, in degrees
+	 * @return A geometry in meters east (x) and north (y) of the center of the projection
+	 * @throws IllegalArgumentException If part of the Shape is on the far side of the earth from the center
+	 */
+	public Geometry project(Shape shape) {
+		Geometry geometry = (Geometry) gu.getGeometryFrom(shape).clone();
+		geometry.apply(new Transform(true));
+		geometry.geometryChanged();
+		return geometry;
+	}
+
+	/**
+	 * Turn a projected geometry, such as the intersection of two projected Shapes, back into a Shape.
+	 *
+	 * @param projected A geometry in meters
+	 * @return The Shape, in degrees
+	 */
+	public Shape toShape(Geometry projected) {
+		Geometry geometry = (Geometry) projected.clone();
+		geometry.apply(new Transform(false));
+		geometry.geometryChanged();
+		return gu.getJtsShapeFactory().makeShape(geometry);
+	}
+
+	/**
+	 * The area of a projected geometry, the area on the sphere of the Shape it was projected from.
+	 *
+	 * @param projected A geometry in meters
+	 * @return The area in square meters, 0 for Points and lines
+	 */
+	public double calculateArea(Geometry projected) {
+		return projected.getArea();
+	}
+
+	/**
+	 * The intersection of two projected geometries.
+	 *
+	 * @param g1 Geometry 1, in meters
+	 * @param g2 Geometry 2, in meters
+	 * @return The intersection, in meters; {@link #toShape(Geometry)} turns it into a Shape
+	 */
+	public Geometry getIntersection(Geometry g1, Geometry g2) {
+		return g1.intersection(g2);
+	}
+
+	/**
+	 * The area of the intersection of two projected geometries, found the same cheap ways as
+	 * {@link TamrGeoUtils#getIntersectionArea(Shape, Shape)} without building the intersection.
+	 *
+	 * @param g1 Geometry 1, in meters
+	 * @param g2 Geometry 2, in meters
+	 * @return The area of the intersection in square meters
+	 */
+	public double getIntersectionArea(Geometry g1, Geometry g2) {
+		if (g1.getDimension() < 2 || g2.getDimension() < 2 || g1.isEmpty() || g2.isEmpty()) {
+			return 0;
+		}
+		return intersectionAreas.planarArea(g1, g2, new Envelope());
+	}
+
+	/**
+	 * The Hausdorff similarity of two projected geometries, normalized by the diagonal of their combined envelope in
+	 * meters rather than in degrees, in which a footprint far from the equator is stretched east to west.
+	 *
+	 * @param g1 Geometry 1, in meters
+	 * @param g2 Geometry 2, in meters
+	 * @return Hausdorff similarity normalized to [0, 1]
+	 */
+	public double getHausdorffSimilarity(Geometry g1, Geometry g2) {
+		return HausdorffDistance.similarity(g1, g2);
+	}
+
+	/**
+	 * The distance between the centroids of two projected geometries.
+	 *
+	 * @param g1 Geometry 1, in meters
+	 * @param g2 Geometry 2, in meters
+	 * @return The distance in meters
+	 */
+	public double centroidDistance(Geometry g1, Geometry g2) {
+		return g1.getCentroid().distance(g2.getCentroid());
+	}
+
+	/**
+	 * The distance between two Points, projected.  Close to {@link TamrGeoUtils#calculateDistance(Point, Point)} for
+	 * Points near the center.
+	 *
+	 * @param p1 Point 1, in degrees
+	 * @param p2 Point 2, in degrees
+	 * @return The distance in meters
+	 */
+	public double calculateDistance(Point p1, Point p2) {
+		double[] xy1 = new double[2];
+		double[] xy2 = new double[2];
+		project(p1.getX(), p1.getY(), xy1);
+		project(p2.getX(), p2.getY(), xy2);
+		return Math.hypot(xy1[0] - xy2[0], xy1[1] - xy2[1]);
+	}
+
+	/*
+	 * The spherical forward formulas of Snyder's Map Projections - A Working Manual (24-2, 22-4, 22-5).
+	 */
+	private void project(double lon, double lat, double[] xy) {
+		double dLon = lon - centerLon;
+		if (dLon > 180) {
+			dLon -= 360;
+		} else if (dLon < -180) {
+			dLon += 360;
+		}
+		double lambda = DistanceUtils.toRadians(dLon);
+		double phi = DistanceUtils.toRadians(lat);
+		double sinPhi = Math.sin(phi);
+		double cosPhi = Math.cos(phi);
+		double cosLambda = Math.cos(lambda);
+		double denominator = 1 + sinLat0 * sinPhi + cosLat0 * cosPhi * cosLambda;
+		if (denominator <= 1e-12) {
+			throw new IllegalArgumentException("Coordinate " + lon + ", " + lat + " is opposite the center " + centerLon
+					+ ", " + centerLat + " of the projection");
+		}
+		double k = TamrGeoUtils.EARTH_RADIUS_METERS * Math.sqrt(2 / denominator);
+		xy[0] = k * cosPhi * Math.sin(lambda);
+		xy[1] = k * (cosLat0 * sinPhi - sinLat0 * cosPhi * cosLambda);
+	}
+
+	/*
+	 * The spherical inverse formulas (24-16, 20-14, 20-15).
+	 */
+	private void unproject(double x, double y, double[] lonLat) {
+		double rho = Math.hypot(x, y);
+		if (rho == 0) {
+			lonLat[0] = centerLon;
+			lonLat[1] = centerLat;
+			return;
+		}
+		double c = 2 * Math.asin(Math.min(1, rho / (2 * TamrGeoUtils.EARTH_RADIUS_METERS)));
+		double sinC = Math.sin(c);
+		double cosC = Math.cos(c);
+		double phi = Math.asin(Math.max(-1, Math.min(1, cosC * sinLat0 + y * sinC * cosLat0 / rho)));
+		double lambda = Math.atan2(x * sinC, rho * cosLat0 * cosC - y * sinLat0 * sinC);
+		double lon = centerLon + DistanceUtils.toDegrees(lambda);
+		if (lon > 180) {
+			lon -= 360;
+		} else if (lon < -180) {
+			lon += 360;
+		}
+		lonLat[0] = lon;
+		lonLat[1] = DistanceUtils.toDegrees(phi);
+	}
+
+	/*
+	 * Projects or unprojects the coordinates of a geometry in place.
+	 */
+	private class Transform implements CoordinateSequenceFilter {
+		private final boolean forward;
+		private final double[] out = new double[2];
+
+		Transform(boolean forward) {
+			this.forward = forward;
+		}
+
+		@Override
+		public void filter(CoordinateSequence seq, int i) {
+			if (forward) {
+				project(seq.getX(i), seq.getY(i), out);
+			} else {
+				unproject(seq.getX(i), seq.getY(i), out);
+			}
+			seq.setOrdinate(i, CoordinateSequence.X, out[0]);
+			seq.setOrdinate(i, CoordinateSequence.Y, out[1]);
+		}
+
+		@Override
+		public boolean isDone() {
+			return false;
+		}
+
+		@Override
+		public boolean isGeometryChanged() {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.tamr.geo;
+
+/**
+ * Told about each instrumented {@link TamrGeoUtils} call while {@link OperationMetrics} are enabled, for sending the
+ * calls to a metrics or tracing system.  Listeners are added with {@link OperationMetrics#addListener}, or without
+ * any code changes by naming the implementing class in a
+ * <code>META-INF/services/com.tamr.geo.OperationListener</code> file on the classpath, in which case the class needs
+ * a public no argument constructor and its presence turns the metrics on.
+ * <p>
+ * Listeners are called on the thread that made the call, after it finishes and before it returns, so they should be
+ * quick and thread safe.  An exception thrown by a listener is ignored.
+ */
+public interface OperationListener {
+
+	/**
+	 * Called when an instrumented call returns or throws.
+	 *
+	 * @param operation The name of the {@link TamrGeoUtils} method, e.g. "fromGeoJson"
+	 * @param nanos How long the call took
+	 * @param vertices The number of vertices in the Shapes passed to the call, or for calls that read a Shape, in
+	 * the Shape read
+	 * @param allocatedBytes An estimate of the bytes the calling thread allocated during the call, or -1 if the JVM
+	 * can not measure them
+	 * @param failure The exception the call threw, such as the ParseException of invalid geoJson or the JTS
+	 * TopologyException of an invalid polygon, or null if it returned
+	 */
+	void operationCompleted(String operation, long nanos, int vertices, long allocatedBytes, Throwable failure);
+}
@@ -0,0 +1,261 @@
+package com.tamr.geo;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.impl.BufferedLineString;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+
+/**
+ * Call counts, latency and vertex count histograms, allocation estimates and failure counts of the
+ * {@link TamrGeoUtils} operations: reading and writing Shapes and Features, centroids, distances, area, intersection,
+ * relocation, Hausdorff similarity and point in polygon tests.  Operations are named after their methods, except
+ * {@link TamrGeoUtils#toGeoJson(Shape, int)}, which is "toGeoJsonRounded", and the Features a {@link FeatureReader}
+ * reads or a {@link FeatureWriter} writes, each of which is a "readFeature" or "writeFeature" call.  There is one
+ * OperationMetrics per JVM, shared by every TamrGeoUtils.
+ * <p>
+ * The metrics are off unless the system property <code>com.tamr.geo.metrics</code> is <code>true</code>, an
+ * {@link OperationListener} is named in a <code>META-INF/services</code> file, or {@link #setEnabled(boolean)} is
+ * called, so they can be turned on for a job without changing its code.  While off each operation costs one extra
+ * volatile read.  While on, each operation's statistics are registered in JMX as an {@link OperationMetricsMXBean}
+ * and every call is passed to the listeners.
+ */
+public final class OperationMetrics {
+
+	/**
+	 * The system property that turns the metrics on when the JVM starts.
+	 */
+	public static final String ENABLED_PROPERTY = "com.tamr.geo.metrics";
+
+	private static final String JMX_DOMAIN = "com.tamr.geo";
+	private static final OperationMetrics INSTANCE = new OperationMetrics();
+
+	private final ConcurrentMap<String, OperationStatistics> statistics = new ConcurrentHashMap<>();
+	private final List<OperationListener> listeners = new CopyOnWriteArrayList<>();
+	// null when the JVM can not measure the bytes a thread allocates
+	private final com.sun.management.ThreadMXBean threads;
+	private volatile boolean enabled;
+
+	private OperationMetrics() {
+		for (OperationListener listener : ServiceLoader.load(OperationListener.class)) {
+			listeners.add(listener);
+		}
+		enabled = Boolean.getBoolean(ENABLED_PROPERTY) || !listeners.isEmpty();
+		threads = allocationMeasuringThreadBean();
+	}
+
+	/**
+	 * @return The metrics of this JVM
+	 */
+	public static OperationMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turn the metrics on or off.  The statistics gathered so far are kept while they are off.
+	 *
+	 * @param enabled True to record the operations
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public void addListener(OperationListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(OperationListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Get the statistics of one operation, the same ones JMX shows.
+	 *
+	 * @param operation The name of the {@link TamrGeoUtils} method, e.g. "fromGeoJson"
+	 * @return The statistics, or null if the operation has not been called while the metrics were on
+	 */
+	public OperationMetricsMXBean getStatistics(String operation) {
+		return statistics.get(operation);
+	}
+
+	/**
+	 * @return The statistics of every operation called while the metrics were on, by operation name
+	 */
+	public Map<String, OperationMetricsMXBean> getAllStatistics() {
+		return Collections.unmodifiableMap(new TreeMap<String, OperationMetricsMXBean>(statistics));
+	}
+
+	/**
+	 * Clear the statistics of every operation.
+	 */
+	public void reset() {
+		for (OperationStatistics operation : statistics.values()) {
+			operation.reset();
+		}
+	}
+
+	/*
+	 * Recording, used by TamrGeoUtils.  Operations that only throw unchecked exceptions pass themselves as a lambda,
+	 * the geoJson and binary reads call start and completed around themselves.
+	 */
+
+	static final class Sample {
+		private final OperationStatistics statistics;
+		private final long startNanos;
+		private final long startAllocated;
+
+		private Sample(OperationStatistics statistics, long startNanos, long startAllocated) {
+			this.statistics = statistics;
+			this.startNanos = startNanos;
+			this.startAllocated = startAllocated;
+		}
+	}
+
+	/**
+	 * @return The start of a call, or null if the metrics are off
+	 */
+	Sample start(String operation) {
+		if (!enabled) {
+			return null;
+		}
+		return new Sample(statistics(operation), System.nanoTime(), allocatedBytes());
+	}
+
+	void completed(Sample sample, int vertices, Throwable failure) {
+		if (sample == null) {
+			return;
+		}
+		long nanos = System.nanoTime() - sample.startNanos;
+		long allocated = sample.startAllocated < 0 ? -1 : allocatedBytes() - sample.startAllocated;
+		sample.statistics.record(nanos, vertices, allocated, failure != null);
+		for (OperationListener listener : listeners) {
+			try {
+				listener.operationCompleted(sample.statistics.getOperation(), nanos, vertices, allocated, failure);
+			} catch (RuntimeException e) {
+				// a broken listener must not break the operation
+			}
+		}
+	}
+
+	/*
+	 * Record a call.  Callers check isEnabled() first and make the call directly while the metrics are off, so that
+	 * no lambda is allocated for it.
+	 */
+	<T> T record(String operation, Shape s1, Shape s2, Supplier<T> call) {
+		if (!enabled) {
+			return call.get();
+		}
+		Sample sample = start(operation);
+		T result;
+		try {
+			result = call.get();
+		} catch (RuntimeException | Error e) {
+			completed(sample, vertices(s1) + vertices(s2), e);
+			throw e;
+		}
+		completed(sample, vertices(s1) + vertices(s2), null);
+		return result;
+	}
+
+	double recordDouble(String operation, Shape s1, Shape s2, DoubleSupplier call) {
+		if (!enabled) {
+			return call.getAsDouble();
+		}
+		Sample sample = start(operation);
+		double result;
+		try {
+			result = call.getAsDouble();
+		} catch (RuntimeException | Error e) {
+			completed(sample, vertices(s1) + vertices(s2), e);
+			throw e;
+		}
+		completed(sample, vertices(s1) + vertices(s2), null);
+		return result;
+	}
+
+	/**
+	 * @return The number of vertices of a Shape: those of its JTS geometry, 1 for a Point or Circle, 4 for a
+	 * Rectangle and the sum of those of its members for a ShapeCollection
+	 */
+	static int vertices(Shape shape) {
+		if (shape == null) {
+			return 0;
+		} else if (shape instanceof JtsGeometry) {
+			return ((JtsGeometry) shape).getGeom().getNumPoints();
+		} else if (shape instanceof ShapeCollection) {
+			int vertices = 0;
+			for (Shape member : (ShapeCollection<?>) shape) {
+				vertices += vertices(member);
+			}
+			return vertices;
+		} else if (shape instanceof Rectangle) {
+			return 4;
+		} else if (shape instanceof BufferedLineString) {
+			return ((BufferedLineString) shape).getPoints().size();
+		}
+		return 1;
+	}
+
+	private OperationStatistics statistics(String operation) {
+		OperationStatistics operationStatistics = statistics.get(operation);
+		if (operationStatistics == null) {
+			operationStatistics = new OperationStatistics(operation, threads != null);
+			OperationStatistics existing = statistics.putIfAbsent(operation, operationStatistics);
+			if (existing != null) {
+				return existing;
+			}
+			register(operationStatistics);
+		}
+		return operationStatistics;
+	}
+
+	private static void register(OperationStatistics operationStatistics) {
+		try {
+			ObjectName name = new ObjectName(
+					JMX_DOMAIN + ":type=OperationMetrics,name=" + operationStatistics.getOperation());
+			ManagementFactory.getPlatformMBeanServer().registerMBean(operationStatistics, name);
+		} catch (JMException | SecurityException e) {
+			// another copy of this library, loaded by another class loader, registered the name first; these
+			// statistics are still available from getStatistics
+		}
+	}
+
+	private long allocatedBytes() {
+		return threads == null ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static com.sun.management.ThreadMXBean allocationMeasuringThreadBean() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+				if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled()) {
+					return threadBean;
+				}
+			}
+		} catch (LinkageError | SecurityException e) {
+			// not a HotSpot based JVM
+		}
+		return null;
+	}
+}
@@ -0,0 +1,47 @@
+package com.tamr.geo;
+
+/**
+ * The statistics of one {@link TamrGeoUtils} operation, registered with the platform MBean server as
+ * <code>com.tamr.geo:type=OperationMetrics,name=&lt;operation&gt;</code> when the operation is first called with
+ * {@link OperationMetrics} enabled, so they can be watched with jconsole, VisualVM or any JMX agent.
+ * <p>
+ * Latencies and vertex counts are kept in histograms of power of two buckets: bucket <code>i</code> counts the calls
+ * whose value is at least <code>2^(i-1)</code> and less than <code>2^i</code>, bucket 0 those whose value is 0.  The
+ * percentiles are the upper bounds of the buckets they fall in, so are within a factor of two.  The vertices of the
+ * slowest call tell whether the worst latencies come from a few very large Shapes or from every call being slow.
+ */
+public interface OperationMetricsMXBean {
+
+	String getOperation();
+
+	long getCalls();
+
+	long getFailures();
+
+	long getTotalNanos();
+
+	long getMeanNanos();
+
+	long getMaxNanos();
+
+	long getMedianNanos();
+
+	long get99thPercentileNanos();
+
+	long[] getLatencyHistogram();
+
+	long getTotalVertices();
+
+	long getMaxVertices();
+
+	long[] getVertexHistogram();
+
+	int getSlowestCallVertices();
+
+	/**
+	 * @return The bytes allocated by the calls, or -1 if the JVM can not measure allocations
+	 */
+	long getAllocatedBytes();
+
+	void reset();
+}
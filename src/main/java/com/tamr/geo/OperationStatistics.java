@@ -0,0 +1,175 @@
+package com.tamr.geo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics of one operation, see {@link OperationMetricsMXBean}.  Recording only adds to striped counters, so
+ * many threads can record the same operation without contending, other than the rare call slower than any before.
+ */
+final class OperationStatistics implements OperationMetricsMXBean {
+
+	// enough power of two buckets for any long
+	private static final int BUCKETS = 64;
+
+	private final String operation;
+	private final boolean allocationsMeasured;
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAdder totalVertices = new LongAdder();
+	private final LongAdder allocatedBytes = new LongAdder();
+	private final LongAccumulator maxVertices = new LongAccumulator(Math::max, 0);
+	private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+	private final AtomicLongArray vertices = new AtomicLongArray(BUCKETS);
+	// the slowest call and its vertices, written together under the lock
+	private volatile long maxNanos;
+	private volatile int slowestCallVertices;
+
+	OperationStatistics(String operation, boolean allocationsMeasured) {
+		this.operation = operation;
+		this.allocationsMeasured = allocationsMeasured;
+	}
+
+	void record(long nanos, int vertexCount, long allocated, boolean failed) {
+		nanos = Math.max(nanos, 0);
+		calls.increment();
+		if (failed) {
+			failures.increment();
+		}
+		totalNanos.add(nanos);
+		totalVertices.add(vertexCount);
+		maxVertices.accumulate(vertexCount);
+		latencies.incrementAndGet(bucket(nanos));
+		vertices.incrementAndGet(bucket(vertexCount));
+		if (allocated > 0) {
+			allocatedBytes.add(allocated);
+		}
+		if (nanos > maxNanos) {
+			synchronized (this) {
+				if (nanos > maxNanos) {
+					maxNanos = nanos;
+					slowestCallVertices = vertexCount;
+				}
+			}
+		}
+	}
+
+	static int bucket(long value) {
+		return BUCKETS - Long.numberOfLeadingZeros(value);
+	}
+
+	@Override
+	public String getOperation() {
+		return operation;
+	}
+
+	@Override
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	@Override
+	public long getFailures() {
+		return failures.sum();
+	}
+
+	@Override
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	@Override
+	public long getMeanNanos() {
+		long count = calls.sum();
+		return count == 0 ? 0 : totalNanos.sum() / count;
+	}
+
+	@Override
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	@Override
+	public long getMedianNanos() {
+		return percentile(latencies, 0.5);
+	}
+
+	@Override
+	public long get99thPercentileNanos() {
+		return percentile(latencies, 0.99);
+	}
+
+	@Override
+	public long[] getLatencyHistogram() {
+		return toArray(latencies);
+	}
+
+	@Override
+	public long getTotalVertices() {
+		return totalVertices.sum();
+	}
+
+	@Override
+	public long getMaxVertices() {
+		return maxVertices.get();
+	}
+
+	@Override
+	public long[] getVertexHistogram() {
+		return toArray(vertices);
+	}
+
+	@Override
+	public int getSlowestCallVertices() {
+		return slowestCallVertices;
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return allocationsMeasured ? allocatedBytes.sum() : -1;
+	}
+
+	@Override
+	public synchronized void reset() {
+		calls.reset();
+		failures.reset();
+		totalNanos.reset();
+		totalVertices.reset();
+		allocatedBytes.reset();
+		maxVertices.reset();
+		for (int i = 0; i < BUCKETS; i++) {
+			latencies.set(i, 0);
+			vertices.set(i, 0);
+		}
+		maxNanos = 0;
+		slowestCallVertices = 0;
+	}
+
+	// the upper bound of the bucket the percentile falls in
+	private static long percentile(AtomicLongArray histogram, double fraction) {
+		long[] counts = toArray(histogram);
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		long rank = (long) Math.ceil(fraction * total);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] > 0) {
+				return i == 0 ? 0 : i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+			}
+		}
+		return 0;
+	}
+
+	private static long[] toArray(AtomicLongArray histogram) {
+		long[] counts = new long[histogram.length()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = histogram.get(i);
+		}
+		return counts;
+	}
+}
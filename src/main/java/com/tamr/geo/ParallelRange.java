@@ -0,0 +1,54 @@
+package com.tamr.geo;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs a body for every index of a range on a {@link ForkJoinPool}, splitting the range in halves until the pieces
+ * are no bigger than a grain size.  Used by the batch operations, whose work items (pairs, points ...) are numbered.
+ */
+final class ParallelRange extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int from;
+	private final int to;
+	private final int grain;
+	private final IntConsumer body;
+
+	private ParallelRange(int from, int to, int grain, IntConsumer body) {
+		this.from = from;
+		this.to = to;
+		this.grain = grain;
+		this.body = body;
+	}
+
+	/**
+	 * Run body for every index from 0 (inclusive) to size (exclusive) on the given pool and wait for them all to
+	 * complete.  An exception thrown by body is rethrown here.
+	 *
+	 * @param pool The pool to run on
+	 * @param size The number of indexes
+	 * @param grain The number of indexes below which a piece of the range is run on one thread
+	 * @param body The work to do for one index
+	 */
+	static void forEach(ForkJoinPool pool, int size, int grain, IntConsumer body) {
+		if (size <= 0) {
+			return;
+		}
+		pool.invoke(new ParallelRange(0, size, Math.max(1, grain), body));
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from <= grain) {
+			for (int i = from; i < to; i++) {
+				body.accept(i);
+			}
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		invokeAll(new ParallelRange(from, mid, grain, body), new ParallelRange(mid, to, grain, body));
+	}
+}
@@ -0,0 +1,110 @@
+package com.tamr.geo;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+
+/**
+ * Assigns Points to the polygon that contains them, for example address points to the county they are in:
+ * <pre>{@code
+ *   PointInPolygonJoin counties = new PointInPolygonJoin(gu, countyShapes);
+ *   int[] countyOfAddress = counties.join(addressPoints);
+ * }</pre>
+ * The polygons are identified by their index in the list the join was built from.  A {@link SpatialIndex} over the
+ * polygons finds the few polygons whose bounding box holds a Point, and each of those is tested with a
+ * {@link PreparedPolygon}, so a Point costs a few index lookups rather than a containment test against every polygon.
+ * Polygons are prepared once, in parallel, when the join is built.
+ * <p>
+ * A Point is contained in a polygon as defined by {@link TamrGeoUtils#polygonContainsPoint(Shape, Point)}.  If
+ * polygons overlap, or a Point is on the shared boundary of two polygons, the Point is assigned to the polygon with the
+ * lowest index.
+ * <p>
+ * A PointInPolygonJoin is thread safe.
+ */
+public class PointInPolygonJoin {
+
+	/** The polygon id of a Point that is not in any polygon. */
+	public static final int NO_POLYGON = -1;
+
+	private static final int PREPARE_GRAIN = 16;
+	private static final int POINT_GRAIN = 1024;
+
+	private final ForkJoinPool pool;
+	private final SpatialIndex index;
+	private final PreparedPolygon[] polygons;
+
+	/**
+	 * Build a join over the given polygons that runs on the common fork-join pool.
+	 *
+	 * @param gu The TamrGeoUtils used to prepare the polygons
+	 * @param polygons The polygons, identified by their position in this list
+	 */
+	public PointInPolygonJoin(TamrGeoUtils gu, List<? extends Shape> polygons) {
+		this(gu, polygons, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Build a join over the given polygons that runs on the given pool.
+	 *
+	 * @param gu The TamrGeoUtils used to prepare the polygons
+	 * @param polygons The polygons, identified by their position in this list
+	 * @param pool The pool to run on
+	 */
+	public PointInPolygonJoin(TamrGeoUtils gu, List<? extends Shape> polygons, ForkJoinPool pool) {
+		this.pool = pool;
+		this.index = new SpatialIndex(polygons);
+		this.polygons = new PreparedPolygon[polygons.size()];
+		ParallelRange.forEach(pool, polygons.size(), PREPARE_GRAIN,
+				i -> this.polygons[i] = new PreparedPolygon(polygons.get(i), gu.getJtsShapeFactory()));
+	}
+
+	/**
+	 * @return The number of polygons
+	 */
+	public int size() {
+		return polygons.length;
+	}
+
+	/**
+	 * Find the polygon that contains the given Point.
+	 *
+	 * @param p The Point
+	 * @return The index of the polygon containing the Point, or {@link #NO_POLYGON}
+	 */
+	public int find(Point p) {
+		for (int candidate : index.query(p, 0)) {
+			if (polygons[candidate].containsPoint(p)) {
+				return candidate;
+			}
+		}
+		return NO_POLYGON;
+	}
+
+	/**
+	 * Find the polygon that contains each of the given Points, in parallel.
+	 *
+	 * @param points The Points
+	 * @return For each Point, the index of the polygon containing it or {@link #NO_POLYGON}
+	 */
+	public int[] join(List<? extends Point> points) {
+		int[] result = new int[points.size()];
+		ParallelRange.forEach(pool, points.size(), POINT_GRAIN, i -> result[i] = find(points.get(i)));
+		return result;
+	}
+
+	/**
+	 * Find the polygon that contains each Point of a Stream, so Points can be read and joined without holding them
+	 * all in memory.  The result is computed lazily as the returned stream is consumed, in parallel if the given
+	 * stream is parallel, and keeps the order of the given stream.
+	 *
+	 * @param points The Points
+	 * @return For each Point, the index of the polygon containing it or {@link #NO_POLYGON}
+	 */
+	public IntStream join(Stream<? extends Point> points) {
+		return points.mapToInt(this::find);
+	}
+}
@@ -0,0 +1,202 @@
+package com.tamr.geo;
+
+import java.util.List;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
+
+import com.vividsolutions.jts.algorithm.RobustLineIntersector;
+import com.vividsolutions.jts.algorithm.locate.IndexedPointInAreaLocator;
+import com.vividsolutions.jts.algorithm.locate.PointOnGeometryLocator;
+import com.vividsolutions.jts.algorithm.locate.SimplePointInAreaLocator;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Location;
+import com.vividsolutions.jts.geom.Polygonal;
+import com.vividsolutions.jts.geom.util.ComponentCoordinateExtracter;
+import com.vividsolutions.jts.noding.FastSegmentSetIntersectionFinder;
+import com.vividsolutions.jts.noding.SegmentIntersectionDetector;
+import com.vividsolutions.jts.noding.SegmentString;
+import com.vividsolutions.jts.noding.SegmentStringUtil;
+
+/**
+ * A polygon prepared for testing many Points or Shapes against it, obtained from
+ * {@link TamrGeoUtils#preparePolygon(Shape)}.  Preparing builds an index of the polygon's edges once, so each test
+ * only looks at the few edges near the Point rather than walking every vertex of the polygon as
+ * {@link TamrGeoUtils#polygonContainsPoint(Shape, Point)} does.  Worth it for large polygons (states, countries) tested
+ * against many Points.
+ * <p>
+ * The results are the same as those of the unprepared operations.  A PreparedPolygon is thread safe.  JTS's own
+ * prepared geometries are not: their edge intersection test shares a LineIntersector between all threads and sets
+ * its detector on the shared edge index, so concurrent tests give wrong answers.  A PreparedPolygon instead tests
+ * edges with an edge index of each thread's own, built the first time the thread needs it.
+ */
+public class PreparedPolygon {
+
+	private final Shape shape;
+	private final Rectangle bbox;
+	private final JtsShapeFactory shapeFactory;
+	// set when shape is a JtsGeometry
+	private final Geometry geometry;
+	// set when shape is a polygonal JtsGeometry
+	private final PointOnGeometryLocator locator;
+	private final List<Coordinate> vertices;
+	private final ThreadLocal<FastSegmentSetIntersectionFinder> edges;
+	// set when shape is a ShapeCollection
+	private final PreparedPolygon[] parts;
+
+	PreparedPolygon(Shape shape, JtsShapeFactory shapeFactory) {
+		this.shape = shape;
+		this.bbox = shape.getBoundingBox();
+		this.shapeFactory = shapeFactory;
+
+		if (shape instanceof JtsGeometry) {
+			Geometry geom = ((JtsGeometry) shape).getGeom();
+			geometry = geom;
+			parts = null;
+			if (geom instanceof Polygonal && !geom.isEmpty()) {
+				locator = new IndexedPointInAreaLocator(geom);
+				// JTS builds parts of the index on first use without synchronization, build them now so the index is
+				// only ever read once this constructor returns
+				locator.locate(geom.getCoordinate());
+				vertices = coordinates(geom);
+				edges = ThreadLocal.withInitial(
+						() -> new FastSegmentSetIntersectionFinder(SegmentStringUtil.extractSegmentStrings(geom)));
+			} else {
+				locator = null;
+				vertices = null;
+				edges = null;
+			}
+		} else if (shape instanceof ShapeCollection) {
+			ShapeCollection<?> collection = (ShapeCollection<?>) shape;
+			geometry = null;
+			locator = null;
+			vertices = null;
+			edges = null;
+			parts = new PreparedPolygon[collection.size()];
+			for (int i = 0; i < parts.length; i++) {
+				parts[i] = new PreparedPolygon(collection.get(i), shapeFactory);
+			}
+		} else {
+			// Rectangles, Points and Circles are already fast to test against
+			geometry = null;
+			locator = null;
+			vertices = null;
+			edges = null;
+			parts = null;
+		}
+	}
+
+	/**
+	 * @return The Shape this was prepared from
+	 */
+	public Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * Return true if the given Point is contained in this polygon (or on its boundary), the same as
+	 * {@link TamrGeoUtils#polygonContainsPoint(Shape, Point)}.
+	 *
+	 * @param p The Point to test
+	 * @return True if the Point is contained in this polygon, False otherwise
+	 */
+	public boolean containsPoint(Point p) {
+		if (!bbox.relate(p).intersects()) {
+			return false;
+		}
+		if (locator != null) {
+			return locator.locate(new Coordinate(p.getX(), p.getY())) != Location.EXTERIOR;
+		}
+		if (geometry != null) {
+			return geometry.intersects(shapeFactory.getGeometryFrom(p));
+		}
+		if (parts != null) {
+			for (PreparedPolygon part : parts) {
+				if (part.containsPoint(p)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return shape.relate(p).intersects();
+	}
+
+	/**
+	 * Return true if the given Shape intersects this polygon, that is if they have at least one point in common.
+	 *
+	 * @param other The Shape to test
+	 * @return True if the Shape intersects this polygon, False otherwise
+	 */
+	public boolean intersects(Shape other) {
+		if (other instanceof Point) {
+			return containsPoint((Point) other);
+		}
+		if (!bbox.relate(other.getBoundingBox()).intersects()) {
+			return false;
+		}
+		if (other instanceof ShapeCollection) {
+			for (Shape member : (ShapeCollection<?>) other) {
+				if (intersects(member)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (parts != null) {
+			for (PreparedPolygon part : parts) {
+				if (part.intersects(other)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (geometry != null && (other instanceof JtsGeometry || other instanceof Rectangle)) {
+			Geometry test = shapeFactory.getGeometryFrom(other);
+			return locator != null ? polygonIntersects(test) : geometry.intersects(test);
+		}
+		return shape.relate(other).intersects();
+	}
+
+	/*
+	 * The test of JTS's PreparedPolygonIntersects, with this thread's edge index and a detector of its own: the
+	 * geometries intersect if a vertex of one of the test geometry's parts is in the polygon, if their edges cross or
+	 * if a vertex of one of the polygon's parts is in the test geometry.
+	 */
+	private boolean polygonIntersects(Geometry test) {
+		for (Coordinate c : coordinates(test)) {
+			if (locator.locate(c) != Location.EXTERIOR) {
+				return true;
+			}
+		}
+		if (test.getDimension() == 0) {
+			return false;
+		}
+		@SuppressWarnings("unchecked")
+		List<SegmentString> testEdges = SegmentStringUtil.extractSegmentStrings(test);
+		if (!testEdges.isEmpty() && edges.get().intersects(testEdges,
+				new SegmentIntersectionDetector(new RobustLineIntersector()))) {
+			return true;
+		}
+		if (test.getDimension() == 2) {
+			for (Coordinate c : vertices) {
+				if (SimplePointInAreaLocator.locate(c, test) != Location.EXTERIOR) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * A vertex of each part of a geometry.
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<Coordinate> coordinates(Geometry geometry) {
+		return ComponentCoordinateExtracter.getCoordinates(geometry);
+	}
+}
@@ -0,0 +1,453 @@
+package com.tamr.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
+
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.algorithm.RayCrossingCounter;
+import com.vividsolutions.jts.algorithm.RectangleLineIntersector;
+import com.vividsolutions.jts.algorithm.locate.IndexedPointInAreaLocator;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Location;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.Polygonal;
+import com.vividsolutions.jts.geom.util.PolygonExtracter;
+import com.vividsolutions.jts.operation.overlay.OverlayOp;
+import com.vividsolutions.jts.operation.union.UnaryUnionOp;
+
+/**
+ * A large polygon decomposed into a quadtree of cells, obtained from {@link TamrGeoUtils#decomposePolygon(Shape)}.
+ * The envelope of the polygon is split into quarters until each cell is crossed by no more than a given number of
+ * the polygon's edges.  Cells the boundary does not cross are marked as inside or outside the polygon, the others
+ * keep the edges that cross them and the polygon clipped to the cell.
+ * <p>
+ * Containment and intersection then only look at the cells the Point or Shape falls in: a Point in an inside or
+ * outside cell is answered at once, a Point in a boundary cell is tested against that cell's edges alone, and a
+ * Shape is intersected with the few small clipped pieces it overlaps rather than with every vertex of the polygon.
+ * Worth it for boundaries of thousands of vertices (states, countries) tested against many Points or footprints.
+ * <p>
+ * {@link #containsPoint(Point)} gives the same results as {@link TamrGeoUtils#polygonContainsPoint(Shape, Point)}.
+ * {@link #getIntersection(Shape)} and {@link #getIntersectionArea(Shape)} give the same region and area as
+ * {@link TamrGeoUtils#getIntersection(Shape, Shape)} and {@link TamrGeoUtils#getIntersectionArea(Shape, Shape)},
+ * within floating point rounding, though the intersection Shape may have extra vertices where it crosses the edges
+ * of the cells.  The members of a ShapeCollection are decomposed and intersected one by one, as JTS intersects the
+ * members of a GeometryCollection.  Polygons whose envelope is wider than a hemisphere (crossing the dateline) are
+ * only decomposed for containment, their intersections are computed as those of TamrGeoUtils are.
+ * <p>
+ * A QuadtreePolygon is thread safe.
+ */
+public class QuadtreePolygon {
+
+	/**
+	 * The most edges a cell is crossed by before it is split, unless given to
+	 * {@link TamrGeoUtils#decomposePolygon(Shape, int)}.
+	 */
+	public static final int DEFAULT_MAX_CELL_EDGES = 32;
+
+	// cells of about 20 meters across a polygon the size of Texas, where a vertex with more edges than allowed stops
+	private static final int MAX_DEPTH = 16;
+
+	private static final byte OUTSIDE = 0;
+	private static final byte INSIDE = 1;
+	private static final byte BOUNDARY = 2;
+
+	private final Shape shape;
+	private final TamrGeoUtils gu;
+	private final IntersectionArea intersectionArea;
+	// set when shape is a polygonal JtsGeometry
+	private final Geometry geometry;
+	private final IndexedPointInAreaLocator locator;
+	private final Cell root;
+	// true when the pieces of the boundary cells were clipped, false when the polygon is too wide
+	private final boolean clipped;
+	// set when shape is a ShapeCollection
+	private final QuadtreePolygon[] parts;
+
+	QuadtreePolygon(Shape shape, int maxCellEdges, TamrGeoUtils gu, IntersectionArea intersectionArea) {
+		if (maxCellEdges < 1) {
+			throw new IllegalArgumentException("maxCellEdges must be positive: " + maxCellEdges);
+		}
+		this.shape = shape;
+		this.gu = gu;
+		this.intersectionArea = intersectionArea;
+
+		Geometry geom = shape instanceof JtsGeometry ? ((JtsGeometry) shape).getGeom() : null;
+		if (geom instanceof Polygonal && !geom.isEmpty()) {
+			geometry = geom;
+			// locates the cells the boundary does not cross, and the reference points of those it does
+			locator = new IndexedPointInAreaLocator(geometry);
+			clipped = IntersectionArea.withinHemisphere(geometry.getEnvelopeInternal());
+			List<Coordinate> edges = new ArrayList<>();
+			addEdges(geometry, edges);
+			root = build(geometry.getEnvelopeInternal(), clipped ? geometry : null,
+					edges.toArray(new Coordinate[edges.size()]), maxCellEdges, 0);
+			parts = null;
+		} else if (shape instanceof ShapeCollection) {
+			ShapeCollection<?> collection = (ShapeCollection<?>) shape;
+			geometry = null;
+			locator = null;
+			root = null;
+			clipped = false;
+			parts = new QuadtreePolygon[collection.size()];
+			for (int i = 0; i < parts.length; i++) {
+				parts[i] = new QuadtreePolygon(collection.get(i), maxCellEdges, gu, intersectionArea);
+			}
+		} else {
+			// Rectangles, Points, Circles and lines are not worth decomposing
+			geometry = null;
+			locator = null;
+			root = null;
+			clipped = false;
+			parts = null;
+		}
+	}
+
+	/**
+	 * @return The Shape this was decomposed from
+	 */
+	public Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * Return true if the given Point is contained in this polygon (or on its boundary), the same as
+	 * {@link TamrGeoUtils#polygonContainsPoint(Shape, Point)}.
+	 *
+	 * @param p The Point to test
+	 * @return True if the Point is contained in this polygon, False otherwise
+	 */
+	public boolean containsPoint(Point p) {
+		if (parts != null) {
+			for (QuadtreePolygon part : parts) {
+				if (part.containsPoint(p)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (root == null) {
+			return shape.relate(p).intersects();
+		}
+		double x = p.getX();
+		double y = p.getY();
+		if (!root.env.contains(x, y)) {
+			return false;
+		}
+		Cell cell = root;
+		while (cell.children != null) {
+			cell = cell.children[(x >= cell.midX() ? 1 : 0) + (y >= cell.midY() ? 2 : 0)];
+		}
+		if (cell.kind != BOUNDARY) {
+			return cell.kind == INSIDE;
+		}
+		return cell.contains(new Coordinate(x, y), locator);
+	}
+
+	/**
+	 * Return the intersection of this polygon and the given Shape, the same region as
+	 * {@link TamrGeoUtils#getIntersection(Shape, Shape)}.
+	 *
+	 * @param other The Shape to intersect this polygon with
+	 * @return The Shape of overlap, or an empty Shape if there is no overlap (does not return null in that case)
+	 */
+	public Shape getIntersection(Shape other) {
+		JtsShapeFactory shapeFactory = gu.getJtsShapeFactory();
+		Geometry otherGeo = gu.getGeometryFrom(other);
+		if (parts != null) {
+			List<Shape> intersections = new ArrayList<>(parts.length);
+			for (QuadtreePolygon part : parts) {
+				Geometry intersection = part.intersection(otherGeo);
+				if (!intersection.isEmpty()) {
+					intersections.add(shapeFactory.makeShape(intersection));
+				}
+			}
+			return gu.makeCollection(intersections);
+		}
+		return shapeFactory.makeShape(intersection(otherGeo));
+	}
+
+	/**
+	 * Return the area of the intersection of this polygon and the given Shape in square meters, the same as
+	 * {@link TamrGeoUtils#getIntersectionArea(Shape, Shape)}.
+	 *
+	 * @param other The Shape to intersect this polygon with
+	 * @return The area of overlap in square meters
+	 */
+	public double getIntersectionArea(Shape other) {
+		Geometry otherGeo = gu.getGeometryFrom(other);
+		if (parts != null) {
+			double area = 0;
+			for (QuadtreePolygon part : parts) {
+				area += part.intersectionArea(otherGeo);
+			}
+			return area;
+		}
+		return intersectionArea(otherGeo);
+	}
+
+	private Geometry intersection(Geometry other) {
+		Geometry self = geometry != null ? geometry : gu.getGeometryFrom(shape);
+		if (!decomposes(other)) {
+			return self.intersection(other);
+		}
+		List<Cell> cells = new ArrayList<>();
+		root.collect(other.getEnvelopeInternal(), cells);
+		if (covered(cells, other.getEnvelopeInternal())) {
+			return other;
+		}
+		List<Geometry> pieces = new ArrayList<>(cells.size());
+		for (Cell cell : cells) {
+			if (cell.overlaps(other.getEnvelopeInternal())) {
+				Geometry piece = cell.piece(self.getFactory()).intersection(other);
+				if (!piece.isEmpty()) {
+					pieces.add(piece);
+				}
+			}
+		}
+		if (pieces.isEmpty()) {
+			return OverlayOp.createEmptyResult(OverlayOp.INTERSECTION, self, other, self.getFactory());
+		} else if (pieces.size() == 1) {
+			return pieces.get(0);
+		}
+		// dissolve the edges of the cells between the pieces
+		return UnaryUnionOp.union(pieces, self.getFactory());
+	}
+
+	private double intersectionArea(Geometry other) {
+		if (!decomposes(other)) {
+			return gu.intersectionArea(geometry != null ? geometry : gu.getGeometryFrom(shape), other);
+		}
+		List<Cell> cells = new ArrayList<>();
+		root.collect(other.getEnvelopeInternal(), cells);
+		if (covered(cells, other.getEnvelopeInternal())) {
+			return intersectionArea.squareMeters(other);
+		}
+		// the pieces do not overlap, so the planar areas add up and the envelopes make that of the whole intersection
+		Envelope env = new Envelope();
+		double planarArea = 0;
+		for (Cell cell : cells) {
+			if (cell.overlaps(other.getEnvelopeInternal())) {
+				planarArea += intersectionArea.planarArea(cell.piece(geometry.getFactory()), other, env);
+			}
+		}
+		return intersectionArea.squareMeters(planarArea, env);
+	}
+
+	// true when the intersection with other can be built from the pieces of the cells
+	private boolean decomposes(Geometry other) {
+		return root != null && clipped && other instanceof Polygonal && !other.isEmpty()
+				&& IntersectionArea.withinHemisphere(other.getEnvelopeInternal());
+	}
+
+	// true when the leaves touching the envelope are all inside, so the polygon covers whatever is in it
+	private boolean covered(List<Cell> cells, Envelope env) {
+		if (!root.env.covers(env)) {
+			return false;
+		}
+		for (Cell cell : cells) {
+			if (cell.kind != INSIDE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Splitting.  Each cell gets the edges that touch it (closed on every side, so an edge along the line between two
+	 * cells belongs to both) and the polygon clipped to it from the piece of its parent.
+	 */
+
+	private Cell build(Envelope env, Geometry piece, Coordinate[] edges, int maxCellEdges, int depth) {
+		if (edges.length == 0) {
+			int location = locator.locate(env.centre());
+			return new Cell(env, location == Location.EXTERIOR ? OUTSIDE : INSIDE);
+		}
+		if (edges.length / 2 <= maxCellEdges || depth == MAX_DEPTH) {
+			Cell cell = new Cell(env, BOUNDARY);
+			cell.edges = edges;
+			cell.piece = piece;
+			cell.setReference(locator);
+			return cell;
+		}
+		Cell cell = new Cell(env, BOUNDARY);
+		double midX = cell.midX();
+		double midY = cell.midY();
+		Envelope[] quarters = { new Envelope(env.getMinX(), midX, env.getMinY(), midY),
+				new Envelope(midX, env.getMaxX(), env.getMinY(), midY),
+				new Envelope(env.getMinX(), midX, midY, env.getMaxY()),
+				new Envelope(midX, env.getMaxX(), midY, env.getMaxY()) };
+		cell.children = new Cell[4];
+		Coordinate[] quarterEdges = new Coordinate[edges.length];
+		for (int q = 0; q < 4; q++) {
+			Envelope quarter = quarters[q];
+			// a hair larger than the cell, so rounding in the test can not drop an edge through a corner
+			Envelope margin = new Envelope(quarter);
+			margin.expandBy(Math.max(quarter.getWidth(), quarter.getHeight()) * 1e-9);
+			RectangleLineIntersector touches = new RectangleLineIntersector(margin);
+			int count = 0;
+			for (int i = 0; i < edges.length; i += 2) {
+				if (touches.intersects(edges[i], edges[i + 1])) {
+					quarterEdges[count++] = edges[i];
+					quarterEdges[count++] = edges[i + 1];
+				}
+			}
+			Geometry quarterPiece = piece == null || count == 0 ? null : clip(piece, quarter);
+			cell.children[q] = build(quarter, quarterPiece, copy(quarterEdges, count), maxCellEdges, depth + 1);
+		}
+		return cell;
+	}
+
+	// the polygonal part of the piece within the envelope
+	private static Geometry clip(Geometry piece, Envelope env) {
+		if (env.covers(piece.getEnvelopeInternal())) {
+			return piece;
+		}
+		Geometry clipped = piece.intersection(piece.getFactory().toGeometry(env));
+		if (clipped instanceof Polygonal) {
+			return clipped;
+		}
+		@SuppressWarnings("unchecked")
+		List<Polygon> polygons = PolygonExtracter.getPolygons(clipped);
+		return piece.getFactory().createMultiPolygon(GeometryFactory.toPolygonArray(polygons));
+	}
+
+	private static Coordinate[] copy(Coordinate[] edges, int count) {
+		Coordinate[] copy = new Coordinate[count];
+		System.arraycopy(edges, 0, copy, 0, count);
+		return copy;
+	}
+
+	// the edges of every ring of the polygon, as pairs of the polygon's own coordinates
+	private static void addEdges(Geometry geometry, List<Coordinate> edges) {
+		if (geometry instanceof Polygon) {
+			Polygon polygon = (Polygon) geometry;
+			addEdges(polygon.getExteriorRing().getCoordinateSequence(), edges);
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+				addEdges(polygon.getInteriorRingN(i).getCoordinateSequence(), edges);
+			}
+		} else {
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				addEdges(geometry.getGeometryN(i), edges);
+			}
+		}
+	}
+
+	private static void addEdges(CoordinateSequence ring, List<Coordinate> edges) {
+		for (int i = 1; i < ring.size(); i++) {
+			edges.add(ring.getCoordinate(i - 1));
+			edges.add(ring.getCoordinate(i));
+		}
+	}
+
+	private static final class Cell {
+
+		final Envelope env;
+		final byte kind;
+		// set when the cell is split
+		Cell[] children;
+		// set for boundary cells that are not split
+		Coordinate[] edges;
+		Geometry piece;
+		// a point of the cell off the boundary and whether it is inside, null if none was found
+		Coordinate reference;
+		boolean referenceInside;
+
+		Cell(Envelope env, byte kind) {
+			this.env = env;
+			this.kind = kind;
+		}
+
+		double midX() {
+			return (env.getMinX() + env.getMaxX()) / 2;
+		}
+
+		double midY() {
+			return (env.getMinY() + env.getMaxY()) / 2;
+		}
+
+		// the leaves touching the envelope
+		void collect(Envelope query, List<Cell> cells) {
+			if (!env.intersects(query)) {
+				return;
+			}
+			if (children != null) {
+				for (Cell child : children) {
+					child.collect(query, cells);
+				}
+			} else {
+				cells.add(this);
+			}
+		}
+
+		// true when the part of the polygon in this leaf may overlap the envelope
+		boolean overlaps(Envelope query) {
+			return kind == INSIDE || kind == BOUNDARY && piece.getEnvelopeInternal().intersects(query);
+		}
+
+		Geometry piece(GeometryFactory factory) {
+			return kind == INSIDE ? factory.toGeometry(env) : piece;
+		}
+
+		void setReference(IndexedPointInAreaLocator locator) {
+			// the center, or failing that points of a grid across the cell
+			for (int n = 1; n <= 7; n += 2) {
+				for (int i = 1; i <= n; i += 2) {
+					for (int j = 1; j <= n; j += 2) {
+						Coordinate c = new Coordinate(env.getMinX() + env.getWidth() * i / (n + 1),
+								env.getMinY() + env.getHeight() * j / (n + 1));
+						int location = locator.locate(c);
+						if (location != Location.BOUNDARY) {
+							reference = c;
+							referenceInside = location == Location.INTERIOR;
+							return;
+						}
+					}
+				}
+			}
+		}
+
+		/*
+		 * A point on an edge is contained.  Otherwise it is inside when the reference is and the segment between them
+		 * crosses the edges an even number of times, or the reverse.  Both are in the cell, so every edge the segment
+		 * crosses is one of the cell's.  A vertex on the segment counts as lying to its right, so the segment crosses
+		 * one of its edges if they go to opposite sides and both or neither if they go to the same side.
+		 */
+		boolean contains(Coordinate p, IndexedPointInAreaLocator locator) {
+			RayCrossingCounter onEdge = new RayCrossingCounter(p);
+			for (int i = 0; i < edges.length; i += 2) {
+				onEdge.countSegment(edges[i], edges[i + 1]);
+				if (onEdge.isOnSegment()) {
+					return true;
+				}
+			}
+			if (reference == null) {
+				return locator.locate(p) != Location.EXTERIOR;
+			}
+			boolean inside = referenceInside;
+			for (int i = 0; i < edges.length; i += 2) {
+				Coordinate a = edges[i];
+				Coordinate b = edges[i + 1];
+				boolean aLeft = CGAlgorithms.orientationIndex(reference, p, a) > 0;
+				boolean bLeft = CGAlgorithms.orientationIndex(reference, p, b) > 0;
+				if (aLeft != bLeft) {
+					int referenceSide = CGAlgorithms.orientationIndex(a, b, reference);
+					int pSide = CGAlgorithms.orientationIndex(a, b, p);
+					if (referenceSide != 0 && referenceSide == -pSide) {
+						inside = !inside;
+					}
+				}
+			}
+			return inside;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.tamr.geo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.spatial4j.exception.InvalidShapeException;
+import org.locationtech.spatial4j.shape.Circle;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
+
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+
+/**
+ * The binary encoding of Shapes used by {@link TamrGeoUtils#toBytes(Shape)} and {@link GeometryFile}.  A Shape is a
+ * type byte followed by the Shape: the coordinates of a Point, the bounds of a Rectangle, the center and radius of a
+ * Circle, the number of Shapes of a ShapeCollection followed by each of them, or the standard WKB of a JTS geometry.
+ * Coordinates are big endian doubles, so Shapes are read back exactly as they were written, as the same kind of
+ * Shape.
+ * <p>
+ * Reading and writing keep no state between calls, so one ShapeBytes can be shared by any number of threads.
+ */
+final class ShapeBytes {
+
+	/** The version of the encoding, the first byte of {@link TamrGeoUtils#toBytes(Shape)}. */
+	static final byte VERSION = 1;
+
+	private static final byte POINT = 0;
+	private static final byte RECTANGLE = 1;
+	private static final byte CIRCLE = 2;
+	private static final byte GEOMETRY = 3;
+	private static final byte COLLECTION = 4;
+
+	private final TamrGeoUtils gu;
+
+	ShapeBytes(TamrGeoUtils gu) {
+		this.gu = gu;
+	}
+
+	byte[] toBytes(Shape shape) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			write(shape, out);
+		} catch (IOException e) {
+			// a ByteArrayOutputStream does not throw
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	Shape fromBytes(byte[] bytes) throws ParseException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (bytes.length == 0 || buffer.get() != VERSION) {
+			throw new ParseException("Not a Shape of version " + VERSION, 0);
+		}
+		Shape shape = read(buffer);
+		if (buffer.hasRemaining()) {
+			throw new ParseException("Unexpected bytes after the Shape", buffer.position());
+		}
+		return shape;
+	}
+
+	void write(Shape shape, DataOutputStream out) throws IOException {
+		if (shape instanceof Point) {
+			Point p = (Point) shape;
+			out.writeByte(POINT);
+			out.writeDouble(p.getX());
+			out.writeDouble(p.getY());
+		} else if (shape instanceof Rectangle) {
+			Rectangle r = (Rectangle) shape;
+			out.writeByte(RECTANGLE);
+			out.writeDouble(r.getMinX());
+			out.writeDouble(r.getMaxX());
+			out.writeDouble(r.getMinY());
+			out.writeDouble(r.getMaxY());
+		} else if (shape instanceof Circle) {
+			Circle c = (Circle) shape;
+			out.writeByte(CIRCLE);
+			out.writeDouble(c.getCenter().getX());
+			out.writeDouble(c.getCenter().getY());
+			out.writeDouble(c.getRadius());
+		} else if (shape instanceof JtsGeometry) {
+			out.writeByte(GEOMETRY);
+			new WKBWriter().write(((JtsGeometry) shape).getGeom(), (buf, len) -> out.write(buf, 0, len));
+		} else if (shape instanceof ShapeCollection) {
+			ShapeCollection<?> collection = (ShapeCollection<?>) shape;
+			out.writeByte(COLLECTION);
+			out.writeInt(collection.size());
+			for (Shape member : collection.getShapes()) {
+				write(member, out);
+			}
+		} else {
+			throw new InvalidShapeException("Unsupported Shape: " + shape.getClass().getSimpleName());
+		}
+	}
+
+	/**
+	 * Read a Shape from the position of the buffer, leaving the buffer after it.
+	 */
+	Shape read(ByteBuffer buffer) throws ParseException {
+		int start = buffer.position();
+		try {
+			return read(buffer, new WKBReader(gu.getJtsShapeFactory().getGeometryFactory()));
+		} catch (BufferUnderflowException e) {
+			throw new ParseException("Shape ends early", start);
+		} catch (IOException | com.vividsolutions.jts.io.ParseException e) {
+			ParseException parseException = new ParseException(e.getMessage(), start);
+			parseException.initCause(e);
+			throw parseException;
+		}
+	}
+
+	private Shape read(ByteBuffer buffer, WKBReader wkbReader) throws ParseException, IOException,
+			com.vividsolutions.jts.io.ParseException {
+		JtsShapeFactory shapeFactory = gu.getJtsShapeFactory();
+		byte type = buffer.get();
+		switch (type) {
+		case POINT:
+			return shapeFactory.pointXY(buffer.getDouble(), buffer.getDouble());
+		case RECTANGLE:
+			return shapeFactory.rect(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+		case CIRCLE:
+			return shapeFactory.circle(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+		case GEOMETRY:
+			return shapeFactory.makeShape(wkbReader.read(buf -> buffer.get(buf)));
+		case COLLECTION:
+			int size = buffer.getInt();
+			if (size < 0) {
+				throw new ParseException("Negative number of Shapes: " + size, buffer.position() - 4);
+			}
+			List<Shape> shapes = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				shapes.add(read(buffer, wkbReader));
+			}
+			return gu.makeCollection(shapes);
+		default:
+			throw new ParseException("Unknown Shape type " + type, buffer.position() - 1);
+		}
+	}
+}
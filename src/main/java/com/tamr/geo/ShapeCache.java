@@ -0,0 +1,210 @@
+package com.tamr.geo;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * A bounded cache of the work {@link TamrGeoUtils} does on each Shape, for scoring loops where the same footprint
+ * takes part in many candidate pairs:
+ * <pre>{@code
+ *   ShapeCache cache = new ShapeCache(100_000, 1_000_000);
+ *   TamrGeoUtils gu = new TamrGeoUtils(cache);
+ *   ...
+ *   System.out.println(cache.getShapeStats().hitRate());
+ * }</pre>
+ * For each Shape it keeps the JTS Geometry it converts to (Rectangles, Circles), its centroid and its area, so
+ * {@link TamrGeoUtils#relocate}, {@link TamrGeoUtils#calculateArea} and the Geometry based operations compute them
+ * once per Shape rather than once per call.  The Geometry of a JtsGeometry and of a Point is not cached, converting
+ * them is free, and neither are bounding boxes and envelopes, which spatial4j and JTS already keep with each Shape.
+ * When maximumPairs is positive it also keeps the results of {@link TamrGeoUtils#getIntersection},
+ * {@link TamrGeoUtils#getIntersectionArea} and {@link TamrGeoUtils#getHausdorffSimilarity} for each ordered pair of
+ * Shapes, so a pair scored again is free.
+ * <p>
+ * Shapes are keyed by identity, not by content: the same Shape object hits, an equal Shape read again from geoJson
+ * misses.  Hashing a Shape's content costs as much as the work being saved.  Shape keys are weakly referenced, a
+ * Shape that is no longer used elsewhere is dropped from the cache, but pair results hold their two Shapes until
+ * they are evicted.  Both caches evict the least recently used entries beyond their maximum size and count hits,
+ * misses and evictions.
+ * <p>
+ * A ShapeCache is thread safe and may be shared by several TamrGeoUtils.  Values are computed outside any lock, two
+ * threads missing on the same Shape at once both compute it.  Shapes must not be modified while cached.
+ */
+public class ShapeCache {
+
+	private final Cache<Shape, Entry> shapes;
+	// null when pair results are not cached
+	private final Cache<PairKey, Object> pairs;
+
+	/**
+	 * @param maximumShapes The number of Shapes to keep centroids, areas and Geometries for
+	 * @param maximumPairs The number of pair results to keep, 0 not to cache pair results
+	 */
+	public ShapeCache(long maximumShapes, long maximumPairs) {
+		if (maximumShapes < 1) {
+			throw new IllegalArgumentException("maximumShapes must be positive: " + maximumShapes);
+		}
+		if (maximumPairs < 0) {
+			throw new IllegalArgumentException("maximumPairs must not be negative: " + maximumPairs);
+		}
+		shapes = CacheBuilder.newBuilder().weakKeys().maximumSize(maximumShapes).recordStats().build();
+		pairs = maximumPairs == 0 ? null
+				: CacheBuilder.newBuilder().maximumSize(maximumPairs).recordStats().build();
+	}
+
+	/**
+	 * @return The hits, misses and evictions of the Shape cache
+	 */
+	public CacheStats getShapeStats() {
+		return shapes.stats();
+	}
+
+	/**
+	 * @return The hits, misses and evictions of the pair result cache, all 0 if pair results are not cached
+	 */
+	public CacheStats getPairStats() {
+		return pairs == null ? new CacheStats(0, 0, 0, 0, 0, 0) : pairs.stats();
+	}
+
+	/**
+	 * @return The number of Shapes cached, approximately
+	 */
+	public long shapeCount() {
+		return shapes.size();
+	}
+
+	/**
+	 * @return The number of pair results cached, approximately
+	 */
+	public long pairCount() {
+		return pairs == null ? 0 : pairs.size();
+	}
+
+	/**
+	 * Drop every cached Shape and pair result.  The statistics are kept.
+	 */
+	public void invalidateAll() {
+		shapes.invalidateAll();
+		if (pairs != null) {
+			pairs.invalidateAll();
+		}
+	}
+
+	Geometry geometry(Shape shape, Function<Shape, Geometry> convert) {
+		if (shape instanceof JtsGeometry || shape instanceof Point) {
+			return convert.apply(shape);
+		}
+		Entry entry = entry(shape);
+		Geometry geometry = entry.geometry;
+		if (geometry == null) {
+			geometry = convert.apply(shape);
+			entry.geometry = geometry;
+		}
+		return geometry;
+	}
+
+	Point centroid(Shape shape, Function<Shape, Point> centroid) {
+		if (shape instanceof Point) {
+			return centroid.apply(shape);
+		}
+		Entry entry = entry(shape);
+		Point center = entry.centroid;
+		if (center == null) {
+			center = centroid.apply(shape);
+			entry.centroid = center;
+		}
+		return center;
+	}
+
+	double area(Shape shape, ToDoubleFunction<Shape> area) {
+		if (shape instanceof Point) {
+			return area.applyAsDouble(shape);
+		}
+		Entry entry = entry(shape);
+		double squareMeters = entry.area;
+		if (Double.isNaN(squareMeters)) {
+			squareMeters = area.applyAsDouble(shape);
+			entry.area = squareMeters;
+		}
+		return squareMeters;
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> T pair(String operation, Shape s1, Shape s2, Supplier<T> compute) {
+		if (pairs == null) {
+			return compute.get();
+		}
+		PairKey key = new PairKey(operation, s1, s2);
+		Object result = pairs.getIfPresent(key);
+		if (result == null) {
+			result = compute.get();
+			pairs.put(key, result);
+		}
+		return (T) result;
+	}
+
+	double pairDouble(String operation, Shape s1, Shape s2, DoubleSupplier compute) {
+		return pairs == null ? compute.getAsDouble() : pair(operation, s1, s2, compute::getAsDouble);
+	}
+
+	private Entry entry(Shape shape) {
+		Entry entry = shapes.getIfPresent(shape);
+		if (entry == null) {
+			entry = new Entry();
+			Entry previous = shapes.asMap().putIfAbsent(shape, entry);
+			if (previous != null) {
+				entry = previous;
+			}
+		}
+		return entry;
+	}
+
+	/*
+	 * What is known about one Shape, each value is computed when first asked for.  Computing a value twice gives the
+	 * same result, so racing threads need no lock, only volatile fields to publish what they computed.
+	 */
+	private static final class Entry {
+		volatile Geometry geometry;
+		volatile Point centroid;
+		volatile double area = Double.NaN;
+	}
+
+	/*
+	 * An operation on an ordered pair of Shapes, compared by Shape identity.
+	 */
+	private static final class PairKey {
+		private final String operation;
+		private final Shape s1;
+		private final Shape s2;
+
+		PairKey(String operation, Shape s1, Shape s2) {
+			this.operation = operation;
+			this.s1 = s1;
+			this.s2 = s2;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof PairKey)) {
+				return false;
+			}
+			PairKey other = (PairKey) o;
+			return s1 == other.s1 && s2 == other.s2 && operation.equals(other.operation);
+		}
+
+		@Override
+		public int hashCode() {
+			return (System.identityHashCode(s1) * 31 + System.identityHashCode(s2)) * 31 + operation.hashCode();
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.tamr.geo;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A small fixed size signature of a Shape, made by a {@link ShapeSketcher}, for estimating the overlap and the
+ * similarity of two Shapes in nanoseconds.  Use the estimates to discard the pairs of a large candidate set that
+ * clearly do not match, then compute the exact {@link TamrGeoUtils} operations only for the pairs that remain.
+ * <p>
+ * A sketch holds the MinHash signature of the grid cells the Shape covers, which estimates the intersection over
+ * union of two Shapes where they are, and the normalized central moments of the Shape, which describe its shape
+ * wherever it is, as if relocated with {@link TamrGeoUtils#relocate}, and whatever its size.  Sketches can be stored
+ * with {@link #toBytes()} and compared with sketches made by any ShapeSketcher with the same cell size and number of
+ * hashes, in any process.
+ * <p>
+ * A ShapeSketch is immutable.
+ */
+public final class ShapeSketch {
+
+	/** The number of normalized central moments: those of orders 2 and 3. */
+	static final int NUM_MOMENTS = 7;
+
+	// cell size, area, moments and number of hashes
+	private static final int HEADER_BYTES = 8 + 8 + NUM_MOMENTS * 8 + 4;
+
+	private final double cellMeters;
+	private final double area;
+	// eta20, eta11, eta02, eta30, eta21, eta12, eta03
+	private final double[] moments;
+	private final int[] minHashes;
+
+	ShapeSketch(double cellMeters, double area, double[] moments, int[] minHashes) {
+		this.cellMeters = cellMeters;
+		this.area = area;
+		this.moments = moments;
+		this.minHashes = minHashes;
+	}
+
+	/**
+	 * @return The area of the Shape in square meters, as computed by {@link TamrGeoUtils#calculateArea}
+	 */
+	public double getArea() {
+		return area;
+	}
+
+	/**
+	 * @return The size in meters of the grid cells the sketch was made with
+	 */
+	public double getCellMeters() {
+		return cellMeters;
+	}
+
+	/**
+	 * @return The number of hashes in the MinHash signature
+	 */
+	public int getNumHashes() {
+		return minHashes.length;
+	}
+
+	/**
+	 * Estimate the intersection over union of the two Shapes, from the fraction of their MinHash signatures that
+	 * agree.  The error of the estimate is about <code>1 / sqrt(getNumHashes())</code>, plus that of covering the Shapes
+	 * with grid cells.
+	 *
+	 * @param other The sketch of the other Shape
+	 * @return The estimated intersection over union, in [0, 1]
+	 * @throws IllegalArgumentException If the sketches were made with a different cell size or number of hashes
+	 */
+	public double estimateIntersectionOverUnion(ShapeSketch other) {
+		checkComparable(other);
+		int same = 0;
+		for (int i = 0; i < minHashes.length; i++) {
+			if (minHashes[i] == other.minHashes[i]) {
+				same++;
+			}
+		}
+		return (double) same / minHashes.length;
+	}
+
+	/**
+	 * Estimate the area of the intersection of the two Shapes, from their estimated intersection over union and their
+	 * areas.
+	 *
+	 * @param other The sketch of the other Shape
+	 * @return The estimated intersection area in square meters
+	 * @throws IllegalArgumentException If the sketches were made with a different cell size or number of hashes
+	 */
+	public double estimateIntersectionArea(ShapeSketch other) {
+		double iou = estimateIntersectionOverUnion(other);
+		// intersection = iou * union = iou * (area + other.area - intersection)
+		return iou / (1 + iou) * (area + other.area);
+	}
+
+	/**
+	 * The distance between the normalized central moments of the two Shapes.  It does not depend on where the Shapes
+	 * are or on their sizes: 0 for the same shape anywhere at any scale, growing as the shapes differ.  Points and lines
+	 * have moments of 0.
+	 *
+	 * @param other The sketch of the other Shape
+	 * @return The distance, 0 or more
+	 */
+	public double shapeDistance(ShapeSketch other) {
+		double sum = 0;
+		for (int i = 0; i < NUM_MOMENTS; i++) {
+			double d = moments[i] - other.moments[i];
+			sum += d * d;
+		}
+		return Math.sqrt(sum);
+	}
+
+	/**
+	 * @return The sketch as <code>76 + 4 * getNumHashes()</code> bytes
+	 */
+	public byte[] toBytes() {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + minHashes.length * 4);
+		buffer.putDouble(cellMeters);
+		buffer.putDouble(area);
+		for (double moment : moments) {
+			buffer.putDouble(moment);
+		}
+		buffer.putInt(minHashes.length);
+		for (int minHash : minHashes) {
+			buffer.putInt(minHash);
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Read a sketch written by {@link #toBytes()}.
+	 *
+	 * @param bytes The bytes of the sketch
+	 * @return The sketch
+	 * @throws IllegalArgumentException If the bytes are not a sketch
+	 */
+	public static ShapeSketch fromBytes(byte[] bytes) {
+		if (bytes.length < HEADER_BYTES) {
+			throw new IllegalArgumentException("Not a ShapeSketch: " + bytes.length + " bytes");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		double cellMeters = buffer.getDouble();
+		double area = buffer.getDouble();
+		double[] moments = new double[NUM_MOMENTS];
+		for (int i = 0; i < NUM_MOMENTS; i++) {
+			moments[i] = buffer.getDouble();
+		}
+		int numHashes = buffer.getInt();
+		if (numHashes <= 0 || bytes.length != HEADER_BYTES + numHashes * 4L) {
+			throw new IllegalArgumentException("Not a ShapeSketch: " + bytes.length + " bytes for " + numHashes
+					+ " hashes");
+		}
+		int[] minHashes = new int[numHashes];
+		for (int i = 0; i < numHashes; i++) {
+			minHashes[i] = buffer.getInt();
+		}
+		return new ShapeSketch(cellMeters, area, moments, minHashes);
+	}
+
+	private void checkComparable(ShapeSketch other) {
+		if (cellMeters != other.cellMeters || minHashes.length != other.minHashes.length) {
+			throw new IllegalArgumentException("Sketches of " + minHashes.length + " hashes of " + cellMeters
+					+ " meter cells can not be compared with sketches of " + other.minHashes.length + " hashes of "
+					+ other.cellMeters + " meter cells");
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof ShapeSketch)) {
+			return false;
+		}
+		ShapeSketch other = (ShapeSketch) o;
+		return cellMeters == other.cellMeters && area == other.area && Arrays.equals(moments, other.moments)
+				&& Arrays.equals(minHashes, other.minHashes);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(minHashes);
+	}
+}
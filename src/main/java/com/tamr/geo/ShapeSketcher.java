@@ -0,0 +1,300 @@
+package com.tamr.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * Makes {@link ShapeSketch}es of Shapes, to estimate the overlap and similarity of many pairs of Shapes cheaply:
+ * <pre>{@code
+ *   ShapeSketcher sketcher = new ShapeSketcher(gu, 1.0);
+ *   ShapeSketch ml = sketcher.sketch(mlBuilding);
+ *   ShapeSketch human = sketcher.sketch(humanBuilding);
+ *   if (ml.estimateIntersectionOverUnion(human) > 0.5) {
+ *       double exact = gu.getIntersectionArea(mlBuilding, humanBuilding);
+ *   }
+ * }</pre>
+ * The globe is divided into a fixed grid of cells of about <code>cellMeters</code> on a side: rows of equal height in
+ * latitude, each divided into cells of equal width in longitude.  A Shape covers the cells whose centers it contains,
+ * or, if it contains none, the cell of its centroid.  Its MinHash signature is, for each of a fixed set of hash
+ * functions, the smallest hash of its cells, so the fraction of two signatures that agree estimates the fraction of
+ * the cells of both Shapes that they share.  The hash functions are the same in every process.  Choose a cell size
+ * a few times smaller than the Shapes, and at most a few million cells per Shape: 1 meter for building footprints.
+ * <p>
+ * The moments are computed on a flat projection of the Shape around its bounding box, in meters.  Shapes that
+ * cross the dateline can not be sketched.
+ * <p>
+ * A ShapeSketcher is thread safe.
+ */
+public class ShapeSketcher {
+
+	/** The number of hashes of sketches made by {@link #ShapeSketcher(TamrGeoUtils, double)}. */
+	public static final int DEFAULT_NUM_HASHES = 64;
+
+	private static final int MAX_CELLS = 1 << 22;
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	// of the sums over the edges of a ring that give its moments m00, m10, m01, m20, m11, m02, m30, m21, m12, m03
+	private static final double[] MOMENT_DIVISORS = { 2, 6, 6, 12, 24, 12, 20, 60, 60, 20 };
+
+	private final TamrGeoUtils gu;
+	private final double cellMeters;
+	// the height of a row of cells in degrees of latitude
+	private final double cellDegrees;
+	private final long[] seeds;
+
+	/**
+	 * Create a sketcher of {@link #DEFAULT_NUM_HASHES} hashes.
+	 *
+	 * @param gu The TamrGeoUtils to compute areas and centroids with
+	 * @param cellMeters The size of the grid cells in meters
+	 */
+	public ShapeSketcher(TamrGeoUtils gu, double cellMeters) {
+		this(gu, cellMeters, DEFAULT_NUM_HASHES);
+	}
+
+	/**
+	 * Create a sketcher.
+	 *
+	 * @param gu The TamrGeoUtils to compute areas and centroids with
+	 * @param cellMeters The size of the grid cells in meters
+	 * @param numHashes The number of hashes in each MinHash signature, more hashes make more accurate estimates
+	 */
+	public ShapeSketcher(TamrGeoUtils gu, double cellMeters, int numHashes) {
+		if (!(cellMeters > 0)) {
+			throw new IllegalArgumentException("cellMeters must be positive: " + cellMeters);
+		}
+		if (numHashes <= 0) {
+			throw new IllegalArgumentException("numHashes must be positive: " + numHashes);
+		}
+		this.gu = gu;
+		this.cellMeters = cellMeters;
+		this.cellDegrees = cellMeters / TamrGeoUtils.METERS_PER_DEGREE;
+		this.seeds = new long[numHashes];
+		for (int i = 0; i < numHashes; i++) {
+			seeds[i] = mix((i + 1) * GOLDEN_GAMMA);
+		}
+	}
+
+	/**
+	 * Sketch a Shape.
+	 *
+	 * @param shape The Shape
+	 * @return Its sketch
+	 * @throws IllegalArgumentException If the Shape covers too many cells or crosses the dateline
+	 */
+	public ShapeSketch sketch(Shape shape) {
+		Rectangle bbox = shape.getBoundingBox();
+		if (bbox.getCrossesDateLine()) {
+			throw new IllegalArgumentException("Can not sketch a Shape that crosses the dateline: " + bbox);
+		}
+		List<Polygon> polygons = new ArrayList<>();
+		addPolygons(shape, polygons);
+
+		int[] minHashes = new int[seeds.length];
+		Arrays.fill(minHashes, Integer.MAX_VALUE);
+		if (coverCells(polygons, bbox, minHashes) == 0) {
+			Point centroid = gu.centroid(shape);
+			int row = row(centroid.getY());
+			addCell(row, column(centroid.getX(), row), minHashes);
+		}
+		double[] moments = moments(polygons, bbox);
+		return new ShapeSketch(cellMeters, gu.area(shape), moments, minHashes);
+	}
+
+	private void addPolygons(Shape shape, List<Polygon> polygons) {
+		if (shape instanceof ShapeCollection) {
+			for (Shape member : ((ShapeCollection<?>) shape).getShapes()) {
+				addPolygons(member, polygons);
+			}
+			return;
+		}
+		if (shape instanceof Point) {
+			return;
+		}
+		Geometry geometry = gu.getGeometryFrom(shape);
+		for (int i = 0; i < geometry.getNumGeometries(); i++) {
+			Geometry part = geometry.getGeometryN(i);
+			if (part instanceof Polygon) {
+				polygons.add((Polygon) part);
+			}
+		}
+	}
+
+	private int row(double lat) {
+		return (int) Math.floor(lat / cellDegrees);
+	}
+
+	/*
+	 * The width of the cells of a row in degrees of longitude, so they are about as wide as they are high.
+	 */
+	private double cellWidth(int row) {
+		double cos = Math.cos(Math.toRadians((row + 0.5) * cellDegrees));
+		return cellDegrees / Math.max(cos, 1e-6);
+	}
+
+	private int column(double lon, int row) {
+		return (int) Math.floor(lon / cellWidth(row));
+	}
+
+	/*
+	 * Add the cells whose centers are inside the polygons, scanning each row of cells for where the edges of the
+	 * polygons cross the latitude of its centers.  Returns the number of cells added.
+	 */
+	private long coverCells(List<Polygon> polygons, Rectangle bbox, int[] minHashes) {
+		if (polygons.isEmpty()) {
+			return 0;
+		}
+		int firstRow = row(bbox.getMinY());
+		int lastRow = row(bbox.getMaxY());
+		// cells are narrowest in the row nearest the equator
+		int nearestRow = firstRow <= 0 && lastRow >= 0 ? 0 : Math.abs(firstRow) < Math.abs(lastRow) ? firstRow : lastRow;
+		double maxCells = (lastRow - firstRow + 1.0) * (bbox.getWidth() / cellWidth(nearestRow) + 1);
+		if (maxCells > MAX_CELLS) {
+			throw new IllegalArgumentException("Shape would cover up to " + (long) maxCells + " cells of "
+					+ cellMeters + " meters, more than " + MAX_CELLS);
+		}
+
+		long numCells = 0;
+		double[] crossings = new double[16];
+		for (int row = firstRow; row <= lastRow; row++) {
+			double y = (row + 0.5) * cellDegrees;
+			int numCrossings = 0;
+			for (Polygon polygon : polygons) {
+				CoordinateSequence[] rings = new CoordinateSequence[polygon.getNumInteriorRing() + 1];
+				rings[0] = polygon.getExteriorRing().getCoordinateSequence();
+				for (int i = 1; i < rings.length; i++) {
+					rings[i] = polygon.getInteriorRingN(i - 1).getCoordinateSequence();
+				}
+				for (CoordinateSequence ring : rings) {
+					for (int i = 1; i < ring.size(); i++) {
+						double y1 = ring.getY(i - 1);
+						double y2 = ring.getY(i);
+						if ((y1 <= y) != (y2 <= y)) {
+							double x1 = ring.getX(i - 1);
+							if (numCrossings == crossings.length) {
+								crossings = Arrays.copyOf(crossings, numCrossings * 2);
+							}
+							crossings[numCrossings++] = x1 + (y - y1) * (ring.getX(i) - x1) / (y2 - y1);
+						}
+					}
+				}
+			}
+			// the cells between each pair of crossings are inside, holes and all
+			Arrays.sort(crossings, 0, numCrossings);
+			double width = cellWidth(row);
+			for (int c = 0; c + 1 < numCrossings; c += 2) {
+				int from = (int) Math.ceil(crossings[c] / width - 0.5);
+				int to = (int) Math.floor(crossings[c + 1] / width - 0.5);
+				for (int column = from; column <= to; column++) {
+					addCell(row, column, minHashes);
+					numCells++;
+				}
+			}
+		}
+		return numCells;
+	}
+
+	private void addCell(int row, int column, int[] minHashes) {
+		long cell = ((long) row << 32) | (column & 0xffffffffL);
+		for (int i = 0; i < seeds.length; i++) {
+			int hash = (int) mix(cell ^ seeds[i]);
+			if (hash < minHashes[i]) {
+				minHashes[i] = hash;
+			}
+		}
+	}
+
+	/*
+	 * The normalized central moments of orders 2 and 3 of the polygons, from the exact moments of each ring as a
+	 * polygon in meters around the center of the bounding box.
+	 */
+	private static double[] moments(List<Polygon> polygons, Rectangle bbox) {
+		double lon0 = (bbox.getMinX() + bbox.getMaxX()) / 2;
+		double lat0 = (bbox.getMinY() + bbox.getMaxY()) / 2;
+		double scaleX = TamrGeoUtils.METERS_PER_DEGREE * Math.cos(Math.toRadians(lat0));
+		double scaleY = TamrGeoUtils.METERS_PER_DEGREE;
+
+		// m00, m10, m01, m20, m11, m02, m30, m21, m12, m03
+		double[] m = new double[10];
+		double[] ringMoments = new double[10];
+		for (Polygon polygon : polygons) {
+			addRing(polygon.getExteriorRing().getCoordinateSequence(), lon0, lat0, scaleX, scaleY, ringMoments, m, 1);
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+				addRing(polygon.getInteriorRingN(i).getCoordinateSequence(), lon0, lat0, scaleX, scaleY, ringMoments,
+						m, -1);
+			}
+		}
+		double[] eta = new double[ShapeSketch.NUM_MOMENTS];
+		double m00 = m[0];
+		if (!(m00 > 0)) {
+			return eta;
+		}
+		double cx = m[1] / m00;
+		double cy = m[2] / m00;
+		double mu20 = m[3] - cx * m[1];
+		double mu11 = m[4] - cx * m[2];
+		double mu02 = m[5] - cy * m[2];
+		double mu30 = m[6] - 3 * cx * m[3] + 2 * cx * cx * m[1];
+		double mu21 = m[7] - 2 * cx * m[4] - cy * m[3] + 2 * cx * cx * m[2];
+		double mu12 = m[8] - 2 * cy * m[4] - cx * m[5] + 2 * cy * cy * m[1];
+		double mu03 = m[9] - 3 * cy * m[5] + 2 * cy * cy * m[2];
+		double norm2 = m00 * m00;
+		double norm3 = norm2 * Math.sqrt(m00);
+		eta[0] = mu20 / norm2;
+		eta[1] = mu11 / norm2;
+		eta[2] = mu02 / norm2;
+		eta[3] = mu30 / norm3;
+		eta[4] = mu21 / norm3;
+		eta[5] = mu12 / norm3;
+		eta[6] = mu03 / norm3;
+		return eta;
+	}
+
+	/*
+	 * Add the moments of a ring, with the sign that makes shells add and holes subtract whatever their orientation.
+	 */
+	private static void addRing(CoordinateSequence ring, double lon0, double lat0, double scaleX, double scaleY,
+			double[] r, double[] m, int sign) {
+		Arrays.fill(r, 0);
+		int n = ring.size();
+		for (int i = 0; i < n; i++) {
+			double x0 = (ring.getX(i) - lon0) * scaleX;
+			double y0 = (ring.getY(i) - lat0) * scaleY;
+			double x1 = (ring.getX((i + 1) % n) - lon0) * scaleX;
+			double y1 = (ring.getY((i + 1) % n) - lat0) * scaleY;
+			double a = x0 * y1 - x1 * y0;
+			r[0] += a;
+			r[1] += a * (x0 + x1);
+			r[2] += a * (y0 + y1);
+			r[3] += a * (x0 * x0 + x0 * x1 + x1 * x1);
+			r[4] += a * (x0 * y1 + 2 * x0 * y0 + 2 * x1 * y1 + x1 * y0);
+			r[5] += a * (y0 * y0 + y0 * y1 + y1 * y1);
+			r[6] += a * (x0 + x1) * (x0 * x0 + x1 * x1);
+			r[7] += a * (x0 * x0 * (3 * y0 + y1) + 2 * x0 * x1 * (y0 + y1) + x1 * x1 * (y0 + 3 * y1));
+			r[8] += a * (y0 * y0 * (3 * x0 + x1) + 2 * y0 * y1 * (x0 + x1) + y1 * y1 * (x0 + 3 * x1));
+			r[9] += a * (y0 + y1) * (y0 * y0 + y1 * y1);
+		}
+		double orientation = r[0] < 0 ? -sign : sign;
+		for (int k = 0; k < m.length; k++) {
+			m[k] += orientation * r[k] / MOMENT_DIVISORS[k];
+		}
+	}
+
+	/*
+	 * The splitmix64 finalizer, a fast hash of all 64 bits of its input.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
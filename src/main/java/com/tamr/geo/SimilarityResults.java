@@ -0,0 +1,83 @@
+package com.tamr.geo;
+
+/**
+ * The similarity measures of a batch of Shape pairs computed by {@link BatchSimilarity}, held column by column in
+ * primitive arrays: the value of a measure for pair i is at index i of its column, and the Shapes of pair i are given
+ * by {@link CandidatePairs#getLeft(int)} and {@link CandidatePairs#getRight(int)} of {@link #getPairs()}.
+ * <p>
+ * The column arrays are returned as they are, not copied, so a result over millions of pairs can be handed to other
+ * code without doubling its memory.  Do not modify them.
+ */
+public class SimilarityResults {
+
+	private final CandidatePairs pairs;
+	final double[] intersectionAreas;
+	final double[] intersectionOverUnions;
+	final double[] centroidDistances;
+	final double[] hausdorffSimilarities;
+	final double[] relocatedHausdorffSimilarities;
+
+	SimilarityResults(CandidatePairs pairs) {
+		this.pairs = pairs;
+		int size = pairs.size();
+		intersectionAreas = new double[size];
+		intersectionOverUnions = new double[size];
+		centroidDistances = new double[size];
+		hausdorffSimilarities = new double[size];
+		relocatedHausdorffSimilarities = new double[size];
+	}
+
+	/**
+	 * @return The number of pairs
+	 */
+	public int size() {
+		return pairs.size();
+	}
+
+	/**
+	 * @return The pairs the measures were computed for
+	 */
+	public CandidatePairs getPairs() {
+		return pairs;
+	}
+
+	/**
+	 * @return For each pair, the area of the intersection of its Shapes in square meters, as computed by
+	 *         {@link TamrGeoUtils#getIntersectionArea}
+	 */
+	public double[] getIntersectionAreas() {
+		return intersectionAreas;
+	}
+
+	/**
+	 * @return For each pair, the area of the intersection of its Shapes divided by the area of their union, 0 for
+	 *         Shapes without area
+	 */
+	public double[] getIntersectionOverUnions() {
+		return intersectionOverUnions;
+	}
+
+	/**
+	 * @return For each pair, the distance between the centroids of its Shapes in meters, as computed by
+	 *         {@link TamrGeoUtils#calculateDistance}
+	 */
+	public double[] getCentroidDistances() {
+		return centroidDistances;
+	}
+
+	/**
+	 * @return For each pair, the Hausdorff similarity of its Shapes, as computed by
+	 *         {@link TamrGeoUtils#getHausdorffSimilarity}
+	 */
+	public double[] getHausdorffSimilarities() {
+		return hausdorffSimilarities;
+	}
+
+	/**
+	 * @return For each pair, the Hausdorff similarity of its Shapes once the left Shape is relocated to the centroid
+	 *         of the right one with {@link TamrGeoUtils#relocate}
+	 */
+	public double[] getRelocatedHausdorffSimilarities() {
+		return relocatedHausdorffSimilarities;
+	}
+}
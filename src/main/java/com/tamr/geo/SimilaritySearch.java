@@ -0,0 +1,190 @@
+package com.tamr.geo;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.locationtech.spatial4j.exception.InvalidShapeException;
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Finds the candidate Shapes most similar to a query Shape by {@link TamrGeoUtils#getHausdorffSimilarity}, for example
+ * the best human drawn matches for an ML generated footprint:
+ * <pre>{@code
+ *   SimilaritySearch search = new SimilaritySearch(gu, humanBuildings);
+ *   double[] similarities = new double[3];
+ *   int[] best = search.mostSimilar(mlBuilding, 3, similarities);
+ * }</pre>
+ * The result is the same as computing the similarity of the query with every candidate and ranking them, but most
+ * candidates are discarded without computing their Hausdorff distance.  Each side of a Shape's bounding box touches the
+ * Shape at a vertex, and where one Shape's side lies outside the other's, that vertex is at least the distance between
+ * the two sides from every point of the other Shape.  So the largest difference between the sides of the two bounding
+ * boxes is a lower bound on their Hausdorff distance, and gives an upper bound on their similarity.  Candidates are
+ * tried from the highest bound down, stopping when the bound falls below the k-th best similarity found, and the
+ * Hausdorff distance of a candidate is abandoned as soon as it is too large for the candidate to rank in the top k.
+ * Candidates are converted to JTS Geometries once, when the search is created.
+ * <p>
+ * Candidates with no JTS Geometry (ShapeCollections such as <code>texas.json</code>), empty candidates and candidates
+ * whose similarity is undefined (the same Point as the query) are never returned.  Equally similar candidates are
+ * ranked by their index.
+ * <p>
+ * A SimilaritySearch is thread safe.
+ */
+public class SimilaritySearch {
+
+	// Bounds are loosened by this fraction so that rounding never discards a candidate that ties the k-th best.
+	private static final double BOUND_SLACK = 1e-9;
+
+	private final TamrGeoUtils gu;
+	private final Geometry[] geometries;
+	// minX, minY, maxX, maxY of the envelope of each candidate's Geometry
+	private final double[] envelopes;
+
+	/**
+	 * Create a search over the given candidates.
+	 *
+	 * @param gu The TamrGeoUtils to convert Shapes with
+	 * @param candidates The Shapes to search, they are identified by their position in this list
+	 */
+	public SimilaritySearch(TamrGeoUtils gu, List<? extends Shape> candidates) {
+		this.gu = gu;
+		geometries = new Geometry[candidates.size()];
+		envelopes = new double[candidates.size() * 4];
+		for (int i = 0; i < geometries.length; i++) {
+			Geometry geometry;
+			try {
+				geometry = gu.getGeometryFrom(candidates.get(i));
+			} catch (InvalidShapeException e) {
+				// no Geometry for this Shape, it is never returned
+				continue;
+			}
+			Envelope env = geometry.getEnvelopeInternal();
+			if (env.isNull()) {
+				continue;
+			}
+			geometries[i] = geometry;
+			envelopes[i * 4] = env.getMinX();
+			envelopes[i * 4 + 1] = env.getMinY();
+			envelopes[i * 4 + 2] = env.getMaxX();
+			envelopes[i * 4 + 3] = env.getMaxY();
+		}
+	}
+
+	/**
+	 * @return The number of candidates
+	 */
+	public int size() {
+		return geometries.length;
+	}
+
+	/**
+	 * Find the k candidates most similar to the query.
+	 *
+	 * @param query The Shape to find similar candidates for
+	 * @param k The number of candidates to find
+	 * @return The indexes of up to k candidates, most similar first
+	 * @throws IllegalArgumentException If k is negative
+	 */
+	public int[] mostSimilar(Shape query, int k) {
+		return mostSimilar(query, k, new double[Math.max(k, 0)]);
+	}
+
+	/**
+	 * Find the k candidates most similar to the query.
+	 *
+	 * @param query The Shape to find similar candidates for
+	 * @param k The number of candidates to find
+	 * @param similarities Receives the Hausdorff similarity of each candidate found, in the same order
+	 * @return The indexes of up to k candidates, most similar first
+	 * @throws IllegalArgumentException If k is negative or similarities has room for fewer than k similarities
+	 */
+	public int[] mostSimilar(Shape query, int k, double[] similarities) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative: " + k);
+		}
+		if (similarities.length < k) {
+			throw new IllegalArgumentException("similarities needs room for " + k + " similarities but has "
+					+ similarities.length);
+		}
+		Geometry queryGeo = gu.getGeometryFrom(query);
+		Envelope env = queryGeo.getEnvelopeInternal();
+		if (k == 0 || env.isNull()) {
+			return new int[0];
+		}
+
+		// one minus the upper bound of each candidate's similarity in the high bits, rounded so the bound stays an
+		// upper bound, and the candidate in the low bits, so one primitive sort orders the candidates
+		double[] diagonals = new double[geometries.length];
+		long[] keys = new long[geometries.length];
+		int numKeys = 0;
+		for (int i = 0; i < geometries.length; i++) {
+			if (geometries[i] == null) {
+				continue;
+			}
+			double minX = envelopes[i * 4];
+			double minY = envelopes[i * 4 + 1];
+			double maxX = envelopes[i * 4 + 2];
+			double maxY = envelopes[i * 4 + 3];
+			double width = Math.max(maxX, env.getMaxX()) - Math.min(minX, env.getMinX());
+			double height = Math.max(maxY, env.getMaxY()) - Math.min(minY, env.getMinY());
+			double diagonal = Math.sqrt(width * width + height * height);
+			if (diagonal == 0) {
+				continue;
+			}
+			double lowerBound = Math.max(Math.max(Math.abs(minX - env.getMinX()), Math.abs(maxX - env.getMaxX())),
+					Math.max(Math.abs(minY - env.getMinY()), Math.abs(maxY - env.getMaxY())));
+			float dissimilarity = Math.max(0f, Math.nextDown((float) (lowerBound * (1 - BOUND_SLACK) / diagonal)));
+			diagonals[i] = diagonal;
+			keys[numKeys++] = ((long) Float.floatToIntBits(dissimilarity) << 32) | i;
+		}
+		Arrays.sort(keys, 0, numKeys);
+
+		// the best candidates so far, most similar first
+		int[] best = new int[k];
+		int numBest = 0;
+		HausdorffDistance hausdorff = new HausdorffDistance();
+		for (int n = 0; n < numKeys; n++) {
+			int i = (int) keys[n];
+			double upperBound = 1 - Float.intBitsToFloat((int) (keys[n] >>> 32));
+			double limit = Double.POSITIVE_INFINITY;
+			if (numBest == k) {
+				double kth = similarities[k - 1];
+				if (upperBound < kth) {
+					break;
+				}
+				limit = (1 - kth) * diagonals[i] * (1 + BOUND_SLACK);
+			}
+			Geometry candidate = geometries[i];
+			double distance = hausdorff.orientedDistance(queryGeo, candidate, limit);
+			if (distance > limit) {
+				continue;
+			}
+			distance = Math.max(distance, hausdorff.orientedDistance(candidate, queryGeo, limit));
+			if (distance > limit) {
+				continue;
+			}
+			// the same arithmetic as HausdorffDistance.similarity
+			double similarity = 1 - distance / HausdorffDistance.combinedDiagonal(queryGeo, candidate);
+			int pos = numBest;
+			while (pos > 0 && ranksBefore(similarity, i, similarities[pos - 1], best[pos - 1])) {
+				pos--;
+			}
+			if (pos == k) {
+				continue;
+			}
+			int end = Math.min(numBest, k - 1);
+			System.arraycopy(best, pos, best, pos + 1, end - pos);
+			System.arraycopy(similarities, pos, similarities, pos + 1, end - pos);
+			best[pos] = i;
+			similarities[pos] = similarity;
+			numBest = end + 1;
+		}
+		return Arrays.copyOf(best, numBest);
+	}
+
+	private static boolean ranksBefore(double similarity, int index, double otherSimilarity, int otherIndex) {
+		return similarity > otherSimilarity || (similarity == otherSimilarity && index < otherIndex);
+	}
+}
@@ -0,0 +1,111 @@
+package com.tamr.geo;
+
+import java.util.List;
+
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.util.AffineTransformation;
+
+/**
+ * A Shape simplified by a {@link Simplifier}, with how much it was simplified and how far it strays from the
+ * original.  The errors are computed when they are asked for, which costs about as much as comparing the original and
+ * simplified Shapes with {@link TamrGeoUtils#calculateArea} and {@link TamrGeoUtils#getHausdorffSimilarity}.
+ * <p>
+ * A Simplification is immutable.
+ */
+public final class Simplification {
+
+	private final TamrGeoUtils gu;
+	private final Shape original;
+	private final Shape shape;
+	// the polygons and lines of the original Shape, and each one simplified
+	private final List<Geometry> originals;
+	private final List<Geometry> simplified;
+
+	Simplification(TamrGeoUtils gu, Shape original, Shape shape, List<Geometry> originals, List<Geometry> simplified) {
+		this.gu = gu;
+		this.original = original;
+		this.shape = shape;
+		this.originals = originals;
+		this.simplified = simplified;
+	}
+
+	/**
+	 * @return The simplified Shape
+	 */
+	public Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * @return The Shape before it was simplified
+	 */
+	public Shape getOriginal() {
+		return original;
+	}
+
+	/**
+	 * @return The number of vertices of the polygons and lines of the original Shape
+	 */
+	public int getOriginalVertices() {
+		return countVertices(originals);
+	}
+
+	/**
+	 * @return The number of vertices of the polygons and lines of the simplified Shape
+	 */
+	public int getVertices() {
+		return countVertices(simplified);
+	}
+
+	/**
+	 * @return The fraction of the vertices of the original Shape that were removed, in [0, 1]
+	 */
+	public double getVertexReduction() {
+		int originalVertices = getOriginalVertices();
+		return originalVertices == 0 ? 0 : 1 - (double) getVertices() / originalVertices;
+	}
+
+	/**
+	 * The change in area of the simplified Shape, as a fraction of the area of the original Shape.
+	 *
+	 * @return The area of the simplified Shape less that of the original, divided by that of the original, 0 for
+	 *         Shapes with no area
+	 */
+	public double getAreaError() {
+		double originalArea = gu.area(original);
+		return originalArea == 0 ? 0 : (gu.area(shape) - originalArea) / originalArea;
+	}
+
+	/**
+	 * The Hausdorff distance between the original and simplified Shapes, measured as
+	 * {@link TamrGeoUtils#getHausdorffSimilarity} measures it but in meters: the largest distance from a point of
+	 * either Shape to the other, of the polygons and lines simplified separately.
+	 *
+	 * @return The distance in meters
+	 */
+	public double getHausdorffDistance() {
+		HausdorffDistance hausdorff = new HausdorffDistance();
+		double max = 0;
+		for (int i = 0; i < originals.size(); i++) {
+			AffineTransformation toMeters = Simplifier.toMeters(originals.get(i));
+			max = Math.max(max, hausdorff.distance(toMeters.transform(originals.get(i)),
+					toMeters.transform(simplified.get(i))));
+		}
+		return max;
+	}
+
+	private static int countVertices(List<Geometry> geometries) {
+		int vertices = 0;
+		for (Geometry geometry : geometries) {
+			vertices += geometry.getNumPoints();
+		}
+		return vertices;
+	}
+
+	@Override
+	public String toString() {
+		return "Simplification(vertices " + getOriginalVertices() + " to " + getVertices() + ", shape=" + shape + ")";
+	}
+}
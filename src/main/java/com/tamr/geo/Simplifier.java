@@ -0,0 +1,130 @@
+package com.tamr.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.util.AffineTransformation;
+import com.vividsolutions.jts.simplify.TopologyPreservingSimplifier;
+
+/**
+ * Simplifies Shapes as they are read, so that detailed Shapes like <code>texas.json</code> or
+ * <code>alaska.json</code> do not make every later operation slow, instead of simplifying the files by hand
+ * beforehand:
+ * <pre>{@code
+ *   Simplifier simplifier = new Simplifier(gu, 100);
+ *   Simplification simplified = simplifier.simplify(gu.fromGeoJson(geoString));
+ *   Shape texas = simplified.getShape();
+ *
+ *   try (Stream<Feature> features = gu.readFeatures(path).stream().map(simplifier::simplify)) {
+ *       ...
+ *   }
+ * }</pre>
+ * Shapes are simplified with JTS's topology preserving Douglas-Peucker simplifier, which keeps polygons valid: rings
+ * are not collapsed, do not cross each other and holes stay inside their shells.  Every vertex removed is within the
+ * tolerance, in meters, of the simplified edge that replaces it.  To apply a tolerance in meters each polygon or line
+ * is simplified on a flat projection around its bounding box, in which a meter is the same length in every direction
+ * near the middle of the Shape.  The members of a ShapeCollection are simplified separately, Points, Rectangles and
+ * Circles are left as they are.
+ * <p>
+ * A Simplifier is thread safe.
+ */
+public class Simplifier {
+
+	private final TamrGeoUtils gu;
+	private final double toleranceMeters;
+
+	/**
+	 * Create a Simplifier.
+	 *
+	 * @param gu The TamrGeoUtils whose Shapes to simplify
+	 * @param toleranceMeters How far in meters the simplified Shapes may stray from the original ones
+	 */
+	public Simplifier(TamrGeoUtils gu, double toleranceMeters) {
+		if (!(toleranceMeters >= 0)) {
+			throw new IllegalArgumentException("toleranceMeters must not be negative: " + toleranceMeters);
+		}
+		this.gu = gu;
+		this.toleranceMeters = toleranceMeters;
+	}
+
+	/**
+	 * @return How far in meters the simplified Shapes may stray from the original ones
+	 */
+	public double getToleranceMeters() {
+		return toleranceMeters;
+	}
+
+	/**
+	 * Simplify a Shape.
+	 *
+	 * @param shape The Shape to simplify
+	 * @return The simplified Shape, with how much it was simplified and how far it strays from the original
+	 */
+	public Simplification simplify(Shape shape) {
+		List<Geometry> originals = new ArrayList<>();
+		List<Geometry> simplified = new ArrayList<>();
+		Shape result = simplify(shape, originals, simplified);
+		return new Simplification(gu, shape, result, originals, simplified);
+	}
+
+	/**
+	 * Simplify the Shape of a Feature, for example as a stage of a Stream of the Features of a
+	 * {@link FeatureReader}.
+	 *
+	 * @param feature The Feature to simplify
+	 * @return A Feature with the same id and properties and the simplified Shape
+	 */
+	public Feature simplify(Feature feature) {
+		if (feature.getShape() == null) {
+			return feature;
+		}
+		return new Feature(feature.getId(), simplify(feature.getShape()).getShape(), feature.getProperties());
+	}
+
+	private Shape simplify(Shape shape, List<Geometry> originals, List<Geometry> simplified) {
+		if (shape instanceof JtsGeometry) {
+			Geometry geometry = ((JtsGeometry) shape).getGeom();
+			AffineTransformation toMeters = toMeters(geometry);
+			Geometry simple = fromMeters(geometry).transform(
+					TopologyPreservingSimplifier.simplify(toMeters.transform(geometry), toleranceMeters));
+			originals.add(geometry);
+			simplified.add(simple);
+			return gu.getJtsShapeFactory().makeShape(simple);
+		}
+		if (shape instanceof ShapeCollection) {
+			List<Shape> members = new ArrayList<>();
+			for (Shape member : ((ShapeCollection<?>) shape).getShapes()) {
+				members.add(simplify(member, originals, simplified));
+			}
+			return gu.makeCollection(members);
+		}
+		return shape;
+	}
+
+	/*
+	 * The flat projection in meters around the middle of the geometry's envelope.
+	 */
+	static AffineTransformation toMeters(Geometry geometry) {
+		Envelope env = geometry.getEnvelopeInternal();
+		AffineTransformation transformation = AffineTransformation.translationInstance(-env.centre().x,
+				-env.centre().y);
+		return transformation.scale(metersPerDegreeLongitude(env), TamrGeoUtils.METERS_PER_DEGREE);
+	}
+
+	private static AffineTransformation fromMeters(Geometry geometry) {
+		Envelope env = geometry.getEnvelopeInternal();
+		AffineTransformation transformation = AffineTransformation.scaleInstance(1 / metersPerDegreeLongitude(env),
+				1 / TamrGeoUtils.METERS_PER_DEGREE);
+		return transformation.translate(env.centre().x, env.centre().y);
+	}
+
+	private static double metersPerDegreeLongitude(Envelope env) {
+		return TamrGeoUtils.METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(env.centre().y)), 1e-6);
+	}
+}
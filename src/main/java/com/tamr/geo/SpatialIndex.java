@@ -0,0 +1,409 @@
+package com.tamr.geo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+
+/**
+ * A static spatial index over the bounding boxes of a collection of {@link Shape}s, used to find candidate pairs
+ * (blocking) without comparing every Shape with every other Shape.  For example, to compare ML generated building
+ * footprints with human generated ones only where they are close to each other:
+ * <pre>{@code
+ *   SpatialIndex humanIndex = new SpatialIndex(humanBuildings);
+ *   CandidatePairs pairs = humanIndex.candidatePairs(mlBuildings, 5.0);
+ *   for (int i = 0; i < pairs.size(); i++) {
+ *       Shape ml = mlBuildings.get(pairs.getLeft(i));
+ *       Shape human = humanBuildings.get(pairs.getRight(i));
+ *       double overlap = gu.getIntersectionArea(ml, human);
+ *   }
+ * }</pre>
+ * The index is a packed Hilbert R-tree: the bounding boxes are sorted along a Hilbert curve and packed bottom up
+ * into nodes of 16 entries, all held in primitive arrays (about 100 bytes per Shape), so it can be bulk loaded with
+ * millions of Shapes in a few seconds.  It can not be modified once built.  Shapes are identified by their index in
+ * the list the index was built from.  Bounding boxes that cross the dateline are supported.
+ * <p>
+ * Distances are in meters between bounding boxes, on the same spherical earth used by
+ * {@link TamrGeoUtils#calculateDistance}.  The search area around a bounding box is itself a latitude/longitude box, so
+ * a candidate may be a little further away than the given distance (near its corners) but no Shape whose bounding box
+ * is within the distance is ever missed.  Pairs still need to be compared with the exact operations of
+ * TamrGeoUtils.
+ * <p>
+ * A SpatialIndex is thread safe.
+ */
+public class SpatialIndex {
+
+	private static final int NODE_SIZE = 16;
+	private static final int HILBERT_ORDER = 15;
+	private static final int PARALLEL_CHUNK = 4096;
+
+	private static final double NO_ENVELOPE = Double.NaN;
+
+	private final int size;
+	// minX, minY, maxX, maxY of the bounding box of each Shape, NaN for empty Shapes.  Crosses the dateline if minX > maxX
+	private final double[] envelopes;
+	// minX, minY, maxX, maxY of each entry, then of each node, level by level up to the root
+	private final double[] boxes;
+	// the Shape of each entry, a Shape crossing the dateline has two entries
+	private final int[] entryShapes;
+	// the end (exclusive) of each level in boxes, level 0 being the entries
+	private final int[] levelEnds;
+
+	/**
+	 * Build an index over the bounding boxes of the given Shapes.
+	 *
+	 * @param shapes The Shapes to index, they are identified by their position in this list
+	 */
+	public SpatialIndex(List<? extends Shape> shapes) {
+		size = shapes.size();
+		envelopes = new double[size * 4];
+
+		int numEntries = 0;
+		for (int i = 0; i < size; i++) {
+			Rectangle r = shapes.get(i).getBoundingBox();
+			if (r.isEmpty()) {
+				Arrays.fill(envelopes, i * 4, i * 4 + 4, NO_ENVELOPE);
+				continue;
+			}
+			envelopes[i * 4] = r.getMinX();
+			envelopes[i * 4 + 1] = r.getMinY();
+			envelopes[i * 4 + 2] = r.getMaxX();
+			envelopes[i * 4 + 3] = r.getMaxY();
+			numEntries += r.getCrossesDateLine() ? 2 : 1;
+		}
+
+		double[] entryBoxes = new double[numEntries * 4];
+		int[] entryIds = new int[numEntries];
+		int entry = 0;
+		for (int i = 0; i < size; i++) {
+			double minX = envelopes[i * 4];
+			if (Double.isNaN(minX)) {
+				continue;
+			}
+			double minY = envelopes[i * 4 + 1];
+			double maxX = envelopes[i * 4 + 2];
+			double maxY = envelopes[i * 4 + 3];
+			if (minX > maxX) {
+				setBox(entryBoxes, entry, minX, minY, 180, maxY);
+				entryIds[entry++] = i;
+				setBox(entryBoxes, entry, -180, minY, maxX, maxY);
+				entryIds[entry++] = i;
+			} else {
+				setBox(entryBoxes, entry, minX, minY, maxX, maxY);
+				entryIds[entry++] = i;
+			}
+		}
+
+		// level sizes, each level has one node for every NODE_SIZE nodes of the level below
+		int numLevels = 1;
+		int total = numEntries;
+		for (int n = numEntries; n > 1; numLevels++) {
+			n = (n + NODE_SIZE - 1) / NODE_SIZE;
+			total += n;
+		}
+		levelEnds = new int[numLevels];
+		boxes = new double[total * 4];
+		entryShapes = new int[numEntries];
+
+		// sort the entries along a Hilbert curve so neighboring entries are close to each other
+		int[] order = hilbertOrder(entryBoxes, numEntries);
+		for (int i = 0; i < numEntries; i++) {
+			System.arraycopy(entryBoxes, order[i] * 4, boxes, i * 4, 4);
+			entryShapes[i] = entryIds[order[i]];
+		}
+
+		// pack each level into the nodes of the level above it
+		levelEnds[0] = numEntries;
+		int pos = numEntries;
+		for (int level = 1; level < numLevels; level++) {
+			int start = level == 1 ? 0 : levelEnds[level - 2];
+			int end = levelEnds[level - 1];
+			for (int child = start; child < end; child += NODE_SIZE) {
+				double minX = Double.POSITIVE_INFINITY;
+				double minY = Double.POSITIVE_INFINITY;
+				double maxX = Double.NEGATIVE_INFINITY;
+				double maxY = Double.NEGATIVE_INFINITY;
+				for (int c = child; c < Math.min(child + NODE_SIZE, end); c++) {
+					minX = Math.min(minX, boxes[c * 4]);
+					minY = Math.min(minY, boxes[c * 4 + 1]);
+					maxX = Math.max(maxX, boxes[c * 4 + 2]);
+					maxY = Math.max(maxY, boxes[c * 4 + 3]);
+				}
+				setBox(boxes, pos++, minX, minY, maxX, maxY);
+			}
+			levelEnds[level] = pos;
+		}
+	}
+
+	/**
+	 * @return The number of Shapes the index was built from
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Find the Shapes of this index whose bounding box intersects, or is within the given distance of, the bounding
+	 * box of the given Shape.
+	 *
+	 * @param shape The Shape to search around
+	 * @param distanceMeters The distance in meters, 0 to only find intersecting bounding boxes
+	 * @return The indexes of the Shapes found, in ascending order
+	 */
+	public int[] query(Shape shape, double distanceMeters) {
+		Rectangle r = shape.getBoundingBox();
+		if (r.isEmpty()) {
+			return new int[0];
+		}
+		Search search = new Search();
+		search.run(r.getMinX(), r.getMinY(), r.getMaxX(), r.getMaxY(), distanceMeters);
+		return Arrays.copyOf(search.hits, search.numHits);
+	}
+
+	/**
+	 * Find all pairs of Shapes of this index whose bounding boxes intersect, or are within the given distance of each
+	 * other.  Each pair is reported once, with getLeft(i) &lt; getRight(i).  Pairs are sorted by left index, then
+	 * right index.  The search runs in parallel on the common fork-join pool.
+	 *
+	 * @param distanceMeters The distance in meters, 0 to only find intersecting bounding boxes
+	 * @return The candidate pairs
+	 */
+	public CandidatePairs candidatePairs(double distanceMeters) {
+		return join(size, envelopes, distanceMeters, true);
+	}
+
+	/**
+	 * Find all pairs of a Shape from the given list and a Shape of this index whose bounding boxes intersect, or are
+	 * within the given distance of each other.  The left index of each pair is the index of a Shape in the given list,
+	 * the right index that of a Shape in this index.  Pairs are sorted by left index, then right index.  The search
+	 * runs in parallel on the common fork-join pool.
+	 *
+	 * @param shapes The Shapes to find candidates for
+	 * @param distanceMeters The distance in meters, 0 to only find intersecting bounding boxes
+	 * @return The candidate pairs
+	 */
+	public CandidatePairs candidatePairs(List<? extends Shape> shapes, double distanceMeters) {
+		double[] queryEnvelopes = new double[shapes.size() * 4];
+		for (int i = 0; i < shapes.size(); i++) {
+			Rectangle r = shapes.get(i).getBoundingBox();
+			if (r.isEmpty()) {
+				Arrays.fill(queryEnvelopes, i * 4, i * 4 + 4, NO_ENVELOPE);
+			} else {
+				setBox(queryEnvelopes, i, r.getMinX(), r.getMinY(), r.getMaxX(), r.getMaxY());
+			}
+		}
+		return join(shapes.size(), queryEnvelopes, distanceMeters, false);
+	}
+
+	private CandidatePairs join(int count, double[] queryEnvelopes, double distanceMeters, boolean self) {
+		int chunks = (count + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+		CandidatePairs[] results = new CandidatePairs[chunks];
+		IntStream.range(0, chunks).parallel().forEach(chunk -> {
+			Search search = new Search();
+			CandidatePairs pairs = new CandidatePairs();
+			for (int i = chunk * PARALLEL_CHUNK; i < Math.min(count, (chunk + 1) * PARALLEL_CHUNK); i++) {
+				if (Double.isNaN(queryEnvelopes[i * 4])) {
+					continue;
+				}
+				search.run(queryEnvelopes[i * 4], queryEnvelopes[i * 4 + 1], queryEnvelopes[i * 4 + 2],
+						queryEnvelopes[i * 4 + 3], distanceMeters);
+				for (int h = 0; h < search.numHits; h++) {
+					if (!self || search.hits[h] > i) {
+						pairs.add(i, search.hits[h]);
+					}
+				}
+			}
+			results[chunk] = pairs;
+		});
+
+		int total = 0;
+		for (CandidatePairs pairs : results) {
+			total += pairs.size();
+		}
+		CandidatePairs all = new CandidatePairs(total);
+		for (CandidatePairs pairs : results) {
+			all.addAll(pairs);
+		}
+		return all;
+	}
+
+	private static void setBox(double[] boxes, int i, double minX, double minY, double maxX, double maxY) {
+		boxes[i * 4] = minX;
+		boxes[i * 4 + 1] = minY;
+		boxes[i * 4 + 2] = maxX;
+		boxes[i * 4 + 3] = maxY;
+	}
+
+	/*
+	 * The order of the entries along a Hilbert curve through the centers of their boxes.
+	 */
+	private static int[] hilbertOrder(double[] entryBoxes, int numEntries) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < numEntries; i++) {
+			minX = Math.min(minX, entryBoxes[i * 4]);
+			minY = Math.min(minY, entryBoxes[i * 4 + 1]);
+			maxX = Math.max(maxX, entryBoxes[i * 4 + 2]);
+			maxY = Math.max(maxY, entryBoxes[i * 4 + 3]);
+		}
+		int max = (1 << HILBERT_ORDER) - 1;
+		double scaleX = maxX > minX ? max / (maxX - minX) : 0;
+		double scaleY = maxY > minY ? max / (maxY - minY) : 0;
+
+		// the Hilbert value in the high bits, the entry in the low bits, so one primitive sort orders the entries
+		long[] keys = new long[numEntries];
+		for (int i = 0; i < numEntries; i++) {
+			double cx = (entryBoxes[i * 4] + entryBoxes[i * 4 + 2]) / 2;
+			double cy = (entryBoxes[i * 4 + 1] + entryBoxes[i * 4 + 3]) / 2;
+			long h = hilbert((int) ((cx - minX) * scaleX), (int) ((cy - minY) * scaleY));
+			keys[i] = (h << 32) | i;
+		}
+		Arrays.sort(keys);
+		int[] order = new int[numEntries];
+		for (int i = 0; i < numEntries; i++) {
+			order[i] = (int) keys[i];
+		}
+		return order;
+	}
+
+	/*
+	 * Distance along the Hilbert curve filling a 2^HILBERT_ORDER square grid to the cell (x, y).
+	 */
+	static long hilbert(int x, int y) {
+		int n = 1 << HILBERT_ORDER;
+		long d = 0;
+		for (int s = n / 2; s > 0; s /= 2) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			if (ry == 0) {
+				if (rx == 1) {
+					x = n - 1 - x;
+					y = n - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return d;
+	}
+
+	/*
+	 * The scratch state of a search, so that searches can run concurrently.  Hits are sorted and distinct once run
+	 * returns.
+	 */
+	private class Search {
+		int[] hits = new int[16];
+		int numHits;
+		private int[] stack = new int[64];
+		private final double[] queryBoxes = new double[8];
+
+		void run(double minX, double minY, double maxX, double maxY, double distanceMeters) {
+			numHits = 0;
+			int numBoxes = expand(minX, minY, maxX, maxY, distanceMeters, queryBoxes);
+			for (int b = 0; b < numBoxes; b++) {
+				search(queryBoxes[b * 4], queryBoxes[b * 4 + 1], queryBoxes[b * 4 + 2], queryBoxes[b * 4 + 3]);
+			}
+			if (numHits > 1) {
+				// a Shape crossing the dateline can be found twice
+				Arrays.sort(hits, 0, numHits);
+				int distinct = 1;
+				for (int i = 1; i < numHits; i++) {
+					if (hits[i] != hits[distinct - 1]) {
+						hits[distinct++] = hits[i];
+					}
+				}
+				numHits = distinct;
+			}
+		}
+
+		private void search(double minX, double minY, double maxX, double maxY) {
+			int numLevels = levelEnds.length;
+			if (levelEnds[0] == 0) {
+				return;
+			}
+			int top = 0;
+			stack[top++] = boxes.length / 4 - 1;
+			stack[top++] = numLevels - 1;
+			while (top > 0) {
+				int level = stack[--top];
+				int node = stack[--top];
+				if (!intersects(node, minX, minY, maxX, maxY)) {
+					continue;
+				}
+				if (level == 0) {
+					addHit(entryShapes[node]);
+					continue;
+				}
+				int levelStart = level == 1 ? 0 : levelEnds[level - 2];
+				int childStart = levelStart + (node - levelEnds[level - 1]) * NODE_SIZE;
+				int childEnd = Math.min(childStart + NODE_SIZE, levelEnds[level - 1]);
+				for (int child = childStart; child < childEnd; child++) {
+					if (top + 2 > stack.length) {
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					}
+					stack[top++] = child;
+					stack[top++] = level - 1;
+				}
+			}
+		}
+
+		private boolean intersects(int node, double minX, double minY, double maxX, double maxY) {
+			return boxes[node * 4] <= maxX && boxes[node * 4 + 1] <= maxY && boxes[node * 4 + 2] >= minX
+					&& boxes[node * 4 + 3] >= minY;
+		}
+
+		private void addHit(int shape) {
+			if (numHits == hits.length) {
+				hits = Arrays.copyOf(hits, hits.length * 2);
+			}
+			hits[numHits++] = shape;
+		}
+	}
+
+	/*
+	 * Expand a bounding box (which may cross the dateline) by the given distance and write the result as one or two
+	 * boxes that don't cross the dateline.
+	 *
+	 * @return The number of boxes written
+	 */
+	static int expand(double minX, double minY, double maxX, double maxY, double distanceMeters, double[] out) {
+		double dLat = Math.max(0, distanceMeters) / TamrGeoUtils.METERS_PER_DEGREE;
+		minY = Math.max(-90, minY - dLat);
+		maxY = Math.min(90, maxY + dLat);
+
+		// unwrap a box crossing the dateline so that minX <= maxX
+		if (minX > maxX) {
+			maxX += 360;
+		}
+		if (dLat > 0) {
+			// a degree of longitude is shortest at the latitude nearest a pole
+			double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(minY), Math.abs(maxY))));
+			double dLon = cosLat > 0 ? dLat / cosLat : 360;
+			minX -= dLon;
+			maxX += dLon;
+		}
+
+		if (maxX - minX >= 360) {
+			setBox(out, 0, -180, minY, 180, maxY);
+			return 1;
+		}
+		if (minX < -180) {
+			setBox(out, 0, minX + 360, minY, 180, maxY);
+			setBox(out, 1, -180, minY, maxX, maxY);
+			return 2;
+		}
+		if (maxX > 180) {
+			setBox(out, 0, minX, minY, 180, maxY);
+			setBox(out, 1, -180, minY, maxX - 360, maxY);
+			return 2;
+		}
+		setBox(out, 0, minX, minY, maxX, maxY);
+		return 1;
+	}
+}
@@ -0,0 +1,588 @@
+package com.tamr.geo;
+
+import java.util.List;
+
+import org.locationtech.spatial4j.distance.DistanceUtils;
+import org.locationtech.spatial4j.shape.Circle;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * The area of polygons on the surface of the earth, computed from their coordinates in one pass.
+ * {@link TamrGeoUtils#calculateArea(Shape)} estimates the area of a polygon as the fraction of its bounding box it
+ * fills in flat longitude/latitude, times the area of the bounding box on the sphere, which is off by several percent
+ * for large polygons.  SurfaceArea instead sums, edge by edge, the exact area between each edge and the equator, so the
+ * area is exact for polygons of any size whose edges are great circles:
+ * <pre>{@code
+ *   double squareMeters = SurfaceArea.SPHERE.calculateArea(shape);
+ *   double onTheEllipsoid = SurfaceArea.WGS84.calculateArea(shape);
+ * }</pre>
+ * {@link #SPHERE} is the sphere {@link TamrGeoUtils} uses for distances.  {@link #WGS84} maps latitudes to authalic
+ * latitudes, which carries the ellipsoid onto a sphere of the same surface area without changing the area of anything,
+ * so areas on the ellipsoid cost only the conversion of each latitude.
+ * <p>
+ * Each ring is taken to enclose the smaller of the two regions it divides the globe into, whatever its orientation, so
+ * polygons must be smaller than a hemisphere.  Points and lines have no area.  No JTS geometry or Shape is created and
+ * nothing is allocated per coordinate: rings are read from JTS coordinate sequences, coordinate arrays or the packed
+ * coordinates of a {@link GeometryStore}.  Sines of latitudes are expanded in series around a reference latitude that
+ * is kept from ring to ring while the rings are near it, so the areas of many nearby polygons, such as building
+ * footprints, take almost no trigonometric functions.  On the sphere, a ring whose edges all span less than 2 degrees
+ * that does not wind around a pole is summed as trapezoids on the cylindrical equal-area projection instead, with the
+ * sine of each latitude from a table of whole degrees, corrected to the fourth order for the edges being great
+ * circles.  That agrees with the exact sum to about 1e-10 of the area and is about half as fast again.
+ * <p>
+ * SurfaceArea trades speed for accuracy.  On a Shape that is already a JTS geometry,
+ * {@link TamrGeoUtils#calculateArea(Shape)} costs little more than a multiplication per vertex and is faster: 3 to 4
+ * times for a building footprint and about 10 times for <code>texas.json</code> in <code>AreaBenchmark</code>, or 8
+ * and 30 times on the WGS84 ellipsoid.  Use SurfaceArea where the area has to be right, not as a faster calculateArea.
+ * SurfaceArea is immutable and thread safe.
+ */
+public final class SurfaceArea {
+
+	/** A sphere with the 6371000 meter radius {@link TamrGeoUtils#calculateDistance} uses. */
+	public static final SurfaceArea SPHERE = new SurfaceArea(TamrGeoUtils.EARTH_RADIUS_METERS, 0);
+
+	/** The WGS84 ellipsoid of GPS coordinates. */
+	public static final SurfaceArea WGS84 = new SurfaceArea(6378137, 1 / 298.257223563);
+
+	// Within this many radians of the reference latitude, sines and cosines are computed with their Taylor series
+	// from those of the reference latitude.  The series are accurate to well below a double's precision.
+	private static final double REFERENCE_ANGLE = 0.1;
+	// below this many radians half the longitude and latitude differences of an edge are expanded in series
+	private static final double SMALL_ANGLE = 0.005;
+	// below this many radians, as for all edges of building footprints, fewer terms of the series are needed
+	private static final double TINY_ANGLE = 0.001;
+
+	// the most degrees of longitude or latitude an edge may span for a ring to be summed as trapezoids on the sphere,
+	// for the corrections for the edges being great circles to be within about a billionth of the area
+	private static final double TRAPEZOID_EDGE = 2;
+	// below this many degrees the fourth powers of half an edge's differences are left out of the corrections
+	private static final double SHORT_EDGE = 0.25;
+
+	private static final double TWO_PI = 2 * Math.PI;
+	private static final double HALF_DEGREE = DistanceUtils.DEGREES_TO_RADIANS / 2;
+
+	// the sines and cosines of the whole degrees of latitude from -90 to 90
+	private static final double[] SIN_DEGREES = new double[181];
+	private static final double[] COS_DEGREES = new double[181];
+
+	static {
+		for (int i = 0; i <= 180; i++) {
+			SIN_DEGREES[i] = Math.sin(Math.toRadians(i - 90));
+			COS_DEGREES[i] = Math.cos(Math.toRadians(i - 90));
+		}
+	}
+
+	private final double radius;
+	private final double e;
+	private final double oneMinusE2;
+	private final double qp;
+	// the coefficients of sin(2 lat), sin(4 lat) and sin(6 lat) in Snyder's series for the authalic latitude,
+	// accurate to about a millimeter on the WGS84 ellipsoid
+	private final double authalic2;
+	private final double authalic4;
+	private final double authalic6;
+
+	private SurfaceArea(double semiMajorAxis, double flattening) {
+		double e2 = flattening * (2 - flattening);
+		this.e = Math.sqrt(e2);
+		this.oneMinusE2 = 1 - e2;
+		this.qp = e == 0 ? 2 : q(1);
+		this.radius = semiMajorAxis * Math.sqrt(qp / 2);
+		this.authalic2 = -(e2 / 3 + 31 * e2 * e2 / 180 + 59 * e2 * e2 * e2 / 560);
+		this.authalic4 = 17 * e2 * e2 / 360 + 61 * e2 * e2 * e2 / 1260;
+		this.authalic6 = -383 * e2 * e2 * e2 / 45360;
+	}
+
+	/**
+	 * @return The radius in meters of the sphere with the same surface area as this model of the earth
+	 */
+	public double getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Calculate the area of a Shape in square meters.  The area of a ShapeCollection is the sum of the areas of its
+	 * Shapes, a Rectangle is bounded by meridians and parallels and a Circle is a spherical cap.
+	 *
+	 * @param shape The Shape
+	 * @return The area of the Shape in square meters, 0 for Points and lines
+	 * @throws IllegalArgumentException If the area of the Shape can not be computed
+	 */
+	public double calculateArea(Shape shape) {
+		return calculateArea(shape, new RingSum());
+	}
+
+	/**
+	 * Calculate the areas of many Shapes.
+	 *
+	 * @param shapes The Shapes
+	 * @param out Receives the area in square meters of each Shape, <code>out[i]</code> being that of
+	 *            <code>shapes.get(i)</code>
+	 * @throws IllegalArgumentException If the area of one of the Shapes can not be computed
+	 */
+	public void calculateAreas(List<? extends Shape> shapes, double[] out) {
+		checkOutput(out, shapes.size());
+		RingSum sum = new RingSum();
+		for (int i = 0; i < shapes.size(); i++) {
+			out[i] = calculateArea(shapes.get(i), sum);
+		}
+	}
+
+	/**
+	 * Calculate the areas of all Shapes in a GeometryStore, directly from its packed coordinates.
+	 *
+	 * @param store The GeometryStore
+	 * @param out Receives the area in square meters of each stored Shape, <code>out[id]</code> being that of Shape
+	 *            <code>id</code>
+	 */
+	public void calculateAreas(GeometryStore store, double[] out) {
+		checkOutput(out, store.size());
+		RingSum sum = new RingSum();
+		for (int id = 0; id < store.size(); id++) {
+			out[id] = store.calculateArea(id, sum);
+		}
+	}
+
+	/**
+	 * Calculate the area enclosed by a ring of coordinates.  The ring may or may not repeat its first coordinate at
+	 * the end.
+	 *
+	 * @param lonLats Longitude, latitude pairs in degrees: the longitude of coordinate <code>i</code> is at
+	 *            <code>lonLats[2 * i]</code> and its latitude at <code>lonLats[2 * i + 1]</code>
+	 * @param from The index of the first coordinate of the ring
+	 * @param to The index after the last coordinate of the ring
+	 * @return The area in square meters
+	 */
+	public double ringArea(double[] lonLats, int from, int to) {
+		if (from < 0 || to * 2 > lonLats.length || from > to) {
+			throw new IndexOutOfBoundsException("Ring " + from + " to " + to + " of " + lonLats.length / 2);
+		}
+		return new RingSum().ringArea(lonLats, null, 0, from, to);
+	}
+
+	private double calculateArea(Shape shape, RingSum sum) {
+		if (shape instanceof JtsGeometry) {
+			return geometryArea(((JtsGeometry) shape).getGeom(), sum);
+		}
+		if (shape instanceof Rectangle) {
+			Rectangle r = (Rectangle) shape;
+			return boxArea(r.getMinX(), r.getMinY(), r.getMaxX(), r.getMaxY());
+		}
+		if (shape instanceof ShapeCollection) {
+			double area = 0;
+			for (Shape member : ((ShapeCollection<?>) shape).getShapes()) {
+				area += calculateArea(member, sum);
+			}
+			return area;
+		}
+		if (shape instanceof Point) {
+			return 0;
+		}
+		if (shape instanceof Circle) {
+			double radians = DistanceUtils.toRadians(Math.min(((Circle) shape).getRadius(), 180));
+			return TWO_PI * radius * radius * (1 - Math.cos(radians));
+		}
+		throw new IllegalArgumentException("Unsupported Shape: " + shape.getClass().getSimpleName());
+	}
+
+	private double geometryArea(Geometry geometry, RingSum sum) {
+		if (geometry instanceof Polygon) {
+			Polygon polygon = (Polygon) geometry;
+			double area = sum.ringArea(polygon.getExteriorRing().getCoordinateSequence());
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+				area -= sum.ringArea(polygon.getInteriorRingN(i).getCoordinateSequence());
+			}
+			return Math.max(area, 0);
+		}
+		double area = 0;
+		if (geometry instanceof GeometryCollection) {
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				area += geometryArea(geometry.getGeometryN(i), sum);
+			}
+		}
+		return area;
+	}
+
+	/*
+	 * The area of a box bounded by meridians and parallels, which may cross the dateline.
+	 */
+	private double boxArea(double minX, double minY, double maxX, double maxY) {
+		double width = maxX - minX;
+		if (width < 0) {
+			width += 360;
+		}
+		double sin1 = sinAuthalicLatitude(DistanceUtils.toRadians(minY));
+		double sin2 = sinAuthalicLatitude(DistanceUtils.toRadians(maxY));
+		return radius * radius * DistanceUtils.toRadians(width) * Math.abs(sin2 - sin1);
+	}
+
+	/**
+	 * Sums the areas of rings one coordinate at a time.  A RingSum is reused from ring to ring and keeps its reference
+	 * latitude while the rings are near it.  It is not thread safe.
+	 */
+	final class RingSum {
+
+		private boolean referenced;
+		// the reference latitude, the sine and cosine of twice it, its authalic latitude and that one's sine and cosine
+		private double lat0;
+		private double sin2Lat0;
+		private double cos2Lat0;
+		private double beta0;
+		private double sinBeta0;
+		private double cosBeta0;
+
+		private double prevLon;
+		private double prevBeta;
+		// sin(prevBeta) - sinBeta0
+		private double prevSin;
+		// the sum of the excesses of the edges, each less dLon * sinBeta0
+		private double excess;
+		// the longitude wound through since the reference latitude was last set
+		private double winding;
+		// the sums of dLon * sinBeta0 and of dLon over the edges summed with earlier reference latitudes
+		private double earlierExcess;
+		private double earlierWinding;
+
+		double boxArea(double minX, double minY, double maxX, double maxY) {
+			return SurfaceArea.this.boxArea(minX, minY, maxX, maxY);
+		}
+
+		/*
+		 * The area of a ring held as doubles in coords or, if quantizedCoords is not null, as fixed point ints there.
+		 */
+		double ringArea(double[] coords, int[] quantizedCoords, double scale, int from, int to) {
+			if (to - from < 3) {
+				return 0;
+			}
+			if (e == 0) {
+				double area = trapezoidRingArea(coords, quantizedCoords, scale, from, to);
+				if (area >= 0) {
+					return area;
+				}
+			}
+			int last = to - 1;
+			if (quantizedCoords != null) {
+				start(quantizedCoords[last * 2] / scale, quantizedCoords[last * 2 + 1] / scale);
+				for (int i = from; i < to; i++) {
+					add(quantizedCoords[i * 2] / scale, quantizedCoords[i * 2 + 1] / scale);
+				}
+			} else {
+				start(coords[last * 2], coords[last * 2 + 1]);
+				for (int i = from; i < to; i++) {
+					add(coords[i * 2], coords[i * 2 + 1]);
+				}
+			}
+			return area();
+		}
+
+		double ringArea(CoordinateSequence seq) {
+			int n = seq.size();
+			if (n < 3) {
+				return 0;
+			}
+			if (e == 0) {
+				double area = trapezoidRingArea(seq, n);
+				if (area >= 0) {
+					return area;
+				}
+			}
+			start(seq.getX(n - 1), seq.getY(n - 1));
+			for (int i = 0; i < n; i++) {
+				add(seq.getX(i), seq.getY(i));
+			}
+			return area();
+		}
+
+		/*
+		 * The area of a ring on the sphere as the sum of the trapezoids between its edges and a reference latitude on the
+		 * cylindrical equal-area projection, whose y is the sine of the latitude, corrected for the edges being great
+		 * circles.  That takes no trigonometric functions, but only holds for short edges: -1 if an edge is too long,
+		 * as one across the dateline is, or the ring winds around a pole.
+		 */
+		private double trapezoidRingArea(CoordinateSequence seq, int n) {
+			double prevLon = seq.getX(n - 1);
+			double prevLat = seq.getY(n - 1);
+			double sinReference = SIN_DEGREES[wholeDegree(prevLat)];
+			double prevSin = sinLessReference(prevLat, sinReference);
+			double sum = 0;
+			double bend = 0;
+			double winding = 0;
+			for (int i = 0; i < n; i++) {
+				double lon = seq.getX(i);
+				double lat = seq.getY(i);
+				double dLon = lon - prevLon;
+				double dLat = lat - prevLat;
+				if (Math.abs(dLon) > TRAPEZOID_EDGE || Math.abs(dLat) > TRAPEZOID_EDGE) {
+					return -1;
+				}
+				double sin = sinLessReference(lat, sinReference);
+				double sin2 = sin + prevSin;
+				sum += dLon * sin2;
+				bend += bend(dLon, dLat, sinReference + sin2 * 0.5);
+				winding += dLon;
+				prevLon = lon;
+				prevLat = lat;
+				prevSin = sin;
+			}
+			return trapezoidArea(sum, bend, winding);
+		}
+
+		private double trapezoidRingArea(double[] coords, int[] quantizedCoords, double scale, int from, int to) {
+			int last = to - 1;
+			double prevLon = quantizedCoords != null ? quantizedCoords[last * 2] / scale : coords[last * 2];
+			double prevLat = quantizedCoords != null ? quantizedCoords[last * 2 + 1] / scale : coords[last * 2 + 1];
+			double sinReference = SIN_DEGREES[wholeDegree(prevLat)];
+			double prevSin = sinLessReference(prevLat, sinReference);
+			double sum = 0;
+			double bend = 0;
+			double winding = 0;
+			for (int i = from; i < to; i++) {
+				double lon = quantizedCoords != null ? quantizedCoords[i * 2] / scale : coords[i * 2];
+				double lat = quantizedCoords != null ? quantizedCoords[i * 2 + 1] / scale : coords[i * 2 + 1];
+				double dLon = lon - prevLon;
+				double dLat = lat - prevLat;
+				if (Math.abs(dLon) > TRAPEZOID_EDGE || Math.abs(dLat) > TRAPEZOID_EDGE) {
+					return -1;
+				}
+				double sin = sinLessReference(lat, sinReference);
+				double sin2 = sin + prevSin;
+				sum += dLon * sin2;
+				bend += bend(dLon, dLat, sinReference + sin2 * 0.5);
+				winding += dLon;
+				prevLon = lon;
+				prevLat = lat;
+				prevSin = sin;
+			}
+			return trapezoidArea(sum, bend, winding);
+		}
+
+		/*
+		 * sum is twice the area between the ring and the reference latitude on the cylinder, in degrees times sines, and
+		 * bend what the edges being great circles add to half of it.  The sum of dLon times the sine of the reference
+		 * latitude left out of them is 0 unless the ring winds around a pole.
+		 */
+		private double trapezoidArea(double sum, double bend, double winding) {
+			if (Math.abs(winding) > 180) {
+				return -1;
+			}
+			return Math.abs(sum + 2 * bend) * HALF_DEGREE * radius * radius;
+		}
+
+		/*
+		 * Start a ring at its last coordinate, the start of its first edge.
+		 */
+		private void start(double lon, double lat) {
+			lat = DistanceUtils.toRadians(lat);
+			if (!referenced || Math.abs(lat - lat0) >= REFERENCE_ANGLE) {
+				reference(lat);
+			}
+			prevLon = DistanceUtils.toRadians(lon);
+			prevBeta = authalicLatitude(lat);
+			prevSin = sinLessSinBeta0(prevBeta);
+			excess = 0;
+			winding = 0;
+			earlierExcess = 0;
+			earlierWinding = 0;
+		}
+
+		private void add(double lon, double lat) {
+			lon = DistanceUtils.toRadians(lon);
+			lat = DistanceUtils.toRadians(lat);
+			if (Math.abs(lat - lat0) >= REFERENCE_ANGLE) {
+				// the edges so far keep the sine of the old reference latitude they were summed with
+				earlierExcess += winding * sinBeta0;
+				earlierWinding += winding;
+				winding = 0;
+				double oldSinBeta0 = sinBeta0;
+				reference(lat);
+				prevSin += oldSinBeta0 - sinBeta0;
+			}
+			double beta = authalicLatitude(lat);
+			double sin = sinLessSinBeta0(beta);
+			double dLon = normalize(lon - prevLon);
+			excess += edgeExcess(dLon, beta - prevBeta, prevSin, sin, sinBeta0);
+			winding += dLon;
+			prevLon = lon;
+			prevBeta = beta;
+			prevSin = sin;
+		}
+
+		/*
+		 * The excesses add up to the area between the ring and the equator once the dLon * sinBeta0 left out of them are
+		 * added back.  Those of the current reference latitude are added back as the turns the ring winds around a
+		 * pole, which is exact where the sum of dLon is not.  A ring winding around a pole encloses the pole rather
+		 * than the region towards the equator, and of the two regions the ring divides the globe into, the smaller is
+		 * taken.
+		 */
+		private double area() {
+			double totalWinding = winding + earlierWinding;
+			double turns = totalWinding > Math.PI ? 1 : totalWinding < -Math.PI ? -1 : 0;
+			double sum = excess + earlierExcess - earlierWinding * sinBeta0 + TWO_PI * turns * (sinBeta0 - 1);
+			double area = Math.abs(sum);
+			return Math.min(area, 2 * TWO_PI - area) * radius * radius;
+		}
+
+		private void reference(double lat) {
+			referenced = true;
+			lat0 = lat;
+			if (e != 0) {
+				sin2Lat0 = Math.sin(2 * lat);
+				cos2Lat0 = Math.cos(2 * lat);
+			}
+			beta0 = authalicLatitude(lat);
+			sinBeta0 = Math.sin(beta0);
+			cosBeta0 = Math.cos(beta0);
+		}
+
+		/*
+		 * The authalic latitude of a latitude within REFERENCE_ANGLE of the reference latitude, with Snyder's series.
+		 */
+		private double authalicLatitude(double lat) {
+			if (e == 0) {
+				return lat;
+			}
+			double d = 2 * (lat - lat0);
+			double sinD = sinSeries(d);
+			double cosD = 1 + cosMinusOneSeries(d);
+			double sin2Lat = sin2Lat0 * cosD + cos2Lat0 * sinD;
+			double cos2Lat = cos2Lat0 * cosD - sin2Lat0 * sinD;
+			return lat + sin2Lat * (authalic2 + 2 * authalic4 * cos2Lat + authalic6 * (3 - 4 * sin2Lat * sin2Lat));
+		}
+
+		private double sinLessSinBeta0(double beta) {
+			double d = beta - beta0;
+			return sinBeta0 * cosMinusOneSeries(d) + cosBeta0 * sinSeries(d);
+		}
+	}
+
+	/*
+	 * The spherical excess in radians of the region between an edge and the equator, less dLon * sinBeta0.  The excess
+	 * is 2 atan(tan(dLon / 2) x), with x = sin(mid latitude) / cos(dBeta / 2), which is also the mean of the sines of
+	 * the edge's ends times 1 + tan^2(dBeta / 2).  The sines are passed in less sinBeta0: leaving dLon * sinBeta0 out
+	 * keeps the terms as small as the area they add up to, so small polygons lose no precision to cancellation.
+	 */
+	private static double edgeExcess(double dLon, double dBeta, double sin1, double sin2, double sinBeta0) {
+		double halfDBeta = dBeta * 0.5;
+		double tan2;
+		if (Math.abs(halfDBeta) < SMALL_ANGLE) {
+			double h2 = halfDBeta * halfDBeta;
+			tan2 = h2 * (1 + h2 * (2.0 / 3 + h2 * (17.0 / 45 + h2 * (62.0 / 315))));
+		} else {
+			double tan = Math.tan(halfDBeta);
+			tan2 = tan * tan;
+		}
+		double meanLessSinBeta0 = (sin1 + sin2) * 0.5;
+		double mean = sinBeta0 + meanLessSinBeta0;
+		double xLessSinBeta0 = meanLessSinBeta0 + mean * tan2;
+		double x = sinBeta0 + xLessSinBeta0;
+		double u = dLon * 0.5;
+		if (Math.abs(u) < SMALL_ANGLE) {
+			// 2 atan(tan(u) x) = 2 u x (1 + u^2 (1 - x^2) / 3 + ...)
+			double w = x * x;
+			double u2 = u * u;
+			double series = u2 * ((1 - w) * (1.0 / 3) + u2 * (2.0 / 15 + w * (-1.0 / 3 + w * (1.0 / 5))));
+			if (Math.abs(u) >= TINY_ANGLE) {
+				series += u2 * u2 * u2 * (17.0 / 315 + w * (-11.0 / 45 + w * (1.0 / 3 + w * (-1.0 / 7))));
+			}
+			return dLon * (xLessSinBeta0 + x * series);
+		}
+		return 2 * Math.atan(Math.tan(u) * x) - dLon * sinBeta0;
+	}
+
+	/*
+	 * The excess of an edge, as edgeExcess expands it, less the trapezoid dLon times the mean of the sines of its ends:
+	 * the terms up to the fourth powers of half its longitude and latitude differences, which are given in degrees.
+	 * With x = mean (1 + h^2 + 2 h^4 / 3 + ...) and w = x^2, dLon x (1 + u^2 (1 - w) / 3 + u^4 (2 / 15 - w / 3 + w^2 / 5))
+	 * is dLon mean (1 + h^2 + u^2 (1 - mean^2) / 3 + 2 h^4 / 3 + h^2 u^2 (1 - 3 mean^2) / 3
+	 * + u^4 (2 / 15 - mean^2 / 3 + mean^4 / 5) + ...).
+	 */
+	private static double bend(double dLon, double dLat, double mean) {
+		double h = dLat * HALF_DEGREE;
+		double u = dLon * HALF_DEGREE;
+		double h2 = h * h;
+		double u2 = u * u;
+		double m2 = mean * mean;
+		double second = h2 + u2 * (1 - m2) * (1.0 / 3);
+		if (Math.abs(dLon) < SHORT_EDGE && Math.abs(dLat) < SHORT_EDGE) {
+			return dLon * mean * second;
+		}
+		double fourth = h2 * (h2 * (2.0 / 3) + u2 * (1 - 3 * m2) * (1.0 / 3))
+				+ u2 * u2 * (2.0 / 15 + m2 * (-1.0 / 3 + m2 * (1.0 / 5)));
+		return dLon * mean * (second + fourth);
+	}
+
+	private static int wholeDegree(double lat) {
+		return (int) (lat + 90.5);
+	}
+
+	/*
+	 * The sine of a latitude in degrees, less that of a reference latitude, from the sine and cosine of the nearest whole
+	 * degree and the Taylor series of the radians from it, which are accurate to well below a double's precision within
+	 * half a degree.
+	 */
+	private static double sinLessReference(double lat, double sinReference) {
+		int degree = wholeDegree(lat);
+		double d = (lat - (degree - 90)) * DistanceUtils.DEGREES_TO_RADIANS;
+		double d2 = d * d;
+		double sinDegree = SIN_DEGREES[degree];
+		return (sinDegree - sinReference) + (COS_DEGREES[degree] * (d * (1 + d2 * (-1.0 / 6 + d2 * (1.0 / 120))))
+				+ sinDegree * (d2 * (-1.0 / 2 + d2 * (1.0 / 24 + d2 * (-1.0 / 720)))));
+	}
+
+	private static double normalize(double dLon) {
+		if (dLon > Math.PI) {
+			return dLon - TWO_PI;
+		}
+		if (dLon < -Math.PI) {
+			return dLon + TWO_PI;
+		}
+		return dLon;
+	}
+
+	private double sinAuthalicLatitude(double lat) {
+		double sinLat = Math.sin(lat);
+		return e == 0 ? sinLat : Math.max(-1, Math.min(1, q(sinLat) / qp));
+	}
+
+	/*
+	 * Snyder's q: the sine of the authalic latitude is q(sin(lat)) / q(1)
+	 */
+	private double q(double sinLat) {
+		double es = e * sinLat;
+		double atanh = (Math.log1p(es) - Math.log1p(-es)) / 2;
+		return oneMinusE2 * (sinLat / (1 - es * es) + atanh / e);
+	}
+
+	private static double sinSeries(double x) {
+		double x2 = x * x;
+		if (Math.abs(x) < TINY_ANGLE) {
+			return x * (1 + x2 * (-1.0 / 6 + x2 * (1.0 / 120)));
+		}
+		return x * (1 + x2 * (-1.0 / 6 + x2 * (1.0 / 120 + x2 * (-1.0 / 5040 + x2 * (1.0 / 362880
+				+ x2 * (-1.0 / 39916800))))));
+	}
+
+	private static double cosMinusOneSeries(double x) {
+		double x2 = x * x;
+		if (Math.abs(x) < TINY_ANGLE) {
+			return x2 * (-1.0 / 2 + x2 * (1.0 / 24 + x2 * (-1.0 / 720)));
+		}
+		return x2 * (-1.0 / 2 + x2 * (1.0 / 24 + x2 * (-1.0 / 720 + x2 * (1.0 / 40320 + x2 * (-1.0 / 3628800
+				+ x2 * (1.0 / 479001600))))));
+	}
+
+	private static void checkOutput(double[] out, int n) {
+		if (out.length < n) {
+			throw new IllegalArgumentException("Output needs room for " + n + " areas but has " + out.length);
+		}
+	}
+}
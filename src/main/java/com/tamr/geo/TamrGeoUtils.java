@@ -1,45 +1,104 @@
 package com.tamr.geo;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.ParseException;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
 
 import org.locationtech.spatial4j.context.SpatialContext;
 import org.locationtech.spatial4j.context.jts.JtsSpatialContextFactory;
 import org.locationtech.spatial4j.distance.GeodesicSphereDistCalc;
 import org.locationtech.spatial4j.exception.InvalidShapeException;
 import org.locationtech.spatial4j.io.ShapeIO;
-import org.locationtech.spatial4j.io.ShapeReader;
 import org.locationtech.spatial4j.io.ShapeWriter;
 import org.locationtech.spatial4j.shape.Point;
 import org.locationtech.spatial4j.shape.Shape;
 import org.locationtech.spatial4j.shape.ShapeFactory;
-import org.locationtech.spatial4j.shape.SpatialRelation;
 import org.locationtech.spatial4j.shape.ShapeFactory.LineStringBuilder;
 import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
 
-import com.vividsolutions.jts.algorithm.match.HausdorffSimilarityMeasure;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.util.AffineTransformation;
 
+/**
+ * Geospatial operations on {@link Shape}s, see the README for examples of each of them.
+ * <p>
+ * A TamrGeoUtils is thread safe: one instance can be shared by every worker thread.  All of its state (other than 
+ * its ShapeCache and the LocalProjections it keeps, both thread safe) is created once in the constructor and never 
+ * modified afterwards, the geoJson reader and writer keep no state between calls (each call gets its own parser) and 
+ * the JTS shape factory used to convert between Shapes and Geometries is built once rather than on every call.  The 
+ * Shapes it returns are immutable and may also be shared between threads.
+ * <p>
+ * The calls of the main operations can be counted and timed, see {@link OperationMetrics}.  The centroids, areas and
+ * pairwise results of Shapes used many times can be kept in a {@link ShapeCache}.
+ */
 public class TamrGeoUtils {
 
-	private ShapeReader reader = null;
-	private ShapeWriter writer = null;
-	private SpatialContext ctx = null;
-	JtsSpatialContextFactory scFactory = null;
+	// The radius of a sphere whose area is equal to that of the earth's ellipsoidal surface (an authalic sphere), 
+	// and the length of one degree of arc on it.
+	static final double EARTH_RADIUS_METERS = 6371000;
+	static final double METERS_PER_DEGREE = 111194.9;
+	// The size in degrees of the regions that share a LocalProjection, and how many projections to keep
+	private static final double PROJECTION_REGION_DEGREES = 0.1;
+	private static final int MAX_PROJECTIONS = 4096;
+
+	private final GeoJsonGeometryReader reader;
+	private final GeoJsonByteReader byteReader;
+	private final ShapeWriter writer;
+	private final SpatialContext ctx;
+	private final JtsShapeFactory shapeFactory;
+	private final ShapeBytes shapeBytes;
+	private final IntersectionArea intersectionAreas;
+	private final AlignmentSearch alignmentSearch;
+	private final OperationMetrics metrics = OperationMetrics.getInstance();
+	// null without a cache
+	private final ShapeCache cache;
+	private final Cache<Long, LocalProjection> projections = CacheBuilder.newBuilder().maximumSize(MAX_PROJECTIONS)
+			.build();
+	final JtsSpatialContextFactory scFactory;
 
 	/**
 	 * Create a TamrGeoUtils object.
 	 */
 	public TamrGeoUtils() {
+		this(null);
+	}
+
+	/**
+	 * Create a TamrGeoUtils object that keeps what it computes for each Shape, and optionally for each pair of Shapes,
+	 * in a cache.  The results are the same as without the cache.
+	 *
+	 * @param cache The cache, may be shared with other TamrGeoUtils, or null for none
+	 */
+	public TamrGeoUtils(ShapeCache cache) {
+		this.cache = cache;
 		scFactory = new JtsSpatialContextFactory();
 		scFactory.geo = true;
 		scFactory.distCalc = new GeodesicSphereDistCalc.Haversine();
 		ctx = scFactory.newSpatialContext();
+		// the context's own factory, identical to the one scFactory.makeShapeFactory(ctx) would build for every call
+		shapeFactory = (JtsShapeFactory) ctx.getShapeFactory();
 
-		reader = ctx.getFormats().getReader(ShapeIO.GeoJSON);
+		reader = new GeoJsonGeometryReader(ctx);
+		byteReader = new GeoJsonByteReader(reader, shapeFactory);
 		writer = ctx.getFormats().getWriter(ShapeIO.GeoJSON);
-
+		shapeBytes = new ShapeBytes(this);
+		intersectionAreas = new IntersectionArea(this);
+		alignmentSearch = new AlignmentSearch(this, intersectionAreas);
 	}
 	
 	/**
@@ -63,7 +122,7 @@ public class TamrGeoUtils {
 	/**
 	 * Create a {@link Shape} from a geoJson String.  This function does NOT support FeatureCollection, and none of the 
 	 * other methods in this class support FeatureCollection.  Attempting to read a FeatureCollection will throw 
-	 * ParseException. 
+	 * ParseException.  To read the Features of a FeatureCollection use {@link #readFeatures(Reader)}.
 	 * 
 	 * @param geoJsonString A valid geoJson String
 	 * @return Shape The shape described by the geoJson.
@@ -72,7 +131,118 @@ public class TamrGeoUtils {
 	 * @throws ParseException
 	 */
 	public Shape fromGeoJson(String geoJsonString) throws InvalidShapeException, IOException, ParseException {
-		return reader.read(geoJsonString);
+		OperationMetrics.Sample sample = metrics.start("fromGeoJson");
+		Shape shape;
+		try {
+			shape = reader.read(geoJsonString);
+		} catch (IOException | ParseException | RuntimeException e) {
+			metrics.completed(sample, 0, e);
+			throw e;
+		}
+		metrics.completed(sample, OperationMetrics.vertices(shape), null);
+		return shape;
+	}
+
+	/**
+	 * Create a {@link Shape} from UTF-8 encoded geoJson, such as a geoJson column read from a file or a message, 
+	 * without decoding it to a String first.  The geoJson is tokenized directly from the bytes and coordinates are 
+	 * parsed straight into the Shape's coordinate arrays, which is several times faster than 
+	 * {@link #fromGeoJson(String)} with far less garbage.  The Shape, and the exceptions thrown for invalid geoJson, 
+	 * are exactly those {@link #fromGeoJson(String)} returns and throws for the same geoJson.
+	 * 
+	 * @param utf8GeoJson Valid UTF-8 encoded geoJson
+	 * @return Shape The shape described by the geoJson.
+	 * @throws InvalidShapeException
+	 * @throws IOException
+	 * @throws ParseException
+	 */
+	public Shape fromGeoJson(byte[] utf8GeoJson) throws InvalidShapeException, IOException, ParseException {
+		return fromGeoJson(ByteBuffer.wrap(utf8GeoJson));
+	}
+
+	/**
+	 * Create a {@link Shape} from the UTF-8 encoded geoJson between the position and limit of a buffer, which may be 
+	 * a direct or memory mapped buffer.  The position of the buffer is not changed.  See {@link #fromGeoJson(byte[])}.
+	 * 
+	 * @param utf8GeoJson Valid UTF-8 encoded geoJson
+	 * @return Shape The shape described by the geoJson.
+	 * @throws InvalidShapeException
+	 * @throws IOException
+	 * @throws ParseException
+	 */
+	public Shape fromGeoJson(ByteBuffer utf8GeoJson) throws InvalidShapeException, IOException, ParseException {
+		OperationMetrics.Sample sample = metrics.start("fromGeoJsonBytes");
+		Shape shape;
+		try {
+			shape = byteReader.read(utf8GeoJson);
+		} catch (IOException | ParseException | RuntimeException e) {
+			metrics.completed(sample, 0, e);
+			throw e;
+		}
+		metrics.completed(sample, OperationMetrics.vertices(shape), null);
+		return shape;
+	}
+
+	/**
+	 * Read the {@link Feature}s of a geoJson document one at a time.  The document is normally a FeatureCollection but 
+	 * may also be a single Feature or geometry, which is read as one Feature.  Features are parsed as they are 
+	 * requested, so only the current Feature is held in memory no matter how large the document is.
+	 * <pre>{@code
+	 *   try (FeatureReader features = gu.readFeatures(Paths.get("buildings.json"))) {
+	 *       for (Feature feature : (Iterable<Feature>) () -> features) {
+	 *           Object buildingId = feature.getProperties().get("id");
+	 *           double area = gu.calculateArea(feature.getShape());
+	 *       }
+	 *   }
+	 * }</pre>
+	 * 
+	 * @param geoJson The geoJson document
+	 * @return A FeatureReader positioned before the first Feature, close it when done
+	 * @throws IOException
+	 * @throws ParseException If the document is not a geoJson object
+	 */
+	public FeatureReader readFeatures(Reader geoJson) throws IOException, ParseException {
+		OperationMetrics.Sample sample = metrics.start("readFeatures");
+		FeatureReader features;
+		try {
+			features = new FeatureReader(reader, geoJson);
+		} catch (IOException | ParseException | RuntimeException e) {
+			metrics.completed(sample, 0, e);
+			throw e;
+		}
+		metrics.completed(sample, 0, null);
+		return features;
+	}
+
+	/**
+	 * Read the {@link Feature}s of a UTF-8 encoded geoJson document one at a time.  See {@link #readFeatures(Reader)}.
+	 * 
+	 * @param geoJson The geoJson document
+	 * @return A FeatureReader positioned before the first Feature, close it when done
+	 * @throws IOException
+	 * @throws ParseException If the document is not a geoJson object
+	 */
+	public FeatureReader readFeatures(InputStream geoJson) throws IOException, ParseException {
+		return readFeatures(new InputStreamReader(geoJson, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Read the {@link Feature}s of a UTF-8 encoded geoJson file one at a time.  See {@link #readFeatures(Reader)}.
+	 * 
+	 * @param geoJsonFile The geoJson file
+	 * @return A FeatureReader positioned before the first Feature, close it when done to close the file
+	 * @throws IOException
+	 * @throws ParseException If the document is not a geoJson object
+	 */
+	public FeatureReader readFeatures(Path geoJsonFile) throws IOException, ParseException {
+		// the parser does its own buffering
+		Reader in = new InputStreamReader(Files.newInputStream(geoJsonFile), StandardCharsets.UTF_8);
+		try {
+			return readFeatures(in);
+		} catch (IOException | ParseException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
 	}
 
 	/**
@@ -82,7 +252,185 @@ public class TamrGeoUtils {
 	 * @return A String representing this Shape as a geoJson String
 	 */
 	public String toGeoJson(Shape shape) {
-		return writer.toString(shape);
+		return metrics.isEnabled() ? metrics.record("toGeoJson", shape, null, () -> writer.toString(shape))
+				: writer.toString(shape);
+	}
+
+	/**
+	 * Output the given Shape as a geoJson String with coordinates rounded to a number of decimal places.  With 6 
+	 * decimal places the geoJson is the same as {@link #toGeoJson(Shape)}'s apart from whitespace, but it is written 
+	 * faster: the coordinates are formatted directly into the output.  7 decimal places of a degree is about a centimeter.
+	 * 
+	 * @param shape The Shape to output geoJson for
+	 * @param decimalPlaces The most decimal places to write coordinates with, from 0 to 15
+	 * @return A String representing this Shape as a geoJson String
+	 */
+	public String toGeoJson(Shape shape, int decimalPlaces) {
+		return metrics.isEnabled()
+				? metrics.record("toGeoJsonRounded", shape, null, () -> roundedGeoJson(shape, decimalPlaces))
+				: roundedGeoJson(shape, decimalPlaces);
+	}
+
+	private String roundedGeoJson(Shape shape, int decimalPlaces) {
+		StringBuilder geoJson = new StringBuilder();
+		new GeoJsonGeometryWriter(writer, decimalPlaces).write(shape, geoJson);
+		return geoJson.toString();
+	}
+
+	/**
+	 * Append the given Shape as geoJson with coordinates rounded to a number of decimal places, see 
+	 * {@link #toGeoJson(Shape, int)}.  The geoJson of a large Shape is passed on to the output in chunks as it is 
+	 * formatted rather than built as a whole, so if the Shape can not be written part of it may already have been.
+	 * 
+	 * @param shape The Shape to output geoJson for
+	 * @param decimalPlaces The most decimal places to write coordinates with, from 0 to 15
+	 * @param out Where to write the geoJson, for example a StringBuilder or a Writer
+	 * @throws IOException
+	 */
+	public void writeGeoJson(Shape shape, int decimalPlaces, Appendable out) throws IOException {
+		OperationMetrics.Sample sample = metrics.start("writeGeoJson");
+		try {
+			GeoJsonGeometryWriter geometryWriter = new GeoJsonGeometryWriter(writer, decimalPlaces);
+			if (out instanceof StringBuilder) {
+				geometryWriter.write(shape, (StringBuilder) out);
+			} else {
+				// passed on in chunks, so a large geometry is never held as a whole
+				StringBuilder geoJson = new StringBuilder(GeoJsonGeometryWriter.DRAIN_CHARS * 2);
+				geometryWriter.write(shape, geoJson, formatted -> {
+					out.append(formatted);
+					formatted.setLength(0);
+				});
+				out.append(geoJson);
+			}
+		} catch (IOException | RuntimeException e) {
+			metrics.completed(sample, OperationMetrics.vertices(shape), e);
+			throw e;
+		}
+		metrics.completed(sample, OperationMetrics.vertices(shape), null);
+	}
+
+	/**
+	 * Write {@link Feature}s as a geoJson FeatureCollection one at a time.  Only the current Feature is held in 
+	 * memory, so arbitrarily large FeatureCollections can be written.
+	 * <pre>{@code
+	 *   try (FeatureWriter out = gu.writeFeatures(Paths.get("buildings.json"), 7)) {
+	 *       for (Feature feature : features) {
+	 *           out.write(feature);
+	 *       }
+	 *   }
+	 * }</pre>
+	 * 
+	 * @param out Where to write the geoJson, closed with the FeatureWriter if it is Closeable
+	 * @param decimalPlaces The most decimal places to write coordinates with, from 0 to 15
+	 * @return A FeatureWriter, close it to finish the FeatureCollection
+	 */
+	public FeatureWriter writeFeatures(Appendable out, int decimalPlaces) {
+		return new FeatureWriter(new GeoJsonGeometryWriter(writer, decimalPlaces), out);
+	}
+
+	/**
+	 * Write {@link Feature}s as a UTF-8 encoded geoJson FeatureCollection one at a time.  See 
+	 * {@link #writeFeatures(Appendable, int)}.
+	 * 
+	 * @param out Where to write the geoJson, closed with the FeatureWriter
+	 * @param decimalPlaces The most decimal places to write coordinates with, from 0 to 15
+	 * @return A FeatureWriter, close it to finish the FeatureCollection
+	 */
+	public FeatureWriter writeFeatures(OutputStream out, int decimalPlaces) {
+		return writeFeatures(new OutputStreamWriter(out, StandardCharsets.UTF_8), decimalPlaces);
+	}
+
+	/**
+	 * Write {@link Feature}s as a UTF-8 encoded geoJson FeatureCollection one at a time.  See 
+	 * {@link #writeFeatures(Appendable, int)}.
+	 * 
+	 * @param out Where to write the geoJson, closed with the FeatureWriter
+	 * @param decimalPlaces The most decimal places to write coordinates with, from 0 to 15
+	 * @return A FeatureWriter, close it to finish the FeatureCollection
+	 */
+	public FeatureWriter writeFeatures(WritableByteChannel out, int decimalPlaces) {
+		return writeFeatures(Channels.newWriter(out, StandardCharsets.UTF_8.newEncoder(), -1), decimalPlaces);
+	}
+
+	/**
+	 * Write {@link Feature}s to a UTF-8 encoded geoJson file one at a time.  See 
+	 * {@link #writeFeatures(Appendable, int)}.  The file is created, or replaced if it exists.
+	 * 
+	 * @param geoJsonFile The file to write
+	 * @param decimalPlaces The most decimal places to write coordinates with, from 0 to 15
+	 * @return A FeatureWriter, close it to finish the FeatureCollection and close the file
+	 * @throws IOException
+	 */
+	public FeatureWriter writeFeatures(Path geoJsonFile, int decimalPlaces) throws IOException {
+		GeoJsonGeometryWriter geometryWriter = new GeoJsonGeometryWriter(writer, decimalPlaces);
+		// the FeatureWriter does its own buffering
+		return new FeatureWriter(geometryWriter,
+				new OutputStreamWriter(Files.newOutputStream(geoJsonFile), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Encode a Shape in a compact binary form, for storing or sending Shapes between processes faster than geoJson.
+	 * Polygons and lines are encoded as standard WKB, Points, Rectangles, Circles and ShapeCollections as themselves,
+	 * all with full precision, so {@link #fromBytes(byte[])} returns an identical Shape of the same kind.
+	 * 
+	 * @param shape The Shape to encode
+	 * @return The encoded Shape
+	 * @throws InvalidShapeException If the Shape is of a kind that can not be encoded
+	 */
+	public byte[] toBytes(Shape shape) {
+		return metrics.isEnabled() ? metrics.record("toBytes", shape, null, () -> shapeBytes.toBytes(shape))
+				: shapeBytes.toBytes(shape);
+	}
+
+	/**
+	 * Decode a Shape encoded by {@link #toBytes(Shape)}.
+	 * 
+	 * @param bytes The encoded Shape
+	 * @return The Shape
+	 * @throws ParseException If the bytes are not an encoded Shape
+	 */
+	public Shape fromBytes(byte[] bytes) throws ParseException {
+		OperationMetrics.Sample sample = metrics.start("fromBytes");
+		Shape shape;
+		try {
+			shape = shapeBytes.fromBytes(bytes);
+		} catch (ParseException | RuntimeException e) {
+			metrics.completed(sample, 0, e);
+			throw e;
+		}
+		metrics.completed(sample, OperationMetrics.vertices(shape), null);
+		return shape;
+	}
+
+	/**
+	 * Write Shapes to a {@link GeometryFile}, which can be read back with {@link #readGeometryFile(Path)}.  The file 
+	 * is created, or replaced if it exists.
+	 * 
+	 * @param file The file to write
+	 * @return A writer, close it to finish the file
+	 * @throws IOException
+	 */
+	public GeometryFileWriter writeGeometryFile(Path file) throws IOException {
+		OutputStream out = Files.newOutputStream(file);
+		try {
+			return new GeometryFileWriter(shapeBytes, out);
+		} catch (IOException | RuntimeException e) {
+			out.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Open a file written by {@link #writeGeometryFile(Path)}.  The file is memory mapped, Shapes are decoded from it 
+	 * as they are asked for.
+	 * 
+	 * @param file The file to read
+	 * @return The file, close it when done
+	 * @throws IOException
+	 * @throws ParseException If the file is not a GeometryFile
+	 */
+	public GeometryFile readGeometryFile(Path file) throws IOException, ParseException {
+		return new GeometryFile(shapeBytes, file);
 	}
 
 	/**
@@ -96,7 +444,12 @@ public class TamrGeoUtils {
 	 * @return a Point representing the centroid of this Shape.
 	 */
 	public Point getCentroid(Shape geometry) {
-		return geometry.getCenter();
+		return metrics.isEnabled() ? metrics.record("getCentroid", geometry, null, () -> centroid(geometry))
+				: centroid(geometry);
+	}
+
+	Point centroid(Shape geometry) {
+		return cache == null ? geometry.getCenter() : cache.centroid(geometry, Shape::getCenter);
 	}
 
 	/**
@@ -107,8 +460,13 @@ public class TamrGeoUtils {
 	 * @return The distance between the two points in Meters
 	 */
 	public double calculateDistance(Point p1, Point p2) {
+		return metrics.isEnabled() ? metrics.recordDouble("calculateDistance", p1, p2, () -> distance(p1, p2))
+				: distance(p1, p2);
+	}
+
+	double distance(Point p1, Point p2) {
 		double radiansDistance = ctx.getDistCalc().distance(p1, p2);
-		double metersDistance = Math.toRadians(radiansDistance) * 6371000;
+		double metersDistance = Math.toRadians(radiansDistance) * EARTH_RADIUS_METERS;
 		return metersDistance;
 	}
 
@@ -120,11 +478,54 @@ public class TamrGeoUtils {
 	 * @return True if the Point is contained in the given Polygon, False otherwise
 	 */
 	public boolean polygonContainsPoint(Shape polygon, Point p1) {
-		SpatialRelation relate = polygon.relate(p1);
-		if (relate.intersects()) {
-			return true;
-		}
-		return false;
+		return metrics.isEnabled()
+				? metrics.record("polygonContainsPoint", polygon, null, () -> polygon.relate(p1).intersects())
+				: polygon.relate(p1).intersects();
+	}
+
+	/**
+	 * Prepare a polygon for testing many Points against it.  Each {@link PreparedPolygon#containsPoint(Point)} test 
+	 * gives the same result as {@link #polygonContainsPoint(Shape, Point)} but only looks at the edges of the polygon 
+	 * near the Point, which is much faster for polygons with many vertices.
+	 * 
+	 * @param polygon The Polygon
+	 * @return The prepared Polygon
+	 */
+	public PreparedPolygon preparePolygon(Shape polygon) {
+		return metrics.isEnabled()
+				? metrics.record("preparePolygon", polygon, null, () -> new PreparedPolygon(polygon, shapeFactory))
+				: new PreparedPolygon(polygon, shapeFactory);
+	}
+
+	/**
+	 * Decompose a large polygon into a quadtree of small pieces for testing many Points or Shapes against it.  Each
+	 * {@link QuadtreePolygon#containsPoint(Point)}, {@link QuadtreePolygon#getIntersection(Shape)} and
+	 * {@link QuadtreePolygon#getIntersectionArea(Shape)} gives the same result as
+	 * {@link #polygonContainsPoint(Shape, Point)}, {@link #getIntersection(Shape, Shape)} and
+	 * {@link #getIntersectionArea(Shape, Shape)} but only looks at the pieces of the polygon the Point or Shape falls
+	 * in.  Cells are split until they are crossed by at most {@link QuadtreePolygon#DEFAULT_MAX_CELL_EDGES} edges.
+	 *
+	 * @param polygon The Polygon
+	 * @return The decomposed Polygon
+	 */
+	public QuadtreePolygon decomposePolygon(Shape polygon) {
+		return decomposePolygon(polygon, QuadtreePolygon.DEFAULT_MAX_CELL_EDGES);
+	}
+
+	/**
+	 * Decompose a large polygon into a quadtree of small pieces, as {@link #decomposePolygon(Shape)} does, splitting
+	 * cells until they are crossed by at most maxCellEdges edges.  Fewer edges per cell make faster queries but more
+	 * cells to build and keep.
+	 *
+	 * @param polygon The Polygon
+	 * @param maxCellEdges The most edges a cell may be crossed by before it is split, at least 1
+	 * @return The decomposed Polygon
+	 */
+	public QuadtreePolygon decomposePolygon(Shape polygon, int maxCellEdges) {
+		return metrics.isEnabled()
+				? metrics.record("decomposePolygon", polygon, null,
+						() -> new QuadtreePolygon(polygon, maxCellEdges, this, intersectionAreas))
+				: new QuadtreePolygon(polygon, maxCellEdges, this, intersectionAreas);
 	}
 	
 
@@ -138,11 +539,24 @@ public class TamrGeoUtils {
 	 * @return  The Area of the Shape in square meters
 	 */
 	public double calculateArea(Shape geometry) {
+		return metrics.isEnabled() ? metrics.recordDouble("calculateArea", geometry, null, () -> cachedArea(geometry))
+				: cachedArea(geometry);
+	}
+
+	private double cachedArea(Shape geometry) {
+		return cache == null ? area(geometry) : cache.area(geometry, this::area);
+	}
+
+	double area(Shape geometry) {
 		double squareRadians = geometry.getArea(ctx);
+		return toSquareMeters(squareRadians);
+	}
+
+	static double toSquareMeters(double squareRadians) {
 		// To convert square degrees to meters, note that the radius of a sphere whose area is equal 
 		// to that of the earth's ellipsoidal surface (an authalic sphere) is 6371 km, giving 
 		// 111,194.9 meters per degree. 
-		return Math.toRadians(squareRadians) * 6371000 * 111194.9;
+		return Math.toRadians(squareRadians) * EARTH_RADIUS_METERS * METERS_PER_DEGREE;
 	}
 	
 	/**
@@ -155,45 +569,117 @@ public class TamrGeoUtils {
 	 * @return The Shape of overlap between the two provided Shapes, or an empty Shape if there is no overlap (does not return null in that case)
 	 */
 	public Shape getIntersection(Shape s1, Shape s2) {
-		Geometry s1Geo = getGeometryFrom(s1);
-		Geometry s2Geo = getGeometryFrom(s2);
-		Geometry intersection = s1Geo.intersection(s2Geo);
-		return ((JtsShapeFactory)scFactory.makeShapeFactory(ctx)).makeShape(intersection);
+		return metrics.isEnabled() ? metrics.record("getIntersection", s1, s2, () -> cachedIntersection(s1, s2))
+				: cachedIntersection(s1, s2);
+	}
+
+	private Shape cachedIntersection(Shape s1, Shape s2) {
+		return cached("getIntersection", s1, s2, () -> {
+			Geometry s1Geo = getGeometryFrom(s1);
+			Geometry s2Geo = getGeometryFrom(s2);
+			return intersection(s1Geo, s2Geo);
+		});
 	}
 	
 	/**
 	 * Get the area of the intersection of the two provided Shapes in square Meters.  By definition the intersection of a Point 
 	 * with anything or a Line with anything will return 0.0, as Lines and Points have no area.
+	 * <p>
+	 * The area is that of {@link #getIntersection(Shape, Shape)}, but the intersection Shape is not built: Shapes that 
+	 * do not overlap return 0 at once, a Shape covered by the other returns its own area and a convex polygon is 
+	 * clipped directly, only other overlapping pairs compute the full overlay.
 	 * 
 	 * @param s1 Shape 1
 	 * @param s2 Shape 2
 	 * @return The area of overlap between the two shapes in square meters
 	 */
 	public double getIntersectionArea(Shape s1, Shape s2) {
-		Shape resultShape = getIntersection(s1, s2);
-		return calculateArea(resultShape);
+		return metrics.isEnabled()
+				? metrics.recordDouble("getIntersectionArea", s1, s2, () -> cachedIntersectionArea(s1, s2))
+				: cachedIntersectionArea(s1, s2);
+	}
+
+	private double cachedIntersectionArea(Shape s1, Shape s2) {
+		return cachedDouble("getIntersectionArea", s1, s2,
+				() -> intersectionArea(getGeometryFrom(s1), getGeometryFrom(s2)));
 	}
 	
 	/**
 	 * Move the Shape src to the location of Shape dest.  More specifically, move the centroid of src to the locaiton of the 
 	 * centroid of dest.  Although the primary use case of this is to compare Shapes similarity regardless of relative location 
 	 * note that there is no guarantee that the relocated shape will have more overlap than pre-relocation.
+	 * Use {@link #align(Shape, Shape)} for the position with the most overlap.
 	 *  
 	 * @param src  The shape to relocate
 	 * @param dest The shape that provides the location to move src to.
 	 * @return a new Shape that is identical to src, but relocated so that its centroid is now located at the centroid of dest
 	 */
 	public Shape relocate(Shape src, Shape dest) {
+		return metrics.isEnabled() ? metrics.record("relocate", src, null, () -> relocated(src, dest))
+				: relocated(src, dest);
+	}
+
+	private Shape relocated(Shape src, Shape dest) {
 		Geometry srcGeo = getGeometryFrom(src);
-		Point srcCentroid = getCentroid(src);
-		Point destCentroid = getCentroid(dest);
-		double xOffset = destCentroid.getX() - srcCentroid.getX();
-		double yOffset = destCentroid.getY() - srcCentroid.getY();
-		AffineTransformation translationInstance = AffineTransformation.translationInstance(xOffset, yOffset);
-		Geometry transformedGeo = translationInstance.transform(srcGeo);
-		Shape resultShape = ((JtsShapeFactory)scFactory.makeShapeFactory(ctx)).makeShape(transformedGeo);
+		Geometry transformedGeo = relocate(srcGeo, centroid(src), centroid(dest));
+		Shape resultShape = shapeFactory.makeShape(transformedGeo);
 		return resultShape;
-		
+	}
+	
+	/**
+	 * Move the Shape src to where it overlaps Shape dest the most, measured as the area of their intersection divided
+	 * by the area of their union.  The search starts from the centroid alignment of {@link #relocate(Shape, Shape)}
+	 * and the result never overlaps dest less than that.  Shapes without area are only relocated.
+	 * 
+	 * @param src  The shape to align
+	 * @param dest The shape to align src with
+	 * @return src moved to overlap dest the most, with that overlap
+	 */
+	public Alignment align(Shape src, Shape dest) {
+		return align(src, dest, 0);
+	}
+	
+	/**
+	 * Move and rotate the Shape src to where it overlaps Shape dest the most, as {@link #align(Shape, Shape)} does,
+	 * trying rotations about its centroid of up to maxRotationDegrees either way.  Small rotations (a few degrees)
+	 * line up footprints drawn from imagery with slightly different orientations.
+	 * 
+	 * @param src  The shape to align
+	 * @param dest The shape to align src with
+	 * @param maxRotationDegrees The largest rotation to try, from 0 to 180 degrees
+	 * @return src moved and rotated to overlap dest the most, with that overlap
+	 */
+	public Alignment align(Shape src, Shape dest, double maxRotationDegrees) {
+		return metrics.isEnabled()
+				? metrics.record("align", src, dest, () -> alignmentSearch.align(src, dest, maxRotationDegrees))
+				: alignmentSearch.align(src, dest, maxRotationDegrees);
+	}
+
+	/**
+	 * Get the {@link LocalProjection} of the region containing a Point, for computing the areas, intersections and
+	 * distances of the Shapes around it in planar meters.  The globe is divided into regions of 0.1 degrees of
+	 * latitude and longitude, all Points of a region get the same projection, centered on the region, which is
+	 * created once and kept (up to a few thousand regions).  Project all the Shapes that will be compared with each
+	 * other with the same projection, for example that of the region of the first of them.
+	 *
+	 * @param point A Point in the region
+	 * @return The projection of the region
+	 */
+	public LocalProjection getLocalProjection(Point point) {
+		// the pole and the antimeridian at 180 belong to the last row and column, not to one past them
+		long row = (long) Math.floor((Math.min(point.getY(), 89.99) + 90) / PROJECTION_REGION_DEGREES);
+		long column = (long) Math.floor((Math.min(point.getX(), 179.99) + 180) / PROJECTION_REGION_DEGREES);
+		Long region = row * 4000 + column;
+		LocalProjection projection = projections.getIfPresent(region);
+		if (projection == null) {
+			projection = new LocalProjection(this, (column + 0.5) * PROJECTION_REGION_DEGREES - 180,
+					(row + 0.5) * PROJECTION_REGION_DEGREES - 90);
+			LocalProjection previous = projections.asMap().putIfAbsent(region, projection);
+			if (previous != null) {
+				projection = previous;
+			}
+		}
+		return projection;
 	}
 	
 	/**
@@ -212,14 +698,58 @@ public class TamrGeoUtils {
 	 * @return Hausdorff Similarity normalized to [0, 1]
 	 */
 	public double getHausdorffSimilarity(Shape s1, Shape s2) {
-		Geometry s1Geo = getGeometryFrom(s1);
-		Geometry s2Geo = getGeometryFrom(s2);
-		HausdorffSimilarityMeasure hausdorffSimilarityMeasure = new HausdorffSimilarityMeasure();
-		return hausdorffSimilarityMeasure.measure(s1Geo, s2Geo);
+		return metrics.isEnabled()
+				? metrics.recordDouble("getHausdorffSimilarity", s1, s2, () -> cachedHausdorffSimilarity(s1, s2))
+				: cachedHausdorffSimilarity(s1, s2);
+	}
+
+	private double cachedHausdorffSimilarity(Shape s1, Shape s2) {
+		return cachedDouble("getHausdorffSimilarity", s1, s2, () -> {
+			Geometry s1Geo = getGeometryFrom(s1);
+			Geometry s2Geo = getGeometryFrom(s2);
+			// same result as JTS's HausdorffSimilarityMeasure, which is not thread safe
+			return HausdorffDistance.similarity(s1Geo, s2Geo);
+		});
 	}
 	
 	protected Geometry getGeometryFrom(Shape s) {
-		return ((JtsShapeFactory)scFactory.makeShapeFactory(ctx)).getGeometryFrom(s);
+		return cache == null ? shapeFactory.getGeometryFrom(s) : cache.geometry(s, shapeFactory::getGeometryFrom);
+	}
+
+	private <T> T cached(String operation, Shape s1, Shape s2, Supplier<T> compute) {
+		return cache == null ? compute.get() : cache.pair(operation, s1, s2, compute);
+	}
+
+	private double cachedDouble(String operation, Shape s1, Shape s2, DoubleSupplier compute) {
+		return cache == null ? compute.getAsDouble() : cache.pairDouble(operation, s1, s2, compute);
+	}
+
+	/*
+	 * The Geometry based steps of the operations above, shared with the batch operations which convert each Shape
+	 * to a Geometry only once.
+	 */
+
+	JtsShapeFactory getJtsShapeFactory() {
+		return shapeFactory;
+	}
+
+	Shape makeCollection(List<Shape> shapes) {
+		return reader.makeCollection(shapes);
+	}
+
+	Shape intersection(Geometry g1, Geometry g2) {
+		return shapeFactory.makeShape(g1.intersection(g2));
+	}
+
+	double intersectionArea(Geometry g1, Geometry g2) {
+		return intersectionAreas.squareMeters(g1, g2);
+	}
+
+	Geometry relocate(Geometry srcGeo, Point srcCentroid, Point destCentroid) {
+		double xOffset = destCentroid.getX() - srcCentroid.getX();
+		double yOffset = destCentroid.getY() - srcCentroid.getY();
+		AffineTransformation translationInstance = AffineTransformation.translationInstance(xOffset, yOffset);
+		return translationInstance.transform(srcGeo);
 	}
 	
 
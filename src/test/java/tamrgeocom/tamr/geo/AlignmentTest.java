@@ -0,0 +1,125 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.ShapeFactory.PolygonBuilder;
+import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
+
+import com.tamr.geo.Alignment;
+import com.tamr.geo.TamrGeoUtils;
+import com.vividsolutions.jts.geom.Polygon;
+
+class AlignmentTest {
+
+	@Test
+	void testAlignedOverlapsAtLeastAsMuchAsRelocated() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape human = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedHumanGeneratedBuilding.json"));
+		Shape ml = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedMLGeneratedBuilding.json"));
+		for (Shape[] pair : new Shape[][] { { human, ml }, { ml, human } }) {
+			double relocated = GeoUtilsTest.intersectionOverUnion(gu, gu.relocate(pair[0], pair[1]), pair[1]);
+			Alignment alignment = gu.align(pair[0], pair[1]);
+			assertThat(alignment.getIntersectionOverUnion()).isGreaterThanOrEqualTo(relocated);
+			assertThat(alignment.getIntersectionOverUnion())
+					.isCloseTo(GeoUtilsTest.intersectionOverUnion(gu, alignment.getShape(), pair[1]), within(1e-9));
+			assertThat(gu.calculateArea(alignment.getShape())).isCloseTo(gu.calculateArea(pair[0]),
+					within(gu.calculateArea(pair[0]) * 1e-3));
+			assertEquals(0.0, alignment.getRotationDegrees());
+		}
+	}
+
+	@Test
+	void testFindsOverlapCentroidsMiss() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		// a 20 m square, and the same square with a 40 m tail that pulls its centroid away from the square
+		double d = 20 / 111194.9;
+		double x = -76.94;
+		double y = 0.001;
+		Shape square = sf.polygon().pointXY(x, y).pointXY(x + d, y).pointXY(x + d, y + d).pointXY(x, y + d)
+				.pointXY(x, y).build();
+		Shape withTail = sf.polygon().pointXY(x, y).pointXY(x + 3 * d, y).pointXY(x + 3 * d, y + d / 2)
+				.pointXY(x + d, y + d / 2).pointXY(x + d, y + d).pointXY(x, y + d).pointXY(x, y).build();
+		double best = gu.calculateArea(square) / gu.calculateArea(withTail);
+
+		double relocated = GeoUtilsTest.intersectionOverUnion(gu, gu.relocate(square, withTail), withTail);
+		Alignment alignment = gu.align(square, withTail);
+		assertThat(relocated).isLessThan(best * 0.8);
+		assertThat(alignment.getIntersectionOverUnion()).isCloseTo(best, within(best * 0.02));
+		assertThat(alignment.getOffsetMeters()).isGreaterThan(5);
+	}
+
+	@Test
+	void testFindsRotation() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Shape src = rectangle(sf, -76.94, 38.89, 30, 10, 0);
+		Shape dest = rectangle(sf, -76.94, 38.89, 30, 10, 5);
+
+		Alignment moved = gu.align(src, dest);
+		Alignment rotated = gu.align(src, dest, 10);
+		assertThat(rotated.getIntersectionOverUnion()).isGreaterThan(0.95);
+		assertThat(rotated.getIntersectionOverUnion()).isGreaterThan(moved.getIntersectionOverUnion());
+		assertThat(rotated.getRotationDegrees()).isCloseTo(5, within(1.5));
+	}
+
+	@Test
+	void testSingleMemberMultiPolygon() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		JtsShapeFactory sf = (JtsShapeFactory) gu.getSpatialContext().getShapeFactory();
+		Shape src = rectangle(sf, -76.94, 38.89, 30, 10, 0);
+		Shape dest = rectangle(sf, -76.94, 38.89, 30, 10, 90);
+		Polygon polygon = (Polygon) sf.getGeometryFrom(src);
+		Shape multi = sf.makeShape(sf.getGeometryFactory().createMultiPolygon(new Polygon[] { polygon }));
+
+		for (Shape shape : new Shape[] { src, multi }) {
+			Alignment alignment = gu.align(shape, dest, 90);
+			assertThat(alignment.getIntersectionOverUnion()).isGreaterThan(0.95);
+			assertThat(Math.abs(alignment.getRotationDegrees())).isCloseTo(90, within(1.5));
+		}
+	}
+
+	@Test
+	void testShapesWithoutArea() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape building = gu.fromGeoJson(GeoUtilsTest.readFile("oneStoryHouse.json"));
+		Shape point = gu.fromGeoJson(GeoUtilsTest.readFile("identicalBuildingCentroid1.json"));
+		Shape line = gu.fromGeoJson(GeoUtilsTest.readFile("lineBetween2IdenticalBuildingCentroids.json"));
+
+		assertEquals(0.0, gu.align(point, building).getIntersectionOverUnion());
+		assertEquals(0.0, gu.align(line, building, 5).getIntersectionOverUnion());
+		assertEquals(gu.getCentroid(building), gu.getCentroid(gu.align(point, building).getShape()));
+		assertEquals(0.0, gu.align(building, line).getIntersectionOverUnion());
+	}
+
+	@Test
+	void testInvalidRotation() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape building = gu.fromGeoJson(GeoUtilsTest.readFile("oneStoryHouse.json"));
+		assertThatThrownBy(() -> gu.align(building, building, -1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> gu.align(building, building, Double.NaN))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// A rectangle of the given size in meters centered on x, y and rotated counterclockwise
+	private static Shape rectangle(ShapeFactory sf, double x, double y, double width, double height, double degrees) {
+		double mx = 111194.9 * Math.cos(Math.toRadians(y));
+		double my = 111194.9;
+		double cos = Math.cos(Math.toRadians(degrees));
+		double sin = Math.sin(Math.toRadians(degrees));
+		double[][] corners = { { -1, -1 }, { 1, -1 }, { 1, 1 }, { -1, 1 }, { -1, -1 } };
+		PolygonBuilder builder = sf.polygon();
+		for (double[] corner : corners) {
+			double cx = corner[0] * width / 2;
+			double cy = corner[1] * height / 2;
+			builder.pointXY(x + (cx * cos - cy * sin) / mx, y + (cx * sin + cy * cos) / my);
+		}
+		return builder.build();
+	}
+}
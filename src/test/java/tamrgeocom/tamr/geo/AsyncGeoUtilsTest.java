@@ -0,0 +1,166 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.tamr.geo.AsyncGeoUtils;
+import com.tamr.geo.TamrGeoUtils;
+
+class AsyncGeoUtilsTest {
+
+	private static final String[] FIXTURES = { "pentagon.json", "uShapedHumanGeneratedBuilding.json",
+			"uShapedMLGeneratedBuilding.json", "oneStoryHouse.json", "exaggeratedUShapedBuilding.json" };
+
+	@Test
+	void testSameResultsAsTamrGeoUtils() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> shapes = new ArrayList<>();
+		for (String fixture : FIXTURES) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		try (AsyncGeoUtils async = new AsyncGeoUtils(gu, 4, 8)) {
+			List<CompletableFuture<Double>> areas = new ArrayList<>();
+			List<CompletableFuture<Double>> hausdorff = new ArrayList<>();
+			for (Shape s1 : shapes) {
+				for (Shape s2 : shapes) {
+					areas.add(async.getIntersectionArea(s1, s2, 10, TimeUnit.SECONDS));
+					hausdorff.add(async.getHausdorffSimilarity(s1, s2, 10, TimeUnit.SECONDS));
+				}
+			}
+			int i = 0;
+			for (Shape s1 : shapes) {
+				assertEquals(gu.calculateArea(s1), async.calculateArea(s1, 10, TimeUnit.SECONDS).get());
+				for (Shape s2 : shapes) {
+					assertEquals(gu.getIntersectionArea(s1, s2), areas.get(i).get());
+					assertEquals(gu.getHausdorffSimilarity(s1, s2), hausdorff.get(i).get());
+					assertEquals(gu.calculateArea(gu.getIntersection(s1, s2)),
+							gu.calculateArea(async.getIntersection(s1, s2, 10, TimeUnit.SECONDS).get()));
+					i++;
+				}
+			}
+			assertEquals(0, async.getTimeoutCount());
+			assertEquals(0, async.getPendingCount());
+		}
+	}
+
+	@Test
+	void testDeadlinesAndFallbacks() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape human = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedHumanGeneratedBuilding.json"));
+		Shape ml = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedMLGeneratedBuilding.json"));
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger ran = new AtomicInteger();
+		try (AsyncGeoUtils async = new AsyncGeoUtils(gu, 1, 10)) {
+			// occupy the only thread past the deadlines of the operations queued behind it
+			CompletableFuture<Double> stuck = async.submit(g -> {
+				awaitQuietly(release);
+				return g.calculateArea(human);
+			}, 50, TimeUnit.MILLISECONDS, () -> -1.0);
+			CompletableFuture<Double> area = async.getIntersectionArea(human, ml, 50, TimeUnit.MILLISECONDS);
+			CompletableFuture<Shape> intersection = async.getIntersection(human, ml, 50, TimeUnit.MILLISECONDS);
+			CompletableFuture<Integer> queued = async.submit(g -> ran.incrementAndGet(), 50, TimeUnit.MILLISECONDS,
+					() -> -1);
+
+			assertEquals(-1.0, stuck.get(5, TimeUnit.SECONDS));
+			assertEquals(gu.getIntersectionArea(human.getBoundingBox(), ml.getBoundingBox()),
+					area.get(5, TimeUnit.SECONDS));
+			assertThat(area.get()).isGreaterThan(gu.getIntersectionArea(human, ml));
+			assertEquals(gu.calculateArea(gu.getIntersection(human.getBoundingBox(), ml.getBoundingBox())),
+					gu.calculateArea(intersection.get(5, TimeUnit.SECONDS)));
+			assertEquals(-1, (int) queued.get(5, TimeUnit.SECONDS));
+			assertEquals(4, async.getTimeoutCount());
+			assertEquals(4, async.getPendingCount());
+
+			// the operations queued behind the stuck one are skipped once it finishes
+			release.countDown();
+			waitForNoPending(async);
+			assertEquals(0, ran.get());
+			assertEquals(3, async.getSkippedCount());
+
+			// a cancelled operation is not run either
+			CountDownLatch release2 = new CountDownLatch(1);
+			async.submit(g -> awaitQuietly(release2), 10, TimeUnit.SECONDS, () -> false);
+			async.submit(g -> ran.incrementAndGet(), 10, TimeUnit.SECONDS, () -> -1).cancel(false);
+			release2.countDown();
+			waitForNoPending(async);
+			assertEquals(0, ran.get());
+			assertEquals(4, async.getSkippedCount());
+
+			// failures are not replaced by the fallback
+			CompletableFuture<Object> failed = async.submit(g -> {
+				throw new IllegalStateException("bad geometry");
+			}, 10, TimeUnit.SECONDS, () -> null);
+			assertThatThrownBy(() -> failed.get()).isInstanceOf(ExecutionException.class)
+					.hasCauseInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	@Test
+	void testBackPressure() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CountDownLatch release = new CountDownLatch(1);
+		try (AsyncGeoUtils async = new AsyncGeoUtils(gu, executor, 3)) {
+			for (int i = 0; i < 3; i++) {
+				async.submit(g -> awaitQuietly(release), 10, TimeUnit.SECONDS, () -> false);
+			}
+			assertEquals(3, async.getPendingCount());
+			// no room: the call waits up to its deadline, then falls back without queueing anything
+			long start = System.nanoTime();
+			CompletableFuture<String> rejected = async.submit(g -> "ran", 100, TimeUnit.MILLISECONDS,
+					() -> "fallback");
+			assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+			assertTrue(rejected.isDone());
+			assertEquals("fallback", rejected.get());
+			assertEquals(3, async.getPendingCount());
+
+			// a call waiting for room goes ahead as soon as there is some
+			CompletableFuture<CompletableFuture<String>> waiting = CompletableFuture
+					.supplyAsync(() -> async.submit(g -> "ran", 10, TimeUnit.SECONDS, () -> "fallback"));
+			Thread.sleep(50);
+			assertThat(waiting).isNotDone();
+			release.countDown();
+			assertEquals("ran", waiting.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+			waitForNoPending(async);
+		}
+		executor.shutdown();
+		assertThatThrownBy(() -> new AsyncGeoUtils(gu, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+
+		AsyncGeoUtils closed = new AsyncGeoUtils(gu, 1, 1);
+		closed.close();
+		assertThatThrownBy(() -> closed.submit(g -> 1, 1, TimeUnit.SECONDS, () -> 0).get())
+				.hasCauseInstanceOf(RejectedExecutionException.class);
+		assertEquals(0, closed.getPendingCount());
+	}
+
+	private static boolean awaitQuietly(CountDownLatch latch) {
+		try {
+			return latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void waitForNoPending(AsyncGeoUtils async) throws InterruptedException {
+		for (int i = 0; i < 500 && async.getPendingCount() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, async.getPendingCount());
+	}
+}
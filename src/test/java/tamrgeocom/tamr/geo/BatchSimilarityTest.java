@@ -0,0 +1,124 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.tamr.geo.BatchSimilarity;
+import com.tamr.geo.CandidatePairs;
+import com.tamr.geo.SimilarityResults;
+import com.tamr.geo.SpatialIndex;
+import com.tamr.geo.TamrGeoUtils;
+
+class BatchSimilarityTest {
+
+	private static final String[] POLYGONS = { "uShapedHumanGeneratedBuilding.json", "uShapedMLGeneratedBuilding.json",
+			"exaggeratedUShapedBuilding.json", "identicalBuilding1.json", "identicalBuilding2.json",
+			"oneStoryHouse.json", "pentagon.json", "coloradoCourse.json" };
+
+	private static List<Shape> readShapes(TamrGeoUtils gu, String... fileNames) throws Exception {
+		List<Shape> shapes = new ArrayList<>();
+		for (String fileName : fileNames) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fileName)));
+		}
+		return shapes;
+	}
+
+	private static void assertMatchesSingleOperations(TamrGeoUtils gu, List<Shape> left, List<Shape> right,
+			SimilarityResults results) {
+		CandidatePairs pairs = results.getPairs();
+		for (int i = 0; i < results.size(); i++) {
+			Shape l = left.get(pairs.getLeft(i));
+			Shape r = right.get(pairs.getRight(i));
+			double intersectionArea = gu.getIntersectionArea(l, r);
+			double union = gu.calculateArea(l) + gu.calculateArea(r) - intersectionArea;
+			assertEquals(intersectionArea, results.getIntersectionAreas()[i]);
+			assertEquals(union > 0 ? intersectionArea / union : 0, results.getIntersectionOverUnions()[i]);
+			assertEquals(gu.calculateDistance(gu.getCentroid(l), gu.getCentroid(r)), results.getCentroidDistances()[i]);
+			assertEquals(gu.getHausdorffSimilarity(l, r), results.getHausdorffSimilarities()[i]);
+			assertThat(results.getRelocatedHausdorffSimilarities()[i])
+					.isCloseTo(gu.getHausdorffSimilarity(gu.relocate(l, r), r), within(1e-9));
+		}
+	}
+
+	@Test
+	void testAlignedPairs() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> shapes = readShapes(gu, POLYGONS);
+		List<Shape> left = new ArrayList<>();
+		List<Shape> right = new ArrayList<>();
+		for (Shape s1 : shapes) {
+			for (Shape s2 : shapes) {
+				left.add(s1);
+				right.add(s2);
+			}
+		}
+		SimilarityResults results = new BatchSimilarity(gu).compute(left, right);
+		assertEquals(left.size(), results.size());
+		assertMatchesSingleOperations(gu, left, right, results);
+
+		// a shape overlaps itself completely
+		int self = 3 * POLYGONS.length + 3;
+		assertThat(results.getIntersectionOverUnions()[self]).isCloseTo(1.0, within(1e-9));
+		assertThat(results.getHausdorffSimilarities()[self]).isCloseTo(1.0, within(1e-9));
+	}
+
+	@Test
+	void testCandidatePairs() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> human = readShapes(gu, POLYGONS);
+		List<Shape> ml = new ArrayList<>();
+		for (Shape s : human) {
+			ml.add(gu.relocate(s, gu.getSpatialContext().getShapeFactory().pointXY(s.getCenter().getX() + 0.00002,
+					s.getCenter().getY())));
+		}
+		CandidatePairs pairs = new SpatialIndex(human).candidatePairs(ml, 10);
+		assertTrue(pairs.size() >= human.size());
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			SimilarityResults results = new BatchSimilarity(gu, pool).compute(ml, human, pairs);
+			assertSame(pairs, results.getPairs());
+			assertMatchesSingleOperations(gu, ml, human, results);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void testSelfPairs() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> shapes = readShapes(gu, POLYGONS);
+		CandidatePairs pairs = new SpatialIndex(shapes).candidatePairs(1000);
+		SimilarityResults results = new BatchSimilarity(gu).compute(shapes, shapes, pairs);
+		assertMatchesSingleOperations(gu, shapes, shapes, results);
+	}
+
+	@Test
+	void testShapesWithoutGeometry() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> left = readShapes(gu, "texas.json", "pentagon.json");
+		List<Shape> right = readShapes(gu, "pentagon.json", "pentagon.json");
+		SimilarityResults results = new BatchSimilarity(gu).compute(left, right);
+
+		// texas is a collection of shapes which has no JTS geometry, only its centroid distance can be computed
+		assertEquals(gu.calculateDistance(gu.getCentroid(left.get(0)), gu.getCentroid(right.get(0))),
+				results.getCentroidDistances()[0]);
+		assertTrue(Double.isNaN(results.getIntersectionAreas()[0]));
+		assertTrue(Double.isNaN(results.getIntersectionOverUnions()[0]));
+		assertTrue(Double.isNaN(results.getHausdorffSimilarities()[0]));
+		assertTrue(Double.isNaN(results.getRelocatedHausdorffSimilarities()[0]));
+
+		assertThat(results.getHausdorffSimilarities()[1]).isCloseTo(1.0, within(1e-9));
+		assertThat(results.getIntersectionOverUnions()[1]).isCloseTo(1.0, within(1e-9));
+	}
+}
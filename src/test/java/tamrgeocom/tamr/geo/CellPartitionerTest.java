@@ -0,0 +1,238 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+
+import com.tamr.geo.CandidatePairs;
+import com.tamr.geo.CellPartitioner;
+import com.tamr.geo.GeometryFileWriter;
+import com.tamr.geo.SpatialIndex;
+import com.tamr.geo.TamrGeoUtils;
+
+class CellPartitionerTest {
+
+	@Test
+	void testGeohash() {
+		assertEquals("ezs42", CellPartitioner.geohash(-5.6, 42.6, 5));
+		assertEquals("u4pruydqqvj", CellPartitioner.geohash(10.40744, 57.64911, 11));
+		assertEquals("s", CellPartitioner.geohash(0, 0, 1));
+		assertEquals("000000", CellPartitioner.geohash(-180, -90, 6));
+		assertEquals("zzzzzz", CellPartitioner.geohash(180, 90, 6));
+		ShapeFactory sf = new TamrGeoUtils().getSpatialContext().getShapeFactory();
+		assertEquals("dqcjp", new CellPartitioner(5, 4).cell(sf.pointXY(-77.03, 38.89)));
+		assertThatThrownBy(() -> new CellPartitioner(0, 4)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new CellPartitioner(13, 4)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new CellPartitioner(5, 0)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testCover() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		CellPartitioner partitioner = new CellPartitioner(4, 5);
+		Random random = new Random(3);
+		for (int i = 0; i < 200; i++) {
+			double x = -180 + random.nextDouble() * 360;
+			double y = -80 + random.nextDouble() * 160;
+			double w = random.nextDouble();
+			double h = random.nextDouble() / 2;
+			double maxX = x + w > 180 ? x + w - 360 : x + w;
+			Shape rect = sf.rect(x, maxX, y, y + h);
+			List<String> cover = partitioner.cover(rect, 0);
+			assertThat(cover).isSorted().doesNotHaveDuplicates();
+
+			// every point of the rectangle is in a covering cell, and every covering cell touches the rectangle
+			List<String> sampled = new ArrayList<>();
+			for (double dx : steps(w)) {
+				for (double dy : steps(h)) {
+					double px = x + dx > 180 ? x + dx - 360 : x + dx;
+					sampled.add(CellPartitioner.geohash(px, y + dy, 4));
+				}
+			}
+			assertThat(cover).containsAll(sampled).containsOnlyElementsOf(sampled);
+
+			int[] partitions = partitioner.partitions(rect, 0);
+			assertThat(partitions).isSorted();
+			for (String cell : cover) {
+				assertThat(partitions).contains(partitioner.partition(cell));
+			}
+		}
+		// crossing the dateline, and expanded across it
+		assertThat(partitioner.cover(sf.rect(179.9, -179.9, 10, 10.1), 0)).containsExactly("81b0", "81b1", "xczb",
+				"xczc");
+		assertThat(partitioner.cover(sf.rect(179.95, 179.96, 10, 10.01), 0)).containsExactly("xczb");
+		assertThat(partitioner.cover(sf.rect(179.95, 179.96, 10, 10.01), 20000)).contains("xczb", "81b0");
+		assertThat(partitioner.cover(sf.pointXY(-50, 10), 0)).hasSize(1);
+		assertThat(new CellPartitioner(3, 5).cover(sf.rect(-180, 180, -90, 90), 0)).hasSize(1 << 15);
+		assertThat(partitioner.partitions(sf.rect(-180, 180, -90, 90), 0)).containsExactly(0, 1, 2, 3, 4);
+		assertThatThrownBy(() -> new CellPartitioner(5, 5).cover(sf.rect(-180, 180, -90, 90), 0))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(partitioner.partitions(sf.pointXY(Double.NaN, Double.NaN), 0)).isEmpty();
+	}
+
+	@Test
+	void testPartitionsReportEachPairOnce() {
+		ShapeFactory sf = new TamrGeoUtils().getSpatialContext().getShapeFactory();
+		List<Shape> shapes = testShapes(sf, 11L, 3000);
+		List<Shape> others = testShapes(sf, 12L, 2000);
+		for (double distance : new double[] { 0, 200 }) {
+			CandidatePairs expected = new SpatialIndex(shapes).candidatePairs(distance);
+			CandidatePairs expectedBetween = new SpatialIndex(others).candidatePairs(shapes, distance);
+			assertThat(expected.size()).isGreaterThan(shapes.size() / 4);
+			for (int numPartitions : new int[] { 1, 2, 7 }) {
+				CellPartitioner partitioner = new CellPartitioner(5, numPartitions);
+				CandidatePairs sharded = new CandidatePairs();
+				CandidatePairs shardedBetween = new CandidatePairs();
+				for (int p = 0; p < numPartitions; p++) {
+					sharded.addAll(partitioner.candidatePairs(shapes, distance, p));
+					shardedBetween.addAll(partitioner.candidatePairs(shapes, others, distance, p));
+				}
+				assertSamePairs(expected, sharded);
+				assertSamePairs(expectedBetween, shardedBetween);
+			}
+			CellPartitioner partitioner = new CellPartitioner(5, 3);
+			for (int i = 0; i < expected.size(); i++) {
+				Shape left = shapes.get(expected.getLeft(i));
+				Shape right = shapes.get(expected.getRight(i));
+				int partition = partitioner.pairPartition(left, right, distance);
+				assertThat(partitioner.partitions(left, distance)).contains(partition);
+				assertThat(partitioner.partitions(right, distance)).contains(partition);
+			}
+		}
+		CellPartitioner partitioner = new CellPartitioner(5, 3);
+		assertEquals(-1, partitioner.pairPartition(sf.rect(0, 1, 0, 1), sf.rect(2, 3, 0, 1), 0));
+		assertThatThrownBy(() -> partitioner.candidatePairs(shapes, 0, 3))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testShardedProcessesMatchSingleNode() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		List<Shape> shapes = testShapes(sf, 21L, 4000);
+		List<Shape> others = testShapes(sf, 22L, 3000);
+		double distance = 50;
+		int numPartitions = 3;
+
+		Path dir = Files.createTempDirectory("shards");
+		Path shapesFile = write(gu, dir.resolve("shapes.bin"), shapes);
+		Path othersFile = write(gu, dir.resolve("others.bin"), others);
+		try {
+			String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+			List<Process> processes = new ArrayList<>();
+			List<Path> outputs = new ArrayList<>();
+			for (int p = 0; p < numPartitions; p++) {
+				for (boolean between : new boolean[] { false, true }) {
+					Path output = dir.resolve("pairs-" + p + "-" + between + ".bin");
+					outputs.add(output);
+					List<String> command = new ArrayList<>(Arrays.asList(java, "-cp",
+							System.getProperty("java.class.path"), ShardWorker.class.getName(), "5",
+							String.valueOf(numPartitions), String.valueOf(p), String.valueOf(distance),
+							output.toString(), shapesFile.toString()));
+					if (between) {
+						command.add(othersFile.toString());
+					}
+					processes.add(new ProcessBuilder(command).inheritIO().start());
+				}
+			}
+			for (Process process : processes) {
+				assertThat(process.waitFor(2, TimeUnit.MINUTES)).isTrue();
+				assertEquals(0, process.exitValue());
+			}
+
+			CandidatePairs sharded = new CandidatePairs();
+			CandidatePairs shardedBetween = new CandidatePairs();
+			for (int i = 0; i < outputs.size(); i++) {
+				(i % 2 == 0 ? sharded : shardedBetween).addAll(read(outputs.get(i)));
+			}
+			assertSamePairs(new SpatialIndex(shapes).candidatePairs(distance), sharded);
+			assertSamePairs(new SpatialIndex(others).candidatePairs(shapes, distance), shardedBetween);
+		} finally {
+			for (File file : dir.toFile().listFiles()) {
+				file.delete();
+			}
+			Files.delete(dir);
+		}
+	}
+
+	/*
+	 * Small rectangles in a few clusters: around Washington, across the dateline, on the equator and prime meridian
+	 * where geohash cells split, near the pole, plus a few large rectangles and some points.
+	 */
+	private static List<Shape> testShapes(ShapeFactory sf, long seed, int count) {
+		double[][] centers = { { -77, 38.8 }, { 180, 52 }, { 0, 0 }, { 10, 88 } };
+		Random random = new Random(seed);
+		List<Shape> shapes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			double[] center = centers[i % centers.length];
+			double x = center[0] + (random.nextDouble() - 0.5) * 0.1;
+			double y = center[1] + (random.nextDouble() - 0.5) * 0.1;
+			double size = i % 100 == 0 ? 0.3 : random.nextDouble() * 0.004;
+			double maxX = x + size;
+			x = x > 180 ? x - 360 : x;
+			maxX = maxX > 180 ? maxX - 360 : maxX;
+			shapes.add(i % 10 == 0 ? sf.pointXY(x, y) : sf.rect(x, maxX, y, Math.min(90, y + size / 2)));
+		}
+		return shapes;
+	}
+
+	// from 0 to max in steps of 0.02, ending at max
+	private static double[] steps(double max) {
+		int n = (int) Math.ceil(max / 0.02);
+		double[] steps = new double[n + 1];
+		for (int i = 0; i < n; i++) {
+			steps[i] = i * 0.02;
+		}
+		steps[n] = max;
+		return steps;
+	}
+
+	private static void assertSamePairs(CandidatePairs expected, CandidatePairs actual) {
+		assertArrayEquals(sortedKeys(expected), sortedKeys(actual));
+	}
+
+	private static long[] sortedKeys(CandidatePairs pairs) {
+		long[] keys = new long[pairs.size()];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = ((long) pairs.getLeft(i) << 32) | pairs.getRight(i);
+		}
+		Arrays.sort(keys);
+		return keys;
+	}
+
+	private static Path write(TamrGeoUtils gu, Path file, List<Shape> shapes) throws Exception {
+		try (GeometryFileWriter out = gu.writeGeometryFile(file)) {
+			for (Shape shape : shapes) {
+				out.add(shape);
+			}
+		}
+		return file;
+	}
+
+	private static CandidatePairs read(Path file) throws Exception {
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+			int size = in.readInt();
+			CandidatePairs pairs = new CandidatePairs(size);
+			for (int i = 0; i < size; i++) {
+				pairs.add(in.readInt(), in.readInt());
+			}
+			return pairs;
+		}
+	}
+}
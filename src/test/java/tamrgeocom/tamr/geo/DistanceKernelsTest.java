@@ -0,0 +1,98 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+
+import com.tamr.geo.DistanceKernels;
+import com.tamr.geo.TamrGeoUtils;
+
+class DistanceKernelsTest {
+
+	/*
+	 * Random coordinates plus the awkward ones: poles, the dateline, antipodes and duplicates.
+	 */
+	private static double[][] coordinates(int count, long seed) {
+		Random random = new Random(seed);
+		double[] lons = new double[count];
+		double[] lats = new double[count];
+		double[][] special = { { 0, 90 }, { 0, -90 }, { 180, 0 }, { -180, 0 }, { 179.9999, 45 }, { -179.9999, 45 },
+				{ 0, 0 }, { -76.94, 38.89 }, { 103.06, -38.89 }, { -76.94, 38.89 } };
+		for (int i = 0; i < count; i++) {
+			if (i < special.length) {
+				lons[i] = special[i][0];
+				lats[i] = special[i][1];
+			} else {
+				lons[i] = random.nextDouble() * 360 - 180;
+				lats[i] = random.nextDouble() * 180 - 90;
+			}
+		}
+		return new double[][] { lons, lats };
+	}
+
+	private static double expected(TamrGeoUtils gu, double lon1, double lat1, double lon2, double lat2) {
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		return gu.calculateDistance(sf.pointXY(lon1, lat1), sf.pointXY(lon2, lat2));
+	}
+
+	@Test
+	void testSameDistancesAsCalculateDistance() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		double[][] a = coordinates(200, 1L);
+		double[][] b = coordinates(150, 2L);
+		double[] lons1 = a[0], lats1 = a[1], lons2 = b[0], lats2 = b[1];
+
+		double[] out = new double[lons1.length * lons2.length];
+		DistanceKernels.manyToMany(lons1, lats1, lons2, lats2, out);
+		for (int i = 0; i < lons1.length; i++) {
+			for (int j = 0; j < lons2.length; j++) {
+				assertEquals(expected(gu, lons1[i], lats1[i], lons2[j], lats2[j]), out[i * lons2.length + j]);
+			}
+		}
+
+		double[] row = new double[lons2.length];
+		for (int i = 0; i < lons1.length; i++) {
+			DistanceKernels.oneToMany(lons1[i], lats1[i], lons2, lats2, row);
+			for (int j = 0; j < lons2.length; j++) {
+				assertEquals(out[i * lons2.length + j], row[j]);
+				assertEquals(row[j], DistanceKernels.distance(lons1[i], lats1[i], lons2[j], lats2[j]));
+			}
+		}
+
+		double[] pairs = new double[lons2.length];
+		DistanceKernels.pairwise(lons2, lats2, Arrays.copyOf(lons1, lons2.length), Arrays.copyOf(lats1, lons2.length),
+				pairs);
+		for (int i = 0; i < lons2.length; i++) {
+			assertEquals(expected(gu, lons2[i], lats2[i], lons1[i], lats1[i]), pairs[i]);
+		}
+	}
+
+	@Test
+	void testKnownDistances() {
+		assertEquals(0.0, DistanceKernels.distance(-76.94, 38.89, -76.94, 38.89));
+		// antipodes, where the formula loses precision
+		assertEquals(Math.PI * 6371000, DistanceKernels.distance(-76.94, 38.89, 103.06, -38.89), 1);
+		assertEquals(Math.PI * 6371000, DistanceKernels.distance(0, 90, 0, -90), 1);
+		// across the dateline is the short way round
+		assertEquals(DistanceKernels.distance(-0.5, 10, 0.5, 10), DistanceKernels.distance(179.5, 10, -179.5, 10), 1e-6);
+	}
+
+	@Test
+	void testMismatchedArrays() {
+		double[] three = new double[3];
+		double[] two = new double[2];
+		assertThatThrownBy(() -> DistanceKernels.oneToMany(0, 0, three, two, three))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> DistanceKernels.oneToMany(0, 0, three, three, two))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> DistanceKernels.pairwise(three, three, two, two, three))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> DistanceKernels.manyToMany(three, three, two, two, three))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
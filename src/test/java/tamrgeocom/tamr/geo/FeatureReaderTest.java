@@ -0,0 +1,169 @@
+package tamrgeocom.tamr.geo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+
+import com.tamr.geo.Feature;
+import com.tamr.geo.FeatureReader;
+import com.tamr.geo.TamrGeoUtils;
+
+class FeatureReaderTest {
+
+	private static final String PROPERTIES_FIRST_COLLECTION = "{\"type\":\"FeatureCollection\",\"name\":\"buildings\","
+			+ "\"crs\":{\"type\":\"name\",\"properties\":{\"name\":\"urn:ogc:def:crs:OGC:1.3:CRS84\"}},\"features\":["
+			+ "{\"type\":\"Feature\",\"id\":\"b1\",\"properties\":{\"id\":\"human-17\",\"height\":3.5,\"levels\":2,"
+			+ "\"tags\":[\"school\",\"brick\"],\"source\":null},"
+			+ "\"geometry\":{\"type\":\"Point\",\"coordinates\":[-76.94044908447397,38.89268827342768]}},"
+			+ "{\"type\":\"Feature\",\"id\":2,\"geometry\":null,\"properties\":null}"
+			+ "],\"bbox\":[-77,38,-76,39]}";
+
+	@Test
+	void testReadFeatureCollection() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		try (FeatureReader features = gu.readFeatures(new StringReader(GeoUtilsTest.readFile("InvalidFeatureCollection.json")))) {
+			Feature first = features.read();
+			Feature second = features.read();
+			Feature third = features.read();
+			assertNull(features.read());
+			assertNull(features.read());
+
+			assertTrue(first.getShape() instanceof Point);
+			assertTrue(second.getShape() instanceof Point);
+			assertTrue(third.getShape() instanceof Rectangle);
+			assertTrue(first.getProperties().isEmpty());
+			assertEquals(gu.fromGeoJson("{\"type\":\"Point\",\"coordinates\":[-76.94028943777084,38.89289083237782]}"),
+					second.getShape());
+		}
+	}
+
+	@Test
+	void testReadFeatureIdsAndProperties() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		try (FeatureReader features = gu.readFeatures(new StringReader(PROPERTIES_FIRST_COLLECTION))) {
+			Feature first = features.next();
+			assertEquals("b1", first.getId());
+			Map<String, Object> properties = first.getProperties();
+			assertEquals("human-17", properties.get("id"));
+			assertEquals(3.5, properties.get("height"));
+			assertEquals(2L, properties.get("levels"));
+			assertEquals(Arrays.asList("school", "brick"), properties.get("tags"));
+			assertTrue(properties.containsKey("source"));
+			assertEquals(gu.fromGeoJson(GeoUtilsTest.readFile("identicalBuildingCentroid1.json")), first.getShape());
+
+			Feature second = features.next();
+			assertEquals(2L, second.getId());
+			assertNull(second.getShape());
+			assertTrue(second.getProperties().isEmpty());
+			assertTrue(!features.hasNext());
+		}
+	}
+
+	@Test
+	void testReadSingleFeatureMatchesFromGeoJson() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		String geoString = GeoUtilsTest.readFile("uShapedMLGeneratedBuilding.json");
+		try (FeatureReader features = gu.readFeatures(new StringReader(geoString))) {
+			Feature feature = features.read();
+			assertEquals(gu.fromGeoJson(geoString), feature.getShape());
+			assertNull(features.read());
+		}
+	}
+
+	@Test
+	void testReadBareGeometries() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		for (String fileName : new String[] { "texas.json", "alaska.json", "pentagon.json",
+				"lineBetween2IdenticalBuildingCentroids.json" }) {
+			String geoString = GeoUtilsTest.readFile(fileName);
+			try (FeatureReader features = gu.readFeatures(new StringReader(geoString))) {
+				Shape shape = features.read().getShape();
+				Shape expected = gu.fromGeoJson(geoString);
+				assertEquals(gu.calculateArea(expected), gu.calculateArea(shape));
+				assertEquals(expected instanceof ShapeCollection, shape instanceof ShapeCollection);
+				assertNull(features.read());
+			}
+		}
+	}
+
+	@Test
+	void testStreamLargeFeatureCollectionFromFile() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		String building = GeoUtilsTest.readFile("oneStoryHouse.json");
+		String geometry = building.substring(building.indexOf("\"geometry\""));
+		int count = 20000;
+		Path file = Files.createTempFile("buildings", ".json");
+		try {
+			try (Writer out = Files.newBufferedWriter(file, UTF_8)) {
+				out.write("{\"type\":\"FeatureCollection\",\"features\":[");
+				for (int i = 0; i < count; i++) {
+					out.write(i == 0 ? "" : ",");
+					out.write("{\"type\":\"Feature\",\"properties\":{\"id\":" + i + "}," + geometry);
+				}
+				out.write("]}");
+			}
+
+			double area = gu.calculateArea(gu.fromGeoJson(building));
+			long matching;
+			long idSum;
+			try (Stream<Feature> features = gu.readFeatures(file).stream()) {
+				idSum = 0;
+				matching = 0;
+				for (Feature feature : (Iterable<Feature>) features::iterator) {
+					idSum += (Long) feature.getProperties().get("id");
+					if (gu.calculateArea(feature.getShape()) == area) {
+						matching++;
+					}
+				}
+			}
+			assertEquals(count, matching);
+			assertEquals((long) count * (count - 1) / 2, idSum);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testReadInvalidJson() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		assertThatThrownBy(() -> gu.readFeatures(new StringReader(GeoUtilsTest.readFile("invalidUShapedMLGeneratedBuilding.json"))))
+				.hasMessageContaining("Expected a geoJson object");
+	}
+
+	@Test
+	void testReadNonFeatureInFeatures() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		String geoString = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Point\",\"coordinates\":[1,2]}]}";
+		try (FeatureReader features = gu.readFeatures(new StringReader(geoString))) {
+			assertThatThrownBy(features::read).hasMessageContaining("Expected a Feature but found type: Point");
+		}
+	}
+
+	@Test
+	void testFeaturesAreParsedLazily() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		// everything after the first Feature is garbage, reading the first Feature must not touch it
+		String geoString = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"properties\":{},"
+				+ "\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]}},{\"type\":\"Feature\",\"geometry\":{{{";
+		try (FeatureReader features = gu.readFeatures(new StringReader(geoString))) {
+			assertNotNull(features.read());
+		}
+	}
+}
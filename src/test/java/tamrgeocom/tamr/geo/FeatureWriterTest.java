@@ -0,0 +1,222 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.exception.InvalidShapeException;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.ShapeFactory.PolygonBuilder;
+import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
+
+import com.tamr.geo.Feature;
+import com.tamr.geo.FeatureReader;
+import com.tamr.geo.FeatureWriter;
+import com.tamr.geo.TamrGeoUtils;
+import com.vividsolutions.jts.geom.Geometry;
+
+class FeatureWriterTest {
+
+	private static final String[] FIXTURES = { "alaska.json", "coloradoCourse.json", "highSchoolVeryHighLat.json",
+			"identicalBuildingCentroid1.json", "largeWideAreaCrossingEquator.json",
+			"lineBetween2IdenticalBuildingCentroids.json", "oneStoryHouse.json", "texas.json",
+			"uShapedMLGeneratedBuilding.json" };
+
+	@Test
+	void testSameGeoJsonAsToGeoJson() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		for (String fixture : FIXTURES) {
+			Shape shape = gu.fromGeoJson(GeoUtilsTest.readFile(fixture));
+			// other than the space spatial4j writes before the coordinates of Rectangles and members of ShapeCollections
+			assertEquals(gu.toGeoJson(shape).replace("\": [", "\":["), gu.toGeoJson(shape, 6), fixture);
+		}
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Point point = sf.pointXY(-76.94044908447397, 38.89268827342768);
+		Shape circle = sf.circle(point, 0.001);
+		for (Shape shape : new Shape[] { point, circle }) {
+			assertEquals(gu.toGeoJson(shape), gu.toGeoJson(shape, 6));
+		}
+		// the rounded geoJson reads back as the same Shape, and fewer decimal places write less
+		Shape texas = gu.fromGeoJson(GeoUtilsTest.readFile("texas.json"));
+		String rounded = gu.toGeoJson(texas, 4);
+		assertThat(rounded.length()).isLessThan(gu.toGeoJson(texas).length());
+		assertEquals(rounded, gu.toGeoJson(gu.fromGeoJson(rounded), 4));
+		assertEquals("{\"type\":\"Point\",\"coordinates\":[-77,39]}", gu.toGeoJson(point, 0));
+		assertEquals("{\"type\":\"Polygon\",\"coordinates\":[[[-1,-2],[-1,2],[1.5,2],[1.5,-2],[-1,-2]]]}",
+				gu.toGeoJson(sf.rect(-1, 1.5, -2, 2), 3));
+
+		StringBuilder out = new StringBuilder("geometry=");
+		gu.writeGeoJson(point, 2, out);
+		assertEquals("geometry={\"type\":\"Point\",\"coordinates\":[-76.94,38.89]}", out.toString());
+		assertThatThrownBy(() -> gu.toGeoJson(point, 16)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testNumbersFormattedAsNumberFormat() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Random random = new Random(42);
+		List<Double> values = new ArrayList<>(Arrays.asList(0.0, -0.0, 0.0078125, -0.0078125, 1e-7, -1e-7, 0.5, 2.5,
+				179.9999999, -179.99999951, 89.123456500000, 1e-20));
+		for (int i = 0; i < 2000; i++) {
+			values.add((random.nextDouble() - 0.5) * 360);
+			// values with few significant digits, which are often close to ties
+			values.add(Math.round((random.nextDouble() - 0.5) * 3.6e9) / 1e7);
+		}
+		for (int decimalPlaces : new int[] { 0, 1, 3, 6, 7, 9, 12 }) {
+			// the format the spatial4j writer uses
+			NumberFormat nf = NumberFormat.getInstance(Locale.ROOT);
+			nf.setGroupingUsed(false);
+			nf.setMaximumFractionDigits(decimalPlaces);
+			for (double value : values) {
+				String expected = "{\"type\":\"Point\",\"coordinates\":[" + nf.format(value) + ","
+						+ nf.format(-value / 2) + "]}";
+				assertEquals(expected, gu.toGeoJson(sf.pointXY(value, -value / 2), decimalPlaces),
+						value + " to " + decimalPlaces + " decimal places");
+			}
+		}
+	}
+
+	@Test
+	void testWriteAndReadFeatures() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Map<String, Object> properties = new LinkedHashMap<>();
+		properties.put("name", "Tab\tquote\" backslash\\ \u0001 caf\u00e9");
+		properties.put("levels", 2L);
+		properties.put("height", 3.5);
+		properties.put("school", true);
+		properties.put("source", null);
+		properties.put("tags", Arrays.asList("brick", 1L, false));
+		properties.put("address", Collections.singletonMap("city", "Washington"));
+		List<Feature> features = new ArrayList<>();
+		features.add(new Feature("b1", gu.fromGeoJson(GeoUtilsTest.readFile("oneStoryHouse.json")), properties));
+		features.add(new Feature(2L, null, null));
+		features.add(new Feature(null, gu.fromGeoJson(GeoUtilsTest.readFile("texas.json")),
+				Collections.singletonMap("name", "Texas")));
+
+		StringBuilder geoJson = new StringBuilder();
+		try (FeatureWriter out = gu.writeFeatures(geoJson, 7)) {
+			for (Feature feature : features) {
+				out.write(feature);
+			}
+			// a Feature that can not be written leaves nothing of itself in the output
+			assertThatThrownBy(() -> out.write(new Feature(4, null, Collections.singletonMap("bad", new Object()))))
+					.isInstanceOf(IllegalArgumentException.class);
+			assertEquals(features.size(), out.size());
+		}
+		assertThatRoundTrips(gu, features, geoJson.toString());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (FeatureWriter out = gu.writeFeatures(bytes, 7)) {
+			for (Feature feature : features) {
+				out.write(feature);
+			}
+		}
+		assertEquals(geoJson.toString(), new String(bytes.toByteArray(), java.nio.charset.StandardCharsets.UTF_8));
+
+		Path file = Files.createTempFile("features", ".json");
+		try {
+			try (FeatureWriter out = gu.writeFeatures(file, 7)) {
+				for (Feature feature : features) {
+					out.write(feature);
+				}
+			}
+			try (FeatureReader in = gu.readFeatures(file)) {
+				assertEquals(properties, in.read().getProperties());
+			}
+			// an empty FeatureCollection
+			gu.writeFeatures(file, 7).close();
+			try (FeatureReader in = gu.readFeatures(file)) {
+				assertNull(in.read());
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testLargeGeometriesWrittenInChunks() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		PolygonBuilder builder = sf.polygon();
+		for (int i = 0; i < 100000; i++) {
+			double angle = 2 * Math.PI * i / 100000;
+			builder.pointXY(-77 + 0.01 * Math.cos(angle), 38.9 + 0.01 * Math.sin(angle));
+		}
+		Shape large = builder.pointXY(-76.99, 38.9).build();
+		String expected = gu.toGeoJson(large, 7);
+		assertThat(expected.length()).isGreaterThan(1000000);
+
+		ChunkRecordingWriter geoJson = new ChunkRecordingWriter();
+		gu.writeGeoJson(large, 7, geoJson);
+		assertEquals(expected, geoJson.toString());
+		assertThat(geoJson.largestChunk).isLessThan(1 << 15);
+
+		ChunkRecordingWriter features = new ChunkRecordingWriter();
+		try (FeatureWriter out = gu.writeFeatures(features, 7)) {
+			out.write(new Feature(1L, large, null));
+			// properties are checked before the geometry is written, so nothing of the Feature is written
+			assertThatThrownBy(() -> out.write(new Feature(2L, large, Collections.singletonMap("bad", new Object()))))
+					.isInstanceOf(IllegalArgumentException.class);
+		}
+		assertThat(features.largestChunk).isLessThan(1 << 15);
+		assertThatRoundTrips(gu, Collections.singletonList(new Feature(1L, large, null)), features.toString());
+
+		// a geometry that fails after part of it has been written leaves the writer unusable
+		JtsShapeFactory jts = (JtsShapeFactory) sf;
+		Geometry geometry = (Geometry) jts.getGeometryFrom(large).clone();
+		geometry.getCoordinates()[99990].z = Double.POSITIVE_INFINITY;
+		Shape invalid = jts.makeShape(geometry);
+		try (FeatureWriter out = gu.writeFeatures(new StringWriter(), 7)) {
+			assertThatThrownBy(() -> out.write(new Feature(3L, invalid, null)))
+					.isInstanceOf(InvalidShapeException.class);
+			assertThatThrownBy(() -> out.write(new Feature(4L, large, null))).isInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	private static class ChunkRecordingWriter extends StringWriter {
+		int largestChunk;
+
+		@Override
+		public StringWriter append(CharSequence csq) {
+			largestChunk = Math.max(largestChunk, csq.length());
+			return super.append(csq);
+		}
+	}
+
+	private static void assertThatRoundTrips(TamrGeoUtils gu, List<Feature> expected, String geoJson)
+			throws Exception {
+		try (FeatureReader in = gu.readFeatures(new StringReader(geoJson))) {
+			for (Feature feature : expected) {
+				Feature read = in.read();
+				assertEquals(feature.getId(), read.getId());
+				assertEquals(feature.getProperties(), read.getProperties());
+				if (feature.getShape() == null) {
+					assertNull(read.getShape());
+				} else {
+					assertEquals(gu.toGeoJson(feature.getShape(), 7), gu.toGeoJson(read.getShape(), 7));
+				}
+			}
+			assertNull(in.read());
+		}
+	}
+}
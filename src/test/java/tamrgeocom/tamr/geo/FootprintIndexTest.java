@@ -0,0 +1,181 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+
+import com.tamr.geo.FootprintIndex;
+import com.tamr.geo.TamrGeoUtils;
+
+class FootprintIndexTest {
+
+	@Test
+	void testQueriesMatchBruteForceWhileUpdating() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		FootprintIndex index = new FootprintIndex(gu);
+		List<Integer> live = new ArrayList<>();
+		Random random = new Random(5);
+		// clusters in Washington, across the dateline and near the north pole, plus footprints anywhere
+		double[][] centers = { { -77, 38.8 }, { 180, 52 }, { 30, 89.9 } };
+		for (int step = 0; step < 6000; step++) {
+			if (random.nextInt(4) == 0 && !live.isEmpty()) {
+				int id = live.remove(random.nextInt(live.size()));
+				assertTrue(index.delete(id));
+				assertFalse(index.delete(id));
+				assertNull(index.getShape(id));
+			} else {
+				Shape shape = randomFootprint(sf, random, centers);
+				int id = index.insert(shape);
+				assertSame(shape, index.getShape(id));
+				live.add(id);
+			}
+			assertEquals(live.size(), index.size());
+
+			if (step % 50 == 0) {
+				Point query = randomFootprint(sf, random, centers).getCenter();
+				for (int k : new int[] { 1, 5, 40 }) {
+					double[] distances = new double[k];
+					int[] nearest = index.nearest(query, k, distances);
+					List<Integer> expected = bruteForce(gu, index, live, query, Double.POSITIVE_INFINITY);
+					assertEquals(Math.min(k, live.size()), nearest.length);
+					for (int i = 0; i < nearest.length; i++) {
+						assertEquals((int) expected.get(i), nearest[i]);
+						assertEquals(gu.calculateDistance(query, index.getShape(nearest[i]).getCenter()), distances[i]);
+					}
+				}
+				for (double meters : new double[] { 0, 500, 20000, 3e7 }) {
+					List<Integer> expected = bruteForce(gu, index, live, query, meters);
+					assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(),
+							index.withinDistance(query, meters));
+				}
+			}
+		}
+	}
+
+	@Test
+	void testSortedInsertsAndDuplicateLocations() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		FootprintIndex index = new FootprintIndex(gu);
+		// a feed sweeping west to east, then many footprints at one location
+		for (int i = 0; i < 20000; i++) {
+			index.insert(sf.pointXY(-100 + i * 0.0005, 40));
+		}
+		for (int i = 0; i < 100; i++) {
+			index.insert(sf.rect(10, 10.001, 10, 10.001));
+		}
+		double[] distances = new double[3];
+		assertArrayEquals(new int[] { 10000, 9999, 10001 }, index.nearest(sf.pointXY(-95.0000001, 40), 3, distances));
+		assertThat(index.withinDistance(sf.pointXY(10.0005, 10.0005), 1)).hasSize(100).startsWith(20000, 20001);
+		for (int id = 20000; id < 20100; id++) {
+			assertTrue(index.delete(id));
+		}
+		assertThat(index.withinDistance(sf.pointXY(10.0005, 10.0005), 1)).isEmpty();
+		assertEquals(20000, index.size());
+
+		assertThatThrownBy(() -> index.insert(sf.pointXY(Double.NaN, Double.NaN)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> index.nearest(sf.pointXY(0, 0), 2, new double[1]))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(new FootprintIndex(gu).nearest(sf.pointXY(0, 0), 2, distances)).isEmpty();
+	}
+
+	@Test
+	void testManyFootprintsAtOneLocation() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		FootprintIndex index = new FootprintIndex(gu);
+		// a leaf of identical centroids can not be split, inserts into it must not rebuild it every time
+		Shape building = gu.fromGeoJson(GeoUtilsTest.readFile("identicalBuilding1.json"));
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			for (int i = 0; i < 100000; i++) {
+				index.insert(building);
+			}
+		});
+		index.insert(sf.pointXY(-77, 38.8));
+		assertEquals(100001, index.size());
+		assertThat(index.withinDistance(gu.getCentroid(building), 1)).hasSize(100000).startsWith(0, 1, 2);
+		assertArrayEquals(new int[] { 100000 }, index.nearest(sf.pointXY(-77, 38.8), 1, new double[1]));
+	}
+
+	@Test
+	void testNearDuplicates() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		FootprintIndex index = new FootprintIndex(gu);
+		Shape human = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedHumanGeneratedBuilding.json"));
+		Shape ml = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedMLGeneratedBuilding.json"));
+		Shape house = gu.fromGeoJson(GeoUtilsTest.readFile("oneStoryHouse.json"));
+		int humanId = index.insert(human);
+		index.insert(house);
+		Random random = new Random(9);
+		Point center = human.getCenter();
+		for (int i = 0; i < 300; i++) {
+			double x = center.getX() + (random.nextDouble() - 0.5) * 0.002;
+			double y = center.getY() + (random.nextDouble() - 0.5) * 0.002;
+			double size = 0.00005 + random.nextDouble() * 0.0002;
+			index.insert(sf.rect(x, x + size, y, y + size));
+		}
+
+		for (Shape query : new Shape[] { ml, human, house }) {
+			for (double[] minimums : new double[][] { { 0.5, 0.5 }, { 0.1, 0 }, { 0, 0.8 }, { 0.9, 0.9 } }) {
+				List<Integer> expected = new ArrayList<>();
+				for (int id : index.withinDistance(query.getCenter(), 30)) {
+					Shape candidate = index.getShape(id);
+					double iou = GeoUtilsTest.intersectionOverUnion(gu, query, candidate);
+					if (iou >= minimums[0] && gu.getHausdorffSimilarity(query, candidate) >= minimums[1]) {
+						expected.add(id);
+					}
+				}
+				assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(),
+						index.nearDuplicates(query, 30, minimums[0], minimums[1]));
+			}
+		}
+		assertThat(index.nearDuplicates(ml, 30, 0.5, 0.5)).startsWith(humanId);
+		assertThat(index.nearDuplicates(ml, 0.1, 0.5, 0.5)).isEmpty();
+	}
+
+	private static Shape randomFootprint(ShapeFactory sf, Random random, double[][] centers) {
+		if (random.nextInt(10) == 0) {
+			return sf.pointXY(-180 + random.nextDouble() * 360, -90 + random.nextDouble() * 180);
+		}
+		double[] center = centers[random.nextInt(centers.length)];
+		double x = center[0] + (random.nextDouble() - 0.5) * 0.5;
+		double y = Math.min(90, center[1] + (random.nextDouble() - 0.5) * 0.2);
+		x = x > 180 ? x - 360 : x;
+		double size = random.nextDouble() * 0.0005;
+		return random.nextBoolean() ? sf.pointXY(x, y) : sf.rect(x, x + size > 180 ? x + size - 360 : x + size, y,
+				Math.min(90, y + size));
+	}
+
+	private static List<Integer> bruteForce(TamrGeoUtils gu, FootprintIndex index, List<Integer> live, Point query,
+			double meters) {
+		List<Integer> found = new ArrayList<>();
+		for (int id : live) {
+			if (gu.calculateDistance(query, index.getShape(id).getCenter()) <= meters) {
+				found.add(id);
+			}
+		}
+		found.sort(Comparator.<Integer> comparingDouble(id -> gu.calculateDistance(query,
+				index.getShape(id).getCenter())).thenComparing(Comparator.naturalOrder()));
+		return found;
+	}
+}
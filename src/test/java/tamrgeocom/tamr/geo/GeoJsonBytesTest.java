@@ -0,0 +1,144 @@
+package tamrgeocom.tamr.geo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.tamr.geo.TamrGeoUtils;
+
+class GeoJsonBytesTest {
+
+	private static final String[] FIXTURES = { "alaska.json", "coloradoCourse.json",
+			"exaggeratedUShapedBuilding.json", "highSchoolVeryHighLat.json", "identicalBuilding1.json",
+			"identicalBuilding2.json", "identicalBuildingCentroid1.json", "identicalBuildingCentroid2.json",
+			"largeTallAreaCrossingEquator.json", "largeWideAreaCrossingEquator.json",
+			"lineBetween2IdenticalBuildingCentroids.json", "oneStoryHouse.json", "pentagon.json", "texas.json",
+			"uShapedHumanGeneratedBuilding.json", "uShapedMLGeneratedBuilding.json",
+			"invalidUShapedMLGeneratedBuilding.json", "InvalidFeatureCollection.json" };
+
+	@Test
+	void testSameShapesAsFromString() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		for (String fixture : FIXTURES) {
+			assertSameAsFromString(gu, GeoUtilsTest.readFile(fixture));
+		}
+		String[] geometries = {
+				"{\"type\":\"Point\",\"coordinates\":[-76.94044908447397,38.89268827342768]}",
+				"{\"type\":\"Point\",\"coordinates\":[1e1,-2.5E-1,300]}",
+				"{\"coordinates\":[-0,0.0000000000000000000000123456789],\"type\":\"Point\"}",
+				"{\"type\":\"Point\",\"coordinates\":[12.345678901234567890123,1.0000000000000000000001]}",
+				"{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1],[2,0.5]]}",
+				"{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]],\"buffer\":10,\"buffer_units\":\"km\"}",
+				"{\"type\":\"MultiPoint\",\"coordinates\":[[0,0],[1,1,5]]}",
+				"{\"type\":\"MultiLineString\",\"coordinates\":[[[0,0],[1,1]],[[2,2],[3,3]]]}",
+				"{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[0,1],[1,1],[1,0],[0,0]]]}",
+				"{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[0,10],[10,10],[10,0],[0,0]],"
+						+ "[[2,2],[4,2],[4,4],[2,4],[2,2]]]}",
+				"{\"type\":\"MultiPolygon\",\"coordinates\":[[[[0,0],[0,1],[1,2],[0,0]]],[[[5,5],[5,6],[6,7],[5,5]]]]}",
+				"{\"type\":\"Polygon\",\"coordinates\":[[[179,0],[-179,0],[-179,1],[179,1],[179,0]]]}",
+				"{\"type\":\"GeometryCollection\",\"geometries\":[{\"type\":\"Point\",\"coordinates\":[1,2]},"
+						+ "{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]]}]}",
+				"{\"type\":\"Circle\",\"coordinates\":[1,2],\"radius\":10,\"properties\":{\"radius_units\":\"km\"}}",
+				"{\"type\":\"Feature\",\"properties\":{},\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]}}",
+				"{\"type\":\"Feature\",\"properties\":{\"height\":3,\"tags\":[true,null]},\"geometry\":"
+						+ "{\"type\":\"Point\",\"coordinates\":[1,2]},\"id\":7}",
+				" \n\t{ \"type\" : \"Point\" , \"coordinates\" : [ 1 , 2 ] } \n",
+				"{\"type\":\"Point\",\"coordinates\":[1,2]} trailing text",
+				"{\"type\":\"Poly\\u0067on\",\"coordinates\":[[[0,0],[0,1],[1,2],[0,0]]]}",
+				"{'type':'Point','coordinates':[1,2,],}",
+				"{\"type\":\"Point\",\"coordinates\":[1,2]/* comment */}",
+				"{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[0,1],[1,2],[0,1]]]}",
+				"{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[1,1],[0,1],[1,0],[0,0]]]}",
+				"{\"type\":\"Point\",\"coordinates\":[200,2]}",
+				"{\"type\":\"Point\",\"coordinates\":[1,2}",
+				"{\"type\":\"Point\",\"coordinates\":[1,\"2\"]}",
+				"{\"type\":\"Point\",\"coordinates\":[1,2]",
+				"{\"type\":\"Pointy\",\"coordinates\":[1,2]}",
+				"{\"type\":\"Point\",\"bbox\":[1,2,1,2],\"coordinates\":[1,2]}",
+				"{\"type\":\"GeometryCollection\",\"geometries\":[]}",
+				"{\"type\":\"Point\"}",
+				"[1,2]",
+				"{\"type\":\"Point\",\"coordinates\":[01,2]}",
+				"{\"type\":\"Point\",\"coordinates\":[1.,2]}",
+				"" };
+		for (String geometry : geometries) {
+			assertSameAsFromString(gu, geometry);
+		}
+	}
+
+	@Test
+	void testNumbersParsedExactly() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			double x = (random.nextDouble() - 0.5) * 360;
+			double y = (random.nextDouble() - 0.5) * 180;
+			String geoJson = "{\"type\":\"Point\",\"coordinates\":[" + format(x, i) + "," + format(y, i + 1) + "]}";
+			assertSameAsFromString(gu, geoJson);
+		}
+	}
+
+	@Test
+	void testByteBuffers() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		String texas = GeoUtilsTest.readFile("texas.json");
+		byte[] bytes = texas.getBytes(UTF_8);
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 10);
+		direct.position(5);
+		direct.put(bytes);
+		direct.position(5).limit(5 + bytes.length);
+		Shape shape = gu.fromGeoJson(direct);
+		assertEquals(5, direct.position());
+		assertArrayEquals(gu.toBytes(gu.fromGeoJson(texas)), gu.toBytes(shape));
+	}
+
+	private static String format(double value, int form) {
+		switch (form % 5) {
+		case 0:
+			return Double.toString(value);
+		case 1:
+			return String.format(Locale.ROOT, "%.7f", value);
+		case 2:
+			return String.format(Locale.ROOT, "%.17f", value);
+		case 3:
+			return String.format(Locale.ROOT, "%.3e", value);
+		default:
+			return Math.round(value * 1e6) + "e-6";
+		}
+	}
+
+	private static void assertSameAsFromString(TamrGeoUtils gu, String geoJson) {
+		Object expected;
+		try {
+			Shape shape = gu.fromGeoJson(geoJson);
+			expected = shape.getClass().getName() + " " + shapeBytes(gu, shape);
+		} catch (Exception e) {
+			expected = e.getClass().getName() + ": " + e.getMessage();
+		}
+		Object actual;
+		try {
+			Shape shape = gu.fromGeoJson(geoJson.getBytes(UTF_8));
+			actual = shape.getClass().getName() + " " + shapeBytes(gu, shape);
+		} catch (Exception e) {
+			actual = e.getClass().getName() + ": " + e.getMessage();
+		}
+		assertEquals(expected, actual, geoJson.length() > 200 ? geoJson.substring(0, 200) : geoJson);
+	}
+
+	// the exact coordinates of the Shape, or its geoJson for the few Shapes that can not be encoded
+	private static String shapeBytes(TamrGeoUtils gu, Shape shape) {
+		try {
+			return Arrays.toString(gu.toBytes(shape));
+		} catch (RuntimeException e) {
+			return gu.toGeoJson(shape);
+		}
+	}
+}
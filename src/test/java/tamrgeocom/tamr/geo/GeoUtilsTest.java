@@ -9,15 +9,29 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
 import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
 import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
 import org.locationtech.spatial4j.shape.ShapeFactory;
 import org.locationtech.spatial4j.shape.ShapeFactory.LineStringBuilder;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
 
 import com.google.common.io.Resources;
 import com.tamr.geo.TamrGeoUtils;
+import com.vividsolutions.jts.algorithm.match.HausdorffSimilarityMeasure;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
 
 class GeoUtilsTest {
 
@@ -410,6 +424,41 @@ class GeoUtilsTest {
 		assertTrue(change < ACCEPTABLE_LENGTH_DEVIANCE);
 	}
 	
+	/*
+	 * getHausdorffSimilarity doesn't use JTS's (not thread safe) implementation, but must give exactly the same results.
+	 */
+	@Test
+	void testHausdorffSimilarityMatchesJts() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		JtsShapeFactory sf = (JtsShapeFactory) gu.getSpatialContext().getShapeFactory();
+		String[] fileNames = { "uShapedHumanGeneratedBuilding.json", "uShapedMLGeneratedBuilding.json", 
+				"identicalBuilding1.json", "identicalBuilding2.json", "pentagon.json", "oneStoryHouse.json", 
+				"identicalBuildingCentroid1.json", "lineBetween2IdenticalBuildingCentroids.json", "largeWideAreaCrossingEquator.json" };
+		for (String fileName1 : fileNames) {
+			for (String fileName2 : fileNames) {
+				Shape s1 = gu.fromGeoJson(readFile(fileName1));
+				Shape s2 = gu.fromGeoJson(readFile(fileName2));
+				double expected = new HausdorffSimilarityMeasure().measure(sf.getGeometryFrom(s1), sf.getGeometryFrom(s2));
+				assertEquals(expected, gu.getHausdorffSimilarity(s1, s2), fileName1 + " vs " + fileName2);
+			}
+		}
+	}
+
+	@Test
+	void testHausdorffSimilaritySkipsEmptyParts() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		JtsShapeFactory sf = (JtsShapeFactory) gu.getSpatialContext().getShapeFactory();
+		GeometryFactory gf = sf.getGeometryFactory();
+		Shape house = gu.fromGeoJson(readFile("oneStoryHouse.json"));
+		Coordinate corner = sf.getGeometryFrom(house).getCoordinate();
+		Shape point = sf.makeShape(gf.createMultiPoint(new com.vividsolutions.jts.geom.Point[] { gf.createPoint(corner) }));
+		Shape withEmpty = sf.makeShape(gf.createMultiPoint(new com.vividsolutions.jts.geom.Point[] {
+				gf.createPoint(corner), gf.createPoint((Coordinate) null) }));
+		double expected = new HausdorffSimilarityMeasure().measure(sf.getGeometryFrom(house), sf.getGeometryFrom(point));
+		assertEquals(expected, gu.getHausdorffSimilarity(house, withEmpty));
+		assertEquals(expected, gu.getHausdorffSimilarity(withEmpty, house));
+	}
+	
 	/*
 	 * Relocation of point to point.  No calculations done here, just moving the origin to the dest
 	 */
@@ -441,10 +490,81 @@ class GeoUtilsTest {
 		assertTrue(gu.calculateDistance(gu.getCentroid(relocatedShape), gu.getCentroid(bldg2Shape)) < ACCEPTABLE_LENGTH_DEVIANCE);
 	}
 
+	/*
+	 * One instance shared by many threads must give the same answers as when it is used by a single thread.
+	 */
+	@Test
+	void testSharedAcrossThreads() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		String humanJson = readFile("uShapedHumanGeneratedBuilding.json");
+		String mlJson = readFile("uShapedMLGeneratedBuilding.json");
+		Callable<String> work = () -> {
+			Shape human = gu.fromGeoJson(humanJson);
+			Shape ml = gu.fromGeoJson(mlJson);
+			Shape relocated = gu.relocate(human, ml);
+			return gu.calculateArea(human) + " " + gu.getIntersectionArea(human, ml) + " "
+					+ gu.getHausdorffSimilarity(human, ml) + " " + gu.getIntersectionArea(relocated, ml) + " "
+					+ gu.polygonContainsPoint(ml, gu.getCentroid(ml)) + " " + gu.toGeoJson(relocated);
+		};
+		String expected = work.call();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				results.add(executor.submit(work));
+			}
+			for (Future<String> result : results) {
+				assertEquals(expected, result.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	static String readFile(final String fileName) throws IOException {
 		final String path = String.format("%s/%s", GEOJSON_DIR, fileName);
 		final URL responsesUrl = GeoUtilsTest.class.getClassLoader().getResource(path);
 		return Resources.toString(responsesUrl, UTF_8);
 	}
 
+	/*
+	 * The area of the intersection of two Shapes over the area of their union.
+	 */
+	static double intersectionOverUnion(TamrGeoUtils gu, Shape s1, Shape s2) {
+		double intersection = gu.getIntersectionArea(s1, s2);
+		return intersection / (gu.calculateArea(s1) + gu.calculateArea(s2) - intersection);
+	}
+
+	/*
+	 * Random points in and around the bounding box of the shape, plus the vertices of the shape (on its boundary).
+	 */
+	static List<Point> samplePoints(TamrGeoUtils gu, Shape shape, long seed, int count) {
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Rectangle bbox = shape.getBoundingBox();
+		double width = bbox.getCrossesDateLine() ? bbox.getMaxX() + 360 - bbox.getMinX() : bbox.getWidth();
+		Random random = new Random(seed);
+		List<Point> points = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			double x = bbox.getMinX() - width * 0.1 + random.nextDouble() * width * 1.2;
+			double y = bbox.getMinY() + (random.nextDouble() * 1.2 - 0.1) * bbox.getHeight();
+			x = x > 180 ? x - 360 : x < -180 ? x + 360 : x;
+			points.add(sf.pointXY(x, Math.max(-90, Math.min(90, y))));
+		}
+		List<Shape> members = new ArrayList<>();
+		if (shape instanceof ShapeCollection) {
+			members.addAll((ShapeCollection<?>) shape);
+		} else {
+			members.add(shape);
+		}
+		for (Shape member : members) {
+			if (member instanceof JtsGeometry) {
+				for (Coordinate c : ((JtsGeometry) member).getGeom().getCoordinates()) {
+					points.add(sf.pointXY(c.x, c.y));
+				}
+			}
+		}
+		return points;
+	}
+
 }
@@ -0,0 +1,137 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.exception.InvalidShapeException;
+import org.locationtech.spatial4j.shape.Circle;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+
+import com.tamr.geo.GeometryFile;
+import com.tamr.geo.GeometryFileWriter;
+import com.tamr.geo.TamrGeoUtils;
+
+class GeometryFileTest {
+
+	private static final String[] FIXTURES = { "alaska.json", "coloradoCourse.json",
+			"exaggeratedUShapedBuilding.json", "highSchoolVeryHighLat.json", "identicalBuildingCentroid1.json",
+			"largeTallAreaCrossingEquator.json", "largeWideAreaCrossingEquator.json",
+			"lineBetween2IdenticalBuildingCentroids.json", "oneStoryHouse.json", "pentagon.json", "texas.json",
+			"uShapedHumanGeneratedBuilding.json", "uShapedMLGeneratedBuilding.json" };
+
+	@Test
+	void testBytesRoundTrip() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		for (Shape shape : readFixtures(gu)) {
+			Shape read = gu.fromBytes(gu.toBytes(shape));
+			assertEquals(shape.getClass(), read.getClass());
+			assertEquals(gu.toGeoJson(shape), gu.toGeoJson(read));
+		}
+
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Point point = sf.pointXY(-97.7431, 30.2672);
+		Rectangle rectangle = sf.rect(-106.65, -93.51, 25.84, 36.5);
+		Circle circle = sf.circle(point, 0.25);
+		for (Shape shape : new Shape[] { point, rectangle, circle }) {
+			assertEquals(shape, gu.fromBytes(gu.toBytes(shape)));
+		}
+		// bytes are smaller than geoJson
+		Shape texas = gu.fromGeoJson(GeoUtilsTest.readFile("texas.json"));
+		assertThat(gu.toBytes(texas).length).isLessThan(gu.toGeoJson(texas).length());
+	}
+
+	@Test
+	void testInvalidBytes() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		byte[] bytes = gu.toBytes(gu.fromGeoJson(GeoUtilsTest.readFile("pentagon.json")));
+		assertThatThrownBy(() -> gu.fromBytes(new byte[0])).isInstanceOf(ParseException.class);
+		assertThatThrownBy(() -> gu.fromBytes(new byte[] { 1, 9 })).isInstanceOf(ParseException.class)
+				.hasMessageContaining("Unknown Shape type 9");
+		assertThatThrownBy(() -> gu.fromBytes(Arrays.copyOf(bytes, bytes.length - 3)))
+				.isInstanceOf(ParseException.class);
+		assertThatThrownBy(() -> gu.fromBytes(Arrays.copyOf(bytes, bytes.length + 1)))
+				.isInstanceOf(ParseException.class).hasMessageContaining("Unexpected bytes");
+		byte[] otherVersion = bytes.clone();
+		otherVersion[0] = 2;
+		assertThatThrownBy(() -> gu.fromBytes(otherVersion)).isInstanceOf(ParseException.class);
+	}
+
+	@Test
+	void testWriteAndReadFile() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> shapes = new ArrayList<>(readFixtures(gu));
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		shapes.add(sf.pointXY(10, 20));
+		shapes.add(sf.rect(-1, 1, -2, 2));
+		// spatial4j's own line strings are not JTS geometries
+		Shape buffered = SpatialContext.GEO.getShapeFactory().lineString().pointXY(0, 0).pointXY(1, 1).buffer(0.5)
+				.build();
+		Path file = Files.createTempFile("shapes", ".bin");
+		try {
+			try (GeometryFileWriter out = gu.writeGeometryFile(file)) {
+				for (int i = 0; i < shapes.size(); i++) {
+					assertEquals(i, out.add(shapes.get(i)));
+					// a Shape that can not be written leaves nothing of itself in the file
+					assertThatThrownBy(() -> out.add(buffered)).isInstanceOf(InvalidShapeException.class);
+				}
+				assertEquals(shapes.size(), out.size());
+			}
+			try (GeometryFile in = gu.readGeometryFile(file)) {
+				assertEquals(shapes.size(), in.size());
+				// random access, in any order
+				for (int i = shapes.size() - 1; i >= 0; i--) {
+					assertEquals(gu.toGeoJson(shapes.get(i)), gu.toGeoJson(in.getShape(i)));
+				}
+				assertEquals(shapes.stream().map(gu::toGeoJson).collect(Collectors.toList()),
+						in.stream().map(gu::toGeoJson).collect(Collectors.toList()));
+				assertThatThrownBy(() -> in.getShape(shapes.size())).isInstanceOf(IndexOutOfBoundsException.class);
+			}
+
+			// an empty file, and a file whose writer was not closed
+			gu.writeGeometryFile(file).close();
+			try (GeometryFile in = gu.readGeometryFile(file)) {
+				assertEquals(0, in.size());
+				assertEquals(0, in.stream().count());
+			}
+			byte[] complete = Files.readAllBytes(file);
+			Files.write(file, Arrays.copyOf(complete, complete.length - 4));
+			assertThatThrownBy(() -> gu.readGeometryFile(file)).isInstanceOf(ParseException.class);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testCollections() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> fixtures = readFixtures(gu);
+		ShapeCollection<Shape> collection = new ShapeCollection<>(fixtures, gu.getSpatialContext());
+		Shape read = gu.fromBytes(gu.toBytes(collection));
+		assertThat(read).isInstanceOf(ShapeCollection.class);
+		assertEquals(fixtures.size(), ((ShapeCollection<?>) read).size());
+		assertEquals(gu.toGeoJson(collection), gu.toGeoJson(read));
+	}
+
+	private static List<Shape> readFixtures(TamrGeoUtils gu) throws Exception {
+		List<Shape> shapes = new ArrayList<>();
+		for (String fixture : FIXTURES) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		return shapes;
+	}
+}
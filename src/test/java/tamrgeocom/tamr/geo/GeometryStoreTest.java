@@ -0,0 +1,100 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+
+import com.tamr.geo.GeometryStore;
+import com.tamr.geo.TamrGeoUtils;
+
+class GeometryStoreTest {
+
+	private static final String[] FIXTURES = { "texas.json", "alaska.json", "pentagon.json", "oneStoryHouse.json",
+			"uShapedHumanGeneratedBuilding.json", "uShapedMLGeneratedBuilding.json", "exaggeratedUShapedBuilding.json",
+			"identicalBuilding1.json", "identicalBuildingCentroid1.json", "highSchoolVeryHighLat.json",
+			"largeTallAreaCrossingEquator.json", "largeWideAreaCrossingEquator.json", "coloradoCourse.json",
+			"lineBetween2IdenticalBuildingCentroids.json" };
+
+	private static List<Shape> shapes(TamrGeoUtils gu) throws Exception {
+		List<Shape> shapes = new ArrayList<>();
+		for (String fixture : FIXTURES) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		shapes.add(sf.rect(170, -170, 50, 60));
+		shapes.add(sf.pointXY(-76.94, 38.89));
+		return shapes;
+	}
+
+	@Test
+	void testSameResultsAsShapes() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> shapes = shapes(gu);
+		GeometryStore store = new GeometryStore(gu);
+		for (int i = 0; i < shapes.size(); i++) {
+			assertEquals(i, store.add(shapes.get(i)));
+		}
+		assertEquals(shapes.size(), store.size());
+
+		int vertices = 0;
+		for (int i = 0; i < shapes.size(); i++) {
+			Shape shape = shapes.get(i);
+			String name = i < FIXTURES.length ? FIXTURES[i] : shape.toString();
+			assertEquals(gu.calculateArea(shape), store.calculateArea(i), name);
+			assertEquals(shape.getBoundingBox(), store.getBoundingBox(i), name);
+			Point centroid = gu.getCentroid(shape);
+			assertThat(store.getCentroid(i).getX()).as(name).isCloseTo(centroid.getX(), within(1e-9));
+			assertThat(store.getCentroid(i).getY()).as(name).isCloseTo(centroid.getY(), within(1e-9));
+			assertThat(store.calculateDistance(i, 0)).as(name)
+					.isCloseTo(gu.calculateDistance(centroid, gu.getCentroid(shapes.get(0))), within(1e-3));
+			assertThat(store.calculateDistance(i, centroid)).as(name).isCloseTo(0, within(1e-3));
+
+			Shape materialized = store.getShape(i);
+			assertEquals(gu.toGeoJson(shape), gu.toGeoJson(materialized), name);
+			assertEquals(gu.calculateArea(shape), gu.calculateArea(materialized), name);
+			vertices += store.getNumVertices(i);
+		}
+		assertEquals(vertices, store.getNumVertices());
+		assertEquals(762, store.getNumVertices(1));
+	}
+
+	@Test
+	void testQuantized() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> shapes = shapes(gu);
+		GeometryStore store = new GeometryStore(gu, 7);
+		for (Shape shape : shapes) {
+			store.add(shape);
+		}
+		for (int i = 0; i < shapes.size(); i++) {
+			Shape shape = shapes.get(i);
+			double area = gu.calculateArea(shape);
+			assertThat(store.calculateArea(i)).isCloseTo(area, within(Math.max(1e-6, area * 1e-3)));
+			Point centroid = gu.getCentroid(shape);
+			assertThat(store.calculateDistance(i, centroid)).isLessThan(0.05);
+			assertThat(gu.calculateArea(store.getShape(i))).isCloseTo(area, within(Math.max(1e-6, area * 1e-3)));
+		}
+	}
+
+	@Test
+	void testUnsupportedShapes() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		GeometryStore store = new GeometryStore(gu);
+		store.add(sf.pointXY(1, 2));
+		assertThatThrownBy(() -> store.add(sf.circle(1, 2, 3))).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Unsupported Shape");
+		assertEquals(1, store.size());
+		assertThatThrownBy(() -> store.getShape(1)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> new GeometryStore(gu, 8)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
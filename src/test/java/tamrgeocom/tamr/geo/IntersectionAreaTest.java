@@ -0,0 +1,120 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.ShapeFactory.PolygonBuilder;
+
+import com.tamr.geo.TamrGeoUtils;
+
+class IntersectionAreaTest {
+
+	private static final String[] FIXTURES = { "coloradoCourse.json", "exaggeratedUShapedBuilding.json",
+			"highSchoolVeryHighLat.json", "identicalBuilding1.json", "identicalBuilding2.json",
+			"identicalBuildingCentroid1.json", "largeTallAreaCrossingEquator.json",
+			"largeWideAreaCrossingEquator.json", "lineBetween2IdenticalBuildingCentroids.json", "oneStoryHouse.json",
+			"pentagon.json", "uShapedHumanGeneratedBuilding.json", "uShapedMLGeneratedBuilding.json" };
+
+	@Test
+	void testSameAreaAsIntersectionShape() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> shapes = new ArrayList<>();
+		for (String fixture : FIXTURES) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		Shape human = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedHumanGeneratedBuilding.json"));
+		Shape ml = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedMLGeneratedBuilding.json"));
+		shapes.add(gu.relocate(human, ml));
+		shapes.add(gu.getSpatialContext().getShapeFactory().rect(-76.9400, -76.9393, 38.8923, 38.8926));
+		for (Shape s1 : shapes) {
+			for (Shape s2 : shapes) {
+				assertSameArea(gu, s1, s2);
+			}
+		}
+	}
+
+	@Test
+	void testGeneratedPairs() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			double x = -76.94 + random.nextDouble() * 0.001;
+			double y = 38.89 + random.nextDouble() * 0.001;
+			// convex, concave (star shaped) and rectangular footprints, offset from none to far enough to miss
+			Shape s1 = polygon(sf, random, x, y, 3 + random.nextInt(20), random.nextBoolean());
+			double offset = random.nextInt(4) * random.nextDouble() * 0.0002;
+			Shape s2 = i % 5 == 0 ? sf.rect(x + offset, x + offset + 0.0002, y - 0.0001, y + 0.00005)
+					: polygon(sf, random, x + offset, y + offset / 2, 3 + random.nextInt(20), random.nextBoolean());
+			assertSameArea(gu, s1, s2);
+			assertSameArea(gu, s2, s1);
+			assertSameArea(gu, s1, s1);
+		}
+	}
+
+	@Test
+	void testContainedAndDisjoint() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Shape outer = sf.polygon().pointXY(0, 0).pointXY(0, 1).pointXY(0.5, 0.2).pointXY(1, 1).pointXY(1, 0)
+				.pointXY(0, 0).build();
+		Shape inner = sf.polygon().pointXY(0.1, 0.1).pointXY(0.1, 0.2).pointXY(0.2, 0.2).pointXY(0.1, 0.1).build();
+		Shape farAway = sf.polygon().pointXY(5, 5).pointXY(5, 6).pointXY(6, 6).pointXY(5, 5).build();
+		PolygonBuilder withHole = sf.polygon().pointXY(-1, -1).pointXY(-1, 2).pointXY(2, 2).pointXY(2, -1)
+				.pointXY(-1, -1);
+		withHole.hole().pointXY(0.4, 0.4).pointXY(0.4, 0.6).pointXY(0.6, 0.6).pointXY(0.6, 0.4).pointXY(0.4, 0.4)
+				.endHole();
+		Shape donut = withHole.build();
+
+		assertThat(gu.getIntersectionArea(outer, inner)).isCloseTo(gu.calculateArea(inner),
+				within(gu.calculateArea(inner) * 1e-12));
+		assertThat(gu.getIntersectionArea(inner, outer)).isCloseTo(gu.calculateArea(inner),
+				within(gu.calculateArea(inner) * 1e-12));
+		assertEquals(0.0, gu.getIntersectionArea(outer, farAway));
+		assertEquals(0.0, gu.getIntersectionArea(outer, gu.getCentroid(outer)));
+		for (Shape shape : new Shape[] { outer, inner, farAway }) {
+			assertSameArea(gu, donut, shape);
+			assertSameArea(gu, shape, donut);
+		}
+	}
+
+	private static void assertSameArea(TamrGeoUtils gu, Shape s1, Shape s2) {
+		double expected;
+		try {
+			expected = gu.calculateArea(gu.getIntersection(s1, s2));
+		} catch (RuntimeException e) {
+			// JTS can not intersect these, such as the members of a ShapeCollection
+			return;
+		}
+		assertThat(gu.getIntersectionArea(s1, s2)).isCloseTo(expected, within(1e-6 + expected * 1e-9));
+	}
+
+	// A polygon with vertices at increasing angles around its center, convex when they are at the same radius
+	private static Shape polygon(ShapeFactory sf, Random random, double x, double y, int vertices, boolean convex) {
+		PolygonBuilder builder = sf.polygon();
+		double radius = 0.0001 + random.nextDouble() * 0.0002;
+		double start = random.nextDouble() * 2 * Math.PI;
+		double[] xs = new double[vertices + 1];
+		double[] ys = new double[vertices + 1];
+		for (int i = 0; i < vertices; i++) {
+			double angle = start + 2 * Math.PI * i / vertices;
+			double r = convex ? radius : radius * (0.5 + random.nextDouble());
+			xs[i] = x + r * Math.cos(angle);
+			ys[i] = y + r * Math.sin(angle);
+		}
+		xs[vertices] = xs[0];
+		ys[vertices] = ys[0];
+		for (int i = 0; i <= vertices; i++) {
+			builder.pointXY(xs[i], ys[i]);
+		}
+		return builder.build();
+	}
+}
@@ -0,0 +1,149 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
+
+import com.tamr.geo.LocalProjection;
+import com.tamr.geo.SurfaceArea;
+import com.tamr.geo.TamrGeoUtils;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+
+class LocalProjectionTest {
+
+	private static final String[] FOOTPRINTS = { "pentagon.json", "oneStoryHouse.json",
+			"uShapedHumanGeneratedBuilding.json", "uShapedMLGeneratedBuilding.json", "exaggeratedUShapedBuilding.json",
+			"identicalBuilding1.json", "identicalBuilding2.json", "highSchoolVeryHighLat.json" };
+
+	@Test
+	void testAreasOfFixtures() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		for (String fixture : FOOTPRINTS) {
+			Shape shape = gu.fromGeoJson(GeoUtilsTest.readFile(fixture));
+			LocalProjection projection = gu.getLocalProjection(gu.getCentroid(shape));
+			Geometry projected = projection.project(shape);
+			double exact = SurfaceArea.SPHERE.calculateArea(shape);
+			// equal-area: the planar area is the area on the sphere
+			assertThat(projection.calculateArea(projected)).as(fixture).isCloseTo(exact, within(exact * 1e-8));
+			assertThat(projection.calculateArea(projected)).as(fixture)
+					.isCloseTo(gu.calculateArea(shape), within(exact * 1e-5));
+
+			Shape back = projection.toShape(projected);
+			JtsShapeFactory sf = (JtsShapeFactory) gu.getSpatialContext().getShapeFactory();
+			Coordinate[] original = sf.getGeometryFrom(shape).getCoordinates();
+			Coordinate[] roundTrip = sf.getGeometryFrom(back).getCoordinates();
+			assertEquals(original.length, roundTrip.length);
+			for (int i = 0; i < original.length; i++) {
+				assertThat(roundTrip[i].distance(original[i])).as(fixture).isLessThan(1e-10);
+			}
+		}
+		Shape line = gu.fromGeoJson(GeoUtilsTest.readFile("lineBetween2IdenticalBuildingCentroids.json"));
+		LocalProjection projection = gu.getLocalProjection(gu.getCentroid(line));
+		assertEquals(0.0, projection.calculateArea(projection.project(line)));
+	}
+
+	@Test
+	void testIntersectionsAndHausdorffOfFixtures() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> shapes = new ArrayList<>();
+		for (String fixture : FOOTPRINTS) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		LocalProjection projection = gu.getLocalProjection(gu.getCentroid(shapes.get(2)));
+		for (Shape s1 : shapes) {
+			Geometry g1 = projection.project(s1);
+			for (Shape s2 : shapes) {
+				Geometry g2 = projection.project(s2);
+				double expected = gu.getIntersectionArea(s1, s2);
+				double area = projection.getIntersectionArea(g1, g2);
+				assertThat(area).isCloseTo(expected, within(1e-5 * Math.max(expected, 1)));
+				assertThat(projection.calculateArea(projection.getIntersection(g1, g2))).isCloseTo(area,
+						within(1e-9 * Math.max(area, 1)));
+				assertThat(gu.calculateArea(projection.toShape(projection.getIntersection(g1, g2))))
+						.isCloseTo(area, within(1e-5 * Math.max(area, 1)));
+				if (expected > 0) {
+					// the same up to the east-west stretch of degrees, a few hundredths at this latitude
+					assertThat(projection.getHausdorffSimilarity(g1, g2))
+							.isCloseTo(gu.getHausdorffSimilarity(s1, s2), within(0.05));
+				}
+			}
+		}
+		// centroids of the projected footprints are the centroids of the footprints
+		Geometry human = projection.project(shapes.get(2));
+		Geometry ml = projection.project(shapes.get(3));
+		double distance = gu.calculateDistance(gu.getCentroid(shapes.get(2)), gu.getCentroid(shapes.get(3)));
+		assertThat(projection.centroidDistance(human, ml)).isCloseTo(distance, within(0.001));
+	}
+
+	@Test
+	void testHausdorffSimilarityDoesNotDependOnLatitude() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		double[] projected = new double[2];
+		double[] geographic = new double[2];
+		int i = 0;
+		for (double lat : new double[] { 0, 60 }) {
+			// a 20 meter square and the same square 5 meters further east
+			double dLat = 20 / 111194.9;
+			double dLon = dLat / Math.cos(Math.toRadians(lat));
+			Shape square = sf.rect(10, 10 + dLon, lat, lat + dLat);
+			Shape shifted = sf.rect(10 + dLon / 4, 10 + dLon * 5 / 4, lat, lat + dLat);
+			LocalProjection projection = gu.getLocalProjection(gu.getCentroid(square));
+			projected[i] = projection.getHausdorffSimilarity(projection.project(square), projection.project(shifted));
+			geographic[i] = gu.getHausdorffSimilarity(square, shifted);
+			i++;
+		}
+		assertThat(projected[1]).isCloseTo(projected[0], within(1e-3));
+		assertThat(geographic[1]).isLessThan(geographic[0] - 0.02);
+	}
+
+	@Test
+	void testDistancesAndRegions() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Random random = new Random(3);
+		double[][] centers = { { -76.94, 38.89 }, { 10, 0 }, { 179.99, 65 }, { 20, 84.5 }, { -70, -80 } };
+		for (double[] center : centers) {
+			LocalProjection projection = gu.getLocalProjection(sf.pointXY(center[0], center[1]));
+			for (int i = 0; i < 200; i++) {
+				Point p1 = near(sf, random, center, 0.05);
+				Point p2 = near(sf, random, center, 0.05);
+				double expected = gu.calculateDistance(p1, p2);
+				assertThat(projection.calculateDistance(p1, p2)).isCloseTo(expected, within(1e-6 * expected + 1e-9));
+				assertThat(projection.centroidDistance(projection.project(p1), projection.project(p2)))
+						.isCloseTo(expected, within(1e-6 * expected + 1e-9));
+			}
+		}
+
+		LocalProjection projection = gu.getLocalProjection(sf.pointXY(-76.94, 38.89));
+		assertSame(projection, gu.getLocalProjection(sf.pointXY(-76.91, 38.81)));
+		assertNotSame(projection, gu.getLocalProjection(sf.pointXY(-76.89, 38.89)));
+		assertEquals(-76.95, projection.getCenterLon(), 1e-9);
+		assertEquals(38.85, projection.getCenterLat(), 1e-9);
+		assertEquals(89.95, gu.getLocalProjection(sf.pointXY(0, 90)).getCenterLat(), 1e-9);
+		assertEquals(179.95, gu.getLocalProjection(sf.pointXY(180, 10)).getCenterLon(), 1e-9);
+		assertSame(gu.getLocalProjection(sf.pointXY(179.99, 10)), gu.getLocalProjection(sf.pointXY(180, 10)));
+		assertThatThrownBy(() -> projection.project(sf.pointXY(103.05, -38.85)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static Point near(ShapeFactory sf, Random random, double[] center, double degrees) {
+		double x = center[0] + (random.nextDouble() - 0.5) * degrees;
+		double y = Math.min(90, center[1] + (random.nextDouble() - 0.5) * degrees);
+		return sf.pointXY(x > 180 ? x - 360 : x, y);
+	}
+}
@@ -0,0 +1,220 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.tamr.geo.Feature;
+import com.tamr.geo.FeatureReader;
+import com.tamr.geo.FeatureWriter;
+import com.tamr.geo.OperationListener;
+import com.tamr.geo.OperationMetrics;
+import com.tamr.geo.OperationMetricsMXBean;
+import com.tamr.geo.TamrGeoUtils;
+
+class OperationMetricsTest {
+
+	private final OperationMetrics metrics = OperationMetrics.getInstance();
+	private final List<String> calls = new ArrayList<>();
+	private final OperationListener listener = (operation, nanos, vertices, allocatedBytes, failure) -> calls
+			.add(operation + " " + vertices + " " + (failure == null ? "ok" : failure.getClass().getSimpleName()));
+
+	@BeforeEach
+	void enable() {
+		metrics.reset();
+		metrics.setEnabled(true);
+		metrics.addListener(listener);
+	}
+
+	@AfterEach
+	void disable() {
+		metrics.removeListener(listener);
+		metrics.setEnabled(false);
+		metrics.reset();
+	}
+
+	@Test
+	void testOperationsRecorded() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape house = gu.fromGeoJson(GeoUtilsTest.readFile("oneStoryHouse.json"));
+		Shape texas = gu.fromGeoJson(GeoUtilsTest.readFile("texas.json"));
+		int houseVertices = calls.isEmpty() ? -1 : Integer.parseInt(calls.get(0).split(" ")[1]);
+		assertThat(houseVertices).isGreaterThan(3);
+		gu.calculateArea(house);
+		gu.getIntersectionArea(house, house);
+		gu.polygonContainsPoint(texas, gu.getCentroid(texas));
+		assertThatThrownBy(() -> gu.fromGeoJson(GeoUtilsTest.readFile("InvalidFeatureCollection.json")))
+				.isInstanceOf(ParseException.class);
+
+		assertEquals("fromGeoJson " + houseVertices + " ok", calls.get(0));
+		assertEquals("calculateArea " + houseVertices + " ok", calls.get(2));
+		assertEquals("getIntersectionArea " + 2 * houseVertices + " ok", calls.get(3));
+		assertEquals("getCentroid " + calls.get(1).split(" ")[1] + " ok", calls.get(4));
+		assertThat(calls.get(5)).startsWith("polygonContainsPoint ");
+		assertEquals("fromGeoJson 0 ParseException", calls.get(6));
+
+		OperationMetricsMXBean fromGeoJson = metrics.getStatistics("fromGeoJson");
+		assertEquals(3, fromGeoJson.getCalls());
+		assertEquals(1, fromGeoJson.getFailures());
+		assertThat(fromGeoJson.getMaxVertices()).isGreaterThan(houseVertices);
+		assertThat(fromGeoJson.getMaxNanos()).isGreaterThan(0);
+		assertThat(fromGeoJson.get99thPercentileNanos()).isGreaterThanOrEqualTo(fromGeoJson.getMaxNanos());
+		assertThat(fromGeoJson.get99thPercentileNanos()).isLessThanOrEqualTo(2 * fromGeoJson.getMaxNanos());
+		long[] latencies = fromGeoJson.getLatencyHistogram();
+		assertEquals(3, sum(latencies));
+		assertEquals(3, sum(fromGeoJson.getVertexHistogram()));
+		assertThat(fromGeoJson.getAllocatedBytes()).isNotZero();
+		assertEquals(1, metrics.getStatistics("getIntersectionArea").getCalls());
+		assertThat(metrics.getAllStatistics()).containsKeys("calculateArea", "fromGeoJson", "getIntersectionArea",
+				"polygonContainsPoint");
+
+		// the same statistics in JMX
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("com.tamr.geo:type=OperationMetrics,name=fromGeoJson");
+		assertEquals(3L, server.getAttribute(name, "Calls"));
+		assertEquals(1L, server.getAttribute(name, "Failures"));
+		server.invoke(name, "reset", null, null);
+		assertEquals(0, fromGeoJson.getCalls());
+	}
+
+	@Test
+	void testSlowestCall() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		String house = GeoUtilsTest.readFile("oneStoryHouse.json");
+		String texas = GeoUtilsTest.readFile("texas.json");
+		String start = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"geometry\":" + texas
+				+ ",\"properties\":{}},";
+		// the document stalls in the middle of the second Feature, making it the slowest read though it is small
+		int stall = start.length() + house.indexOf("coordinates") + 20;
+		List<Feature> features = new ArrayList<>();
+		try (FeatureReader in = gu.readFeatures(new StallingReader(start + house + "," + house + "]}", stall, 200))) {
+			in.forEachRemaining(features::add);
+		}
+		assertEquals(3, features.size());
+		assertEquals("readFeatures 0 ok", calls.get(0));
+		int texasVertices = Integer.parseInt(calls.get(1).split(" ")[1]);
+		int houseVertices = Integer.parseInt(calls.get(2).split(" ")[1]);
+		assertThat(texasVertices).isGreaterThan(houseVertices);
+
+		OperationMetricsMXBean readFeature = metrics.getStatistics("readFeature");
+		assertEquals(3, readFeature.getCalls());
+		assertEquals(texasVertices, readFeature.getMaxVertices());
+		assertEquals(houseVertices, readFeature.getSlowestCallVertices());
+		assertThat(readFeature.getMaxNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+	}
+
+	@Test
+	void testReadsWritesAndDistancesRecorded() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape house = gu.fromGeoJson(GeoUtilsTest.readFile("oneStoryHouse.json"));
+		int houseVertices = Integer.parseInt(calls.get(0).split(" ")[1]);
+		calls.clear();
+		gu.calculateDistance(gu.getCentroid(house), gu.getCentroid(house));
+		String rounded = gu.toGeoJson(house, 7);
+		StringBuilder out = new StringBuilder();
+		gu.writeGeoJson(house, 7, out);
+		try (FeatureWriter writer = gu.writeFeatures(new StringBuilder(), 7)) {
+			writer.write(new Feature("house", house, null));
+		}
+		assertThatThrownBy(() -> gu.readFeatures(new StringReader("[]"))).isInstanceOf(ParseException.class);
+		try (FeatureReader in = gu.readFeatures(new StringReader("{\"type\":\"FeatureCollection\",\"features\":["
+				+ "{\"type\":\"Feature\",\"geometry\":" + rounded + ",\"properties\":null},{\"type\":\"Point\"}]}"))) {
+			assertThat(in.read().getShape()).isNotNull();
+			assertThatThrownBy(in::read).isInstanceOf(ParseException.class);
+		}
+
+		assertEquals("calculateDistance 2 ok", calls.get(2));
+		assertEquals("toGeoJsonRounded " + houseVertices + " ok", calls.get(3));
+		assertEquals("writeGeoJson " + houseVertices + " ok", calls.get(4));
+		assertEquals("writeFeature " + houseVertices + " ok", calls.get(5));
+		assertEquals("readFeatures 0 ParseException", calls.get(6));
+		assertEquals("readFeatures 0 ok", calls.get(7));
+		assertEquals("readFeature " + houseVertices + " ok", calls.get(8));
+		assertEquals("readFeature 0 ParseException", calls.get(9));
+		assertEquals(2, metrics.getStatistics("getCentroid").getCalls());
+		assertEquals(2, metrics.getStatistics("readFeatures").getCalls());
+		assertEquals(1, metrics.getStatistics("readFeature").getFailures());
+		assertEquals(1, metrics.getStatistics("toGeoJsonRounded").getCalls());
+	}
+
+	@Test
+	void testNothingRecordedWhenDisabled() throws Exception {
+		metrics.setEnabled(false);
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape house = gu.fromGeoJson(GeoUtilsTest.readFile("oneStoryHouse.json"));
+		gu.relocate(house, house);
+		assertThat(calls).isEmpty();
+		for (OperationMetricsMXBean operation : metrics.getAllStatistics().values()) {
+			assertEquals(0, operation.getCalls());
+		}
+	}
+
+	@Test
+	void testFailingListenerIgnored() throws Exception {
+		OperationListener failing = (operation, nanos, vertices, allocatedBytes, failure) -> {
+			throw new IllegalStateException();
+		};
+		metrics.addListener(failing);
+		try {
+			TamrGeoUtils gu = new TamrGeoUtils();
+			Shape house = gu.fromGeoJson(GeoUtilsTest.readFile("oneStoryHouse.json"));
+			assertEquals(gu.toGeoJson(house), gu.toGeoJson(gu.relocate(house, house)));
+			assertEquals(4, calls.size());
+		} finally {
+			metrics.removeListener(failing);
+		}
+	}
+
+	/*
+	 * Reads a String, stopping for a while once the reader has been read up to a position.
+	 */
+	private static class StallingReader extends StringReader {
+		private final int stall;
+		private final long millis;
+		private int position;
+
+		StallingReader(String s, int stall, long millis) {
+			super(s);
+			this.stall = stall;
+			this.millis = millis;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			if (position == stall) {
+				try {
+					Thread.sleep(millis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			int n = super.read(cbuf, off, position < stall ? Math.min(len, stall - position) : len);
+			position += Math.max(n, 0);
+			return n;
+		}
+	}
+
+	private static long sum(long[] counts) {
+		long sum = 0;
+		for (long count : counts) {
+			sum += count;
+		}
+		return sum;
+	}
+}
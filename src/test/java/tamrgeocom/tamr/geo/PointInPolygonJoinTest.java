@@ -0,0 +1,106 @@
+package tamrgeocom.tamr.geo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+
+import com.tamr.geo.PointInPolygonJoin;
+import com.tamr.geo.TamrGeoUtils;
+
+class PointInPolygonJoinTest {
+
+	/*
+	 * A grid of triangular "counties" covering -110..-100, 30..40, plus the fixtures.
+	 */
+	private static List<Shape> polygons(TamrGeoUtils gu) throws Exception {
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		List<Shape> polygons = new ArrayList<>();
+		for (int x = -110; x < -100; x++) {
+			for (int y = 30; y < 40; y++) {
+				polygons.add(sf.polygon().pointXY(x, y).pointXY(x + 1, y).pointXY(x + 1, y + 1).pointXY(x, y).build());
+				polygons.add(sf.polygon().pointXY(x, y).pointXY(x + 1, y + 1).pointXY(x, y + 1).pointXY(x, y).build());
+			}
+		}
+		for (String fixture : new String[] { "texas.json", "alaska.json", "pentagon.json" }) {
+			polygons.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		return polygons;
+	}
+
+	private static List<Point> points(TamrGeoUtils gu, List<Shape> polygons, int count) {
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Random random = new Random(42L);
+		List<Point> points = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			switch (i % 4) {
+			case 0:
+				// in or near the grid and texas
+				points.add(sf.pointXY(-112 + random.nextDouble() * 20, 25 + random.nextDouble() * 17));
+				break;
+			case 1:
+				// in or near alaska
+				double x = 170 + random.nextDouble() * 40;
+				points.add(sf.pointXY(x > 180 ? x - 360 : x, 50 + random.nextDouble() * 22));
+				break;
+			case 2:
+				// on the grid lines, on the boundary of several polygons
+				points.add(sf.pointXY(-110 + random.nextInt(11), 30 + random.nextDouble() * 10));
+				break;
+			default:
+				// the center of one of the polygons
+				points.add(polygons.get(random.nextInt(polygons.size())).getCenter());
+			}
+		}
+		return points;
+	}
+
+	private static int bruteForce(TamrGeoUtils gu, List<Shape> polygons, Point p) {
+		for (int i = 0; i < polygons.size(); i++) {
+			if (gu.polygonContainsPoint(polygons.get(i), p)) {
+				return i;
+			}
+		}
+		return PointInPolygonJoin.NO_POLYGON;
+	}
+
+	@Test
+	void testJoinMatchesBruteForce() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> polygons = polygons(gu);
+		List<Point> points = points(gu, polygons, 2000);
+		int[] expected = new int[points.size()];
+		for (int i = 0; i < points.size(); i++) {
+			expected[i] = bruteForce(gu, polygons, points.get(i));
+		}
+
+		PointInPolygonJoin join = new PointInPolygonJoin(gu, polygons);
+		assertEquals(polygons.size(), join.size());
+		assertArrayEquals(expected, join.join(points));
+		assertArrayEquals(expected, join.join(points.stream()).toArray());
+		assertArrayEquals(expected, join.join(points.parallelStream()).toArray());
+
+		assertTrue(Arrays.stream(expected).anyMatch(id -> id == PointInPolygonJoin.NO_POLYGON));
+		assertTrue(Arrays.stream(expected).anyMatch(id -> id == polygons.size() - 2), "alaska");
+	}
+
+	@Test
+	void testPointOnSharedBoundary() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		PointInPolygonJoin join = new PointInPolygonJoin(gu, polygons(gu));
+		// the corner shared by the first few grid triangles goes to the first of them
+		assertEquals(0, join.find(sf.pointXY(-110, 30)));
+		assertEquals(1, join.find(sf.pointXY(-109.9, 30.5)));
+		assertEquals(PointInPolygonJoin.NO_POLYGON, join.find(sf.pointXY(0, 0)));
+	}
+}
@@ -0,0 +1,143 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.ShapeFactory.PolygonBuilder;
+
+import com.tamr.geo.PreparedPolygon;
+import com.tamr.geo.TamrGeoUtils;
+
+class PreparedPolygonTest {
+
+	private static final String[] FIXTURES = { "texas.json", "alaska.json", "pentagon.json",
+			"uShapedHumanGeneratedBuilding.json", "exaggeratedUShapedBuilding.json", "oneStoryHouse.json",
+			"largeWideAreaCrossingEquator.json", "highSchoolVeryHighLat.json", "coloradoCourse.json" };
+
+	@Test
+	void testContainsPointMatchesPolygonContainsPoint() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		for (String fixture : FIXTURES) {
+			Shape shape = gu.fromGeoJson(GeoUtilsTest.readFile(fixture));
+			PreparedPolygon prepared = gu.preparePolygon(shape);
+			assertSame(shape, prepared.getShape());
+			int contained = 0;
+			for (Point p : GeoUtilsTest.samplePoints(gu, shape, 42L, 2000)) {
+				boolean expected = gu.polygonContainsPoint(shape, p);
+				assertEquals(expected, prepared.containsPoint(p), fixture + " " + p);
+				contained += expected ? 1 : 0;
+			}
+			assertTrue(contained > 0, fixture);
+		}
+	}
+
+	@Test
+	void testCentroids() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape alaska = gu.fromGeoJson(GeoUtilsTest.readFile("alaska.json"));
+		assertTrue(gu.preparePolygon(alaska).containsPoint(gu.getCentroid(alaska)));
+		Shape uShaped = gu.fromGeoJson(GeoUtilsTest.readFile("exaggeratedUShapedBuilding.json"));
+		assertFalse(gu.preparePolygon(uShaped).containsPoint(gu.getCentroid(uShaped)));
+	}
+
+	@Test
+	void testIntersectsMatchesRelate() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		List<Shape> shapes = new ArrayList<>();
+		for (String fixture : FIXTURES) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		shapes.add(sf.rect(-100, -95, 30, 35));
+		shapes.add(sf.rect(170, -170, 50, 60));
+		shapes.add(sf.rect(-76.9405, -76.9403, 38.8926, 38.8928));
+		for (Shape polygon : shapes) {
+			PreparedPolygon prepared = gu.preparePolygon(polygon);
+			for (Shape other : shapes) {
+				assertEquals(polygon.relate(other).intersects(), prepared.intersects(other), polygon + " " + other);
+			}
+		}
+	}
+
+	@Test
+	void testSharedAcrossThreads() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape alaska = gu.fromGeoJson(GeoUtilsTest.readFile("alaska.json"));
+		List<Point> points = GeoUtilsTest.samplePoints(gu, alaska, 7L, 20000);
+		boolean[] expected = new boolean[points.size()];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = gu.polygonContainsPoint(alaska, points.get(i));
+		}
+
+		PreparedPolygon prepared = gu.preparePolygon(alaska);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Integer>> mismatches = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				mismatches.add(executor.submit(() -> {
+					int count = 0;
+					for (int i = 0; i < expected.length; i++) {
+						count += prepared.containsPoint(points.get(i)) == expected[i] ? 0 : 1;
+					}
+					return count;
+				}));
+			}
+			for (Future<Integer> m : mismatches) {
+				assertThat(m.get()).isZero();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testIntersectsSharedAcrossThreads() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		PolygonBuilder circle = sf.polygon();
+		for (int i = 0; i < 2000; i++) {
+			double angle = 2 * Math.PI * i / 2000;
+			circle.pointXY(10 * Math.cos(angle), 10 * Math.sin(angle));
+		}
+		PreparedPolygon prepared = gu.preparePolygon(circle.pointXY(10, 0).build());
+		// no vertex of either is inside the other, only their edges cross
+		Shape cross = sf.polygon().pointXY(-11, 0.00001).pointXY(11, 0.00001).pointXY(11, 0.00002)
+				.pointXY(-11, 0.00002).pointXY(-11, 0.00001).build();
+		Shape miss = sf.polygon().pointXY(9.5, 9.5).pointXY(9.9, 9.5).pointXY(9.9, 9.9).pointXY(9.5, 9.9)
+				.pointXY(9.5, 9.5).build();
+		assertTrue(prepared.intersects(cross));
+		assertFalse(prepared.intersects(miss));
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Integer>> mismatches = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				mismatches.add(executor.submit(() -> {
+					int count = 0;
+					for (int i = 0; i < 100000; i++) {
+						count += prepared.intersects(cross) && !prepared.intersects(miss) ? 0 : 1;
+					}
+					return count;
+				}));
+			}
+			for (Future<Integer> m : mismatches) {
+				assertThat(m.get()).isZero();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
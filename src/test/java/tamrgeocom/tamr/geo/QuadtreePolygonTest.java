@@ -0,0 +1,168 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeCollection;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.ShapeFactory.PolygonBuilder;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+
+import com.tamr.geo.QuadtreePolygon;
+import com.tamr.geo.TamrGeoUtils;
+import com.vividsolutions.jts.geom.Geometry;
+
+class QuadtreePolygonTest {
+
+	private static final String[] FIXTURES = { "texas.json", "alaska.json", "pentagon.json",
+			"uShapedHumanGeneratedBuilding.json", "exaggeratedUShapedBuilding.json", "oneStoryHouse.json",
+			"largeWideAreaCrossingEquator.json", "highSchoolVeryHighLat.json", "coloradoCourse.json" };
+
+	@Test
+	void testContainsPointMatchesPolygonContainsPoint() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> shapes = new ArrayList<>();
+		for (String fixture : FIXTURES) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		shapes.add(donut(gu.getSpatialContext().getShapeFactory()));
+		for (Shape shape : shapes) {
+			List<Point> points = GeoUtilsTest.samplePoints(gu, shape, 42L, 2000);
+			boolean[] expected = new boolean[points.size()];
+			int contained = 0;
+			for (int i = 0; i < expected.length; i++) {
+				expected[i] = gu.polygonContainsPoint(shape, points.get(i));
+				contained += expected[i] ? 1 : 0;
+			}
+			assertTrue(contained > 0);
+			for (int maxCellEdges : new int[] { 2, 4, QuadtreePolygon.DEFAULT_MAX_CELL_EDGES }) {
+				QuadtreePolygon decomposed = gu.decomposePolygon(shape, maxCellEdges);
+				assertSame(shape, decomposed.getShape());
+				for (int i = 0; i < expected.length; i++) {
+					Point p = points.get(i);
+					assertEquals(expected[i], decomposed.containsPoint(p), () -> maxCellEdges + " " + p);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testIntersectionMatchesGetIntersection() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		// the geoJson fixture is a collection of one MultiPolygon, which getIntersection does not take
+		Shape texas = ((ShapeCollection<?>) gu.fromGeoJson(GeoUtilsTest.readFile("texas.json"))).get(0);
+		Shape pentagon = gu.fromGeoJson(GeoUtilsTest.readFile("pentagon.json"));
+		for (Shape polygon : new Shape[] { texas, donut(sf), pentagon }) {
+			QuadtreePolygon decomposed = gu.decomposePolygon(polygon, polygon == pentagon ? 32 : 8);
+			Random random = new Random(7);
+			Rectangle bbox = polygon.getBoundingBox();
+			for (int i = 0; i < 300; i++) {
+				// footprints from a few meters to a few degrees across (up to the polygon's width), in and around it
+				double x = bbox.getMinX() + (random.nextDouble() * 1.2 - 0.1) * bbox.getWidth();
+				double y = bbox.getMinY() + (random.nextDouble() * 1.2 - 0.1) * bbox.getHeight();
+				double radius = Math.pow(10, -4 + random.nextDouble() * 4.5) * Math.min(1, bbox.getWidth());
+				// rectangles and triangles are convex, so the pieces of the polygon are clipped against them
+				Shape other = i % 3 == 0 ? sf.rect(x - radius, x + radius, y - radius / 2, y + radius / 2)
+						: polygon(sf, random, x, y, radius, i % 3 == 1 ? 3 : 4 + random.nextInt(20));
+
+				double expectedArea = gu.getIntersectionArea(polygon, other);
+				assertThat(decomposed.getIntersectionArea(other)).isCloseTo(expectedArea,
+						within(1e-9 + expectedArea * 1e-8));
+
+				Geometry expected = geometry(gu.getIntersection(polygon, other));
+				Geometry actual = geometry(decomposed.getIntersection(other));
+				assertEquals(expected.isEmpty(), actual.isEmpty(), other.toString());
+				assertThat(actual.getArea()).isCloseTo(expected.getArea(), within(1e-15 + expected.getArea() * 1e-9));
+				if (expected.getArea() > 0) {
+					// plus the rounding of coordinates near 77 degrees along the edges of a footprint
+					assertThat(actual.symDifference(expected).getArea()).isLessThan(1e-17 + expected.getArea() * 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testShapeCollectionIntersectedByMember() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Shape texas = gu.fromGeoJson(GeoUtilsTest.readFile("texas.json"));
+		Shape member = ((ShapeCollection<?>) texas).get(0);
+		QuadtreePolygon decomposed = gu.decomposePolygon(texas);
+		// across the Rio Grande, entirely inside, and in the Gulf
+		for (Shape other : new Shape[] { sf.rect(-101, -100, 28.5, 30), sf.rect(-99, -98, 31, 32),
+				sf.rect(-94, -93.6, 26, 26.5) }) {
+			double expected = gu.getIntersectionArea(member, other);
+			assertThat(decomposed.getIntersectionArea(other)).isCloseTo(expected, within(1e-6 + expected * 1e-9));
+			assertThat(gu.calculateArea(decomposed.getIntersection(other))).isCloseTo(expected,
+					within(1e-6 + expected * 1e-9));
+		}
+		assertEquals(sf.rect(-99, -98, 31, 32).getArea(null),
+				gu.decomposePolygon(member).getIntersection(sf.rect(-99, -98, 31, 32)).getArea(null), 1e-12);
+	}
+
+	@Test
+	void testWidePolygonsAndOtherShapes() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Shape alaska = ((ShapeCollection<?>) gu.fromGeoJson(GeoUtilsTest.readFile("alaska.json"))).get(0);
+		Shape aleutians = sf.rect(175, 180, 50, 54);
+		assertThat(gu.decomposePolygon(alaska).getIntersectionArea(aleutians))
+				.isEqualTo(gu.getIntersectionArea(alaska, aleutians)).isGreaterThan(0);
+
+		Rectangle rect = sf.rect(-100, -95, 30, 35);
+		QuadtreePolygon decomposedRect = gu.decomposePolygon(rect);
+		assertTrue(decomposedRect.containsPoint(sf.pointXY(-97, 32)));
+		assertThat(decomposedRect.getIntersectionArea(sf.rect(-96, -94, 34, 36)))
+				.isEqualTo(gu.getIntersectionArea(rect, sf.rect(-96, -94, 34, 36)));
+
+		Shape building = gu.fromGeoJson(GeoUtilsTest.readFile("oneStoryHouse.json"));
+		Shape line = gu.fromGeoJson(GeoUtilsTest.readFile("lineBetween2IdenticalBuildingCentroids.json"));
+		assertEquals(0.0, gu.decomposePolygon(building).getIntersectionArea(line));
+		assertThatThrownBy(() -> gu.decomposePolygon(building, 0)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static Geometry geometry(Shape shape) {
+		return ((JtsGeometry) shape).getGeom();
+	}
+
+	// A square with a diamond shaped hole and a notch cut into one side
+	private static Shape donut(ShapeFactory sf) {
+		PolygonBuilder builder = sf.polygon().pointXY(10, 10).pointXY(14, 10).pointXY(14, 11.5).pointXY(13.5, 12)
+				.pointXY(14, 12.5).pointXY(14, 14).pointXY(10, 14).pointXY(10, 10);
+		builder.hole().pointXY(11, 12).pointXY(12, 11).pointXY(13, 12).pointXY(12, 13).pointXY(11, 12).endHole();
+		return builder.build();
+	}
+
+	// A polygon with vertices at increasing angles around its center
+	private static Shape polygon(ShapeFactory sf, Random random, double x, double y, double radius, int vertices) {
+		PolygonBuilder builder = sf.polygon();
+		double start = random.nextDouble() * 2 * Math.PI;
+		double[] xs = new double[vertices + 1];
+		double[] ys = new double[vertices + 1];
+		for (int i = 0; i < vertices; i++) {
+			double angle = start + 2 * Math.PI * i / vertices;
+			double r = radius * (0.5 + random.nextDouble());
+			xs[i] = x + r * Math.cos(angle);
+			ys[i] = y + r * Math.sin(angle);
+		}
+		xs[vertices] = xs[0];
+		ys[vertices] = ys[0];
+		for (int i = 0; i <= vertices; i++) {
+			builder.pointXY(xs[i], ys[i]);
+		}
+		return builder.build();
+	}
+}
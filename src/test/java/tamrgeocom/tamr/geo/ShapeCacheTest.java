@@ -0,0 +1,134 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+
+import com.tamr.geo.ShapeCache;
+import com.tamr.geo.TamrGeoUtils;
+
+class ShapeCacheTest {
+
+	private static final String[] FIXTURES = { "pentagon.json", "uShapedHumanGeneratedBuilding.json",
+			"uShapedMLGeneratedBuilding.json", "oneStoryHouse.json", "exaggeratedUShapedBuilding.json" };
+
+	private static List<Shape> shapes(TamrGeoUtils gu) throws Exception {
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		List<Shape> shapes = new ArrayList<>();
+		for (String fixture : FIXTURES) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		Shape house = shapes.get(3);
+		double x = house.getCenter().getX();
+		double y = house.getCenter().getY();
+		shapes.add(sf.rect(x - 0.0001, x + 0.0001, y - 0.0001, y + 0.0001));
+		shapes.add(sf.rect(x, x + 0.0002, y, y + 0.0001));
+		return shapes;
+	}
+
+	@Test
+	void testSameResultsAsWithoutCache() throws Exception {
+		TamrGeoUtils plain = new TamrGeoUtils();
+		ShapeCache cache = new ShapeCache(100, 1000);
+		TamrGeoUtils cached = new TamrGeoUtils(cache);
+		List<Shape> shapes = shapes(plain);
+		for (int round = 0; round < 3; round++) {
+			for (Shape s1 : shapes) {
+				assertEquals(plain.calculateArea(s1), cached.calculateArea(s1));
+				assertEquals(plain.getCentroid(s1), cached.getCentroid(s1));
+				for (Shape s2 : shapes) {
+					assertEquals(plain.getIntersectionArea(s1, s2), cached.getIntersectionArea(s1, s2));
+					assertEquals(plain.getHausdorffSimilarity(s1, s2), cached.getHausdorffSimilarity(s1, s2));
+					assertEquals(plain.calculateArea(plain.getIntersection(s1, s2)),
+							cached.calculateArea(cached.getIntersection(s1, s2)));
+					assertEquals(plain.relocate(s1, s2).getCenter(), cached.relocate(s1, s2).getCenter());
+				}
+			}
+		}
+		assertThat(cache.getShapeStats().hitRate()).isGreaterThan(0.9);
+		// three operations on each ordered pair, computed in the first round only
+		int numPairs = shapes.size() * shapes.size() * 3;
+		assertEquals(numPairs, cache.getPairStats().missCount());
+		assertEquals(numPairs * 2, cache.getPairStats().hitCount());
+		assertEquals(numPairs, cache.pairCount());
+	}
+
+	@Test
+	void testShapesAreKeyedByIdentity() throws Exception {
+		ShapeCache cache = new ShapeCache(100, 100);
+		TamrGeoUtils gu = new TamrGeoUtils(cache);
+		String geoJson = GeoUtilsTest.readFile("pentagon.json");
+		Shape pentagon = gu.fromGeoJson(geoJson);
+		Shape samePentagon = gu.fromGeoJson(geoJson);
+
+		Shape centroid = gu.getCentroid(pentagon);
+		assertSame(centroid, gu.getCentroid(pentagon));
+		assertEquals(1, cache.getShapeStats().hitCount());
+		gu.getCentroid(samePentagon);
+		assertEquals(1, cache.getShapeStats().hitCount());
+		assertEquals(2, cache.shapeCount());
+
+		Shape intersection = gu.getIntersection(pentagon, samePentagon);
+		assertSame(intersection, gu.getIntersection(pentagon, samePentagon));
+		// the pair in the other order is another entry
+		gu.getIntersection(samePentagon, pentagon);
+		assertEquals(1, cache.getPairStats().hitCount());
+		assertEquals(2, cache.getPairStats().missCount());
+
+		cache.invalidateAll();
+		assertEquals(0, cache.shapeCount());
+		assertEquals(0, cache.pairCount());
+		assertEquals(1, cache.getPairStats().hitCount());
+	}
+
+	@Test
+	void testEvictionAndLimits() throws Exception {
+		ShapeCache cache = new ShapeCache(3, 0);
+		TamrGeoUtils gu = new TamrGeoUtils(cache);
+		List<Shape> shapes = shapes(gu);
+		for (Shape s1 : shapes) {
+			gu.calculateArea(s1);
+			for (Shape s2 : shapes) {
+				gu.getIntersectionArea(s1, s2);
+			}
+		}
+		assertThat(cache.shapeCount()).isLessThanOrEqualTo(3);
+		assertThat(cache.getShapeStats().evictionCount()).isGreaterThan(0);
+		assertEquals(0, cache.pairCount());
+		assertEquals(0, cache.getPairStats().requestCount());
+
+		// Points are not cached, nothing would be gained
+		long requests = cache.getShapeStats().requestCount();
+		gu.getCentroid(gu.getSpatialContext().getShapeFactory().pointXY(1, 2));
+		assertEquals(requests, cache.getShapeStats().requestCount());
+
+		assertThatThrownBy(() -> new ShapeCache(0, 10)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new ShapeCache(10, -1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testSharedBetweenThreads() throws Exception {
+		TamrGeoUtils plain = new TamrGeoUtils();
+		ShapeCache cache = new ShapeCache(100, 1000);
+		TamrGeoUtils cached = new TamrGeoUtils(cache);
+		List<Shape> shapes = shapes(plain);
+		int n = shapes.size();
+		double[] expected = IntStream.range(0, n * n)
+				.mapToDouble(i -> plain.getHausdorffSimilarity(shapes.get(i / n), shapes.get(i % n))).toArray();
+		for (int round = 0; round < 20; round++) {
+			double[] actual = IntStream.range(0, n * n).parallel()
+					.mapToDouble(i -> cached.getHausdorffSimilarity(shapes.get(i / n), shapes.get(i % n))).toArray();
+			assertThat(actual).containsExactly(expected);
+		}
+		assertEquals(n * n, cache.pairCount());
+	}
+}
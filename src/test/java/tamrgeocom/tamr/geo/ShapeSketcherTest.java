@@ -0,0 +1,95 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+
+import com.tamr.geo.ShapeSketch;
+import com.tamr.geo.ShapeSketcher;
+import com.tamr.geo.TamrGeoUtils;
+
+class ShapeSketcherTest {
+
+	@Test
+	void testEstimatedOverlap() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeSketcher sketcher = new ShapeSketcher(gu, 0.5, 256);
+		Shape human = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedHumanGeneratedBuilding.json"));
+		Shape ml = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedMLGeneratedBuilding.json"));
+		Shape exaggerated = gu.fromGeoJson(GeoUtilsTest.readFile("exaggeratedUShapedBuilding.json"));
+		Shape identical1 = gu.fromGeoJson(GeoUtilsTest.readFile("identicalBuilding1.json"));
+		Shape identical2 = gu.fromGeoJson(GeoUtilsTest.readFile("identicalBuilding2.json"));
+		ShapeSketch humanSketch = sketcher.sketch(human);
+		ShapeSketch mlSketch = sketcher.sketch(ml);
+		ShapeSketch exaggeratedSketch = sketcher.sketch(exaggerated);
+
+		assertEquals(1.0, humanSketch.estimateIntersectionOverUnion(sketcher.sketch(human)));
+		assertThat(humanSketch.estimateIntersectionOverUnion(mlSketch))
+				.isCloseTo(GeoUtilsTest.intersectionOverUnion(gu, human, ml), within(0.15));
+		assertThat(humanSketch.estimateIntersectionOverUnion(exaggeratedSketch))
+				.isCloseTo(GeoUtilsTest.intersectionOverUnion(gu, human, exaggerated), within(0.15));
+		assertThat(humanSketch.estimateIntersectionArea(mlSketch)).isCloseTo(gu.getIntersectionArea(human, ml),
+				within(gu.calculateArea(human) * 0.2));
+		assertEquals(0.0, sketcher.sketch(identical1).estimateIntersectionOverUnion(sketcher.sketch(identical2)));
+		assertEquals(gu.calculateArea(human), humanSketch.getArea());
+	}
+
+	@Test
+	void testShapeDistance() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		ShapeSketcher sketcher = new ShapeSketcher(gu, 1);
+		Shape identical1 = gu.fromGeoJson(GeoUtilsTest.readFile("identicalBuilding1.json"));
+		Shape identical2 = gu.fromGeoJson(GeoUtilsTest.readFile("identicalBuilding2.json"));
+		Shape human = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedHumanGeneratedBuilding.json"));
+		Shape ml = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedMLGeneratedBuilding.json"));
+
+		// wherever a shape is and whatever its size
+		ShapeSketch identical = sketcher.sketch(identical1);
+		assertThat(identical.shapeDistance(sketcher.sketch(gu.relocate(identical1, human)))).isLessThan(1e-6);
+		Shape small = sf.polygon().pointXY(0, 0).pointXY(0.0001, 0).pointXY(0.0001, 0.00005).pointXY(0, 0).build();
+		Shape large = sf.polygon().pointXY(0, 0).pointXY(0.0003, 0).pointXY(0.0003, 0.00015).pointXY(0, 0).build();
+		assertThat(sketcher.sketch(small).shapeDistance(sketcher.sketch(large))).isLessThan(1e-6);
+
+		// the two nearly identical buildings are closer in shape than the U shaped ones
+		double identicalDistance = identical.shapeDistance(sketcher.sketch(identical2));
+		double uDistance = sketcher.sketch(human).shapeDistance(sketcher.sketch(ml));
+		assertThat(identicalDistance).isLessThan(uDistance);
+		assertThat(uDistance).isLessThan(sketcher.sketch(human).shapeDistance(sketcher.sketch(small)));
+	}
+
+	@Test
+	void testStoredSketches() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape pentagon = gu.fromGeoJson(GeoUtilsTest.readFile("pentagon.json"));
+		Shape texas = gu.fromGeoJson(GeoUtilsTest.readFile("texas.json"));
+		Shape line = gu.fromGeoJson(GeoUtilsTest.readFile("lineBetween2IdenticalBuildingCentroids.json"));
+		ShapeSketcher sketcher = new ShapeSketcher(gu, 2);
+
+		ShapeSketch sketch = sketcher.sketch(pentagon);
+		byte[] bytes = sketch.toBytes();
+		assertEquals(76 + 4 * ShapeSketcher.DEFAULT_NUM_HASHES, bytes.length);
+		assertEquals(sketch, ShapeSketch.fromBytes(bytes));
+		// sketches made by another sketcher with the same settings are the same
+		assertEquals(sketch, new ShapeSketcher(gu, 2).sketch(pentagon));
+		assertNotEquals(sketch, sketcher.sketch(line));
+
+		// ShapeCollections and large shapes with large enough cells, lines and points in the cell of their centroid
+		ShapeSketch texasSketch = new ShapeSketcher(gu, 10000).sketch(texas);
+		assertEquals(0.0, texasSketch.estimateIntersectionOverUnion(new ShapeSketcher(gu, 10000).sketch(pentagon)));
+		assertEquals(0.0, sketcher.sketch(line).getArea());
+		assertThatThrownBy(() -> sketcher.sketch(texas)).isInstanceOf(IllegalArgumentException.class);
+		Shape acrossDateline = gu.getSpatialContext().getShapeFactory().rect(179.9999, -179.9999, 10, 10.0001);
+		assertThatThrownBy(() -> sketcher.sketch(acrossDateline)).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("dateline");
+		assertThatThrownBy(() -> sketch.estimateIntersectionOverUnion(texasSketch))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ShapeSketch.fromBytes(new byte[10])).isInstanceOf(IllegalArgumentException.class);
+	}
+}
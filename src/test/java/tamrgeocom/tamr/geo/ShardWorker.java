@@ -0,0 +1,54 @@
+package tamrgeocom.tamr.geo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.tamr.geo.CandidatePairs;
+import com.tamr.geo.CellPartitioner;
+import com.tamr.geo.GeometryFile;
+import com.tamr.geo.TamrGeoUtils;
+
+/**
+ * One worker of the multi-process test in {@link CellPartitionerTest}: reads the Shapes from geometry files, finds the
+ * candidate pairs of one partition and writes them to a file as pairs of ints.
+ * <p>
+ * Arguments: level, partitions, partition, distance in meters, output file, left geometry file and optionally a right
+ * geometry file (without one the pairs are found within the left file).
+ */
+public class ShardWorker {
+
+	public static void main(String[] args) throws Exception {
+		CellPartitioner partitioner = new CellPartitioner(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+		int partition = Integer.parseInt(args[2]);
+		double distance = Double.parseDouble(args[3]);
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> left = read(gu, args[5]);
+		CandidatePairs pairs = args.length > 6
+				? partitioner.candidatePairs(left, read(gu, args[6]), distance, partition)
+				: partitioner.candidatePairs(left, distance, partition);
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(args[4])))) {
+			out.writeInt(pairs.size());
+			for (int i = 0; i < pairs.size(); i++) {
+				out.writeInt(pairs.getLeft(i));
+				out.writeInt(pairs.getRight(i));
+			}
+		}
+	}
+
+	private static List<Shape> read(TamrGeoUtils gu, String file) throws Exception {
+		try (GeometryFile shapes = gu.readGeometryFile(Paths.get(file))) {
+			List<Shape> list = new ArrayList<>(shapes.size());
+			for (int i = 0; i < shapes.size(); i++) {
+				list.add(shapes.getShape(i));
+			}
+			return list;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.ShapeFactory.PolygonBuilder;
+
+import com.tamr.geo.SimilaritySearch;
+import com.tamr.geo.TamrGeoUtils;
+
+class SimilaritySearchTest {
+
+	/*
+	 * A footprint with the given number of vertices at irregular angles and distances around a center.
+	 */
+	private static Shape footprint(ShapeFactory sf, Random random, double centerX, double centerY, int vertices) {
+		PolygonBuilder builder = sf.polygon();
+		double firstX = 0;
+		double firstY = 0;
+		for (int v = 0; v < vertices; v++) {
+			double angle = 2 * Math.PI * (v + random.nextDouble() * 0.5) / vertices;
+			double radius = 0.0001 * (0.5 + random.nextDouble());
+			double x = centerX + radius * Math.cos(angle);
+			double y = centerY + radius * Math.sin(angle);
+			if (v == 0) {
+				firstX = x;
+				firstY = y;
+			}
+			builder.pointXY(x, y);
+		}
+		return builder.pointXY(firstX, firstY).build();
+	}
+
+	/*
+	 * The candidates ranked by computing the similarity of each of them, ties ranked by index.
+	 */
+	private static int[] bruteForce(TamrGeoUtils gu, Shape query, List<Shape> candidates, int k) {
+		double[] similarities = candidates.stream().mapToDouble(c -> gu.getHausdorffSimilarity(query, c)).toArray();
+		return IntStream.range(0, candidates.size()).boxed()
+				.sorted((a, b) -> similarities[a] != similarities[b] ? Double.compare(similarities[b], similarities[a])
+						: Integer.compare(a, b))
+				.limit(k).mapToInt(Integer::intValue).toArray();
+	}
+
+	@Test
+	void testSameRankingAsBruteForce() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Random random = new Random(42L);
+		List<Shape> candidates = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			double x = -76.94 + random.nextDouble() * 0.01;
+			double y = 38.89 + random.nextDouble() * 0.01;
+			candidates.add(footprint(sf, random, x, y, 4 + random.nextInt(12)));
+		}
+		// duplicates, so some candidates are equally similar
+		candidates.add(candidates.get(7));
+		candidates.add(candidates.get(3));
+		SimilaritySearch search = new SimilaritySearch(gu, candidates);
+		assertEquals(candidates.size(), search.size());
+
+		for (int q = 0; q < 20; q++) {
+			Shape query = q < 5 ? candidates.get(q) : footprint(sf, random, -76.94 + random.nextDouble() * 0.01,
+					38.89 + random.nextDouble() * 0.01, 4 + random.nextInt(12));
+			for (int k : new int[] { 1, 3, 10, candidates.size() }) {
+				double[] similarities = new double[k];
+				int[] found = search.mostSimilar(query, k, similarities);
+				assertArrayEquals(bruteForce(gu, query, candidates, k), found);
+				for (int n = 0; n < found.length; n++) {
+					assertEquals(gu.getHausdorffSimilarity(query, candidates.get(found[n])), similarities[n]);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testCandidatesWithoutGeometry() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		List<Shape> candidates = new ArrayList<>();
+		for (String fileName : new String[] { "identicalBuilding1.json", "texas.json", "identicalBuilding2.json",
+				"uShapedHumanGeneratedBuilding.json" }) {
+			candidates.add(gu.fromGeoJson(GeoUtilsTest.readFile(fileName)));
+		}
+		SimilaritySearch search = new SimilaritySearch(gu, candidates);
+		Shape query = gu.fromGeoJson(GeoUtilsTest.readFile("identicalBuilding1.json"));
+
+		// texas has no Geometry and is never returned, even when more candidates are asked for than there are
+		int[] found = search.mostSimilar(query, 10);
+		assertThat(found).hasSize(3).doesNotContain(1);
+		assertEquals(0, found[0]);
+		assertArrayEquals(Arrays.copyOf(found, 1), search.mostSimilar(query, 1));
+		assertThat(search.mostSimilar(query, 0)).isEmpty();
+
+		assertThatThrownBy(() -> search.mostSimilar(query, -1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> search.mostSimilar(query, 3, new double[2]))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
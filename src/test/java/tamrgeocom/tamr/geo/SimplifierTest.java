@@ -0,0 +1,76 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+
+import com.tamr.geo.Feature;
+import com.tamr.geo.Simplification;
+import com.tamr.geo.Simplifier;
+import com.tamr.geo.TamrGeoUtils;
+
+class SimplifierTest {
+
+	@Test
+	void testSimplifyLargeShapes() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		for (String fixture : new String[] { "texas.json", "alaska.json" }) {
+			Shape shape = gu.fromGeoJson(GeoUtilsTest.readFile(fixture));
+			Simplification simplified = new Simplifier(gu, 5000).simplify(shape);
+			assertSame(shape, simplified.getOriginal());
+			assertThat(simplified.getVertices()).as(fixture).isLessThan(simplified.getOriginalVertices());
+			assertThat(simplified.getVertexReduction()).as(fixture).isGreaterThan(0.3);
+			assertThat(simplified.getAreaError()).as(fixture).isCloseTo(0.0, within(0.01));
+			// Douglas-Peucker keeps removed vertices within the tolerance, the densified edges may stray a little more
+			assertThat(simplified.getHausdorffDistance()).as(fixture).isGreaterThan(0).isLessThan(5500);
+			// the simplified Shape works with the other operations
+			Point centroid = gu.getCentroid(simplified.getShape());
+			assertThat(gu.calculateDistance(centroid, gu.getCentroid(shape))).as(fixture).isLessThan(5000);
+		}
+	}
+
+	@Test
+	void testToleranceInMeters() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape building = gu.fromGeoJson(GeoUtilsTest.readFile("uShapedHumanGeneratedBuilding.json"));
+		// the footprint's edges are meters long, a centimeter tolerance keeps all but the collinear vertices
+		Simplification unchanged = new Simplifier(gu, 0.01).simplify(building);
+		assertEquals(unchanged.getOriginalVertices(), unchanged.getVertices());
+		assertThat(unchanged.getHausdorffDistance()).isLessThan(1e-6);
+		assertEquals(0.0, unchanged.getVertexReduction());
+
+		Simplification coarse = new Simplifier(gu, 2).simplify(building);
+		assertThat(coarse.getVertices()).isLessThan(coarse.getOriginalVertices());
+		assertThat(coarse.getHausdorffDistance()).isLessThan(3);
+
+		Point point = gu.getCentroid(building);
+		Simplification pointSimplified = new Simplifier(gu, 2).simplify(point);
+		assertSame(point, pointSimplified.getShape());
+		assertEquals(0, pointSimplified.getOriginalVertices());
+		assertEquals(0.0, pointSimplified.getAreaError());
+
+		assertThatThrownBy(() -> new Simplifier(gu, -1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testSimplifyFeatures() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape texas = gu.fromGeoJson(GeoUtilsTest.readFile("texas.json"));
+		Simplifier simplifier = new Simplifier(gu, 500);
+		Feature feature = new Feature("TX", texas, Collections.singletonMap("name", "Texas"));
+		Feature simplified = simplifier.simplify(feature);
+		assertEquals("TX", simplified.getId());
+		assertEquals(feature.getProperties(), simplified.getProperties());
+		assertEquals(gu.toGeoJson(simplifier.simplify(texas).getShape()), gu.toGeoJson(simplified.getShape()));
+		Feature noGeometry = new Feature(1, null, null);
+		assertSame(noGeometry, simplifier.simplify(noGeometry));
+	}
+}
@@ -0,0 +1,135 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+import org.locationtech.spatial4j.shape.SpatialRelation;
+
+import com.tamr.geo.CandidatePairs;
+import com.tamr.geo.SpatialIndex;
+import com.tamr.geo.TamrGeoUtils;
+
+class SpatialIndexTest {
+
+	private static List<Shape> randomRectangles(ShapeFactory sf, long seed, int count) {
+		Random random = new Random(seed);
+		List<Shape> shapes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			double x = -77 + random.nextDouble() * 0.1;
+			double y = 38.8 + random.nextDouble() * 0.1;
+			double w = random.nextDouble() * 0.002;
+			double h = random.nextDouble() * 0.002;
+			shapes.add(sf.rect(x, x + w, y, y + h));
+		}
+		return shapes;
+	}
+
+	@Test
+	void testCandidatePairsMatchBruteForce() {
+		ShapeFactory sf = new TamrGeoUtils().getSpatialContext().getShapeFactory();
+		List<Shape> shapes = randomRectangles(sf, 42L, 1500);
+		SpatialIndex index = new SpatialIndex(shapes);
+		assertEquals(1500, index.size());
+
+		CandidatePairs expected = new CandidatePairs();
+		for (int i = 0; i < shapes.size(); i++) {
+			for (int j = i + 1; j < shapes.size(); j++) {
+				if (shapes.get(i).relate(shapes.get(j)) != SpatialRelation.DISJOINT) {
+					expected.add(i, j);
+				}
+			}
+		}
+		CandidatePairs actual = index.candidatePairs(0);
+		assertTrue(expected.size() > 0);
+		assertArrayEquals(expected.toLeftArray(), actual.toLeftArray());
+		assertArrayEquals(expected.toRightArray(), actual.toRightArray());
+	}
+
+	@Test
+	void testCandidatePairsBetweenCollections() {
+		ShapeFactory sf = new TamrGeoUtils().getSpatialContext().getShapeFactory();
+		List<Shape> human = randomRectangles(sf, 42L, 500);
+		List<Shape> ml = randomRectangles(sf, 43L, 700);
+		CandidatePairs pairs = new SpatialIndex(human).candidatePairs(ml, 0);
+
+		CandidatePairs expected = new CandidatePairs();
+		for (int i = 0; i < ml.size(); i++) {
+			for (int j = 0; j < human.size(); j++) {
+				if (ml.get(i).relate(human.get(j)) != SpatialRelation.DISJOINT) {
+					expected.add(i, j);
+				}
+			}
+		}
+		assertArrayEquals(expected.toLeftArray(), pairs.toLeftArray());
+		assertArrayEquals(expected.toRightArray(), pairs.toRightArray());
+	}
+
+	@Test
+	void testQueryWithinDistance() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Random random = new Random(7L);
+		List<Point> points = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			// high latitude, where a degree of longitude is short
+			points.add(sf.pointXY(20 + random.nextDouble() * 0.05, 69.9 + random.nextDouble() * 0.05));
+		}
+		SpatialIndex index = new SpatialIndex(points);
+		double distance = 250;
+		for (int i = 0; i < 100; i++) {
+			int[] found = index.query(points.get(i), distance);
+			for (int j = 0; j < points.size(); j++) {
+				double d = gu.calculateDistance(points.get(i), points.get(j));
+				if (d <= distance) {
+					assertThat(found).contains(j);
+				} else if (Arrays.binarySearch(found, j) >= 0) {
+					// only the corners of the search box are further away than the distance
+					assertThat(d).isLessThan(distance * Math.sqrt(2) * 1.01);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testDateline() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		Shape alaska = gu.fromGeoJson(GeoUtilsTest.readFile("alaska.json"));
+		assertTrue(alaska.getBoundingBox().getCrossesDateLine());
+		List<Shape> shapes = Arrays.asList(alaska, sf.pointXY(179.9999, 0), sf.pointXY(-179.9999, 0),
+				sf.pointXY(0, 0));
+		SpatialIndex index = new SpatialIndex(shapes);
+
+		assertArrayEquals(new int[] { 0 }, index.query(sf.pointXY(179, 52), 0));
+		assertArrayEquals(new int[] { 0 }, index.query(sf.pointXY(-170, 60), 0));
+		assertArrayEquals(new int[0], index.query(sf.pointXY(0, 60), 0));
+		// about 22 meters apart across the dateline
+		assertArrayEquals(new int[] { 1, 2 }, index.query(shapes.get(1), 50));
+		assertArrayEquals(new int[] { 1 }, index.query(shapes.get(1), 10));
+
+		CandidatePairs pairs = index.candidatePairs(50);
+		assertEquals(1, pairs.size());
+		assertEquals(1, pairs.getLeft(0));
+		assertEquals(2, pairs.getRight(0));
+	}
+
+	@Test
+	void testEmptyIndex() {
+		ShapeFactory sf = new TamrGeoUtils().getSpatialContext().getShapeFactory();
+		SpatialIndex index = new SpatialIndex(new ArrayList<Shape>());
+		assertEquals(0, index.size());
+		assertEquals(0, index.query(sf.pointXY(0, 0), 1000).length);
+		assertEquals(0, index.candidatePairs(1000).size());
+	}
+}
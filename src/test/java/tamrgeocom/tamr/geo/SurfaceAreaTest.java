@@ -0,0 +1,178 @@
+package tamrgeocom.tamr.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.ShapeFactory;
+
+import com.tamr.geo.GeometryStore;
+import com.tamr.geo.SurfaceArea;
+import com.tamr.geo.TamrGeoUtils;
+
+class SurfaceAreaTest {
+
+	private static final double USGS_AREA_TEXAS = 695662000000.0;
+	private static final double USGS_AREA_ALASKA = 1717856000000.0;
+	private static final double RADIUS = 6371000;
+
+	private static final String[] FOOTPRINTS = { "pentagon.json", "oneStoryHouse.json",
+			"uShapedHumanGeneratedBuilding.json", "uShapedMLGeneratedBuilding.json", "exaggeratedUShapedBuilding.json",
+			"identicalBuilding1.json", "highSchoolVeryHighLat.json", "largeTallAreaCrossingEquator.json",
+			"largeWideAreaCrossingEquator.json" };
+
+	private static double change(double area, double expected) {
+		return Math.abs(area - expected) / expected;
+	}
+
+	@Test
+	void testUsgsAreas() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		Shape texas = gu.fromGeoJson(GeoUtilsTest.readFile("texas.json"));
+		Shape alaska = gu.fromGeoJson(GeoUtilsTest.readFile("alaska.json"));
+		assertThat(change(SurfaceArea.WGS84.calculateArea(texas), USGS_AREA_TEXAS)).isLessThan(0.0005);
+		assertThat(change(SurfaceArea.WGS84.calculateArea(alaska), USGS_AREA_ALASKA)).isLessThan(0.001);
+		// the bounding box estimate is far off for a polygon as large and as far north as alaska
+		assertThat(change(gu.calculateArea(alaska), USGS_AREA_ALASKA)).isGreaterThan(0.05);
+	}
+
+	@Test
+	void testSameAsCalculateAreaForSmallPolygons() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		for (String fixture : FOOTPRINTS) {
+			Shape shape = gu.fromGeoJson(GeoUtilsTest.readFile(fixture));
+			double area = gu.calculateArea(shape);
+			assertThat(SurfaceArea.SPHERE.calculateArea(shape)).as(fixture).isCloseTo(area, within(area * 1e-5));
+			assertThat(SurfaceArea.WGS84.calculateArea(shape)).as(fixture).isCloseTo(area, within(area * 0.005));
+		}
+		Shape line = gu.fromGeoJson(GeoUtilsTest.readFile("lineBetween2IdenticalBuildingCentroids.json"));
+		assertEquals(0.0, SurfaceArea.SPHERE.calculateArea(line));
+		assertEquals(0.0, SurfaceArea.SPHERE.calculateArea(gu.getCentroid(line)));
+	}
+
+	@Test
+	void testExactAreas() {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		double sphere = 4 * Math.PI * RADIUS * RADIUS;
+
+		// an eighth of the sphere, whichever way round the ring goes and whether or not it is closed
+		double octant = sphere / 8;
+		Shape triangle = sf.polygon().pointXY(0, 0).pointXY(90, 0).pointXY(0, 90).pointXY(0, 0).build();
+		assertThat(SurfaceArea.SPHERE.calculateArea(triangle)).isCloseTo(octant, within(octant * 1e-12));
+		double[] ring = { 0, 0, 0, 90, 90, 0 };
+		assertThat(SurfaceArea.SPHERE.ringArea(ring, 0, 3)).isCloseTo(octant, within(octant * 1e-12));
+
+		// a cap around each pole, as a ring of many short edges
+		double cap = 2 * Math.PI * RADIUS * RADIUS * (1 - Math.sin(Math.toRadians(80)));
+		double[] north = new double[3600 * 2];
+		double[] south = new double[3600 * 2];
+		for (int i = 0; i < 3600; i++) {
+			north[i * 2] = -180 + i * 0.1;
+			north[i * 2 + 1] = 80;
+			south[i * 2] = 180 - i * 0.1;
+			south[i * 2 + 1] = -80;
+		}
+		assertThat(SurfaceArea.SPHERE.ringArea(north, 0, 3600)).isCloseTo(cap, within(cap * 1e-6));
+		assertThat(SurfaceArea.SPHERE.ringArea(south, 0, 3600)).isCloseTo(cap, within(cap * 1e-6));
+
+		// a 1 meter square, as a polygon and as a rectangle
+		double side = 1 / 111194.9;
+		Shape square = sf.polygon().pointXY(-77, 45).pointXY(-77 + side, 45).pointXY(-77 + side, 45 + side)
+				.pointXY(-77, 45 + side).pointXY(-77, 45).build();
+		double squareArea = SurfaceArea.SPHERE.calculateArea(sf.rect(-77, -77 + side, 45, 45 + side));
+		assertThat(SurfaceArea.SPHERE.calculateArea(square)).isCloseTo(squareArea, within(squareArea * 1e-9));
+
+		assertThat(SurfaceArea.SPHERE.calculateArea(sf.rect(-180, 180, 0, 90))).isCloseTo(sphere / 2,
+				within(sphere * 1e-12));
+		assertThat(SurfaceArea.SPHERE.calculateArea(sf.rect(170, -170, -10, 10)))
+				.isCloseTo(SurfaceArea.SPHERE.calculateArea(sf.rect(-10, 10, -10, 10)), within(1e-3));
+		assertThat(SurfaceArea.SPHERE.calculateArea(sf.circle(0, 0, 90))).isCloseTo(sphere / 2,
+				within(sphere * 1e-12));
+		// the surface area of the WGS84 ellipsoid
+		assertThat(SurfaceArea.WGS84.calculateArea(sf.rect(-180, 180, -90, 90))).isCloseTo(510065621724088.0,
+				within(1e3));
+		assertThat(SurfaceArea.WGS84.getRadius()).isCloseTo(6371007.2, within(0.1));
+	}
+
+	@Test
+	void testShortEdges() {
+		// a triangle of long edges is summed exactly, the same triangle with its edges cut into short pieces along the
+		// great circles as trapezoids
+		for (double lat : new double[] { -35, 0, 52, 78 }) {
+			double[] corners = { 10, lat, 20, lat + 2, 14, lat + 9 };
+			double[] ring = new double[3 * 10 * 2];
+			for (int c = 0; c < 3; c++) {
+				for (int i = 0; i < 10; i++) {
+					int next = (c + 1) % 3;
+					greatCircle(corners[c * 2], corners[c * 2 + 1], corners[next * 2], corners[next * 2 + 1], i / 10.0,
+							ring, c * 10 + i);
+				}
+			}
+			double exact = SurfaceArea.SPHERE.ringArea(corners, 0, 3);
+			assertThat(SurfaceArea.SPHERE.ringArea(ring, 0, 30)).as("latitude " + lat).isCloseTo(exact,
+					within(exact * 1e-11));
+		}
+	}
+
+	/*
+	 * The point a fraction of the way along the great circle from one point to another.
+	 */
+	private static void greatCircle(double lon1, double lat1, double lon2, double lat2, double fraction,
+			double[] out, int i) {
+		double[] a = unitVector(lon1, lat1);
+		double[] b = unitVector(lon2, lat2);
+		double angle = Math.acos(a[0] * b[0] + a[1] * b[1] + a[2] * b[2]);
+		double wa = Math.sin((1 - fraction) * angle) / Math.sin(angle);
+		double wb = Math.sin(fraction * angle) / Math.sin(angle);
+		double x = wa * a[0] + wb * b[0];
+		double y = wa * a[1] + wb * b[1];
+		double z = wa * a[2] + wb * b[2];
+		out[i * 2] = Math.toDegrees(Math.atan2(y, x));
+		out[i * 2 + 1] = Math.toDegrees(Math.atan2(z, Math.hypot(x, y)));
+	}
+
+	private static double[] unitVector(double lon, double lat) {
+		double cosLat = Math.cos(Math.toRadians(lat));
+		return new double[] { cosLat * Math.cos(Math.toRadians(lon)), cosLat * Math.sin(Math.toRadians(lon)),
+				Math.sin(Math.toRadians(lat)) };
+	}
+
+	@Test
+	void testGeometryStore() throws Exception {
+		TamrGeoUtils gu = new TamrGeoUtils();
+		ShapeFactory sf = gu.getSpatialContext().getShapeFactory();
+		List<Shape> shapes = new ArrayList<>();
+		for (String fixture : new String[] { "texas.json", "alaska.json", "coloradoCourse.json" }) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		for (String fixture : FOOTPRINTS) {
+			shapes.add(gu.fromGeoJson(GeoUtilsTest.readFile(fixture)));
+		}
+		shapes.add(sf.rect(170, -170, 50, 60));
+		shapes.add(sf.pointXY(-76.94, 38.89));
+
+		GeometryStore store = new GeometryStore(gu);
+		GeometryStore quantized = new GeometryStore(gu, 7);
+		for (Shape shape : shapes) {
+			store.add(shape);
+			quantized.add(shape);
+		}
+		double[] expected = new double[shapes.size()];
+		SurfaceArea.WGS84.calculateAreas(shapes, expected);
+		double[] areas = new double[store.size()];
+		SurfaceArea.WGS84.calculateAreas(store, areas);
+		double[] quantizedAreas = new double[quantized.size()];
+		SurfaceArea.WGS84.calculateAreas(quantized, quantizedAreas);
+		for (int i = 0; i < shapes.size(); i++) {
+			assertEquals(expected[i], areas[i]);
+			assertEquals(SurfaceArea.SPHERE.calculateArea(shapes.get(i)), store.calculateArea(i, SurfaceArea.SPHERE));
+			assertThat(quantizedAreas[i]).isCloseTo(expected[i], within(expected[i] * 1e-3));
+		}
+	}
+}